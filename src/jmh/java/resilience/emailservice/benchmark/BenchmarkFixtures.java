@@ -0,0 +1,98 @@
+package resilience.emailservice.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+import resilience.emailservice.mail.EmailAddressValidator;
+import resilience.emailservice.mail.MailSenderService;
+import resilience.emailservice.mail.SMTPClient;
+import resilience.emailservice.mail.SentMailLog;
+import resilience.emailservice.mail.circuit.SmtpCircuitBreaker;
+import resilience.emailservice.mail.coalesce.RecipientCoalescer;
+import resilience.emailservice.mail.idempotency.IdempotencyCache;
+import resilience.emailservice.mail.journal.MailEventJournal;
+import resilience.emailservice.mail.limit.AdaptiveConcurrencyLimiter;
+import resilience.emailservice.mail.limit.DomainFairScheduler;
+import resilience.emailservice.mail.metrics.MailMetrics;
+import resilience.emailservice.mail.template.MailTemplateCache;
+
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 스프링 컨텍스트 없이 벤치마크 대상 빈을 application.yaml 기본값으로 조립합니다.
+ * 컨텍스트 기동, Kafka 연결 같은 잡음 없이 해당 코드 경로만 측정하기 위함입니다.
+ */
+final class BenchmarkFixtures {
+
+    // 입력이 커밋마다 달라지지 않도록 시드를 고정
+    private static final long SEED = 20250101L;
+
+    private BenchmarkFixtures() {
+    }
+
+    /** 도메인/로컬 파트 길이가 다양한 유효한 주소 count개 */
+    static String[] emails(int count) {
+        String[] domains = {"gmail.com", "outlook.com", "naver.com", "mail.example.co.kr", "corp.internal"};
+        Random random = new Random(SEED);
+        String[] emails = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder local = new StringBuilder();
+            int length = 4 + random.nextInt(16);
+            for (int j = 0; j < length; j++) {
+                local.append((char) ('a' + random.nextInt(26)));
+            }
+            if (random.nextBoolean()) {
+                local.append('.').append(random.nextInt(1000));
+            }
+            emails[i] = local + "@" + domains[random.nextInt(domains.length)];
+        }
+        return emails;
+    }
+
+    static EmailAddressValidator validator() {
+        return new EmailAddressValidator("", 10000);
+    }
+
+    static SentMailLog sentMailLog(int capacity) {
+        SentMailLog log = new SentMailLog();
+        ReflectionTestUtils.setField(log, "capacity", capacity);
+        ReflectionTestUtils.setField(log, "maxAgeMillis", 86400000L);
+        ReflectionTestUtils.invokeMethod(log, "init");
+        return log;
+    }
+
+    /** 실패하지 않고 지연도 없는 simulated 모드 SMTPClient (서킷 브레이커, 동시 전송 한도, 지표는 실제 구현) */
+    static SMTPClient zeroLatencySmtpClient(MeterRegistry registry) {
+        SMTPClient client = new SMTPClient();
+        ReflectionTestUtils.setField(client, "mode", "simulated");
+        ReflectionTestUtils.setField(client, "simulatedFailureRate", 0.0);
+        ReflectionTestUtils.setField(client, "circuitBreaker", new SmtpCircuitBreaker(false, 50, 20, 10, 1000, 10000, 3));
+        ReflectionTestUtils.setField(client, "concurrencyLimiter",
+                new AdaptiveConcurrencyLimiter(true, 8, 1, 64, 2.0, 0.9, 100, 5000, 1000, 60000, 4, 1, registry));
+        ReflectionTestUtils.setField(client, "mailMetrics", new MailMetrics(registry));
+        ReflectionTestUtils.invokeMethod(client, "init");
+        return client;
+    }
+
+    /** 지연 없는 SMTPClient를 사용하는 MailSenderService (도메인 전송 한도는 기본값대로 꺼짐) */
+    static MailSenderService mailSenderService() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MailSenderService service = new MailSenderService();
+        ReflectionTestUtils.setField(service, "recipientCoalescer",
+                new RecipientCoalescer(zeroLatencySmtpClient(registry), new MailMetrics(registry), false, 20, 50));
+        ReflectionTestUtils.setField(service, "sentMailLog", sentMailLog(10000));
+        ReflectionTestUtils.setField(service, "emailAddressValidator", validator());
+        ReflectionTestUtils.setField(service, "domainFairScheduler", new DomainFairScheduler());
+        ReflectionTestUtils.setField(service, "mailMetrics", new MailMetrics(registry));
+        ReflectionTestUtils.setField(service, "idempotencyCache", new IdempotencyCache(200000, 86400000, 60000));
+        ReflectionTestUtils.setField(service, "mailTemplateCache",
+                new MailTemplateCache(new DefaultResourceLoader(), "classpath:/mail-templates/", 256, 10000));
+        // 저널 출력은 측정 대상이 아니므로 끔
+        ReflectionTestUtils.setField(service, "mailEventJournal", new MailEventJournal(false, 8192, 1.0, registry));
+        ReflectionTestUtils.setField(service, "hedgedTemplateIds", Set.of());
+        ReflectionTestUtils.setField(service, "hedgeTransactional", false);
+        return service;
+    }
+}
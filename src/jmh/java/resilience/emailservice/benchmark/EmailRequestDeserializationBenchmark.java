@@ -0,0 +1,56 @@
+package resilience.emailservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import resilience.emailservice.mail.EmailRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka 리스너가 사용하는 JsonDeserializer로 EmailRequest를 역직렬화하는 비용.
+ * application.yaml의 spring.kafka.consumer.properties와 같은 설정으로 만듭니다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EmailRequestDeserializationBenchmark {
+
+    // 본문 길이 (바이트 수가 아니라 문자 수)
+    @Param({"0", "256", "4096"})
+    public int bodyLength;
+
+    private JsonDeserializer<Object> deserializer;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        deserializer = new JsonDeserializer<>();
+        deserializer.configure(Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "resilience.emailservice.mail,resilience.mainservice.main.mail,*",
+                JsonDeserializer.USE_TYPE_INFO_HEADERS, false,
+                JsonDeserializer.VALUE_DEFAULT_TYPE, EmailRequest.class.getName()), false);
+        String body = "가".repeat(bodyLength / 2) + "a".repeat(bodyLength - bodyLength / 2);
+        payload = ("{\"email\":\"someone.123@mail.example.co.kr\",\"emailBody\":\"" + body + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        deserializer.close();
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return deserializer.deserialize("email-send-requests", payload);
+    }
+}
@@ -0,0 +1,65 @@
+package resilience.emailservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import resilience.emailservice.mail.EmailAddressValidator;
+import resilience.emailservice.mail.MailSenderService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 이메일 주소 검증 비용.
+ * 기존 String.matches(매번 Pattern 컴파일), 미리 컴파일한 Pattern, EmailAddressValidator,
+ * 그리고 지표 기록을 포함한 MailSenderService.validateEmail을 비교합니다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EmailValidationBenchmark {
+
+    private static final String LEGACY_REGEX = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
+    private static final Pattern LEGACY_PATTERN = Pattern.compile(LEGACY_REGEX);
+
+    private String[] emails;
+    private int index;
+    private EmailAddressValidator validator;
+    private MailSenderService mailSenderService;
+
+    @Setup
+    public void setUp() {
+        emails = BenchmarkFixtures.emails(1024);
+        validator = BenchmarkFixtures.validator();
+        mailSenderService = BenchmarkFixtures.mailSenderService();
+    }
+
+    private String next() {
+        index = (index + 1) & (emails.length - 1);
+        return emails[index];
+    }
+
+    @Benchmark
+    public boolean stringMatches() {
+        return next().matches(LEGACY_REGEX);
+    }
+
+    @Benchmark
+    public boolean precompiledPattern() {
+        return LEGACY_PATTERN.matcher(next()).matches();
+    }
+
+    @Benchmark
+    public boolean emailAddressValidator() {
+        return validator.isValid(next());
+    }
+
+    @Benchmark
+    public void mailSenderServiceValidate() {
+        mailSenderService.validateEmail(next());
+    }
+}
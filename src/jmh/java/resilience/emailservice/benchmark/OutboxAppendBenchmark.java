@@ -0,0 +1,74 @@
+package resilience.emailservice.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.outbox.MailOutbox;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 아웃박스 기록(접수 + 완료 표시) 지연.
+ * fsync=false는 메모리 매핑 버퍼에 쓰는 비용만, fsync=true는 그룹 커밋으로 디스크 반영을 기다리는 비용까지 측정합니다.
+ * 스레드가 많을수록 한 번의 force를 여러 기록이 나눠 쓰는지 비교할 수 있도록 1/8 스레드로 측정합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OutboxAppendBenchmark {
+
+    @Param({"false", "true"})
+    public boolean fsync;
+
+    private Path dir;
+    private MailOutbox outbox;
+    private EmailRequest request;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("outbox-bench");
+        outbox = new MailOutbox(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outbox, "enabled", true);
+        ReflectionTestUtils.setField(outbox, "dir", dir.toString());
+        ReflectionTestUtils.setField(outbox, "segmentSize", 64 * 1024 * 1024);
+        ReflectionTestUtils.setField(outbox, "fsync", fsync);
+        ReflectionTestUtils.setField(outbox, "flushTimeoutMillis", 5000L);
+        ReflectionTestUtils.invokeMethod(outbox, "open");
+        request = new EmailRequest("someone.123@mail.example.co.kr", "안녕하세요. 벤치마크 본문입니다.");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ReflectionTestUtils.invokeMethod(outbox, "close");
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public void appendAndComplete() {
+        String id = Long.toString(sequence.incrementAndGet());
+        outbox.append(id, request);
+        outbox.markDone(id);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void appendAndCompleteContended() {
+        appendAndComplete();
+    }
+}
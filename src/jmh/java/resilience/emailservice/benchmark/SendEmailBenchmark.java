@@ -0,0 +1,54 @@
+package resilience.emailservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailSenderService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 지연 없는 SMTPClient로 MailSenderService.sendEmail 전체 경로를 측정합니다.
+ * (검증 → 도메인 전송 한도 → 서킷 브레이커 → 동시 전송 한도 → 전송 → 지표 → 성공 기록)
+ * SMTP 대기 시간이 빠진 나머지가 서비스 자체의 오버헤드입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SendEmailBenchmark {
+
+    private MailSenderService mailSenderService;
+    private EmailRequest[] requests;
+
+    @Setup
+    public void setUp() {
+        mailSenderService = BenchmarkFixtures.mailSenderService();
+        String[] emails = BenchmarkFixtures.emails(1024);
+        requests = new EmailRequest[emails.length];
+        for (int i = 0; i < emails.length; i++) {
+            requests[i] = new EmailRequest(emails[i], "안녕하세요. 벤치마크 본문입니다.");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Benchmark
+    public void sendEmail(Cursor cursor) {
+        mailSenderService.sendEmail(requests[cursor.index++ & (requests.length - 1)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void sendEmailContended(Cursor cursor) {
+        mailSenderService.sendEmail(requests[cursor.index++ & (requests.length - 1)]);
+    }
+}
@@ -0,0 +1,75 @@
+package resilience.emailservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import resilience.emailservice.mail.SentMailLog;
+import resilience.emailservice.mail.SentMailPage;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 전송 스레드가 성공 기록을 추가하는 동안 /mail/list 조회가 함께 일어나는 상황.
+ * 쓰기 3 : 읽기 1 스레드로 추가, 전체 스냅샷(getSentEmails()), 커서 페이지 조회를 측정합니다.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SentMailLogBenchmark {
+
+    private static final int CAPACITY = 10000;
+
+    private SentMailLog sentMailLog;
+    private String[] emails;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sentMailLog = BenchmarkFixtures.sentMailLog(CAPACITY);
+        emails = BenchmarkFixtures.emails(1024);
+        // 조회가 항상 가득 찬 버퍼를 대상으로 하도록 미리 채움
+        for (int i = 0; i < CAPACITY * 2; i++) {
+            sentMailLog.append(emails[i & (emails.length - 1)]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(3)
+    public long appendWhileSnapshot(Cursor cursor) {
+        return sentMailLog.append(emails[cursor.index++ & (emails.length - 1)]);
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public List<String> snapshot() {
+        return sentMailLog.snapshot();
+    }
+
+    @Benchmark
+    @Group("page")
+    @GroupThreads(3)
+    public long appendWhilePage(Cursor cursor) {
+        return sentMailLog.append(emails[cursor.index++ & (emails.length - 1)]);
+    }
+
+    @Benchmark
+    @Group("page")
+    @GroupThreads(1)
+    public SentMailPage page() {
+        return sentMailLog.page(0, 100);
+    }
+}
@@ -0,0 +1,89 @@
+package resilience.emailservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import resilience.emailservice.mail.template.MailTemplate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 템플릿 본문 작성 비용.
+ * 요청마다 원문에 String.replace를 반복해 본문 문자열을 만드는 방식과,
+ * 미리 컴파일한 MailTemplate을 SMTP 스트림(여기서는 글자 수만 세는 Writer)에 바로 렌더링하는 방식을 비교합니다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TemplateRenderBenchmark {
+
+    // 변수 사이 고정 문장의 반복 횟수 (본문 길이 조절용)
+    @Param({"1", "32"})
+    public int paragraphs;
+
+    private String source;
+    private MailTemplate template;
+    private Map<String, String> variables;
+    private CountingWriter sink;
+
+    @Setup
+    public void setUp() {
+        String paragraph = "이번 달 이용 내역을 안내해 드립니다. 자세한 내용은 아래 링크에서 확인하실 수 있습니다.\n";
+        source = "{{name}}님, 안녕하세요.\n" + paragraph.repeat(paragraphs)
+                + "주문 번호: {{orderId}}\n" + paragraph.repeat(paragraphs) + "{{link}}\n";
+        template = MailTemplate.compile("benchmark", 1L, source);
+        variables = Map.of("name", "홍길동", "orderId", "20250101-000123", "link", "https://example.com/orders/20250101-000123");
+        sink = new CountingWriter();
+    }
+
+    @Benchmark
+    public long stringReplace() throws IOException {
+        String body = source;
+        for (Map.Entry<String, String> variable : variables.entrySet()) {
+            body = body.replace("{{" + variable.getKey() + "}}", variable.getValue());
+        }
+        sink.write(body);
+        return sink.count;
+    }
+
+    @Benchmark
+    public long compiledTemplate() throws IOException {
+        template.render(sink, variables);
+        return sink.count;
+    }
+
+    @Benchmark
+    public MailTemplate compile() {
+        return MailTemplate.compile("benchmark", 1L, source);
+    }
+
+    private static final class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String text) {
+            count += text.length();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package resilience.emailservice.exception;
+
+/**
+ * 배치 전송 중 특정 레코드에서 실패했을 때 발생합니다.
+ * failedIndex 이전의 레코드는 이미 전송이 끝난 상태이므로,
+ * 호출 측은 failedIndex 레코드부터 다시 처리하면 됩니다.
+ */
+public class BatchSendException extends CustomUncheckedException {
+
+    private final int failedIndex;
+
+    public BatchSendException(String message, int failedIndex, Throwable cause) {
+        super(message, cause);
+        this.failedIndex = failedIndex;
+    }
+
+    public int getFailedIndex() {
+        return failedIndex;
+    }
+}
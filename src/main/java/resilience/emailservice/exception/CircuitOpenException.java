@@ -0,0 +1,20 @@
+package resilience.emailservice.exception;
+
+/**
+ * SMTP 서킷 브레이커가 열려 있어 전송을 시도하지 않고 바로 실패했을 때 발생합니다. (HTTP 503으로 응답)
+ * 릴레이 장애는 일시적인 문제이므로 RetryableException으로 분류합니다.
+ */
+public class CircuitOpenException extends RetryableException {
+
+    private final long retryAfterMillis;
+
+    public CircuitOpenException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /** 서킷이 half-open으로 바뀌어 다시 시도해 볼 수 있을 때까지 남은 시간 */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
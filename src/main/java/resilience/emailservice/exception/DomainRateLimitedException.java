@@ -0,0 +1,20 @@
+package resilience.emailservice.exception;
+
+/**
+ * 수신 도메인의 전송 속도 한도 때문에 mail.domain-rate.max-wait-ms 안에 전송 차례가 오지 않을 때 발생합니다. (HTTP 429로 응답)
+ * 잠시 뒤에는 보낼 수 있으므로 RetryableException으로 분류합니다.
+ */
+public class DomainRateLimitedException extends RetryableException {
+
+    private final long retryAfterMillis;
+
+    public DomainRateLimitedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /** 해당 도메인으로 다시 보낼 수 있을 때까지 예상되는 시간 */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,12 @@
+package resilience.emailservice.exception;
+
+/**
+ * 같은 멱등성 키의 요청이 아직 전송 중일 때 발생합니다. (HTTP 409로 응답)
+ * 먼저 처리 중인 요청이 실패하면 다시 보내야 하므로 버리지 않고 RetryableException으로 분류합니다.
+ * 재시도 시점에 먼저 요청이 성공해 있으면 중복으로 처리되어 전송하지 않습니다.
+ */
+public class DuplicateInFlightException extends RetryableException {
+    public DuplicateInFlightException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package resilience.emailservice.exception;
+
+/**
+ * 요청 파라미터가 허용 범위를 벗어날 때 발생합니다. (HTTP 400으로 응답)
+ * 같은 요청은 다시 보내도 결과가 같으므로 재시도하지 않습니다.
+ */
+public class InvalidRequestException extends CustomUncheckedException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package resilience.emailservice.exception;
+
+/**
+ * 템플릿이 없거나 문법 오류가 있거나 변수가 빠진 요청일 때 발생합니다.
+ * 재시도해도 결과가 같으므로 재시도하지 않습니다.
+ */
+public class InvalidTemplateException extends CustomUncheckedException {
+    public InvalidTemplateException(String message) {
+        super(message);
+    }
+}
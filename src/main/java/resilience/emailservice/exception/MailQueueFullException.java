@@ -0,0 +1,10 @@
+package resilience.emailservice.exception;
+
+/**
+ * 비동기 전송 대기열이 가득 차 더 이상 요청을 접수할 수 없을 때 발생합니다. (HTTP 429로 응답)
+ */
+public class MailQueueFullException extends CustomUncheckedException {
+    public MailQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package resilience.emailservice.exception;
+
+/**
+ * 아웃박스 기록이 mail.outbox.flush-timeout-ms 안에 디스크에 반영되지 않을 때 발생합니다. (HTTP 503으로 응답)
+ * 단건 접수는 취소되므로 디스크가 회복되면 다시 보내면 됩니다.
+ */
+public class OutboxFlushTimeoutException extends CustomUncheckedException {
+    public OutboxFlushTimeoutException(String message) {
+        super(message);
+    }
+}
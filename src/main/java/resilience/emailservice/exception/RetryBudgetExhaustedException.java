@@ -0,0 +1,21 @@
+package resilience.emailservice.exception;
+
+/**
+ * 재시도 예산(mail.retry.budget)이 바닥나 재시도하지 않고 실패로 끝낼 때 발생합니다. (HTTP 503으로 응답)
+ * 다시 재시도하면 예산을 둔 의미가 없으므로 RetryableException이 아니며, Kafka에서는 바로 DLT로 보냅니다.
+ * cause는 재시도하려던 원래 실패입니다.
+ */
+public class RetryBudgetExhaustedException extends CustomUncheckedException {
+
+    private final long retryAfterMillis;
+
+    public RetryBudgetExhaustedException(String message, long retryAfterMillis, Throwable cause) {
+        super(message, cause);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /** 지금까지 쓴 재시도가 예산 윈도우에서 빠질 때까지의 최대 시간 */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,11 @@
+package resilience.emailservice.exception;
+
+/**
+ * SMTP 동시 전송 한도와 대기열이 모두 가득 차 요청을 처리하지 않고 버렸을 때 발생합니다. (HTTP 503으로 응답)
+ * 과부하가 풀리면 성공할 수 있으므로 RetryableException으로 분류합니다.
+ */
+public class SendLimitExceededException extends RetryableException {
+    public SendLimitExceededException(String message) {
+        super(message);
+    }
+}
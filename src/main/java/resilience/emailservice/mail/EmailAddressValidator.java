@@ -0,0 +1,132 @@
+package resilience.emailservice.mail;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.mail.journal.PiiMasker;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 이메일 주소 검증기. HTTP, Kafka 등 모든 전송 경로가 같은 규칙을 사용하도록 한 곳에 모았습니다.
+ * 형식 검사는 "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$" 정규식과 같은 규칙을 문자 테이블로 직접 검사하므로
+ * 정규식 컴파일이나 객체 생성이 없습니다.
+ * 차단 도메인이 설정된 경우에만 도메인 단위 결과를 크기 제한이 있는 캐시에 보관해,
+ * 배치 안에서 같은 도메인이 반복되면 한 번만 검사합니다.
+ */
+@Component
+public class EmailAddressValidator {
+
+    private static final boolean[] LOCAL_PART_CHARS = new boolean[128];
+    private static final boolean[] DOMAIN_CHARS = new boolean[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            LOCAL_PART_CHARS[c] = DOMAIN_CHARS[c] = true;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            LOCAL_PART_CHARS[c] = DOMAIN_CHARS[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            LOCAL_PART_CHARS[c] = DOMAIN_CHARS[c] = true;
+        }
+        LOCAL_PART_CHARS['.'] = DOMAIN_CHARS['.'] = true;
+        LOCAL_PART_CHARS['-'] = DOMAIN_CHARS['-'] = true;
+        LOCAL_PART_CHARS['+'] = true;
+        LOCAL_PART_CHARS['_'] = true;
+    }
+
+    private final Set<String> blockedDomains;
+    private final int domainCacheSize;
+    // 도메인 → 차단 여부
+    private final ConcurrentHashMap<String, Boolean> domainCache = new ConcurrentHashMap<>();
+
+    public EmailAddressValidator(@Value("${mail.validation.blocked-domains:}") String blockedDomains,
+                                 @Value("${mail.validation.domain-cache-size:10000}") int domainCacheSize) {
+        this.blockedDomains = Arrays.stream(blockedDomains.split(","))
+                .map(String::trim)
+                .filter(domain -> !domain.isEmpty())
+                .map(domain -> domain.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.domainCacheSize = domainCacheSize;
+    }
+
+    /**
+     * 이메일 주소를 검증합니다. 예외 메시지의 주소는 로그에 남아도 되도록 가립니다.
+     * @throws InvalidEmailException 형식이 잘못되었거나 차단된 도메인인 경우 (재시도하지 않는 예외)
+     */
+    public void validate(String email) {
+        if (!isWellFormed(email)) {
+            throw new InvalidEmailException("유효하지 않은 이메일 주소입니다: " + PiiMasker.maskEmail(email));
+        }
+        if (!blockedDomains.isEmpty() && isBlockedDomain(email.substring(email.indexOf('@') + 1))) {
+            throw new InvalidEmailException("차단된 도메인의 이메일 주소입니다: " + PiiMasker.maskEmail(email));
+        }
+    }
+
+    public boolean isValid(String email) {
+        try {
+            validate(email);
+            return true;
+        } catch (InvalidEmailException e) {
+            return false;
+        }
+    }
+
+    /**
+     * "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$" 와 같은 규칙으로 형식만 검사합니다.
+     * (@는 정확히 하나, 앞뒤 모두 한 글자 이상, 허용 문자만 사용)
+     */
+    public static boolean isWellFormed(String email) {
+        if (email == null) {
+            return false;
+        }
+        int length = email.length();
+        int at = -1;
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                if (at >= 0) {
+                    return false;
+                }
+                at = i;
+            } else if (c >= 128 || !(at < 0 ? LOCAL_PART_CHARS[c] : DOMAIN_CHARS[c])) {
+                return false;
+            }
+        }
+        return at > 0 && at < length - 1;
+    }
+
+    // 도메인 자체 또는 상위 도메인이 차단 목록에 있으면 차단 (예: example.com 차단 시 mail.example.com도 차단)
+    private boolean isBlockedDomain(String domain) {
+        Boolean cached = domainCache.get(domain);
+        if (cached != null) {
+            return cached;
+        }
+        String normalized = domain.toLowerCase(Locale.ROOT);
+        boolean blocked = false;
+        for (int start = 0; start >= 0; start = nextLabel(normalized, start)) {
+            if (blockedDomains.contains(normalized.substring(start))) {
+                blocked = true;
+                break;
+            }
+        }
+        if (domainCacheSize > 0) {
+            if (domainCache.size() >= domainCacheSize) {
+                // 크기 제한을 넘으면 비움. 자주 나오는 도메인은 금방 다시 채워짐
+                domainCache.clear();
+            }
+            domainCache.put(domain, blocked);
+        }
+        return blocked;
+    }
+
+    private static int nextLabel(String domain, int start) {
+        int dot = domain.indexOf('.', start);
+        return dot < 0 ? -1 : dot + 1;
+    }
+}
@@ -1,8 +1,18 @@
 package resilience.emailservice.mail;
 
+import java.util.Map;
+
 public class EmailRequest {
+
+    // 멱등성 키를 담는 Kafka 레코드 헤더와 HTTP 요청 헤더 이름
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private String email;
     private String emailBody; // emailBody 필드 추가
+    private String idempotencyKey; // 중복 전송 방지 키 (선택, 없으면 Kafka/HTTP 헤더 값 사용)
+    private String templateId; // 본문 템플릿 ID (선택, 있으면 emailBody 대신 템플릿으로 본문 작성)
+    private Map<String, String> variables; // 템플릿 변수 값
+    private MailPriority priority; // 전송 우선순위 (선택, 없으면 TRANSACTIONAL. 대량 토픽/대량 접수로 들어오면 BULK)
 
     // 기본 생성자
     public EmailRequest() {
@@ -38,11 +48,67 @@ public class EmailRequest {
         this.emailBody = emailBody;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public void setTemplateId(String templateId) {
+        this.templateId = templateId;
+    }
+
+    public Map<String, String> getVariables() {
+        return variables;
+    }
+
+    public void setVariables(Map<String, String> variables) {
+        this.variables = variables;
+    }
+
+    public MailPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(MailPriority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * 우선순위가 지정되지 않았으면 들어온 레인의 우선순위로 채웁니다.
+     * @param lanePriority 요청이 들어온 토픽 또는 접수 경로의 우선순위
+     */
+    public void applyLanePriority(MailPriority lanePriority) {
+        if (priority == null) {
+            priority = lanePriority;
+        }
+    }
+
+    /**
+     * 본문에 멱등성 키가 없으면 헤더 값으로 채웁니다.
+     * @param headerValue Kafka 레코드 헤더 또는 HTTP 헤더 값 (null이면 무시)
+     */
+    public void applyIdempotencyKeyHeader(String headerValue) {
+        if ((idempotencyKey == null || idempotencyKey.isBlank()) && headerValue != null && !headerValue.isBlank()) {
+            idempotencyKey = headerValue;
+        }
+    }
+
     @Override
     public String toString() {
         return "EmailRequest{" +
                 "email='" + email + '\'' +
                 ", emailBody='" + emailBody + '\'' +
+                ", idempotencyKey='" + idempotencyKey + '\'' +
+                ", templateId='" + templateId + '\'' +
+                ", variables=" + variables +
+                ", priority=" + priority +
                 '}';
     }
 }
\ No newline at end of file
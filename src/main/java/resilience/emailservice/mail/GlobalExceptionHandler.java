@@ -2,12 +2,22 @@ package resilience.emailservice.mail;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import resilience.emailservice.exception.CircuitOpenException;
 import resilience.emailservice.exception.CustomUncheckedException;
+import resilience.emailservice.exception.DomainRateLimitedException;
+import resilience.emailservice.exception.DuplicateInFlightException;
 import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.InvalidRequestException;
+import resilience.emailservice.exception.InvalidTemplateException;
+import resilience.emailservice.exception.MailQueueFullException;
+import resilience.emailservice.exception.OutboxFlushTimeoutException;
+import resilience.emailservice.exception.RetryBudgetExhaustedException;
+import resilience.emailservice.exception.SendLimitExceededException;
 import resilience.emailservice.exception.SmtpConnectionException;
 
 @RestControllerAdvice
@@ -23,6 +33,60 @@ public class GlobalExceptionHandler {
                 .body("SMTP 연결 오류: " + ex.getMessage());
     }
 
+    // CircuitOpenException 처리 (SMTP 서킷이 열려 재시도 없이 바로 실패)
+    @ExceptionHandler(CircuitOpenException.class)
+    public ResponseEntity<String> handleCircuitOpenException(CircuitOpenException ex) {
+        logger.warn("SMTP 서킷 열림으로 요청 거절: {}", ex.getMessage());
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body("메일 서버 장애로 일시적으로 전송할 수 없습니다: " + ex.getMessage());
+    }
+
+    // DomainRateLimitedException 처리 (수신 도메인 전송 한도로 차례가 오지 않음)
+    @ExceptionHandler(DomainRateLimitedException.class)
+    public ResponseEntity<String> handleDomainRateLimitedException(DomainRateLimitedException ex) {
+        logger.warn("도메인 전송 한도로 요청 거절: {}", ex.getMessage());
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body("수신 도메인 전송 한도를 초과했습니다: " + ex.getMessage());
+    }
+
+    // DuplicateInFlightException 처리 (같은 멱등성 키의 요청이 아직 전송 중)
+    @ExceptionHandler(DuplicateInFlightException.class)
+    public ResponseEntity<String> handleDuplicateInFlightException(DuplicateInFlightException ex) {
+        logger.info("같은 멱등성 키의 요청이 전송 중: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("같은 요청이 처리 중입니다. 잠시 후 결과를 확인해 주세요: " + ex.getMessage());
+    }
+
+    // SendLimitExceededException 처리 (SMTP 동시 전송 한도 초과로 요청을 버림)
+    @ExceptionHandler(SendLimitExceededException.class)
+    public ResponseEntity<String> handleSendLimitExceededException(SendLimitExceededException ex) {
+        logger.warn("SMTP 동시 전송 한도 초과로 요청 거절: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("메일 서버가 혼잡해 잠시 후 다시 시도해 주세요: " + ex.getMessage());
+    }
+
+    // RetryBudgetExhaustedException 처리 (재시도 예산 소진으로 재시도하지 않고 실패)
+    @ExceptionHandler(RetryBudgetExhaustedException.class)
+    public ResponseEntity<String> handleRetryBudgetExhaustedException(RetryBudgetExhaustedException ex) {
+        logger.warn("재시도 예산 소진으로 요청 실패: {}", ex.getMessage());
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body("메일 서버 장애로 재시도 한도를 넘었습니다. 잠시 후 다시 시도해 주세요: " + ex.getMessage());
+    }
+
+    // OutboxFlushTimeoutException 처리 (아웃박스 디스크 반영 지연으로 접수 취소)
+    @ExceptionHandler(OutboxFlushTimeoutException.class)
+    public ResponseEntity<String> handleOutboxFlushTimeoutException(OutboxFlushTimeoutException ex) {
+        logger.warn("아웃박스 디스크 반영 지연으로 요청 거절: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("요청을 안전하게 기록하지 못했습니다. 잠시 후 다시 시도해 주세요: " + ex.getMessage());
+    }
+
     // CustomUncheckedException 처리
     @ExceptionHandler(CustomUncheckedException.class)
     public ResponseEntity<String> handleCustomUncheckedException(CustomUncheckedException ex) {
@@ -39,6 +103,30 @@ public class GlobalExceptionHandler {
                 .body("유효하지 않은 이메일 주소: " + ex.getMessage());
     }
 
+    // InvalidTemplateException 처리 (템플릿 없음, 문법 오류, 변수 누락)
+    @ExceptionHandler(InvalidTemplateException.class)
+    public ResponseEntity<String> handleInvalidTemplateException(InvalidTemplateException ex) {
+        logger.warn("템플릿 오류로 요청 거절: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body("템플릿 오류: " + ex.getMessage());
+    }
+
+    // InvalidRequestException 처리 (허용 범위를 벗어난 요청 파라미터)
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> handleInvalidRequestException(InvalidRequestException ex) {
+        logger.warn("잘못된 요청 파라미터로 요청 거절: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body("잘못된 요청: " + ex.getMessage());
+    }
+
+    // MailQueueFullException 처리 (비동기 대기열 포화)
+    @ExceptionHandler(MailQueueFullException.class)
+    public ResponseEntity<String> handleMailQueueFullException(MailQueueFullException ex) {
+        logger.warn("메일 전송 대기열 포화: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body("요청이 많아 잠시 후 다시 시도해 주세요: " + ex.getMessage());
+    }
+
     // 그 외 모든 예외 처리
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGeneralException(Exception ex) {
@@ -1,34 +1,121 @@
 package resilience.emailservice.mail;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import resilience.emailservice.mail.async.AsyncMailDispatcher;
+import resilience.emailservice.mail.async.MailSendReceipt;
+import resilience.emailservice.mail.async.MailSendStatus;
+import resilience.emailservice.mail.async.MailSendStatusRegistry;
+import resilience.emailservice.mail.bulk.BulkMailIngestor;
+import resilience.emailservice.mail.bulk.BulkReport;
+import resilience.emailservice.mail.metrics.MailMetrics;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/mail")
 public class MailController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private MailSenderService mailSenderService;
 
+    @Autowired
+    private AsyncMailDispatcher asyncMailDispatcher;
+
+    @Autowired
+    private MailSendStatusRegistry mailSendStatusRegistry;
+
+    @Autowired
+    private MailMetrics mailMetrics;
+
+    @Autowired
+    private BulkMailIngestor bulkMailIngestor;
+
     // http://localhost:8081/mail/send 로 요청
     // POST 요청으로 email을 JSON 형식으로 받습니다.
+    // 본문에 idempotencyKey가 없으면 Idempotency-Key 헤더 값을 멱등성 키로 사용합니다.
     @PostMapping("/send")
-    public String sendMail(@RequestBody EmailRequest emailRequest) {
-        mailSenderService.sendEmail(emailRequest.getEmail());
+    public String sendMail(@RequestBody EmailRequest emailRequest,
+                           @RequestHeader(value = EmailRequest.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        emailRequest.applyIdempotencyKeyHeader(idempotencyKey);
+        long start = mailMetrics.start();
+        try {
+            mailSenderService.sendEmail(emailRequest);
+            mailMetrics.recordAccept(false, start, null);
+        } catch (RuntimeException e) {
+            mailMetrics.recordAccept(false, start, e);
+            throw e;
+        }
         return "메일 전송 요청이 접수되었습니다.";
     }
 
+    // http://localhost:8081/mail/send?async=true 로 요청
+    // 검증 후 대기열에 넣고 SMTP 전송을 기다리지 않고 바로 202와 추적 ID를 반환합니다.
+    // 대기열이 가득 차면 GlobalExceptionHandler가 429로 응답합니다.
+    @PostMapping(value = "/send", params = "async=true")
+    public ResponseEntity<MailSendReceipt> sendMailAsync(@RequestBody EmailRequest emailRequest,
+                                                         @RequestHeader(value = EmailRequest.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        emailRequest.applyIdempotencyKeyHeader(idempotencyKey);
+        long start = mailMetrics.start();
+        String id;
+        try {
+            id = asyncMailDispatcher.submit(emailRequest);
+            mailMetrics.recordAccept(true, start, null);
+        } catch (RuntimeException e) {
+            mailMetrics.recordAccept(true, start, e);
+            throw e;
+        }
+        return ResponseEntity.accepted().body(MailSendReceipt.of(id));
+    }
+
+    // http://localhost:8081/mail/send/bulk?report=rejected 로 요청 (Content-Type: application/x-ndjson)
+    // 한 줄에 EmailRequest JSON 하나씩 받아 읽는 대로 비동기 대기열에 접수하고, 결과를 NDJSON으로 흘려보냅니다.
+    // report: all(모든 줄 결과), rejected(거절된 줄만, 기본값), none(요약만). 마지막 줄은 항상 요약입니다.
+    // 본문을 다 읽을 때까지 요청 스레드를 사용하므로 큰 업로드는 한 요청으로 보내는 것이 좋습니다.
+    @PostMapping(value = "/send/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void sendMailBulk(InputStream body,
+                             @RequestParam(defaultValue = "rejected") String report,
+                             HttpServletResponse response) throws IOException {
+        BulkReport bulkReport;
+        try {
+            bulkReport = BulkReport.from(report);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        bulkMailIngestor.ingest(body, response.getOutputStream(), bulkReport);
+    }
+
+    /**
+     * 비동기로 접수된 메일의 처리 상태를 조회합니다.
+     * @param id 접수 시 받은 추적 ID
+     * @return 처리 상태 (없거나 보관 기간이 지난 ID면 404)
+     */
+    @GetMapping("/status/{id}")
+    public ResponseEntity<MailSendStatus> getMailStatus(@PathVariable String id) {
+        return ResponseEntity.of(mailSendStatusRegistry.find(id));
+    }
+
     /**
-     * 성공적으로 전송된 이메일 목록 전체를 조회합니다.
-     * @return 성공한 이메일 주소 목록 (JSON 배열 형태)
+     * 성공적으로 전송된 이메일 목록을 커서 기반 페이지로 조회합니다.
+     * 응답의 nextCursor를 다음 요청의 cursor로 넘기면 이어서 조회할 수 있습니다.
+     * @param cursor 조회 시작 위치 (처음이면 0)
+     * @param limit 페이지 크기 (최대 1000)
+     * @return 성공한 이메일 주소 페이지
      */
     @GetMapping("/list")
-    public ResponseEntity<List<String>> getSentMailList() {
-        List<String> sentEmails = mailSenderService.getSentEmails();
-        return ResponseEntity.ok(sentEmails);
+    public ResponseEntity<SentMailPage> getSentMailList(@RequestParam(defaultValue = "0") long cursor,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        SentMailPage page = mailSenderService.getSentEmails(cursor, Math.clamp(limit, 1, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(page);
     }
 
 }
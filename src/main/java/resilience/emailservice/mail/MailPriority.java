@@ -0,0 +1,14 @@
+package resilience.emailservice.mail;
+
+/**
+ * 전송 우선순위. 레인(Kafka 토픽, 비동기 대기열)과 SMTP 동시 전송 슬롯의 배분을 정합니다.
+ */
+public enum MailPriority {
+    TRANSACTIONAL,  // 비밀번호 재설정, 인증 메일처럼 사용자가 기다리는 메일 (지정하지 않은 요청의 기본값)
+    BULK;           // 뉴스레터, 캠페인처럼 늦어도 되는 대량 메일. SMTP 슬롯은 가중치만큼 보장되고 남는 슬롯은 모두 사용
+
+    /** null이면 TRANSACTIONAL */
+    public static MailPriority orDefault(MailPriority priority) {
+        return priority == null ? TRANSACTIONAL : priority;
+    }
+}
@@ -1,44 +1,200 @@
 package resilience.emailservice.mail;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.BatchSendException;
+import resilience.emailservice.exception.DuplicateInFlightException;
+import resilience.emailservice.mail.coalesce.RecipientCoalescer;
+import resilience.emailservice.mail.idempotency.IdempotencyCache;
+import resilience.emailservice.mail.journal.MailEventJournal;
+import resilience.emailservice.mail.journal.MailEventType;
+import resilience.emailservice.mail.limit.DomainFairScheduler;
+import resilience.emailservice.mail.metrics.MailMetrics;
+import resilience.emailservice.mail.smtp.MailBody;
+import resilience.emailservice.mail.template.MailTemplate;
+import resilience.emailservice.mail.template.MailTemplateCache;
 
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList; // Thread-safe List
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class MailSenderService {
 
-    private static final Logger logger = LoggerFactory.getLogger(MailSenderService.class);
+    // 같은 본문/도메인의 동시 요청을 한 SMTP 트랜잭션으로 묶음 (mail.coalesce.enabled, 꺼져 있으면 SMTPClient로 바로 전송)
+    @Autowired
+    private RecipientCoalescer recipientCoalescer;
+
+    // 성공적으로 전송된 이메일 기록 (고정 크기 링 버퍼, 오래된 기록부터 덮어씀)
+    @Autowired
+    private SentMailLog sentMailLog;
+
+    @Autowired
+    private EmailAddressValidator emailAddressValidator;
+
+    // 수신 도메인별 전송 속도 제한 + 도메인 간 라운드 로빈 (mail.domain-rate.enabled)
+    @Autowired
+    private DomainFairScheduler domainFairScheduler;
+
+    @Autowired
+    private MailMetrics mailMetrics;
+
+    // 멱등성 키로 이미 전송한 요청을 SMTP 작업 전에 걸러냄 (Kafka 재시도/리밸런싱으로 인한 중복 수신 대비)
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+
+    // templateId 요청의 본문 템플릿 (한 번 컴파일해 캐시)
+    @Autowired
+    private MailTemplateCache mailTemplateCache;
 
+    // 전송 결과를 호출 스레드에서 바로 로그로 쓰지 않고 백그라운드 writer에 넘김 (주소는 가려서 기록)
     @Autowired
-    private SMTPClient smtpClient;
+    private MailEventJournal mailEventJournal;
+
+    // 트랜잭션 메일 중 이 템플릿으로 만든 메일(비밀번호 재설정 등)은 첫 릴레이가 늦으면 다른 릴레이로도 보냄 (smtp.routing.hedge)
+    @Value("${smtp.routing.hedge.template-ids:}")
+    private Set<String> hedgedTemplateIds;
 
-    // 성공적으로 전송된 이메일을 저장할 리스트 (Thread-safe)
-    private final List<String> sentEmails = new CopyOnWriteArrayList<>();
+    // true면 템플릿과 관계없이 모든 트랜잭션 메일을 헤징 전송
+    @Value("${smtp.routing.hedge.transactional:false}")
+    private boolean hedgeTransactional;
 
     public void sendEmail(String email) {
-        // 이메일 유효성 검증
-        if (email == null || !email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")) {
-            // 유효하지 않으면 재시도 없이 바로 예외 발생
-            throw new InvalidEmailException("유효하지 않은 이메일 주소입니다: " + email);
+        sendEmail(new EmailRequest(email));
+    }
+
+    /**
+     * 이메일을 전송하고 성공 목록에 추가합니다.
+     * 멱등성 키가 있고 이미 전송에 성공한 키면 아무것도 하지 않고 반환합니다.
+     * @throws DuplicateInFlightException 같은 키의 요청이 아직 전송 중 (재시도 가능)
+     * @throws resilience.emailservice.exception.InvalidTemplateException 템플릿이 없거나 변수가 빠짐 (재시도 없이 바로 발생)
+     */
+    public void sendEmail(EmailRequest emailRequest) {
+        try {
+            send(emailRequest);
+        } catch (RuntimeException e) {
+            mailEventJournal.record(MailEventType.FAILED, emailRequest.getEmail(), e);
+            throw e;
+        }
+    }
+
+    private void send(EmailRequest emailRequest) {
+        String email = emailRequest.getEmail();
+        validateEmail(email);
+        // 템플릿 오류는 SMTP 작업 전에 발생시켜 DATA 도중 실패하지 않도록 함
+        MailBody body = prepareBody(emailRequest);
+
+        String idempotencyKey = emailRequest.getIdempotencyKey();
+        if (idempotencyKey != null) {
+            switch (idempotencyCache.tryBegin(idempotencyKey)) {
+                case DUPLICATE -> {
+                    mailEventJournal.record(MailEventType.DUPLICATE, email, "key=" + idempotencyKey);
+                    mailMetrics.countDuplicate();
+                    return;
+                }
+                case IN_FLIGHT -> throw new DuplicateInFlightException("같은 멱등성 키의 요청이 전송 중입니다: " + idempotencyKey);
+                case ACQUIRED -> { }
+            }
+            try {
+                deliver(emailRequest, body);
+            } catch (RuntimeException e) {
+                idempotencyCache.abort(idempotencyKey);
+                throw e;
+            }
+            idempotencyCache.complete(idempotencyKey);
+        } else {
+            deliver(emailRequest, body);
+        }
+    }
+
+    private void deliver(EmailRequest emailRequest, MailBody body) {
+        String email = emailRequest.getEmail();
+        domainFairScheduler.acquire(email);
+
+        recipientCoalescer.send(emailRequest, body, shouldHedge(emailRequest));
+
+        long sequence = sentMailLog.append(email);
+        mailEventJournal.record(MailEventType.SENT, email, "seq=" + sequence);
+    }
+
+    // 대량 메일은 늦어도 되므로 중복 전달 위험을 감수하고 헤징하지 않음
+    private boolean shouldHedge(EmailRequest emailRequest) {
+        if (emailRequest.getPriority() == MailPriority.BULK) {
+            return false;
+        }
+        return hedgeTransactional || (emailRequest.getTemplateId() != null && hedgedTemplateIds.contains(emailRequest.getTemplateId()));
+    }
+
+    /**
+     * 접수 단계에서 요청 전체를 검증합니다. (주소 형식, 템플릿 존재 여부와 변수)
+     * @throws resilience.emailservice.exception.InvalidEmailException 유효하지 않은 주소
+     * @throws resilience.emailservice.exception.InvalidTemplateException 템플릿이 없거나 변수가 빠짐
+     */
+    public void validate(EmailRequest emailRequest) {
+        validateEmail(emailRequest.getEmail());
+        prepareBody(emailRequest);
+    }
+
+    // templateId가 있으면 emailBody 대신 컴파일된 템플릿을 DATA 스트림에 바로 렌더링
+    private MailBody prepareBody(EmailRequest emailRequest) {
+        String templateId = emailRequest.getTemplateId();
+        if (templateId == null) {
+            return MailBody.of(emailRequest.getEmailBody());
         }
+        MailTemplate template = mailTemplateCache.get(templateId);
+        Map<String, String> variables = emailRequest.getVariables() == null ? Map.of() : emailRequest.getVariables();
+        template.checkVariables(variables);
+        return out -> template.render(out, variables);
+    }
 
-        smtpClient.sendMail(email);
-        logger.info("메일 전송 성공: {}", email);
+    /**
+     * 이메일 주소 형식을 검증합니다. 비동기 접수처럼 전송 전에 먼저 검증해야 하는 곳에서도 사용합니다.
+     * @throws resilience.emailservice.exception.InvalidEmailException 유효하지 않은 주소 (재시도 없이 바로 발생)
+     */
+    public void validateEmail(String email) {
+        long start = mailMetrics.start();
+        try {
+            emailAddressValidator.validate(email);
+            mailMetrics.recordValidation(start, null);
+        } catch (RuntimeException e) {
+            mailMetrics.recordValidation(start, e);
+            throw e;
+        }
+    }
 
-        this.sentEmails.add(email);
-        logger.info("성공 목록에 추가됨: {}, 현재 목록 크기: {}", email, sentEmails.size());
+    /**
+     * 배치로 수신한 이메일 요청을 순서대로 전송합니다.
+     * 중간에 실패하면 실패한 요청의 인덱스를 담아 BatchSendException을 던집니다.
+     * (인덱스 이전 요청은 이미 전송 완료된 상태)
+     * @param emailRequests 전송할 이메일 요청 목록
+     */
+    public void sendEmailBatch(List<EmailRequest> emailRequests) {
+        for (int i = 0; i < emailRequests.size(); i++) {
+            EmailRequest emailRequest = emailRequests.get(i);
+            try {
+                sendEmail(emailRequest);
+            } catch (RuntimeException e) {
+                // 메시지가 리스너 예외와 DLT 헤더로 이어지므로 주소 대신 인덱스만 남김
+                throw new BatchSendException("배치 전송 실패 (index: " + i + ")", i, e);
+            }
+        }
     }
 
     /**
-     * 성공적으로 전송된 이메일 목록을 반환합니다.
-     * @return 성공한 이메일 주소 목록 (수정 불가능한 리스트)
+     * 보관 중인 성공 이메일 목록 전체를 반환합니다. (최대 mail.sent-log.capacity개)
+     * @return 성공한 이메일 주소 목록
      */
     public List<String> getSentEmails() {
-        return List.copyOf(this.sentEmails);
+        return sentMailLog.snapshot();
+    }
+
+    /**
+     * 성공 이메일 목록을 커서 기반으로 한 페이지씩 반환합니다.
+     * @param cursor 이전 페이지의 nextCursor (처음이면 0)
+     * @param limit 최대 개수
+     */
+    public SentMailPage getSentEmails(long cursor, int limit) {
+        return sentMailLog.page(cursor, limit);
     }
 }
\ No newline at end of file
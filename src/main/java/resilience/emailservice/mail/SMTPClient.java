@@ -1,26 +1,272 @@
 package resilience.emailservice.mail;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import resilience.emailservice.exception.InvalidEmailException;
 import resilience.emailservice.exception.SmtpConnectionException;
-import java.util.Random;
+import resilience.emailservice.mail.circuit.SmtpCircuitBreaker;
+import resilience.emailservice.mail.journal.PiiMasker;
+import resilience.emailservice.mail.limit.AdaptiveConcurrencyLimiter;
+import resilience.emailservice.mail.limit.AdaptiveConcurrencyLimiter.Outcome;
+import resilience.emailservice.mail.metrics.MailMetrics;
+import resilience.emailservice.mail.smtp.MailBody;
+import resilience.emailservice.mail.smtp.SmtpPoolSettings;
+import resilience.emailservice.mail.smtp.SmtpRelay;
+import resilience.emailservice.mail.smtp.SmtpRelayRouter;
+import resilience.emailservice.mail.smtp.SmtpReplyException;
+import resilience.emailservice.mail.smtp.SmtpRoutingSettings;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 @Component
 public class SMTPClient {
 
     private static final Logger logger = LoggerFactory.getLogger(SMTPClient.class);
 
-    private final Random random = new Random();
+    // 릴레이 장애 시 재시도 대신 바로 실패시키는 서킷 브레이커
+    @Autowired
+    private SmtpCircuitBreaker circuitBreaker;
+
+    // 관측된 지연에 따라 동시 전송 수를 조절. 가상 스레드로 요청 처리 스레드가 사실상 무제한이 되어도 릴레이를 보호합니다.
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private MailMetrics mailMetrics;
+
+    // simulated: 실제 전송 없이 90% 확률로 실패하는 예제 모드, relay: 실제 SMTP 릴레이로 전송
+    @Value("${smtp.mode:simulated}")
+    private String mode;
+
+    // simulated 모드의 실패 확률 (벤치마크/부하 테스트에서는 0으로 두어 지연 없는 SMTP로 사용)
+    @Value("${smtp.simulated.failure-rate:0.9}")
+    private double simulatedFailureRate;
+
+    // 콤마로 구분해 여러 릴레이를 지정하면 지연/오류율을 보고 나눠 보냄 (SmtpRelayRouter)
+    @Value("${smtp.relay.address:localhost:25}")
+    private String relayAddress;
+
+    @Value("${smtp.relay.start-tls:false}")
+    private boolean startTls;
+
+    @Value("${smtp.relay.helo-name:emailservice.local}")
+    private String heloName;
+
+    @Value("${smtp.from:noreply@emailservice.local}")
+    private String from;
+
+    @Value("${smtp.subject:[emailservice] 알림}")
+    private String subject;
+
+    @Value("${smtp.pool.max-connections:8}")
+    private int maxConnections;
+
+    @Value("${smtp.pool.max-lifetime-ms:300000}")
+    private long maxLifetimeMillis;
+
+    @Value("${smtp.pool.validate-after-idle-ms:5000}")
+    private long validateAfterIdleMillis;
+
+    @Value("${smtp.pool.borrow-timeout-ms:3000}")
+    private long borrowTimeoutMillis;
+
+    @Value("${smtp.pool.connect-timeout-ms:3000}")
+    private int connectTimeoutMillis;
+
+    @Value("${smtp.pool.read-timeout-ms:10000}")
+    private int readTimeoutMillis;
+
+    @Value("${smtp.routing.ewma-alpha:0.2}")
+    private double ewmaAlpha;
+
+    @Value("${smtp.routing.decay-ms:10000}")
+    private long decayMillis;
+
+    @Value("${smtp.routing.eject-after-failures:5}")
+    private int ejectAfterFailures;
+
+    @Value("${smtp.routing.ejection-ms:30000}")
+    private long ejectionMillis;
+
+    @Value("${smtp.routing.max-ejection-ms:300000}")
+    private long maxEjectionMillis;
+
+    @Value("${smtp.routing.max-ejection-percent:50}")
+    private int maxEjectionPercent;
+
+    @Value("${smtp.routing.hedge.min-delay-ms:50}")
+    private long hedgeMinDelayMillis;
+
+    private SmtpRelayRouter router;
+
+    @PostConstruct
+    void init() {
+        if ("relay".equals(mode)) {
+            SmtpPoolSettings settings = new SmtpPoolSettings(heloName, startTls, maxConnections, maxLifetimeMillis,
+                    validateAfterIdleMillis, borrowTimeoutMillis, connectTimeoutMillis, readTimeoutMillis);
+            SmtpRoutingSettings routing = new SmtpRoutingSettings(ewmaAlpha, decayMillis, ejectAfterFailures, ejectionMillis,
+                    maxEjectionMillis, maxEjectionPercent, hedgeMinDelayMillis);
+            List<SmtpRelay> relays = new ArrayList<>();
+            for (String address : relayAddress.split(",")) {
+                if (!address.isBlank()) {
+                    relays.add(SmtpRelay.parse(address));
+                }
+            }
+            router = new SmtpRelayRouter(relays, settings, routing);
+            mailMetrics.registerSmtpRelays(router);
+            logger.info("SMTP 릴레이 모드: relays={}, 릴레이당 최대 연결 수={}", relays, maxConnections);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (router != null) {
+            router.close();
+        }
+    }
 
     public void sendMail(String email) {
-        // 90% 확률로 예외 발생
-        if(random.nextDouble() < 0.9) {
-            logger.warn("SMTP 연결 실패: 서버에 접속할 수 없습니다.");
+        sendMail(email, MailBody.EMPTY);
+    }
+
+    public void sendMail(String email, String body) {
+        sendMail(email, MailBody.of(body));
+    }
+
+    /**
+     * 본문을 DATA 스트림에 바로 쓰며 전송합니다. (simulated 모드에서는 본문을 쓰지 않음)
+     */
+    public void sendMail(String email, MailBody body) {
+        sendMail(email, body, MailPriority.TRANSACTIONAL, false);
+    }
+
+    /**
+     * @param priority 동시 전송 슬롯을 기다릴 때의 우선순위 (AdaptiveConcurrencyLimiter)
+     * @param hedge true면 첫 릴레이가 최근 p95 안에 응답하지 않을 때 다른 릴레이로도 보냄 (릴레이가 여러 개일 때만, 중복 전달 가능)
+     */
+    public void sendMail(String email, MailBody body, MailPriority priority, boolean hedge) {
+        transact(priority, () -> {
+            if (router != null) {
+                sendViaRelay(email, body, hedge);
+            } else {
+                sendSimulated();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 같은 본문을 여러 수신자에게 하나의 SMTP 트랜잭션으로 보냅니다. (RCPT TO 여러 번)
+     * 수신자별 거절은 예외로 던지지 않고 결과 목록에 담으며, 트랜잭션 전체가 실패하면 예외를 던집니다.
+     * simulated 모드에서는 트랜잭션 단위로 한 번만 실패를 흉내 냅니다.
+     * @param emails 중복 없는 수신자 목록
+     * @return emails와 같은 순서의 수신자별 결과 (성공이면 null, 거절이면 InvalidEmailException 등)
+     * @throws RuntimeException 서킷 열림, 동시 전송 한도 초과, 연결 실패, MAIL FROM/DATA 거절처럼 모든 수신자에게 해당하는 실패
+     */
+    public List<RuntimeException> sendMailToEach(List<String> emails, MailBody body) {
+        return sendMailToEach(emails, body, MailPriority.TRANSACTIONAL);
+    }
+
+    public List<RuntimeException> sendMailToEach(List<String> emails, MailBody body, MailPriority priority) {
+        return transact(priority, () -> {
+            if (router != null) {
+                return sendViaRelayToEach(emails, body);
+            }
+            sendSimulated();
+            return Arrays.asList(new RuntimeException[emails.size()]);
+        });
+    }
+
+    // 서킷 브레이커, 동시 전송 한도, 지표를 적용해 SMTP 작업 하나를 실행
+    private <T> T transact(MailPriority priority, Supplier<T> work) {
+        // 서킷이 열려 있으면 여기서 CircuitOpenException으로 바로 실패
+        circuitBreaker.acquirePermission();
+        long startNanos;
+        try {
+            // 한도를 넘으면 우선순위별 대기열에서 가중치에 따라 차례를 기다리고, 대기열도 가득 차면 SendLimitExceededException(재시도 가능)으로 버림
+            startNanos = concurrencyLimiter.acquire(priority);
+        } catch (RuntimeException e) {
+            // 동시 전송 한도 초과는 릴레이 장애가 아니므로 실패율에 반영하지 않음
+            circuitBreaker.onIgnored();
+            throw e;
+        }
+        Outcome outcome = Outcome.DROPPED;
+        RuntimeException error = null;
+        try {
+            T result = work.get();
+            circuitBreaker.onSuccess();
+            outcome = Outcome.SUCCESS;
+            return result;
+        } catch (InvalidEmailException e) {
+            // 수신자 거절은 릴레이 상태와 무관
+            circuitBreaker.onIgnored();
+            outcome = Outcome.IGNORED;
+            error = e;
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            error = e;
+            throw e;
+        } finally {
+            concurrencyLimiter.release(startNanos, outcome);
+            // 한도 대기 시간을 빼고 실제 SMTP 작업 시간만 기록
+            mailMetrics.recordSmtpSend(router != null, startNanos, error);
+        }
+    }
+
+    private void sendSimulated() {
+        // 기본 90% 확률로 예외 발생 (스레드 간 경합이 없도록 ThreadLocalRandom 사용)
+        // 성공/실패 기록은 MailSenderService가 전송 이벤트 저널에 남김
+        if(ThreadLocalRandom.current().nextDouble() < simulatedFailureRate) {
             throw new SmtpConnectionException("SMTP 연결 실패: 서버에 접속할 수 없습니다.");
         }
+    }
 
-        // 정상 메일 전송 로직(예시)
-        logger.info("{}로 메일 전송 성공", email);
+    private void sendViaRelay(String email, MailBody body, boolean hedge) {
+        try {
+            router.send(from, List.of(email), subject, body, hedge);
+        } catch (SmtpReplyException e) {
+            throw rejection(email, e);
+        } catch (IOException e) {
+            throw new SmtpConnectionException("SMTP 연결 실패: " + e.getMessage());
+        }
+    }
+
+    private List<RuntimeException> sendViaRelayToEach(List<String> emails, MailBody body) {
+        Map<String, SmtpReplyException> rejected;
+        try {
+            rejected = router.sendEach(from, emails, subject, body);
+        } catch (SmtpReplyException e) {
+            throw new SmtpConnectionException("SMTP 전송 실패: " + e.getMessage());
+        } catch (IOException e) {
+            throw new SmtpConnectionException("SMTP 연결 실패: " + e.getMessage());
+        }
+        List<RuntimeException> results = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            SmtpReplyException reply = rejected.get(email);
+            results.add(reply == null ? null : rejection(email, reply));
+        }
+        return results;
+    }
+
+    private static RuntimeException rejection(String email, SmtpReplyException e) {
+        if (e.isPermanent() && e.getStage().startsWith("RCPT")) {
+            // 수신자 거절(5xx)은 재시도해도 같은 결과이므로 재시도하지 않는 예외로 변환
+            // 메시지는 예외 처리기와 재시도 리스너가 그대로 로그에 남기므로 주소를 가림 (서버 응답에도 주소가 들어 있을 수 있음)
+            return new InvalidEmailException("SMTP 서버가 수신자를 거절했습니다: " + PiiMasker.maskEmail(email)
+                    + " (" + PiiMasker.maskText(e.getMessage()) + ")");
+        }
+        return new SmtpConnectionException("SMTP 전송 실패: " + PiiMasker.maskText(e.getMessage()));
     }
 }
@@ -0,0 +1,92 @@
+package resilience.emailservice.mail;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 전송 성공 기록을 보관하는 고정 크기 링 버퍼.
+ * - 추가는 시퀀스 번호 하나를 증가시키고 슬롯 하나를 쓰는 것으로 끝나므로 락이나 배열 복사가 없습니다.
+ * - 최근 capacity개까지 보관하고 그보다 오래된 기록과 max-age보다 오래된 기록은 조회에서 제외됩니다.
+ *   슬롯 배열은 인덱스를 비트 연산으로 구하도록 capacity 이상인 2의 거듭제곱 크기로 만들고, 남는 슬롯은 조회하지 않습니다.
+ * - 시퀀스 번호가 곧 페이지 커서이므로 조회할 때 전체 목록을 복사하지 않습니다.
+ */
+@Component
+public class SentMailLog {
+
+    @Value("${mail.sent-log.capacity:10000}")
+    private int capacity;
+
+    // 0 이하이면 기간 제한 없이 용량으로만 보관
+    @Value("${mail.sent-log.max-age-ms:86400000}")
+    private long maxAgeMillis;
+
+    private AtomicReferenceArray<Entry> slots;
+    private int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        // 인덱스 계산을 비트 연산으로 하기 위해 2의 거듭제곱으로 올림 (보관 개수는 capacity 그대로)
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * 전송 성공 기록을 추가하고 부여된 시퀀스 번호를 반환합니다.
+     */
+    public long append(String email) {
+        long sequence = nextSequence.getAndIncrement();
+        slots.set((int) (sequence & mask), new Entry(sequence, email, System.currentTimeMillis()));
+        return sequence;
+    }
+
+    /**
+     * cursor(시퀀스 번호)부터 최대 limit개의 기록을 오래된 순서로 조회합니다.
+     * 이미 덮어써졌거나 보관 기간이 지난 기록은 건너뜁니다.
+     * @param cursor 이전 페이지의 nextCursor (처음이면 0)
+     * @param limit 최대 개수
+     */
+    public SentMailPage page(long cursor, int limit) {
+        long head = nextSequence.get();
+        long oldest = Math.max(0, head - capacity);
+        long oldestAllowedMillis = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+
+        List<String> emails = new ArrayList<>(Math.min(limit, capacity));
+        long sequence = Math.max(cursor, oldest);
+        while (sequence < head && emails.size() < limit) {
+            Entry entry = slots.get((int) (sequence & mask));
+            if (entry == null || entry.sequence() < sequence) {
+                // 시퀀스는 받았지만 아직 슬롯에 쓰지 않은 기록. 다음 페이지에서 다시 읽도록 여기서 멈춤
+                break;
+            }
+            if (entry.sequence() == sequence && entry.sentAtMillis() >= oldestAllowedMillis) {
+                emails.add(entry.email());
+            }
+            // entry.sequence() > sequence 이면 조회 중에 덮어써진 것이므로 건너뜀
+            sequence++;
+        }
+        return new SentMailPage(emails, sequence, sequence < head);
+    }
+
+    /**
+     * 보관 중인 전체 기록을 반환합니다. (최대 capacity개)
+     */
+    public List<String> snapshot() {
+        return page(0, capacity).emails();
+    }
+
+    /** 현재 보관 중인 기록 수 (보관 기간 제한은 반영하지 않음) */
+    public int size() {
+        return (int) Math.min(nextSequence.get(), capacity);
+    }
+
+    private record Entry(long sequence, String email, long sentAtMillis) {
+    }
+}
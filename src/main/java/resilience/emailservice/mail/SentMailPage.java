@@ -0,0 +1,12 @@
+package resilience.emailservice.mail;
+
+import java.util.List;
+
+/**
+ * GET /mail/list 응답의 한 페이지.
+ * @param emails 전송 성공한 이메일 주소 (오래된 순)
+ * @param nextCursor 다음 페이지를 조회할 때 넘길 커서
+ * @param hasMore 이 페이지 이후에 기록이 더 있는지 여부
+ */
+public record SentMailPage(List<String> emails, long nextCursor, boolean hasMore) {
+}
@@ -2,9 +2,12 @@ package resilience.emailservice.mail.aop;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import resilience.emailservice.exception.InvalidEmailException;
-import resilience.emailservice.exception.RetryableException;
+import resilience.emailservice.mail.EmailAddressValidator;
 import resilience.emailservice.mail.SMTPClient;
+import resilience.emailservice.mail.retry.RetryScheduler;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class MailSenderServiceNoAop {
@@ -12,39 +15,34 @@ public class MailSenderServiceNoAop {
     @Autowired
     private SMTPClient smtpClient;
 
-    private static final int MAX_ATTEMPTS = 3;
-    private static final long DELAY_MILLIS = 2000;
+    @Autowired
+    private EmailAddressValidator emailAddressValidator;
+
+    @Autowired
+    private RetryScheduler retryScheduler;
+
+    // RetryScheduler 로그에 주소가 남지 않도록 작업 이름에는 요청 번호만 씀
+    private final AtomicLong sequence = new AtomicLong();
 
+    /**
+     * 첫 시도는 호출 스레드에서 실행하고, RetryableException으로 실패하면
+     * Thread.sleep 대신 RetryScheduler에 재시도를 예약하고 결과가 나올 때까지 기다립니다.
+     * 재시도 대기 중에는 재시도 워커를 붙잡지 않습니다. 최대 시도 횟수는 mail.retry.max-attempts를 따릅니다.
+     * RetryableException이 아닌 예외는 재시도하지 않고 바로 던지며, 모든 재시도 실패 시 마지막 예외를 던집니다.
+     */
     public void sendEmail(String email) {
-        if (email == null || !email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")) {
-            throw new InvalidEmailException("유효하지 않은 이메일 주소입니다: " + email);
-        }
+        emailAddressValidator.validate(email);
 
-        RetryableException lastException = null;
-
-        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
-            try {
-                smtpClient.sendMail(email);
-                return; // 성공 시 종료
-            } catch (RetryableException e) {
-                lastException = e;
-                if (attempt < MAX_ATTEMPTS) {
-                    try {
-                        Thread.sleep(DELAY_MILLIS);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("이메일 발송 재시도 중 인터럽트됨: " + email, ie);
-                    }
-                }
-            } catch (Exception e) {
-                // RetryableException이 아닌 다른 예외는 즉시 전파
-                throw e;
+        try {
+            retryScheduler.submit("sendEmail#" + sequence.incrementAndGet(), () -> smtpClient.sendMail(email)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
-        }
-
-        // 모든 재시도 실패 시 마지막 예외를 던짐
-        if (lastException != null) {
-            throw lastException;
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
 
@@ -0,0 +1,262 @@
+package resilience.emailservice.mail.async;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import resilience.emailservice.exception.MailQueueFullException;
+import resilience.emailservice.exception.RetryableException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailPriority;
+import resilience.emailservice.mail.MailSenderService;
+import resilience.emailservice.mail.journal.PiiMasker;
+import resilience.emailservice.mail.outbox.MailOutbox;
+import resilience.emailservice.mail.outbox.OutboxEntry;
+import resilience.emailservice.mail.retry.RetryScheduler;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * POST /mail/send?async=true 로 접수된 요청을 제한된 크기의 대기열에 넣고 워커 풀에서 전송합니다.
+ * 호출한 HTTP 스레드는 SMTP 지연을 기다리지 않고 추적 ID를 바로 받으며,
+ * 대기열이 가득 차면 MailQueueFullException(429)으로 즉시 거절합니다.
+ *
+ * 대량 메일(priority=BULK, 대량 접수 POST /mail/send/bulk)은 별도 대기열과 워커(mail.async.bulk.*)에서 처리하므로
+ * 캠페인이 대기열을 채워도 트랜잭션 메일 접수가 거절되거나 그 뒤에서 기다리지 않습니다.
+ */
+@Service
+public class AsyncMailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncMailDispatcher.class);
+
+    // 대기열에 자리가 나기를 기다릴 때 다시 확인하는 간격
+    private static final long CAPACITY_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final MailSenderService mailSenderService;
+    private final MailSendStatusRegistry statusRegistry;
+    private final RetryScheduler retryScheduler;
+    private final MailOutbox outbox;
+
+    @Value("${mail.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${mail.async.workers:4}")
+    private int workers;
+
+    @Value("${mail.async.bulk.queue-capacity:10000}")
+    private int bulkQueueCapacity;
+
+    @Value("${mail.async.bulk.workers:2}")
+    private int bulkWorkers;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    private ThreadPoolExecutor executor;
+    private ThreadPoolExecutor bulkExecutor;
+
+    public AsyncMailDispatcher(MailSenderService mailSenderService, MailSendStatusRegistry statusRegistry,
+                               RetryScheduler retryScheduler, MailOutbox outbox) {
+        this.mailSenderService = mailSenderService;
+        this.statusRegistry = statusRegistry;
+        this.retryScheduler = retryScheduler;
+        this.outbox = outbox;
+    }
+
+    @PostConstruct
+    void start() {
+        executor = newExecutor("mail-async-", workers, queueCapacity);
+        bulkExecutor = newExecutor("mail-async-bulk-", bulkWorkers, bulkQueueCapacity);
+        logger.info("비동기 메일 워커 시작: workers={}, queueCapacity={}, bulkWorkers={}, bulkQueueCapacity={}, virtualThreads={}",
+                workers, queueCapacity, bulkWorkers, bulkQueueCapacity, virtualThreadsEnabled);
+
+        // 이전 실행에서 아웃박스에 남은(완료되지 않은) 요청을 다시 전송
+        List<OutboxEntry> recovered = outbox.drainRecovered();
+        if (!recovered.isEmpty()) {
+            Thread.ofPlatform().name("mail-outbox-replay").daemon(true).start(() -> replay(recovered));
+        }
+    }
+
+    private ThreadPoolExecutor newExecutor(String namePrefix, int threads, int capacity) {
+        ThreadFactory threadFactory = virtualThreadsEnabled
+                ? Thread.ofVirtual().name(namePrefix, 0).factory()
+                : platformThreadFactory(namePrefix);
+        // AbortPolicy: 대기열이 가득 차면 RejectedExecutionException을 던짐
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        bulkExecutor.shutdown();
+        // 두 레인이 함께 10초 안에 끝나도록 기다림
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (ThreadPoolExecutor lane : List.of(executor, bulkExecutor)) {
+            if (!lane.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                logger.warn("비동기 메일 워커 종료 대기 시간 초과. 남은 작업 수: {}", lane.getQueue().size());
+                lane.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 요청을 검증한 뒤 대기열에 접수하고 추적 ID를 반환합니다.
+     * @throws resilience.emailservice.exception.InvalidEmailException 유효하지 않은 주소
+     * @throws resilience.emailservice.exception.InvalidTemplateException 템플릿이 없거나 변수가 빠짐
+     * @throws MailQueueFullException 대기열이 가득 참
+     */
+    public String submit(EmailRequest emailRequest) {
+        return submit(emailRequest, 0);
+    }
+
+    /**
+     * 요청을 검증한 뒤 대기열에 자리가 날 때까지 최대 maxWaitMillis 동안 기다렸다가 접수합니다.
+     * 대량 접수(POST /mail/send/bulk)처럼 거절 대신 호출 스레드를 늦춰 상류로 배압을 전달할 때 사용합니다.
+     * @param maxWaitMillis 대기열이 가득 찼을 때 기다릴 최대 시간 (0이면 기다리지 않음)
+     * @throws MailQueueFullException 기다려도 자리가 나지 않음
+     */
+    public String submit(EmailRequest emailRequest, long maxWaitMillis) {
+        return submit(emailRequest, maxWaitMillis, true);
+    }
+
+    /**
+     * submit(emailRequest, maxWaitMillis)와 같지만 아웃박스 디스크 반영을 기다리지 않습니다.
+     * 여러 건을 접수한 뒤 flushOutbox()로 한 번에 기다려, 줄마다 fsync를 기다리지 않도록 할 때 사용합니다. (대량 접수)
+     * @throws MailQueueFullException 기다려도 자리가 나지 않음
+     */
+    public String submitWithoutFlush(EmailRequest emailRequest, long maxWaitMillis) {
+        return submit(emailRequest, maxWaitMillis, false);
+    }
+
+    /**
+     * 지금까지 접수한 요청이 아웃박스에서 디스크에 반영될 때까지 기다립니다.
+     * @throws resilience.emailservice.exception.OutboxFlushTimeoutException 제한 시간 안에 반영되지 않음
+     */
+    public void flushOutbox() {
+        outbox.flush();
+    }
+
+    private String submit(EmailRequest emailRequest, long maxWaitMillis, boolean awaitFlush) {
+        mailSenderService.validate(emailRequest);
+
+        ThreadPoolExecutor lane = laneOf(emailRequest);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        // 아웃박스에 기록하기 전에 먼저 자리를 확인해 거절될 요청의 불필요한 디스크 반영을 피함
+        awaitCapacity(lane, deadline);
+
+        String id = UUID.randomUUID().toString();
+        // 202를 돌려주기 전에 아웃박스에 기록 (재기동 후 다시 전송)
+        if (awaitFlush) {
+            outbox.append(id, emailRequest);
+        } else {
+            outbox.appendWithoutFlush(id, emailRequest);
+        }
+        statusRegistry.register(MailSendStatus.accepted(id, emailRequest.getEmail()));
+        while (true) {
+            try {
+                lane.execute(() -> deliver(id, emailRequest));
+                return id;
+            } catch (RejectedExecutionException e) {
+                // 확인한 뒤 다른 요청이 먼저 자리를 차지한 경우
+                if (lane.isShutdown() || System.nanoTime() - deadline >= 0) {
+                    statusRegistry.remove(id);
+                    outbox.markDone(id);
+                    throw queueFull(lane);
+                }
+                LockSupport.parkNanos(CAPACITY_POLL_NANOS);
+            }
+        }
+    }
+
+    private ThreadPoolExecutor laneOf(EmailRequest emailRequest) {
+        return emailRequest.getPriority() == MailPriority.BULK ? bulkExecutor : executor;
+    }
+
+    private void awaitCapacity(ThreadPoolExecutor lane, long deadline) {
+        while (lane.getQueue().remainingCapacity() == 0) {
+            if (lane.isShutdown() || System.nanoTime() - deadline >= 0) {
+                throw queueFull(lane);
+            }
+            LockSupport.parkNanos(CAPACITY_POLL_NANOS);
+        }
+    }
+
+    private MailQueueFullException queueFull(ThreadPoolExecutor lane) {
+        return lane == bulkExecutor
+                ? new MailQueueFullException("대량 메일 전송 대기열이 가득 찼습니다. (capacity: " + bulkQueueCapacity + ")")
+                : new MailQueueFullException("메일 전송 대기열이 가득 찼습니다. (capacity: " + queueCapacity + ")");
+    }
+
+    // 재기동 시 복구한 요청은 이미 접수 응답을 받은 요청이므로 거절하지 않고 대기열에 자리가 날 때까지 기다렸다가 넣음
+    private void replay(List<OutboxEntry> entries) {
+        logger.info("아웃박스에서 복구한 요청 {}건을 다시 전송합니다.", entries.size());
+        for (OutboxEntry entry : entries) {
+            statusRegistry.register(MailSendStatus.accepted(entry.id(), entry.emailRequest().getEmail()));
+            ThreadPoolExecutor lane = laneOf(entry.emailRequest());
+            while (true) {
+                try {
+                    lane.execute(() -> deliver(entry.id(), entry.emailRequest()));
+                    break;
+                } catch (RejectedExecutionException e) {
+                    if (lane.isShutdown()) {
+                        return;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                }
+            }
+        }
+    }
+
+    // 재시도 대기 중에는 워커를 붙잡지 않도록 RetryScheduler에 맡기고 바로 다음 요청을 처리
+    private void deliver(String id, EmailRequest emailRequest) {
+        retryScheduler.submit("async-mail " + id, () -> {
+            statusRegistry.update(id, MailSendStatus::sending);
+            try {
+                mailSenderService.sendEmail(emailRequest);
+            } catch (RetryableException e) {
+                statusRegistry.update(id, status -> status.retrying(e.getMessage()));
+                throw e;
+            }
+        }).whenComplete((ignored, error) -> {
+            if (error != null && !retryScheduler.isRunning()) {
+                // 애플리케이션 종료로 재시도가 취소된 경우: 아웃박스에 남겨 재기동 후 다시 전송
+                logger.info("종료로 전송이 중단되어 재기동 후 다시 전송합니다. (id: {})", id);
+                return;
+            }
+            // 성공이든 최종 실패든 더 이상 재전송할 대상이 아님
+            outbox.markDone(id);
+            if (error == null) {
+                statusRegistry.update(id, MailSendStatus::sent);
+            } else {
+                logger.warn("비동기 메일 전송 실패 (id: {}, 대상: {}): {}", id, PiiMasker.maskEmail(emailRequest.getEmail()),
+                        PiiMasker.maskText(error.getMessage()));
+                statusRegistry.update(id, status -> status.failed(error.getMessage()));
+            }
+        });
+    }
+
+    /** 현재 대기열에 쌓인 요청 수 (두 레인 합계) */
+    public int queuedCount() {
+        return executor.getQueue().size() + bulkExecutor.getQueue().size();
+    }
+
+    private static ThreadFactory platformThreadFactory(String namePrefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + sequence.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
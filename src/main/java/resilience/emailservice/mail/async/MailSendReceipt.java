@@ -0,0 +1,13 @@
+package resilience.emailservice.mail.async;
+
+/**
+ * 비동기 접수 응답 본문 (202 Accepted).
+ * @param id 추적 ID
+ * @param statusUrl 처리 상태를 조회할 수 있는 경로
+ */
+public record MailSendReceipt(String id, String statusUrl) {
+
+    public static MailSendReceipt of(String id) {
+        return new MailSendReceipt(id, "/mail/status/" + id);
+    }
+}
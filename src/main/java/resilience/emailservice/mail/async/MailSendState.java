@@ -0,0 +1,12 @@
+package resilience.emailservice.mail.async;
+
+/**
+ * 비동기로 접수된 메일 요청의 처리 상태.
+ */
+public enum MailSendState {
+    ACCEPTED,   // 대기열에 접수됨
+    SENDING,    // 워커가 전송 중
+    RETRYING,   // 재시도 가능한 오류로 실패해 재시도 대기 중
+    SENT,       // 전송 성공
+    FAILED      // 최종 실패
+}
@@ -0,0 +1,38 @@
+package resilience.emailservice.mail.async;
+
+import java.time.Instant;
+
+/**
+ * GET /mail/status/{id} 로 조회되는 추적 정보.
+ * 상태가 바뀔 때마다 새 인스턴스로 교체됩니다.
+ */
+public record MailSendStatus(
+        String id,
+        String email,
+        MailSendState state,
+        int attempts,
+        String error,
+        Instant acceptedAt,
+        Instant updatedAt) {
+
+    static MailSendStatus accepted(String id, String email) {
+        Instant now = Instant.now();
+        return new MailSendStatus(id, email, MailSendState.ACCEPTED, 0, null, now, now);
+    }
+
+    MailSendStatus sending() {
+        return new MailSendStatus(id, email, MailSendState.SENDING, attempts + 1, error, acceptedAt, Instant.now());
+    }
+
+    MailSendStatus retrying(String reason) {
+        return new MailSendStatus(id, email, MailSendState.RETRYING, attempts, reason, acceptedAt, Instant.now());
+    }
+
+    MailSendStatus sent() {
+        return new MailSendStatus(id, email, MailSendState.SENT, attempts, null, acceptedAt, Instant.now());
+    }
+
+    MailSendStatus failed(String reason) {
+        return new MailSendStatus(id, email, MailSendState.FAILED, attempts, reason, acceptedAt, Instant.now());
+    }
+}
@@ -0,0 +1,70 @@
+package resilience.emailservice.mail.async;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * 비동기 요청의 처리 상태를 보관합니다.
+ * 최대 보관 개수를 넘으면 가장 오래 전에 접수된 항목부터 제거합니다.
+ */
+@Component
+public class MailSendStatusRegistry {
+
+    @Value("${mail.async.status-retention:100000}")
+    private int maxEntries;
+
+    // 접수 순서로 정렬된 맵. 가득 차면 가장 먼저 접수된 항목을 지우고, 중간 항목도 O(1)로 지움. 항상 lock 안에서 다룸
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, MailSendStatus> statuses = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MailSendStatus> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public void register(MailSendStatus status) {
+        lock.lock();
+        try {
+            statuses.put(status.id(), status);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void update(String id, UnaryOperator<MailSendStatus> change) {
+        lock.lock();
+        try {
+            // 값만 바꾸므로 접수 순서는 그대로
+            statuses.computeIfPresent(id, (key, status) -> change.apply(status));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 접수를 취소한 항목을 지웁니다. (대기열 포화로 429를 반환한 경우)
+     */
+    public void remove(String id) {
+        lock.lock();
+        try {
+            statuses.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Optional<MailSendStatus> find(String id) {
+        lock.lock();
+        try {
+            return Optional.ofNullable(statuses.get(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package resilience.emailservice.mail.bulk;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 대량 접수 응답의 줄별 결과.
+ * @param line 요청 본문의 줄 번호 (1부터, 빈 줄 포함)
+ * @param status accepted 또는 rejected
+ * @param id 접수된 요청의 추적 ID (GET /mail/status/{id})
+ * @param error 거절 사유 (예외 클래스 단순 이름, MalformedJson, LineTooLong)
+ * @param message 거절 사유 설명
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkLineResult(long line, String status, String id, String error, String message) {
+
+    static BulkLineResult accepted(long line, String id) {
+        return new BulkLineResult(line, "accepted", id, null, null);
+    }
+
+    static BulkLineResult rejected(long line, String error, String message) {
+        return new BulkLineResult(line, "rejected", null, error, message);
+    }
+
+    @JsonIgnore
+    boolean isAccepted() {
+        return "accepted".equals(status);
+    }
+}
@@ -0,0 +1,173 @@
+package resilience.emailservice.mail.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.InvalidRequestException;
+import resilience.emailservice.exception.InvalidTemplateException;
+import resilience.emailservice.exception.MailQueueFullException;
+import resilience.emailservice.exception.OutboxFlushTimeoutException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailPriority;
+import resilience.emailservice.mail.async.AsyncMailDispatcher;
+import resilience.emailservice.mail.metrics.MailMetrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POST /mail/send/bulk 본문(NDJSON, 한 줄에 EmailRequest 하나)을 읽는 대로 검증해 비동기 대기열에 접수하고,
+ * 결과를 한 줄씩 응답으로 흘려보냅니다.
+ *
+ * 본문 전체를 메모리에 올리지 않고 줄 단위로 읽으며, 결과도 모아 두지 않고 바로 씁니다.
+ * 대기열이 가득 차면 거절하지 않고 max-wait-ms까지 기다리므로 그동안 본문을 더 읽지 않아 클라이언트 업로드가 늦춰집니다. (TCP 배압)
+ * 기다려도 자리가 나지 않으면 그 줄을 거절하고 남은 본문은 읽지 않은 채 aborted 요약으로 끝냅니다.
+ * 아웃박스 fsync는 줄마다 기다리지 않고 최대 CHUNK_LINES줄씩 모아 한 번만 기다린 뒤 그 구간의 결과를 씁니다.
+ * 반영이 제한 시간을 넘으면 이미 대기열에 들어간 그 구간의 줄은 접수된 것으로 쓰고 aborted 요약으로 끝냅니다.
+ * priority를 지정하지 않은 줄은 대량 메일(BULK)로 접수해 비동기 대량 메일 대기열에서 처리합니다.
+ */
+@Service
+public class BulkMailIngestor {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkMailIngestor.class);
+
+    // 이만큼 처리할 때마다 아웃박스 디스크 반영을 기다리고 그동안의 결과를 응답으로 내보냄
+    private static final int CHUNK_LINES = 256;
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final AsyncMailDispatcher asyncMailDispatcher;
+    private final MailMetrics mailMetrics;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+
+    @Value("${mail.bulk.max-line-bytes:65536}")
+    private int maxLineBytes;
+
+    @Value("${mail.bulk.max-wait-ms:30000}")
+    private long maxWaitMillis;
+
+    public BulkMailIngestor(AsyncMailDispatcher asyncMailDispatcher, MailMetrics mailMetrics, ObjectMapper objectMapper) {
+        this.asyncMailDispatcher = asyncMailDispatcher;
+        this.mailMetrics = mailMetrics;
+        this.requestReader = objectMapper.readerFor(EmailRequest.class);
+        this.resultWriter = objectMapper.writer();
+    }
+
+    /**
+     * 본문을 끝까지(또는 대기열 포화나 아웃박스 반영 지연으로 멈출 때까지) 처리하고 마지막 줄에 요약을 씁니다.
+     * @param in NDJSON 요청 본문
+     * @param out NDJSON 응답 본문
+     * @param report 줄별 결과를 어디까지 쓸지
+     */
+    public BulkSummary ingest(InputStream in, OutputStream out, BulkReport report) throws IOException {
+        long start = System.nanoTime();
+        NdjsonLineReader reader = new NdjsonLineReader(in, maxLineBytes);
+        long lines = 0;
+        long accepted = 0;
+        long rejected = 0;
+        List<BulkLineResult> chunk = new ArrayList<>(CHUNK_LINES);
+        boolean aborted = false;
+
+        while (!aborted && reader.next()) {
+            if (reader.isBlank()) {
+                continue;
+            }
+            lines++;
+            BulkLineResult result;
+            try {
+                result = accept(reader);
+            } catch (MailQueueFullException e) {
+                result = BulkLineResult.rejected(reader.lineNumber(), e.getClass().getSimpleName(), e.getMessage());
+                aborted = true;
+            }
+            if (result.isAccepted()) {
+                accepted++;
+            } else {
+                rejected++;
+            }
+            mailMetrics.countBulkLine(result.isAccepted());
+
+            chunk.add(result);
+            if (chunk.size() >= CHUNK_LINES && !writeChunk(out, chunk, report)) {
+                aborted = true;
+            }
+        }
+        if (!chunk.isEmpty() && !writeChunk(out, chunk, report)) {
+            aborted = true;
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        BulkSummary summary = new BulkSummary(aborted ? "aborted" : "completed",
+                lines, accepted, rejected, reader.lineNumber(), elapsedMillis);
+        write(out, summary);
+        out.flush();
+        log.info("대량 접수 {}: lines={}, accepted={}, rejected={}, {}ms",
+                summary.status(), lines, accepted, rejected, elapsedMillis);
+        return summary;
+    }
+
+    // 재시도하지 않을 오류는 그 줄만 거절하고 다음 줄로 넘어감
+    private BulkLineResult accept(NdjsonLineReader reader) {
+        long line = reader.lineNumber();
+        if (reader.isTooLong()) {
+            return BulkLineResult.rejected(line, "LineTooLong", "한 줄은 최대 " + maxLineBytes + "바이트입니다.");
+        }
+        EmailRequest emailRequest;
+        try {
+            emailRequest = requestReader.readValue(reader.buffer(), 0, reader.length());
+        } catch (JsonProcessingException e) {
+            return BulkLineResult.rejected(line, "MalformedJson", e.getOriginalMessage());
+        } catch (IOException e) {
+            return BulkLineResult.rejected(line, "MalformedJson", e.getMessage());
+        }
+        if (emailRequest == null) {
+            return BulkLineResult.rejected(line, "MalformedJson", "EmailRequest 객체가 아닙니다.");
+        }
+        emailRequest.applyLanePriority(MailPriority.BULK);
+        try {
+            return BulkLineResult.accepted(line, asyncMailDispatcher.submitWithoutFlush(emailRequest, maxWaitMillis));
+        } catch (InvalidEmailException | InvalidTemplateException | InvalidRequestException e) {
+            return BulkLineResult.rejected(line, e.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 구간에 접수된 줄이 있으면 아웃박스 디스크 반영을 한 번 기다린 뒤 결과를 쓰고 응답을 내보냅니다.
+     * @return 반영이 제한 시간 안에 끝났으면 true
+     */
+    private boolean writeChunk(OutputStream out, List<BulkLineResult> chunk, BulkReport report) throws IOException {
+        boolean flushed = true;
+        if (chunk.stream().anyMatch(BulkLineResult::isAccepted)) {
+            try {
+                asyncMailDispatcher.flushOutbox();
+            } catch (OutboxFlushTimeoutException e) {
+                log.warn("대량 접수 중단: {}", e.getMessage());
+                flushed = false;
+            }
+        }
+        for (BulkLineResult result : chunk) {
+            if (report.includes(result)) {
+                write(out, result);
+            }
+        }
+        out.flush();
+        chunk.clear();
+        return flushed;
+    }
+
+    private void write(OutputStream out, Object value) throws IOException {
+        // writeValue(OutputStream)는 스트림을 닫으므로 바이트로 만들어 씀
+        out.write(resultWriter.writeValueAsBytes(value));
+        out.write(NEWLINE);
+    }
+}
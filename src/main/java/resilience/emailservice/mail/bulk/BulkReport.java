@@ -0,0 +1,24 @@
+package resilience.emailservice.mail.bulk;
+
+/**
+ * 대량 접수 응답에 줄별 결과를 어디까지 담을지. 어느 경우든 마지막 줄에는 요약(BulkSummary)이 옵니다.
+ */
+public enum BulkReport {
+
+    ALL,       // 모든 줄의 결과
+    REJECTED,  // 거절된 줄의 결과만
+    NONE;      // 요약만
+
+    public static BulkReport from(String value) {
+        for (BulkReport report : values()) {
+            if (report.name().equalsIgnoreCase(value)) {
+                return report;
+            }
+        }
+        throw new IllegalArgumentException("report는 all, rejected, none 중 하나여야 합니다: " + value);
+    }
+
+    boolean includes(BulkLineResult result) {
+        return this == ALL || (this == REJECTED && !result.isAccepted());
+    }
+}
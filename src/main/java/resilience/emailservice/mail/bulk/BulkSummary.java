@@ -0,0 +1,13 @@
+package resilience.emailservice.mail.bulk;
+
+/**
+ * 대량 접수 응답의 마지막 줄.
+ * @param status completed(본문을 끝까지 처리) 또는 aborted(대기열이 비지 않거나 아웃박스 반영이 늦어 중간에 멈춤, lastLine 다음 줄부터 다시 보내면 됨)
+ * @param lines 처리한 줄 수 (빈 줄 제외)
+ * @param accepted 접수된 줄 수
+ * @param rejected 거절된 줄 수
+ * @param lastLine 마지막으로 처리한 줄 번호
+ * @param elapsedMs 처리 시간
+ */
+public record BulkSummary(String status, long lines, long accepted, long rejected, long lastLine, long elapsedMs) {
+}
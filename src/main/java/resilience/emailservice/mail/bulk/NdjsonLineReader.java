@@ -0,0 +1,122 @@
+package resilience.emailservice.mail.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 입력 스트림을 줄 단위로 읽습니다. 읽기 버퍼와 줄 버퍼를 재사용하므로 업로드 크기와 관계없이
+ * 메모리 사용량은 maxLineBytes 정도로 고정됩니다.
+ *
+ * maxLineBytes를 넘는 줄은 나머지를 버리고 isTooLong()으로 알립니다.
+ * 줄 끝의 \r은 떼어내며, 마지막 줄은 개행 없이 끝나도 됩니다.
+ */
+final class NdjsonLineReader {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final int maxLineBytes;
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private byte[] line;
+    private int length;
+    private boolean tooLong;
+    private long lineNumber;
+
+    NdjsonLineReader(InputStream in, int maxLineBytes) {
+        this.in = in;
+        this.maxLineBytes = maxLineBytes;
+        this.line = new byte[Math.min(maxLineBytes, 1024)];
+    }
+
+    /**
+     * 다음 줄로 넘어갑니다.
+     * @return 줄을 읽었으면 true, 스트림 끝이면 false
+     */
+    boolean next() throws IOException {
+        length = 0;
+        tooLong = false;
+        boolean consumed = false;
+        while (true) {
+            if (position == limit) {
+                int read = in.read(readBuffer);
+                if (read <= 0) {
+                    position = limit = 0;
+                    if (!consumed) {
+                        return false;
+                    }
+                    break;
+                }
+                position = 0;
+                limit = read;
+            }
+            int start = position;
+            while (position < limit && readBuffer[position] != '\n') {
+                position++;
+            }
+            append(start, position - start);
+            consumed = true;
+            if (position < limit) {
+                position++; // 개행 문자 건너뜀
+                break;
+            }
+        }
+        lineNumber++;
+        if (!tooLong && length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return true;
+    }
+
+    private void append(int offset, int count) {
+        if (tooLong || count == 0) {
+            return;
+        }
+        if (length + count > maxLineBytes) {
+            tooLong = true;
+            length = 0;
+            return;
+        }
+        if (length + count > line.length) {
+            byte[] grown = new byte[Math.min(maxLineBytes, Math.max(line.length * 2, length + count))];
+            System.arraycopy(line, 0, grown, 0, length);
+            line = grown;
+        }
+        System.arraycopy(readBuffer, offset, line, length, count);
+        length += count;
+    }
+
+    /** 공백만 있는 줄인지 (NDJSON에서는 건너뜀) */
+    boolean isBlank() {
+        if (tooLong) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = line[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isTooLong() {
+        return tooLong;
+    }
+
+    /** 현재 줄 내용. 다음 next() 호출 전까지만 유효합니다. */
+    byte[] buffer() {
+        return line;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /** 현재 줄 번호 (1부터, 빈 줄 포함) */
+    long lineNumber() {
+        return lineNumber;
+    }
+}
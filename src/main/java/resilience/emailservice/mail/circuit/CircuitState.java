@@ -0,0 +1,10 @@
+package resilience.emailservice.mail.circuit;
+
+/**
+ * 서킷 브레이커 상태.
+ */
+public enum CircuitState {
+    CLOSED,     // 정상: 모든 호출 허용
+    OPEN,       // 차단: 호출하지 않고 바로 실패
+    HALF_OPEN   // 시험: 제한된 수의 프로브 호출만 허용
+}
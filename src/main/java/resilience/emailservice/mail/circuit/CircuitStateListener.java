@@ -0,0 +1,15 @@
+package resilience.emailservice.mail.circuit;
+
+/**
+ * 서킷 상태 전환 알림을 받는 리스너. (예: 서킷이 열리면 Kafka 컨테이너 일시 정지)
+ */
+@FunctionalInterface
+public interface CircuitStateListener {
+
+    /**
+     * @param from 이전 상태
+     * @param to 새 상태
+     * @param openUntilMillis to가 OPEN이면 half-open으로 바뀌는 시각 (그 외에는 0)
+     */
+    void onStateChange(CircuitState from, CircuitState to, long openUntilMillis);
+}
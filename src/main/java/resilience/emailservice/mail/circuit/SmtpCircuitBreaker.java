@@ -0,0 +1,246 @@
+package resilience.emailservice.mail.circuit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.exception.CircuitOpenException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SMTP 호출을 감싸는 서킷 브레이커.
+ *
+ * - CLOSED: 시간 기반 슬라이딩 윈도우(bucket-millis × buckets)의 실패율이 failure-rate-threshold를 넘으면 OPEN
+ * - OPEN: wait-duration-ms 동안 SMTP를 호출하지 않고 CircuitOpenException으로 바로 실패
+ * - HALF_OPEN: permitted-probes개의 프로브 호출만 허용, 모두 성공하면 CLOSED, 하나라도 실패하면 다시 OPEN
+ *
+ * 윈도우의 각 버킷은 LongAdder로 집계하므로 많은 스레드가 동시에 기록해도 경합이 적습니다.
+ */
+@Component
+public class SmtpCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpCircuitBreaker.class);
+
+    private final boolean enabled;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long bucketMillis;
+    private final long waitDurationMillis;
+    private final int permittedProbes;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final AtomicReference<StateHolder> state;
+    private final List<CircuitStateListener> listeners = new CopyOnWriteArrayList<>();
+
+    public SmtpCircuitBreaker(
+            @Value("${smtp.circuit-breaker.enabled:false}") boolean enabled,
+            @Value("${smtp.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${smtp.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${smtp.circuit-breaker.window-buckets:10}") int windowBuckets,
+            @Value("${smtp.circuit-breaker.bucket-millis:1000}") long bucketMillis,
+            @Value("${smtp.circuit-breaker.wait-duration-ms:10000}") long waitDurationMillis,
+            @Value("${smtp.circuit-breaker.permitted-probes:3}") int permittedProbes) {
+        this.enabled = enabled;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.bucketMillis = bucketMillis;
+        this.waitDurationMillis = waitDurationMillis;
+        this.permittedProbes = permittedProbes;
+        this.buckets = new AtomicReferenceArray<>(windowBuckets);
+        this.state = new AtomicReference<>(StateHolder.closed());
+    }
+
+    public void addListener(CircuitStateListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 호출을 시작해도 되는지 확인합니다. 허용되면 호출 후 반드시 onSuccess/onFailure/onIgnored 중 하나를 호출해야 합니다.
+     * @throws CircuitOpenException 서킷이 열려 있거나 half-open 프로브가 모두 사용 중인 경우
+     */
+    public void acquirePermission() {
+        if (!enabled) {
+            return;
+        }
+        while (true) {
+            StateHolder current = state.get();
+            switch (current.state) {
+                case CLOSED:
+                    return;
+                case OPEN: {
+                    long now = System.currentTimeMillis();
+                    if (now < current.openUntilMillis) {
+                        throw new CircuitOpenException("SMTP 서킷이 열려 있어 전송을 시도하지 않습니다.", current.openUntilMillis - now);
+                    }
+                    // 대기 시간이 지났으면 half-open으로 전환 시도 후 다시 판단
+                    transition(current, StateHolder.halfOpen());
+                    continue;
+                }
+                case HALF_OPEN: {
+                    if (current.probesInFlight.incrementAndGet() <= permittedProbes) {
+                        return;
+                    }
+                    current.probesInFlight.decrementAndGet();
+                    throw new CircuitOpenException("SMTP 서킷 half-open 상태: 프로브 요청 수 초과", bucketMillis);
+                }
+            }
+        }
+    }
+
+    public void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+        StateHolder current = state.get();
+        if (current.state == CircuitState.HALF_OPEN) {
+            if (current.probeSuccesses.incrementAndGet() >= permittedProbes) {
+                resetWindow();
+                transition(current, StateHolder.closed());
+            }
+            return;
+        }
+        currentBucket().successes.increment();
+    }
+
+    public void onFailure() {
+        if (!enabled) {
+            return;
+        }
+        StateHolder current = state.get();
+        if (current.state == CircuitState.HALF_OPEN) {
+            transition(current, StateHolder.open(System.currentTimeMillis() + waitDurationMillis));
+            return;
+        }
+        currentBucket().failures.increment();
+        if (current.state == CircuitState.CLOSED && failureRateExceeded()) {
+            transition(current, StateHolder.open(System.currentTimeMillis() + waitDurationMillis));
+        }
+    }
+
+    /**
+     * 릴레이 상태와 무관한 실패(예: 수신자 거절)로 끝난 호출. 실패율에 반영하지 않고 half-open 프로브 자리만 반납합니다.
+     */
+    public void onIgnored() {
+        if (!enabled) {
+            return;
+        }
+        StateHolder current = state.get();
+        if (current.state == CircuitState.HALF_OPEN) {
+            current.probesInFlight.decrementAndGet();
+        }
+    }
+
+    public CircuitState getState() {
+        return state.get().state;
+    }
+
+    /** 현재 윈도우의 실패율 (%) */
+    public double getFailureRate() {
+        long[] counts = windowCounts();
+        long total = counts[0] + counts[1];
+        return total == 0 ? 0 : counts[1] * 100.0 / total;
+    }
+
+    private boolean failureRateExceeded() {
+        long[] counts = windowCounts();
+        long total = counts[0] + counts[1];
+        return total >= minimumCalls && counts[1] * 100.0 / total >= failureRateThreshold;
+    }
+
+    // [성공 수, 실패 수]
+    private long[] windowCounts() {
+        long oldestEpoch = System.currentTimeMillis() / bucketMillis - buckets.length() + 1;
+        long successes = 0;
+        long failures = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.epoch >= oldestEpoch) {
+                successes += bucket.successes.sum();
+                failures += bucket.failures.sum();
+            }
+        }
+        return new long[]{successes, failures};
+    }
+
+    private Bucket currentBucket() {
+        long epoch = System.currentTimeMillis() / bucketMillis;
+        int index = (int) (epoch % buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.epoch == epoch) {
+                return bucket;
+            }
+            // 오래된 버킷은 새 버킷으로 교체. 다른 스레드가 먼저 교체했으면 그 버킷을 사용
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, null);
+        }
+    }
+
+    private void transition(StateHolder from, StateHolder to) {
+        if (!state.compareAndSet(from, to)) {
+            return;
+        }
+        if (to.state == CircuitState.OPEN) {
+            logger.warn("SMTP 서킷 {} → OPEN: 실패율 {}%, {}ms 동안 SMTP 호출을 차단합니다.",
+                    from.state, String.format("%.1f", getFailureRate()), waitDurationMillis);
+        } else {
+            logger.info("SMTP 서킷 {} → {}", from.state, to.state);
+        }
+        for (CircuitStateListener listener : listeners) {
+            try {
+                listener.onStateChange(from.state, to.state, to.openUntilMillis);
+            } catch (RuntimeException e) {
+                logger.error("서킷 상태 리스너 처리 실패", e);
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    // 상태마다 새 인스턴스를 만들어 CAS로 교체하므로, half-open 프로브 카운터도 전환 시 자연스럽게 초기화됨
+    private static final class StateHolder {
+        private final CircuitState state;
+        private final long openUntilMillis;
+        private final AtomicInteger probesInFlight = new AtomicInteger();
+        private final AtomicInteger probeSuccesses = new AtomicInteger();
+
+        private StateHolder(CircuitState state, long openUntilMillis) {
+            this.state = state;
+            this.openUntilMillis = openUntilMillis;
+        }
+
+        static StateHolder closed() {
+            return new StateHolder(CircuitState.CLOSED, 0);
+        }
+
+        static StateHolder open(long openUntilMillis) {
+            return new StateHolder(CircuitState.OPEN, openUntilMillis);
+        }
+
+        static StateHolder halfOpen() {
+            return new StateHolder(CircuitState.HALF_OPEN, 0);
+        }
+    }
+}
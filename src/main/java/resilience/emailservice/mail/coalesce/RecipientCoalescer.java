@@ -0,0 +1,238 @@
+package resilience.emailservice.mail.coalesce;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailPriority;
+import resilience.emailservice.mail.SMTPClient;
+import resilience.emailservice.mail.metrics.MailMetrics;
+import resilience.emailservice.mail.smtp.MailBody;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 본문이 같고 수신 도메인이 같은 요청을 짧은 시간 동안 모아 하나의 SMTP 트랜잭션(RCPT TO 여러 번)으로 보냅니다.
+ *
+ * 그룹을 처음 만든 요청(리더)이 window-ms 동안 또는 max-recipients명이 찰 때까지 기다렸다가 그룹 전체를 보내고,
+ * 나중에 합류한 요청은 리더가 보낸 결과 중 자기 수신자의 결과를 받습니다. 별도 스레드 없이 호출 스레드끼리 처리하므로
+ * 동시에 전송 중인 요청이 많을 때(병렬 컨슈머, 비동기 워커, 대량 접수)만 효과가 있고, 요청이 하나씩 들어오면 window만큼 늦어집니다.
+ *
+ * 수신자별 거절(RCPT TO 5xx)은 그 수신자의 요청에서만 예외로 발생하므로 재시도나 DLT도 요청별로 따로 처리됩니다.
+ * 연결 실패나 DATA 거절처럼 트랜잭션 전체가 실패하면 그룹의 모든 요청이 같은 예외로 실패합니다.
+ * 같은 주소가 이미 모이고 있는 그룹에는 합류하지 않고 새 그룹을 만듭니다. (서버가 중복 RCPT를 한 통으로 합치지 않도록)
+ * 헤징 전송 요청은 지연을 줄이려는 것이므로 묶지 않고 바로 보냅니다. 우선순위가 다른 요청끼리는 묶지 않습니다.
+ */
+@Component
+public class RecipientCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipientCoalescer.class);
+
+    private final SMTPClient smtpClient;
+    private final MailMetrics mailMetrics;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxRecipients;
+
+    // 아직 모이고 있는 그룹 (리더가 전송을 시작하면 제거)
+    private final ConcurrentHashMap<GroupKey, Group> openGroups = new ConcurrentHashMap<>();
+
+    public RecipientCoalescer(SMTPClient smtpClient,
+                              MailMetrics mailMetrics,
+                              @Value("${mail.coalesce.enabled:false}") boolean enabled,
+                              @Value("${mail.coalesce.window-ms:20}") long windowMillis,
+                              @Value("${mail.coalesce.max-recipients:50}") int maxRecipients) {
+        this.smtpClient = smtpClient;
+        this.mailMetrics = mailMetrics;
+        this.enabled = enabled && maxRecipients > 1;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxRecipients = maxRecipients;
+        if (this.enabled) {
+            log.info("수신자 묶음 전송 사용: window={}ms, max-recipients={}", windowMillis, maxRecipients);
+        }
+    }
+
+    /**
+     * 요청 하나를 전송합니다. 같은 본문의 다른 요청과 묶여 전송될 수 있으며, 자기 수신자의 결과가 나올 때까지 기다립니다.
+     * @param body emailRequest로 만든 본문 (그룹 리더의 본문이 그룹 전체에 쓰임)
+     * @throws RuntimeException 이 수신자에게 전송하지 못함 (SMTPClient.sendMail과 같은 예외)
+     */
+    public void send(EmailRequest emailRequest, MailBody body) {
+        send(emailRequest, body, false);
+    }
+
+    /**
+     * @param hedge true면 묶지 않고 헤징 전송 (SMTPClient.sendMail(email, body, priority, true))
+     */
+    public void send(EmailRequest emailRequest, MailBody body, boolean hedge) {
+        String email = emailRequest.getEmail();
+        MailPriority priority = MailPriority.orDefault(emailRequest.getPriority());
+        if (hedge) {
+            smtpClient.sendMail(email, body, priority, true);
+            return;
+        }
+        GroupKey key = enabled ? GroupKey.of(emailRequest) : null;
+        if (key == null) {
+            smtpClient.sendMail(email, body, priority, false);
+            return;
+        }
+
+        Member member = new Member(email);
+        Group[] created = new Group[1];
+        Group group = openGroups.compute(key, (k, current) -> {
+            if (current != null && current.tryAdd(member)) {
+                return current;
+            }
+            // 이미 전송을 시작했거나 가득 찼거나 같은 주소가 있는 그룹이면 새 그룹을 만들고 리더가 됨
+            created[0] = new Group(member);
+            return created[0];
+        });
+
+        if (group == created[0]) {
+            lead(key, group, body);
+        } else {
+            await(member);
+        }
+    }
+
+    private void lead(GroupKey key, Group group, MailBody body) {
+        List<Member> members = group.awaitClose(windowNanos);
+        openGroups.remove(key, group);
+        if (members.size() == 1) {
+            smtpClient.sendMail(members.get(0).email, body, key.priority(), false);
+            return;
+        }
+
+        List<String> emails = new ArrayList<>(members.size());
+        for (Member member : members) {
+            emails.add(member.email);
+        }
+        mailMetrics.recordCoalescedGroup(members.size());
+        List<RuntimeException> results;
+        try {
+            results = smtpClient.sendMailToEach(emails, body, key.priority());
+        } catch (RuntimeException | Error e) {
+            // 트랜잭션 전체 실패는 모든 멤버의 실패 (기다리는 요청이 멈추지 않도록 반드시 결과를 채움)
+            for (int i = 1; i < members.size(); i++) {
+                members.get(i).result.completeExceptionally(e);
+            }
+            throw e;
+        }
+        for (int i = 1; i < members.size(); i++) {
+            RuntimeException error = results.get(i);
+            if (error == null) {
+                members.get(i).result.complete(null);
+            } else {
+                members.get(i).result.completeExceptionally(error);
+            }
+        }
+        if (results.get(0) != null) {
+            throw results.get(0);
+        }
+    }
+
+    private static void await(Member member) {
+        try {
+            member.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 묶음 기준: 수신 도메인 + 본문 내용 + 우선순위. 템플릿 요청은 템플릿 ID와 변수 값이 모두 같아야 같은 본문입니다.
+     */
+    record GroupKey(String domain, String emailBody, String templateId, Map<String, String> variables, MailPriority priority) {
+
+        /** 주소에 도메인이 없으면 묶지 않음 (null) */
+        static GroupKey of(EmailRequest emailRequest) {
+            String email = emailRequest.getEmail();
+            int at = email == null ? -1 : email.lastIndexOf('@');
+            if (at < 0) {
+                return null;
+            }
+            return new GroupKey(email.substring(at + 1).toLowerCase(Locale.ROOT), emailRequest.getEmailBody(),
+                    emailRequest.getTemplateId(), emailRequest.getVariables(), MailPriority.orDefault(emailRequest.getPriority()));
+        }
+    }
+
+    private static final class Member {
+
+        private final String email;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private Member(String email) {
+            this.email = email;
+        }
+    }
+
+    /** 모이고 있는 수신자 묶음. 첫 번째 멤버가 리더 */
+    private final class Group {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition full = lock.newCondition();
+        private final List<Member> members = new ArrayList<>();
+        private final Set<String> emails = new HashSet<>();
+        private boolean closed;
+
+        private Group(Member leader) {
+            members.add(leader);
+            emails.add(leader.email);
+        }
+
+        private boolean tryAdd(Member member) {
+            lock.lock();
+            try {
+                if (closed || !emails.add(member.email)) {
+                    return false;
+                }
+                members.add(member);
+                if (members.size() >= maxRecipients) {
+                    closed = true;
+                    full.signal();
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // window가 지나거나 가득 찰 때까지 기다린 뒤 더 이상 합류하지 못하게 닫고 멤버를 돌려줌
+        private List<Member> awaitClose(long windowNanos) {
+            lock.lock();
+            try {
+                long remaining = windowNanos;
+                while (!closed && remaining > 0) {
+                    try {
+                        remaining = full.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                closed = true;
+                return List.copyOf(members);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package resilience.emailservice.mail.idempotency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 멱등성 키로 이미 전송한 요청을 걸러내는 고정 크기 중복 제거 캐시.
+ *
+ * 키 문자열 대신 64비트 지문(fingerprint)만 primitive 배열의 오픈 어드레싱 해시 테이블에 보관하므로
+ * 슬롯 하나가 17바이트이고 객체를 만들지 않습니다. (부하율 50% 이하, 기본 capacity 200,000개 기준 약 9MB)
+ * 서로 다른 키의 지문이 겹칠 확률은 수십만 개 기준 10^-8 수준이며, 겹치면 해당 요청이 중복으로 처리됩니다.
+ *
+ * 항목은 만료 시각을 가지며 만료된 슬롯은 새 키가 재사용합니다. 테이블이 가득 차면 만료된 항목을 걸러 다시 만들고,
+ * 그래도 가득 차면 해당 스트라이프를 비웁니다. (그 구간에서는 중복 제거가 보장되지 않음)
+ * 락 경합을 줄이기 위해 지문의 상위 비트로 나눈 여러 스트라이프가 각자 락을 가집니다.
+ */
+@Component
+public class IdempotencyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyCache.class);
+
+    private static final int STRIPES = 16;
+    private static final long EMPTY = 0L;
+
+    /** tryBegin 결과 */
+    public enum Admission {
+        ACQUIRED,   // 처음 보는 키: 전송 후 complete 또는 abort를 호출해야 함
+        DUPLICATE,  // 이미 전송 완료된 키: 전송하지 않음
+        IN_FLIGHT   // 같은 키가 전송 중
+    }
+
+    private static final byte IN_PROGRESS = 1;
+    private static final byte DONE = 2;
+
+    private final long ttlNanos;
+    private final long inFlightTtlNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public IdempotencyCache(@Value("${mail.idempotency.capacity:200000}") int capacity,
+                            @Value("${mail.idempotency.ttl-ms:86400000}") long ttlMillis,
+                            @Value("${mail.idempotency.in-flight-ttl-ms:60000}") long inFlightTtlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.inFlightTtlNanos = TimeUnit.MILLISECONDS.toNanos(inFlightTtlMillis);
+        int perStripe = Math.max(16, capacity / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * 키를 전송 중 상태로 등록합니다. 전송 중 프로세스가 죽어도 in-flight-ttl-ms가 지나면 다시 보낼 수 있습니다.
+     */
+    public Admission tryBegin(String key) {
+        long fingerprint = fingerprint(key);
+        return stripeOf(fingerprint).tryBegin(fingerprint, System.nanoTime());
+    }
+
+    /** 전송에 성공한 키를 ttl-ms 동안 중복으로 기억합니다. */
+    public void complete(String key) {
+        long fingerprint = fingerprint(key);
+        stripeOf(fingerprint).complete(fingerprint, System.nanoTime());
+    }
+
+    /** 전송에 실패한 키의 등록을 취소해 재시도가 다시 보낼 수 있게 합니다. */
+    public void abort(String key) {
+        long fingerprint = fingerprint(key);
+        stripeOf(fingerprint).abort(fingerprint, System.nanoTime());
+    }
+
+    /** 현재 보관 중인(만료되지 않은) 항목 수 */
+    public int size() {
+        long now = System.nanoTime();
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.liveCount(now);
+        }
+        return size;
+    }
+
+    private Stripe stripeOf(long fingerprint) {
+        return stripes[(int) (fingerprint >>> 60) & (STRIPES - 1)];
+    }
+
+    /** FNV-1a 64비트 해시에 MurmurHash3 fmix64를 더해 하위 비트까지 고르게 섞은 지문. 0은 빈 슬롯 표시로 쓰므로 피함 */
+    static long fingerprint(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == EMPTY ? 1 : h;
+    }
+
+    /** 선형 탐사 해시 테이블 하나. 모든 메서드는 lock 안에서 동작 */
+    private final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int maxEntries;
+        private long[] fingerprints;
+        private long[] expiresAt;
+        private byte[] states;
+        private int mask;
+        private int used;   // 한 번이라도 쓰인 슬롯 수 (만료된 슬롯 포함)
+
+        private Stripe(int maxEntries) {
+            this.maxEntries = maxEntries;
+            allocate(maxEntries);
+        }
+
+        private void allocate(int entries) {
+            // 부하율 50% 이하로 유지해 탐사 길이를 짧게
+            int size = Integer.highestOneBit(Math.max(2, entries * 2 - 1)) << 1;
+            fingerprints = new long[size];
+            expiresAt = new long[size];
+            states = new byte[size];
+            mask = size - 1;
+            used = 0;
+        }
+
+        private Admission tryBegin(long fingerprint, long now) {
+            lock.lock();
+            try {
+                int reusable = -1;
+                for (int i = (int) fingerprint & mask; ; i = (i + 1) & mask) {
+                    long current = fingerprints[i];
+                    if (current == EMPTY) {
+                        if (reusable < 0) {
+                            if (used >= maxEntries) {
+                                compact(now);
+                                return tryBegin(fingerprint, now);
+                            }
+                            reusable = i;
+                            used++;
+                        }
+                        put(reusable, fingerprint, now + inFlightTtlNanos, IN_PROGRESS);
+                        return Admission.ACQUIRED;
+                    }
+                    boolean expired = expiresAt[i] - now <= 0;
+                    if (current == fingerprint && !expired) {
+                        return states[i] == DONE ? Admission.DUPLICATE : Admission.IN_FLIGHT;
+                    }
+                    if (expired && reusable < 0) {
+                        reusable = i;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void complete(long fingerprint, long now) {
+            lock.lock();
+            try {
+                int i = find(fingerprint);
+                if (i >= 0) {
+                    put(i, fingerprint, now + ttlNanos, DONE);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void abort(long fingerprint, long now) {
+            lock.lock();
+            try {
+                int i = find(fingerprint);
+                if (i >= 0 && states[i] == IN_PROGRESS) {
+                    // 슬롯을 비우면 탐사 체인이 끊기므로 만료 처리만 하고 재사용에 맡김
+                    expiresAt[i] = now;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int find(long fingerprint) {
+            for (int i = (int) fingerprint & mask; ; i = (i + 1) & mask) {
+                if (fingerprints[i] == fingerprint) {
+                    return i;
+                }
+                if (fingerprints[i] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        private void put(int i, long fingerprint, long expires, byte state) {
+            fingerprints[i] = fingerprint;
+            expiresAt[i] = expires;
+            states[i] = state;
+        }
+
+        /** 만료되지 않은 항목만 새 테이블로 옮깁니다. 그래도 가득 차 있으면 비웁니다. */
+        private void compact(long now) {
+            long[] oldFingerprints = fingerprints;
+            long[] oldExpiresAt = expiresAt;
+            byte[] oldStates = states;
+            int live = 0;
+            for (int i = 0; i < oldFingerprints.length; i++) {
+                if (oldFingerprints[i] != EMPTY && oldExpiresAt[i] - now > 0) {
+                    live++;
+                }
+            }
+            allocate(maxEntries);
+            if (live >= maxEntries * 3 / 4) {
+                logger.warn("멱등성 캐시 스트라이프가 가득 차 비웁니다. (항목 {}개) mail.idempotency.capacity를 늘려야 합니다.", live);
+                return;
+            }
+            for (int i = 0; i < oldFingerprints.length; i++) {
+                if (oldFingerprints[i] != EMPTY && oldExpiresAt[i] - now > 0) {
+                    int j = (int) oldFingerprints[i] & mask;
+                    while (fingerprints[j] != EMPTY) {
+                        j = (j + 1) & mask;
+                    }
+                    put(j, oldFingerprints[i], oldExpiresAt[i], oldStates[i]);
+                    used++;
+                }
+            }
+        }
+
+        private int liveCount(long now) {
+            lock.lock();
+            try {
+                int live = 0;
+                for (int i = 0; i < fingerprints.length; i++) {
+                    if (fingerprints[i] != EMPTY && expiresAt[i] - now > 0) {
+                        live++;
+                    }
+                }
+                return live;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
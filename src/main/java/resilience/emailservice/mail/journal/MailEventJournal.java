@@ -0,0 +1,283 @@
+package resilience.emailservice.mail.journal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 전송 과정의 이벤트(수신, 성공, 실패, DLT 등)를 한 줄짜리 JSON으로 남기는 저널.
+ *
+ * 요청 처리 스레드는 미리 만들어 둔 슬롯에 필드만 채우고 바로 돌아가며, 문자열 조립과 로그 출력은
+ * 백그라운드 writer 스레드 하나가 맡습니다. 슬롯 배열은 락 없이 시퀀스 번호로 주고받는 고정 크기 링이고,
+ * 가득 차면 기다리지 않고 이벤트를 버린 뒤 mail.journal.events{result=dropped}만 올립니다.
+ *
+ * 수신 주소는 첫 글자와 도메인만 남기고 가리며, 예외 메시지 안의 주소도 같이 가립니다. 본문은 남기지 않습니다.
+ * RECEIVED, SENT 같은 routine 이벤트는 success-sample-rate 비율로만 남기고, 실패 이벤트는 항상 남깁니다.
+ *
+ * 출력은 "mail.journal" 로거의 INFO 레벨이므로 logback 설정으로 별도 파일이나 수집기로 보낼 수 있습니다.
+ */
+@Component
+public class MailEventJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(MailEventJournal.class);
+    private static final Logger journal = LoggerFactory.getLogger("mail.journal");
+
+    private static final int DRAIN_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final boolean enabled;
+    private final double successSampleRate;
+    private final Slot[] slots;
+    private final int mask;
+    // 생산자끼리 CAS로 다음 쓰기 위치를 나눠 가짐
+    private final AtomicLong tail = new AtomicLong();
+    // writer 스레드만 읽고 씀
+    private long head;
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter sampledOut;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public MailEventJournal(@Value("${mail.journal.enabled:true}") boolean enabled,
+                            @Value("${mail.journal.capacity:8192}") int capacity,
+                            @Value("${mail.journal.success-sample-rate:1.0}") double successSampleRate,
+                            MeterRegistry registry) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("mail.journal.capacity는 2 이상이어야 합니다: " + capacity);
+        }
+        this.enabled = enabled;
+        this.successSampleRate = successSampleRate;
+        // 인덱스를 나머지 연산 대신 비트 마스크로 구하도록 2의 거듭제곱으로 올림
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i);
+        }
+        this.mask = size - 1;
+        this.written = counter(registry, "written");
+        this.dropped = counter(registry, "dropped");
+        this.sampledOut = counter(registry, "sampled_out");
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("mail.journal.events")
+                .description("전송 이벤트 저널 처리 결과 (written, dropped: 링이 가득 참, sampled_out: 샘플링 제외)")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("mail-journal-writer").daemon().start(this::writeLoop);
+    }
+
+    /** 링에 남은 이벤트를 모두 쓰고 writer를 멈춥니다. */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public void record(MailEventType type, String email) {
+        record(type, email, null, null);
+    }
+
+    public void record(MailEventType type, String email, String detail) {
+        record(type, email, detail, null);
+    }
+
+    public void record(MailEventType type, String email, Throwable error) {
+        record(type, email, null, error);
+    }
+
+    /**
+     * 이벤트를 링에 넣습니다. 호출 스레드를 막지 않으며, 링이 가득 찼으면 버립니다.
+     * @param detail 위치나 시퀀스 같은 부가 정보 (본문이나 주소를 넣지 말 것)
+     * @param error 실패 원인 (클래스 이름과 메시지만 남기고 스택 트레이스는 남기지 않음)
+     */
+    public void record(MailEventType type, String email, String detail, Throwable error) {
+        record(type, email, detail, error == null ? null : error.getClass().getSimpleName(),
+                error == null ? null : error.getMessage());
+    }
+
+    /**
+     * 예외 객체 없이 원인만 전달받은 경우 (예: DLT 헤더에 남은 예외 클래스와 메시지).
+     * @param errorType 예외 클래스 이름
+     * @param errorMessage 예외 메시지. 주소가 들어 있을 수 있으므로 기록할 때 가림
+     */
+    public void record(MailEventType type, String email, String detail, String errorType, String errorMessage) {
+        if (!enabled) {
+            return;
+        }
+        if (type.isRoutine() && successSampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= successSampleRate) {
+            sampledOut.increment();
+            return;
+        }
+        Slot slot = claim();
+        if (slot == null) {
+            dropped.increment();
+            return;
+        }
+        slot.timestamp = System.currentTimeMillis();
+        slot.type = type;
+        slot.email = email;
+        slot.detail = detail;
+        slot.errorType = errorType;
+        slot.errorMessage = errorMessage;
+        slot.publish();
+    }
+
+    // 쓸 수 있는 슬롯을 하나 차지합니다. 아직 writer가 비우지 않은 슬롯까지 한 바퀴 돌았으면 null
+    private Slot claim() {
+        while (true) {
+            long position = tail.get();
+            Slot slot = slots[(int) (position & mask)];
+            long diff = slot.sequence - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slot.position = position;
+                    return slot;
+                }
+            } else if (diff < 0) {
+                return null;
+            }
+            // diff > 0: 다른 생산자가 먼저 차지함, 다음 위치로 다시 시도
+        }
+    }
+
+    /**
+     * 채워진 이벤트를 최대 max개까지 꺼내 한 줄씩 넘깁니다. (writer 스레드 전용, 테스트에서는 직접 호출)
+     * @return 꺼낸 이벤트 수
+     */
+    int drain(int max, Consumer<String> sink) {
+        int drained = 0;
+        StringBuilder line = new StringBuilder(192);
+        while (drained < max) {
+            Slot slot = slots[(int) (head & mask)];
+            if (slot.sequence != head + 1) {
+                break;
+            }
+            line.setLength(0);
+            slot.format(line);
+            slot.clear();
+            // 다음 바퀴의 생산자가 쓸 수 있도록 시퀀스를 한 바퀴 뒤로 넘김
+            slot.sequence = head + slots.length;
+            head++;
+            drained++;
+            sink.accept(line.toString());
+        }
+        return drained;
+    }
+
+    private void writeLoop() {
+        Consumer<String> sink = journal::info;
+        while (running) {
+            try {
+                int drained = drain(DRAIN_BATCH, sink);
+                if (drained > 0) {
+                    written.increment(drained);
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            } catch (RuntimeException e) {
+                // 로그 출력 오류로 writer가 멈추면 링이 가득 차 이후 이벤트가 모두 버려지므로 계속 진행
+                log.warn("전송 이벤트 저널 출력 실패: {}", e.getMessage());
+            }
+        }
+        int drained;
+        while ((drained = drain(DRAIN_BATCH, sink)) > 0) {
+            written.increment(drained);
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /** 링의 칸 하나. sequence가 position이면 비어 있고, position + 1이면 writer가 읽을 차례입니다. */
+    private static final class Slot {
+
+        private volatile long sequence;
+        private long position;
+        private long timestamp;
+        private MailEventType type;
+        private String email;
+        private String detail;
+        private String errorType;
+        private String errorMessage;
+
+        private Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+        // volatile 쓰기로 앞서 채운 필드가 writer 스레드에 보이도록 함
+        private void publish() {
+            sequence = position + 1;
+        }
+
+        private void format(StringBuilder line) {
+            line.append("{\"ts\":\"").append(Instant.ofEpochMilli(timestamp))
+                    .append("\",\"event\":\"").append(type.name()).append('"');
+            appendField(line, "to", PiiMasker.maskEmail(email));
+            appendField(line, "detail", detail);
+            appendField(line, "error", errorType);
+            appendField(line, "message", PiiMasker.maskText(errorMessage));
+            line.append('}');
+        }
+
+        private void clear() {
+            type = null;
+            email = null;
+            detail = null;
+            errorType = null;
+            errorMessage = null;
+        }
+
+        private static void appendField(StringBuilder line, String name, String value) {
+            if (value == null) {
+                return;
+            }
+            line.append(",\"").append(name).append("\":\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> line.append("\\\"");
+                    case '\\' -> line.append("\\\\");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    case '\t' -> line.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            line.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            line.append(c);
+                        }
+                    }
+                }
+            }
+            line.append('"');
+        }
+    }
+}
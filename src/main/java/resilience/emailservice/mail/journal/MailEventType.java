@@ -0,0 +1,25 @@
+package resilience.emailservice.mail.journal;
+
+/**
+ * 전송 과정에서 남기는 이벤트 종류.
+ * routine 이벤트는 mail.journal.success-sample-rate 비율로만 기록하고, 나머지는 항상 기록합니다.
+ */
+public enum MailEventType {
+
+    RECEIVED(true),        // Kafka 레코드 수신
+    SENT(true),            // SMTP 전송 성공
+    DUPLICATE(false),      // 멱등성 키로 걸러낸 중복 요청
+    FAILED(false),         // 전송 시도 실패 (재시도 여부와 무관)
+    DEAD_LETTERED(false),  // 재시도 소진 또는 재시도하지 않는 실패로 DLT 발행
+    DLT_CONSUMED(false);   // DLT 리스너가 레코드를 받음
+
+    private final boolean routine;
+
+    MailEventType(boolean routine) {
+        this.routine = routine;
+    }
+
+    public boolean isRoutine() {
+        return routine;
+    }
+}
@@ -0,0 +1,50 @@
+package resilience.emailservice.mail.journal;
+
+/**
+ * 로그에 남길 이메일 주소를 가립니다. 로컬 파트는 첫 글자만 남기고 도메인은 그대로 둡니다.
+ * 예) hong.gildong@gmail.com → h***@gmail.com
+ */
+public final class PiiMasker {
+
+    private PiiMasker() {
+    }
+
+    public static String maskEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        int at = email.indexOf('@');
+        if (at <= 0) {
+            return "***";
+        }
+        return email.charAt(0) + "***" + email.substring(at);
+    }
+
+    /**
+     * 예외 메시지처럼 자유 형식 문자열 안의 이메일 주소를 모두 가립니다.
+     * '@' 앞뒤로 공백/구분자가 아닌 문자를 주소로 봅니다.
+     */
+    public static String maskText(String text) {
+        if (text == null || text.indexOf('@') < 0) {
+            return text;
+        }
+        StringBuilder masked = new StringBuilder(text.length());
+        int copied = 0;
+        for (int at = text.indexOf('@'); at >= 0; at = text.indexOf('@', at + 1)) {
+            int start = at;
+            while (start > copied && isAddressChar(text.charAt(start - 1))) {
+                start--;
+            }
+            if (start == at) {
+                continue;
+            }
+            masked.append(text, copied, start + 1).append("***");
+            copied = at;
+        }
+        return masked.append(text, copied, text.length()).toString();
+    }
+
+    private static boolean isAddressChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '-' || c == '+';
+    }
+}
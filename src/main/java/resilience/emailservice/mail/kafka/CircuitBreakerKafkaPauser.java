@@ -0,0 +1,93 @@
+package resilience.emailservice.mail.kafka;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.mail.circuit.CircuitState;
+import resilience.emailservice.mail.circuit.SmtpCircuitBreaker;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SMTP 서킷이 열리면 원본 토픽(트랜잭션/대량)과 그 재시도 토픽을 소비하는 리스너 컨테이너를 일시 정지하고,
+ * half-open으로 바뀔 시각에 다시 재개합니다.
+ * 재시도 토픽 컨테이너도 멈춰야 서킷이 열린 동안 재시도 토픽의 레코드가 재시도를 소진해 DLT로 넘어가지 않습니다.
+ * DLT 리스너는 SMTP로 보내지 않으므로 계속 소비합니다.
+ * 재개 후 처음 처리되는 레코드가 프로브가 되어, 실패하면 서킷이 다시 열리고 컨테이너도 다시 멈춥니다.
+ * (재시도를 소진해 DLT로 보내는 대신 릴레이가 회복될 때까지 소비를 멈춤)
+ */
+@Component
+public class CircuitBreakerKafkaPauser {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerKafkaPauser.class);
+
+    private static final String[] PAUSABLE_TOPICS = {EmailRequestListener.ORIGINAL_TOPIC, EmailRequestListener.BULK_TOPIC};
+
+    private final SmtpCircuitBreaker circuitBreaker;
+    private final KafkaListenerEndpointRegistry registry;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("kafka-circuit-resume").daemon(true).factory());
+
+    public CircuitBreakerKafkaPauser(SmtpCircuitBreaker circuitBreaker, KafkaListenerEndpointRegistry registry) {
+        this.circuitBreaker = circuitBreaker;
+        this.registry = registry;
+    }
+
+    @PostConstruct
+    void register() {
+        circuitBreaker.addListener((from, to, openUntilMillis) -> {
+            if (to == CircuitState.OPEN) {
+                pauseAll();
+                long delay = Math.max(0, openUntilMillis - System.currentTimeMillis());
+                scheduler.schedule(this::resumeAll, delay, TimeUnit.MILLISECONDS);
+            } else if (to == CircuitState.CLOSED) {
+                resumeAll();
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void pauseAll() {
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            if (isPausable(container) && container.isRunning() && !container.isPauseRequested()) {
+                container.pause();
+                log.warn("SMTP 서킷 열림: 리스너 컨테이너 {} 일시 정지", container.getListenerId());
+            }
+        }
+    }
+
+    private void resumeAll() {
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            if (isPausable(container) && container.isPauseRequested()) {
+                container.resume();
+                log.info("SMTP 서킷 재시도 가능: 리스너 컨테이너 {} 재개", container.getListenerId());
+            }
+        }
+    }
+
+    // 단건/배치 리스너의 원본 토픽과 재시도 토픽 모드에서 생기는 {원본 토픽}.retry-* 토픽 컨테이너 (리스너 ID는 프레임워크가 만듦)
+    static boolean isPausable(MessageListenerContainer container) {
+        String[] topics = container.getContainerProperties().getTopics();
+        if (topics == null) {
+            return false;
+        }
+        for (String topic : topics) {
+            for (String pausable : PAUSABLE_TOPICS) {
+                if (topic.equals(pausable) || topic.startsWith(pausable + KafkaRetryTopicConfig.RETRY_TOPIC_SUFFIX)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,130 @@
+package resilience.emailservice.mail.kafka;
+
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+import resilience.emailservice.exception.BatchSendException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailPriority;
+import resilience.emailservice.mail.MailSenderService;
+import resilience.emailservice.mail.journal.PiiMasker;
+import resilience.emailservice.mail.metrics.MailMetrics;
+import resilience.emailservice.mail.retry.RetryBudget;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 배치 리스너: kafka.listener.mode=batch 일 때만 등록되어 단건 리스너 대신 동작합니다.
+ * (배치 모드가 아닐 때는 엔드포인트 자체가 없으므로 재시도 토픽 설정 등의 대상이 되지 않음)
+ * 대량 메일 토픽은 별도 컨테이너에서 배치로 소비하므로 캠페인 배치가 트랜잭션 메일 배치를 막지 않습니다.
+ */
+@Service
+@ConditionalOnProperty(name = "kafka.listener.mode", havingValue = "batch")
+public class EmailRequestBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailRequestBatchListener.class);
+
+    static final String LISTENER_ID = "emailRequestBatchListener"; // 리스너 컨테이너 ID
+    static final String BULK_LISTENER_ID = "emailBulkRequestBatchListener";
+
+    private final MailSenderService mailSenderService;
+    private final MailMetrics mailMetrics;
+    private final RetryBudget retryBudget;
+    // 파티션별로 마지막에 실패해 다시 전달될 레코드의 오프셋 (파티션 수만큼만 쌓임)
+    private final Map<TopicPartition, Long> failedOffsets = new ConcurrentHashMap<>();
+
+    public EmailRequestBatchListener(MailSenderService mailSenderService, MailMetrics mailMetrics, RetryBudget retryBudget) {
+        this.mailSenderService = mailSenderService;
+        this.mailMetrics = mailMetrics;
+        this.retryBudget = retryBudget;
+    }
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            idIsGroup = false,
+            topics = EmailRequestListener.ORIGINAL_TOPIC,
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory" // 배치 리스너용 팩토리 사용
+    )
+    public void consumeEmailRequestBatch(
+            List<EmailRequest> emailRequests,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) List<Integer> partitions,
+            @Header(KafkaHeaders.OFFSET) List<Long> offsets,
+            // 레코드별 헤더 (멱등성 키를 꺼내기 위해 사용)
+            @Header(KafkaHeaders.BATCH_CONVERTED_HEADERS) List<Map<String, Object>> headers
+    ) {
+        consume(emailRequests, EmailRequestListener.ORIGINAL_TOPIC, partitions, offsets, headers, MailPriority.TRANSACTIONAL);
+    }
+
+    @KafkaListener(
+            id = BULK_LISTENER_ID,
+            idIsGroup = false,
+            topics = EmailRequestListener.BULK_TOPIC,
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void consumeBulkEmailRequestBatch(
+            List<EmailRequest> emailRequests,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) List<Integer> partitions,
+            @Header(KafkaHeaders.OFFSET) List<Long> offsets,
+            @Header(KafkaHeaders.BATCH_CONVERTED_HEADERS) List<Map<String, Object>> headers
+    ) {
+        consume(emailRequests, EmailRequestListener.BULK_TOPIC, partitions, offsets, headers, MailPriority.BULK);
+    }
+
+    private void consume(List<EmailRequest> emailRequests, String topic, List<Integer> partitions, List<Long> offsets,
+                         List<Map<String, Object>> headers, MailPriority lanePriority) {
+        for (int i = 0; i < emailRequests.size(); i++) {
+            emailRequests.get(i).applyIdempotencyKeyHeader(
+                    EmailRequestListener.headerText(headers.get(i).get(EmailRequest.IDEMPOTENCY_KEY_HEADER)));
+            emailRequests.get(i).applyLanePriority(lanePriority);
+        }
+        log.info("Kafka 통해 EmailRequest 배치 수신: size={}, 첫 위치=partition {} offset {}",
+                emailRequests.size(), partitions.get(0), offsets.get(0));
+        long start = mailMetrics.start();
+
+        try {
+            mailSenderService.sendEmailBatch(emailRequests);
+            log.info("이메일 배치 처리 성공: size={}", emailRequests.size());
+            mailMetrics.recordListener(true, start, null);
+            retryBudget.recordFirstAttemptSuccess(firstAttempts(topic, partitions, offsets, emailRequests.size()));
+
+        } catch (BatchSendException e) {
+            int index = e.getFailedIndex();
+            mailMetrics.recordListener(true, start, e.getCause());
+            log.warn("이메일 배치 처리 중 오류 발생 (index: {}, partition: {}, offset: {}): {}. 실패 레코드부터 Kafka 에러 핸들러에 넘깁니다.",
+                    index, partitions.get(index), offsets.get(index), PiiMasker.maskText(e.getCause().getMessage()));
+            // index 이전 레코드는 전송에 성공했으므로 예산에 쌓고, 실패한 레코드는 다시 전달될 때 재시도로 셈
+            retryBudget.recordFirstAttemptSuccess(firstAttempts(topic, partitions, offsets, index));
+            failedOffsets.put(new TopicPartition(topic, partitions.get(index)), offsets.get(index));
+            // index 이전 레코드는 커밋되고, 실패한 레코드와 그 이후 레코드만 재시도/DLT 대상이 됨
+            throw new BatchListenerFailedException(e.getMessage(), e.getCause(), index);
+        }
+    }
+
+    /**
+     * 배치 앞쪽 count개 중 처음 전달된 레코드 수.
+     * 배치 리스너에는 레코드별 전달 횟수 헤더가 없으므로, 파티션마다 마지막으로 실패한 오프셋을 기억해 두고
+     * 그 레코드가 다시 전달되면 재시도로 보고 뺍니다. (실패 레코드 뒤의 레코드는 전송을 시도한 적이 없으므로 첫 시도로 셈)
+     */
+    private int firstAttempts(String topic, List<Integer> partitions, List<Long> offsets, int count) {
+        if (failedOffsets.isEmpty()) {
+            return count;
+        }
+        int redelivered = 0;
+        for (int i = 0; i < count; i++) {
+            if (failedOffsets.remove(new TopicPartition(topic, partitions.get(i)), offsets.get(i))) {
+                redelivered++;
+            }
+        }
+        return count - redelivered;
+    }
+}
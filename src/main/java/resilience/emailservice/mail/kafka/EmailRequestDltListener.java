@@ -0,0 +1,96 @@
+package resilience.emailservice.mail.kafka;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.journal.MailEventJournal;
+import resilience.emailservice.mail.journal.MailEventType;
+
+/**
+ * 두 레인의 DLT 리스너. 단건/배치/병렬 중 어느 모드로 소비하든 DLT로 넘어온 레코드는 여기서 처리합니다.
+ */
+@Service
+public class EmailRequestDltListener {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailRequestDltListener.class);
+
+    private static final String DLT_SUFFIX = ".DLT"; // KafkaListenerConfig의 suffix와 동일하게
+    private static final String DLT_TOPIC = EmailRequestListener.ORIGINAL_TOPIC + DLT_SUFFIX;
+    private static final String BULK_DLT_TOPIC = EmailRequestListener.BULK_TOPIC + DLT_SUFFIX;
+    private static final String DLT_GROUP_ID = "${spring.kafka.consumer.group-id}" + DLT_SUFFIX; // 원본 그룹 ID + .DLT
+
+    private final MailEventJournal mailEventJournal;
+
+    public EmailRequestDltListener(MailEventJournal mailEventJournal) {
+        this.mailEventJournal = mailEventJournal;
+    }
+
+    // DLT 리스너: 실패한 메시지를 처리
+    @KafkaListener(
+            topics = {DLT_TOPIC, BULK_DLT_TOPIC}, // 두 레인의 DLT 토픽 구독
+            groupId = DLT_GROUP_ID,     // DLT 처리를 위한 별도 그룹 ID
+            containerFactory = "kafkaListenerContainerFactory" // 새로 정의해준 팩토리 사용
+    )
+    public void consumeDLTMessage(
+            // 1. 메시지 본문 (Payload)
+            EmailRequest failedRequest, // DLT 메시지 본문 (원본과 동일 타입 가정)
+
+            // 2. DLT 메시지 자체의 기본 헤더 정보
+            @Header(KafkaHeaders.RECEIVED_TOPIC) String dltTopic,         // 메시지를 수신한 토픽 (DLT 토픽 이름)
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int dltPartition,    // 메시지를 수신한 DLT 파티션 ID
+            @Header(KafkaHeaders.OFFSET) long dltOffset,                 // DLT 토픽 내에서의 메시지 오프셋
+
+            // 3. 원본 메시지 정보 (DeadLetterPublishingRecoverer가 추가)
+            @Header(KafkaHeaders.DLT_ORIGINAL_TOPIC) String originalTopic, // 실패가 발생했던 원본 토픽 이름
+            @Header(KafkaHeaders.DLT_ORIGINAL_PARTITION) int originalPartition, // 원본 파티션 ID
+            @Header(KafkaHeaders.DLT_ORIGINAL_OFFSET) long originalOffset,     // 원본 오프셋
+
+            // 4. 실패 원인 정보 (DeadLetterPublishingRecoverer가 추가)
+            @Header(KafkaHeaders.DLT_EXCEPTION_FQCN) String exceptionFqcn,      // 실패 원인 예외의 전체 클래스 이름
+            @Header(KafkaHeaders.DLT_EXCEPTION_MESSAGE) String exceptionMessage, // 예외 메시지
+            @Header(KafkaHeaders.DLT_EXCEPTION_STACKTRACE) String stacktrace    // 예외 스택트레이스 문자열
+            // 필요하다면 다른 DLT 헤더 추가: DLT_ORIGINAL_TIMESTAMP, DLT_ORIGINAL_CONSUMER_GROUP 등
+    ) {
+        // 위치와 실패 원인을 한 줄로 기록 (주소는 가리고 본문은 남기지 않음)
+        // 예외 메시지에는 수신 주소가 들어 있을 수 있으므로 detail이 아닌 message 필드로 넘겨 가림
+        mailEventJournal.record(MailEventType.DLT_CONSUMED, failedRequest.getEmail(),
+                "dlt=" + dltTopic + "-" + dltPartition + "@" + dltOffset
+                        + ", original=" + originalTopic + "-" + originalPartition + "@" + originalOffset,
+                exceptionFqcn.substring(exceptionFqcn.lastIndexOf('.') + 1), exceptionMessage);
+        // 스택 트레이스는 매우 길 수 있으므로 DEBUG 레벨로만 로깅
+        log.debug("실패 스택트레이스:\n{}", stacktrace);
+
+        // === DLT 메시지 처리 로직 ===
+        // 만약 DLT 리스너 처리 중 또 예외가 발생하면 무한 루프에 빠질 수 있으므로 반드시 try-catch 처리
+        try {
+            // 예시: 실패 원인(exceptionFqcn)을 분석하여 처리 결정
+            if (exceptionFqcn.contains("InvalidEmailException") || exceptionFqcn.contains("InvalidTemplateException")) {
+                // 데이터 문제: 수정 불가 시 영구 실패 처리 또는 알림
+                log.error("[DLT-조치] 원본 오프셋 {}에서 잘못된 데이터 감지. 자동 재처리 불가. 알림을 발송합니다.", originalOffset);
+                // sendAlert("Invalid data in DLT", failedRequest, exceptionMessage);
+            } else if (exceptionFqcn.contains("RetryBudgetExhaustedException")) {
+                // 릴레이 장애로 재시도 예산이 바닥나 재시도 없이 넘어온 레코드: 장애가 끝난 뒤 재전송 대상
+                log.warn("[DLT-조치] 원본 오프셋 {}은 재시도 예산 소진으로 재시도되지 않았습니다. 릴레이 복구 후 POST /admin/dlt/replay로 재전송하세요.", originalOffset);
+            } else if (exceptionFqcn.contains("RetryableException")) {
+                // 일시적 문제였을 수 있음: 제한적으로 재시도 고려 또는 수동 처리 요청
+                log.warn("[DLT-조치] 원본 오프셋 {}에서 재시도 가능 예외 감지. 릴레이 복구 후 POST /admin/dlt/replay로 재전송하세요.", originalOffset);
+                // (주의) 여기서 바로 재시도 로직(mailSenderService.sendEmail)을 넣으면,
+                // 외부 시스템이 계속 불안정할 경우 DLT 리스너가 계속 실패하며 루프 돌 수 있음.
+                // -> 재전송은 속도 제한과 진행 위치 저장이 있는 DltReplayService에 맡김
+            } else {
+                // 예상 못한 오류: 개발자 확인 필요
+                log.error("[DLT-조치] 원본 오프셋 {}에서 예상치 못한 예외 타입 {} 발생. 확인이 필요합니다.", exceptionFqcn, originalOffset);
+                // sendAlert("Unexpected error in DLT", failedRequest, exceptionMessage);
+            }
+        } catch (Exception e) {
+            // DLT 메시지 처리 로직 자체에서 오류 발생 시
+            log.error("!!! 중요(CRITICAL): 원본 오프셋 {}의 DLT 메시지 처리 중 예외 발생: {}", originalOffset, e.getMessage(), e);
+            // 이 경우 더 이상 자동 처리 어려움. 심각한 오류 알림 발송 등 필수 조치
+            // sendCriticalAlert("DLT Processing failed!", e);
+        }
+    }
+}
@@ -1,19 +1,32 @@
 package resilience.emailservice.mail.kafka;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.KafkaOperations;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.util.backoff.FixedBackOff; // 또는 ExponentialBackOff 등 사용 가능
+import resilience.emailservice.exception.CircuitOpenException;
 import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.InvalidTemplateException;
+import resilience.emailservice.exception.RetryBudgetExhaustedException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.journal.MailEventJournal;
+import resilience.emailservice.mail.journal.MailEventType;
+import resilience.emailservice.mail.metrics.MailMetrics;
+import resilience.emailservice.mail.retry.RetryBudget;
+
+import java.util.Properties;
 
 @Configuration
 public class KafkaListenerConfig {
@@ -32,6 +45,26 @@ public class KafkaListenerConfig {
     @Value("${kafka.listener.retry.interval:1000}") // 1초 간격
     private long retryInterval;
 
+    // 서킷이 열려 실패한 레코드를 다시 시도할 간격 (ms). 이 경우 재시도 횟수를 소진하지 않아 DLT로 가지 않음
+    @Value("${kafka.listener.circuit-open-retry-interval:1000}")
+    private long circuitOpenRetryInterval;
+
+    // true면 리스너 컨테이너의 컨슈머 스레드를 가상 스레드로 실행 (Tomcat 요청 스레드와 같은 설정을 따름)
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    // 배치 리스너가 한 번의 poll로 가져올 최대 레코드 수
+    @Value("${kafka.listener.batch.max-poll-records:500}")
+    private int batchMaxPollRecords;
+
+    // 브로커가 응답하기 전에 모을 최소 바이트 수 (클수록 배치가 커지고 왕복 횟수는 줄어듦)
+    @Value("${kafka.listener.batch.fetch-min-bytes:1}")
+    private int batchFetchMinBytes;
+
+    // fetch-min-bytes가 채워지지 않았을 때 브로커가 기다릴 최대 시간 (ms)
+    @Value("${kafka.listener.batch.fetch-max-wait-ms:500}")
+    private int batchFetchMaxWaitMs;
+
     /**
      * Kafka 리스너 컨테이너 팩토리 설정.
      * 위에서 정의한 DefaultErrorHandler를 사용하도록 설정합니다.
@@ -46,6 +79,9 @@ public class KafkaListenerConfig {
 
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
+        applyListenerTaskExecutor(factory, "kafka-listener-");
+        // 리스너가 첫 시도 성공만 재시도 예산에 쌓을 수 있도록 몇 번째 전달인지 헤더로 넘김
+        factory.getContainerProperties().setDeliveryAttemptHeader(true);
 
         // *** 에러 핸들러 설정 ***
         factory.setCommonErrorHandler(kafkaErrorHandler);
@@ -54,42 +90,131 @@ public class KafkaListenerConfig {
         return factory;
     }
 
+    /**
+     * 배치 리스너용 컨테이너 팩토리 설정.
+     * 한 번의 poll로 가져온 레코드를 List로 리스너에 넘기며, fetch 관련 설정은 이 팩토리의 컨테이너에만 적용됩니다.
+     * 리스너가 BatchListenerFailedException으로 실패 인덱스를 알려주면 DefaultErrorHandler는
+     * 그 이전 레코드의 오프셋을 커밋하고, 실패한 레코드부터 재시도/DLT 처리합니다.
+     * @param consumerFactory Spring Boot가 자동 구성해주는 ConsumerFactory
+     * @param kafkaErrorHandler 단건 리스너와 같은 DefaultErrorHandler
+     * @return 배치 모드로 설정된 ConcurrentKafkaListenerContainerFactory
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory,
+            DefaultErrorHandler kafkaErrorHandler) {
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        applyListenerTaskExecutor(factory, "kafka-batch-listener-");
+
+        // ConsumerFactory 설정 위에 덮어쓸 배치 전용 fetch 설정
+        Properties batchConsumerProperties = new Properties();
+        batchConsumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchMaxPollRecords));
+        batchConsumerProperties.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(batchFetchMinBytes));
+        batchConsumerProperties.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(batchFetchMaxWaitMs));
+        factory.getContainerProperties().setKafkaConsumerProperties(batchConsumerProperties);
+
+        factory.setCommonErrorHandler(kafkaErrorHandler);
+
+        log.info("Configured batch ConcurrentKafkaListenerContainerFactory. max.poll.records={}, fetch.min.bytes={}, fetch.max.wait.ms={}",
+                batchMaxPollRecords, batchFetchMinBytes, batchFetchMaxWaitMs);
+        return factory;
+    }
+
+    /**
+     * 가상 스레드 모드일 때 컨테이너의 컨슈머 스레드를 가상 스레드로 만드는 Executor를 설정합니다.
+     * (직접 정의한 팩토리에는 Spring Boot의 가상 스레드 자동 설정이 적용되지 않으므로 여기서 지정)
+     */
+    private void applyListenerTaskExecutor(ConcurrentKafkaListenerContainerFactory<String, Object> factory, String threadNamePrefix) {
+        if (!virtualThreadsEnabled) {
+            return;
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        factory.getContainerProperties().setListenerTaskExecutor(executor);
+    }
+
     /**
      * 실패한 메시지를 DLQ 토픽으로 보내는 Recoverer 빈 설정
      * @param kafkaOperations KafkaTemplate 빈이 자동으로 주입됨 (메시지 발행 위해 필요)
      * @return DeadLetterPublishingRecoverer 인스턴스
      */
     @Bean
-    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(KafkaOperations<Object, Object> kafkaOperations) {
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(KafkaOperations<Object, Object> kafkaOperations,
+                                                                       MailMetrics mailMetrics,
+                                                                       MailEventJournal mailEventJournal) {
         // 실패 시 동작 정의: 원본 토픽 이름 + 접미사(예: .DLT)를 가진 토픽으로 메시지 발행
         return new DeadLetterPublishingRecoverer(kafkaOperations,
                 (consumerRecord, exception) -> {
-                    log.warn("Retries exhausted for record [{}]. Sending to DLT.", consumerRecord, exception);
-                    return new TopicPartition(consumerRecord.topic() + dltSuffix, -1); // -1: 파티션 자동 할당
+                    String dltTopic = consumerRecord.topic() + dltSuffix;
+                    // 레코드 본문과 스택 트레이스 대신 위치와 원인만 저널에 기록 (스택 트레이스는 DLT 헤더에 남음)
+                    String email = consumerRecord.value() instanceof EmailRequest emailRequest ? emailRequest.getEmail() : null;
+                    mailEventJournal.record(MailEventType.DEAD_LETTERED, email,
+                            consumerRecord.topic() + "-" + consumerRecord.partition() + "@" + consumerRecord.offset() + " -> " + dltTopic,
+                            // 리스너 예외는 ListenerExecutionFailedException 등으로 감싸져 오므로 실제 원인을 꺼냄
+                            NestedExceptionUtils.getMostSpecificCause(exception));
+                    mailMetrics.countDltPublished(dltTopic, exception);
+                    return new TopicPartition(dltTopic, -1); // -1: 파티션 자동 할당
                 });
     }
 
     /**
      * Kafka 리스너를 위한 에러 핸들러 빈 설정
      * @param recoverer 위에서 정의한 DeadLetterPublishingRecoverer 빈이 주입됨
+     * @param retryBudget RetryScheduler와 함께 쓰는 재시도 예산 (소진되면 재시도 없이 DLT로 보냄)
      * @return DefaultErrorHandler 인스턴스
      */
     @Bean
-    public DefaultErrorHandler kafkaErrorHandler(DeadLetterPublishingRecoverer recoverer) {
+    public DefaultErrorHandler kafkaErrorHandler(DeadLetterPublishingRecoverer recoverer, MailMetrics mailMetrics,
+                                                 RetryBudget retryBudget) {
         // 고정 간격으로 재시도하는 BackOff 전략 설정
         // FixedBackOff(interval, maxAttempts): maxAttempts는 재시도 횟수 (최초 시도 제외)
-        FixedBackOff backOff = new FixedBackOff(retryInterval, retryAttempts - 1); // 최초 시도 1회를 제외한 재시도 횟수
+        // 재시도마다 재시도 예산을 쓰고, 예산이 없으면 남은 횟수와 관계없이 DLT로 보냄
+        RetryBudgetBackOff backOff = new RetryBudgetBackOff(
+                new FixedBackOff(retryInterval, retryAttempts - 1), retryBudget); // 최초 시도 1회를 제외한 재시도 횟수
 
         // DefaultErrorHandler 생성 시 recoverer와 backOff 전달
         DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
 
         // 특정 예외는 재시도하지 않도록 설정 가능
-        errorHandler.addNotRetryableExceptions(InvalidEmailException.class);
+        errorHandler.addNotRetryableExceptions(InvalidEmailException.class, InvalidTemplateException.class,
+                RetryBudgetExhaustedException.class);
+
+        // SMTP 서킷이 열려 실패한 레코드는 횟수 제한 없이 같은 레코드를 다시 시도 (DLT로 보내지 않음)
+        // 그동안 CircuitBreakerKafkaPauser가 컨테이너를 일시 정지하므로 재시도가 릴레이에 부하를 주지 않음 (재시도 예산도 쓰지 않음)
+        errorHandler.setBackOffFunction((record, exception) ->
+                hasCause(exception, CircuitOpenException.class)
+                        ? new FixedBackOff(circuitOpenRetryInterval, FixedBackOff.UNLIMITED_ATTEMPTS)
+                        : null); // null이면 기본 backOff 사용
+        // 서킷이 닫힌 뒤 다른 예외로 실패하면 재시도 횟수를 처음부터 다시 셈
+        errorHandler.setResetStateOnExceptionChange(true);
+
+        // 블로킹 재시도도 RetryScheduler와 같은 mail.retry.attempts로 집계
+        // failedDelivery는 마지막 실패(DLT로 넘어가는 시도)에도 호출되므로 다시 시도될 실패만 셈
+        // (재시도 예산이 없어 DLT로 넘어가는 실패는 구분되지 않아 함께 셈. 예산 소진은 mail.retry.budget.withdrawals{result=denied}로 확인)
+        errorHandler.setRetryListeners((record, exception, deliveryAttempt) -> {
+            boolean retryable = !hasCause(exception, InvalidEmailException.class) && !hasCause(exception, InvalidTemplateException.class)
+                    && !hasCause(exception, RetryBudgetExhaustedException.class);
+            if (retryable && (deliveryAttempt < retryAttempts || hasCause(exception, CircuitOpenException.class))) {
+                mailMetrics.countRetryAttempt(exception);
+            }
+        });
 
         log.info("Configured Kafka DefaultErrorHandler with {} total attempts and {}ms interval.", retryAttempts, retryInterval);
         return errorHandler;
     }
 
+    private static boolean hasCause(Throwable exception, Class<? extends Throwable> type) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * DLQ 토픽 자동 생성을 위한 NewTopic 빈 정의
      * @return NewTopic 빈
@@ -103,4 +228,12 @@ public class KafkaListenerConfig {
         // return TopicBuilder.name(originalTopic + dltSuffix).partitions(1).replicas(1).build();
     }
 
+    /**
+     * 대량 메일 레인(email-send-requests.bulk)의 DLQ 토픽
+     */
+    @Bean
+    public NewTopic emailSendRequestsBulkDLT() {
+        return new NewTopic(EmailRequestListener.BULK_TOPIC + dltSuffix, 1, (short) 1);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package resilience.emailservice.mail.kafka;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicSchedulerWrapper;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.InvalidTemplateException;
+import resilience.emailservice.exception.RetryBudgetExhaustedException;
+
+import java.util.List;
+
+/**
+ * 논블로킹 재시도 토픽 설정 (kafka.listener.retry.mode=topics 일 때만 활성화).
+ *
+ * 기본(blocking) 모드에서는 DefaultErrorHandler가 FixedBackOff로 같은 파티션에서 재시도하므로
+ * 실패한 레코드 하나가 attempts × interval 동안 파티션 전체를 막습니다.
+ * 이 모드에서는 실패한 레코드를 단계별 재시도 토픽으로 넘기고 원본 파티션은 계속 처리합니다.
+ *
+ *   email-send-requests
+ *     → email-send-requests.retry-1000   (1초 후 재시도)
+ *     → email-send-requests.retry-30000  (30초 후 재시도)
+ *     → email-send-requests.DLT          (기존 DLT 리스너가 처리)
+ *
+ * 대량 메일 토픽(email-send-requests.bulk)도 같은 단계로 .bulk.retry-* 토픽을 따로 가지므로 두 레인의 재시도가 섞이지 않습니다.
+ *
+ * InvalidEmailException, InvalidTemplateException은 재시도 토픽을 거치지 않고 바로 DLT로 보냅니다.
+ * 재시도 토픽에서 꺼낸 레코드는 처리 전에 재시도 예산을 쓰며, 예산이 없으면 RetryBudgetExhaustedException으로 바로 DLT로 보냅니다.
+ * 배치/병렬 모드는 재시도 토픽을 지원하지 않으므로 kafka.listener.mode=single 일 때만 적용합니다.
+ */
+@Configuration
+@ConditionalOnExpression("'${kafka.listener.retry.mode:blocking}' == 'topics' and '${kafka.listener.mode:single}' == 'single'")
+public class KafkaRetryTopicConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaRetryTopicConfig.class);
+
+    /** 재시도 토픽 접미사. 지연 시간이 붙어 {원본 토픽}.retry-{지연 ms}가 됨 */
+    static final String RETRY_TOPIC_SUFFIX = ".retry";
+
+    @Value("${kafka.topic.dlt.suffix:.DLT}")
+    private String dltSuffix;
+
+    // 원본 토픽 시도 1회 + 재시도 토픽 시도 횟수
+    @Value("${kafka.listener.retry.topics.attempts:3}")
+    private int attempts;
+
+    // 첫 번째 재시도 토픽의 지연 (ms)
+    @Value("${kafka.listener.retry.topics.initial-interval:1000}")
+    private long initialInterval;
+
+    // 다음 재시도 토픽으로 넘어갈 때 지연에 곱할 배수
+    @Value("${kafka.listener.retry.topics.multiplier:30}")
+    private double multiplier;
+
+    // 재시도 토픽 지연 상한 (ms)
+    @Value("${kafka.listener.retry.topics.max-interval:30000}")
+    private long maxInterval;
+
+    /**
+     * 원본 토픽 리스너(EmailRequestListener.consumeEmailRequest, consumeBulkEmailRequest)에 적용될 재시도 토픽 구성.
+     * 토픽 이름은 지연 시간(ms)을 접미사로 붙여 만들어집니다. (예: .retry-1000, .retry-30000)
+     * @param kafkaOperations 재시도/DLT 토픽으로 레코드를 발행할 KafkaTemplate
+     */
+    @Bean
+    public RetryTopicConfiguration emailSendRequestsRetryTopics(KafkaOperations<Object, Object> kafkaOperations) {
+        log.info("Configured non-blocking retry topics for {}, {}. attempts={}, interval={}ms x{} (max {}ms)",
+                EmailRequestListener.ORIGINAL_TOPIC, EmailRequestListener.BULK_TOPIC, attempts, initialInterval, multiplier, maxInterval);
+
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopics(List.of(EmailRequestListener.ORIGINAL_TOPIC, EmailRequestListener.BULK_TOPIC))
+                .maxAttempts(attempts)
+                .exponentialBackoff(initialInterval, multiplier, maxInterval)
+                .retryTopicSuffix(RETRY_TOPIC_SUFFIX)
+                .dltSuffix(dltSuffix)
+                // 리스너가 던진 예외는 ListenerExecutionFailedException에 감싸져 오므로 원인까지 확인
+                .notRetryOn(InvalidEmailException.class)
+                .notRetryOn(InvalidTemplateException.class)
+                .notRetryOn(RetryBudgetExhaustedException.class)
+                .traversingCauses()
+                // DLT는 EmailRequestDltListener가 처리하므로 프레임워크 기본 DLT 핸들러는 띄우지 않음
+                .autoStartDltHandler(false)
+                .create(kafkaOperations);
+    }
+
+    /**
+     * 재시도 토픽 컨슈머가 지연 시간이 지날 때까지 파티션을 멈췄다가 재개할 때 쓰는 스케줄러.
+     * 애플리케이션의 다른 TaskScheduler와 섞이지 않도록 전용 래퍼 빈으로 등록합니다.
+     * 스케줄러를 TaskScheduler 빈으로 등록하면 Spring Boot의 기본 스케줄러 자동 구성이 빠지므로,
+     * 초기화와 종료(스레드 정리)는 래퍼 빈의 생명주기(afterPropertiesSet/destroy)에 맡깁니다. 여기서 직접 initialize하면 실행기가 두 번 만들어짐
+     */
+    @Bean
+    public RetryTopicSchedulerWrapper retryTopicSchedulerWrapper() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("kafka-retry-topic-");
+        return new RetryTopicSchedulerWrapper(scheduler);
+    }
+}
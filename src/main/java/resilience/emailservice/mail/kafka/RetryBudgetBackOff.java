@@ -0,0 +1,32 @@
+package resilience.emailservice.mail.kafka;
+
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+import resilience.emailservice.mail.retry.RetryBudget;
+
+/**
+ * DefaultErrorHandler의 BackOff를 감싸 블로킹 재시도마다 RetryBudget의 토큰을 쓰게 합니다.
+ * 감싼 BackOff가 재시도 간격을 돌려줘도 예산이 없으면 STOP을 돌려주므로 레코드는 바로 DLT로 넘어갑니다.
+ */
+class RetryBudgetBackOff implements BackOff {
+
+    private final BackOff delegate;
+    private final RetryBudget retryBudget;
+
+    RetryBudgetBackOff(BackOff delegate, RetryBudget retryBudget) {
+        this.delegate = delegate;
+        this.retryBudget = retryBudget;
+    }
+
+    @Override
+    public BackOffExecution start() {
+        BackOffExecution execution = delegate.start();
+        return () -> {
+            long next = execution.nextBackOff();
+            if (next == BackOffExecution.STOP || retryBudget.tryAcquire()) {
+                return next;
+            }
+            return BackOffExecution.STOP;
+        };
+    }
+}
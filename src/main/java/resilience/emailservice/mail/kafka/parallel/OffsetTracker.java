@@ -0,0 +1,78 @@
+package resilience.emailservice.mail.kafka.parallel;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 파티션 하나의 처리 중 오프셋을 추적해, 커밋해도 되는 위치(연속으로 끝난 마지막 오프셋 + 1)를 계산합니다.
+ *
+ * 레코드는 오프셋 순서대로 dispatched로 등록되고, 워커들이 순서와 상관없이 completed로 끝냅니다.
+ * 아직 끝나지 않은 가장 작은 오프셋보다 앞은 모두 끝난 것이므로 그 오프셋이 곧 커밋 위치입니다.
+ * (처리 중인 레코드가 없으면 마지막으로 등록한 오프셋 + 1)
+ * 압축(compaction)이나 트랜잭션 마커로 오프셋 사이가 비어 있어도 그대로 동작합니다.
+ *
+ * 파티션을 반납하면 revoke로 표시하고, 워커는 그 파티션의 남은 레코드를 보내지 않고 abandoned로 버립니다.
+ * 버린 오프셋은 끝난 것이 아니므로 커밋 위치는 거기서 멈추고 새 소유자가 그 위치부터 다시 읽습니다.
+ *
+ * dispatched, committable, advanceCommitted, revoke는 컨슈머 스레드만, completed, abandoned는 워커 스레드가 호출합니다.
+ */
+final class OffsetTracker {
+
+    private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+    // 처리하지 않고 버린 오프셋
+    private final ConcurrentSkipListSet<Long> abandoned = new ConcurrentSkipListSet<>();
+    private volatile boolean revoked;
+    // 마지막으로 등록한 오프셋 + 1 (-1이면 아직 없음)
+    private volatile long nextOffset = -1;
+    // 마지막으로 커밋을 요청한 위치
+    private long committed = -1;
+
+    void dispatched(long offset) {
+        pending.add(offset);
+        nextOffset = offset + 1;
+    }
+
+    void completed(long offset) {
+        pending.remove(offset);
+    }
+
+    void abandoned(long offset) {
+        // committable이 pending 다음에 abandoned를 읽으므로 옮기는 동안에도 어느 한쪽에서는 보임
+        abandoned.add(offset);
+        pending.remove(offset);
+    }
+
+    /** 커밋해도 되는 다음 오프셋 (등록된 레코드가 없으면 -1) */
+    long committable() {
+        // 컨슈머 스레드만 등록하므로 여기서 비어 있다면 nextOffset까지 모두 끝난 상태
+        Long lowestPending = pending.ceiling(Long.MIN_VALUE);
+        Long lowestAbandoned = abandoned.ceiling(Long.MIN_VALUE);
+        long next = lowestPending != null ? lowestPending : nextOffset;
+        return lowestAbandoned != null ? Math.min(next, lowestAbandoned) : next;
+    }
+
+    /**
+     * 지난 커밋 이후 커밋 위치가 앞으로 나아갔으면 그 위치를 반환하고 커밋한 것으로 기록합니다.
+     * @return 새로 커밋할 오프셋, 나아가지 않았으면 -1
+     */
+    long advanceCommitted() {
+        long next = committable();
+        if (next > committed) {
+            committed = next;
+            return next;
+        }
+        return -1;
+    }
+
+    /** 처리 중이거나 대기 중인 레코드가 없는지 (버린 레코드는 제외) */
+    boolean isIdle() {
+        return pending.isEmpty();
+    }
+
+    void revoke() {
+        revoked = true;
+    }
+
+    boolean isRevoked() {
+        return revoked;
+    }
+}
@@ -0,0 +1,523 @@
+package resilience.emailservice.mail.kafka.parallel;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.exception.CircuitOpenException;
+import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.InvalidTemplateException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailPriority;
+import resilience.emailservice.mail.MailSenderService;
+import resilience.emailservice.mail.kafka.EmailRequestListener;
+import resilience.emailservice.mail.metrics.MailMetrics;
+import resilience.emailservice.mail.retry.RetryBudget;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 파티션 안에서 키 단위로만 순서를 지키며 레코드를 병렬 처리하는 컨슈머 (kafka.listener.mode=parallel 일 때만 등록).
+ *
+ * 단건 리스너는 파티션마다 레코드를 하나씩 SMTP 전송이 끝날 때까지 처리하므로, 파티션 수가 곧 동시 전송 수의 상한입니다.
+ * 이 모드는 컨슈머 스레드 하나가 poll한 레코드를 키(없으면 수신 주소)의 해시로 고른 레인(lanes개)에 넘기고,
+ * 레인마다 하나의 워커가 받은 순서대로 처리합니다. 같은 키의 레코드는 항상 같은 레인으로 가므로 순서가 유지되고,
+ * 키가 다른 레코드는 같은 파티션이라도 동시에 전송됩니다.
+ *
+ * 오프셋은 파티션별 OffsetTracker로 추적해, 앞선 레코드가 모두 끝난 위치까지만 커밋합니다. (at-least-once)
+ * 처리 중인 레코드가 max-in-flight에 이르면 모든 파티션의 fetch를 멈추고 절반 아래로 내려가면 다시 읽습니다.
+ *
+ * 재시도와 DLT는 블로킹 모드와 같은 설정(kafka.listener.retry.*)을 따르되 레인 안에서 처리합니다.
+ * 재시도 대기는 그 레인의 뒤 레코드만 막고 다른 레인은 계속 진행합니다.
+ * 재시도 토픽(kafka.listener.retry.mode=topics)과는 함께 쓸 수 없습니다.
+ * 역직렬화할 수 없거나 EmailRequest가 아닌 레코드도 DLT로 보냅니다. (원본 바이트는 ORIGINAL_VALUE_HEADER 헤더에 남김)
+ * poll이나 커밋이 실패하면 error-backoff-ms부터 두 배씩 (error-backoff-max-ms까지) 기다렸다가 다시 읽습니다.
+ *
+ * 트랜잭션 메일 토픽과 대량 메일 토픽을 함께 구독하고 레인도 함께 씁니다. 우선순위는 SMTP 슬롯을 나눌 때
+ * (AdaptiveConcurrencyLimiter) 적용되므로, 캠페인이 몰릴 때 트랜잭션 메일을 레인 대기 없이 보내려면 single 모드를 쓰세요.
+ */
+@Component
+@ConditionalOnProperty(name = "kafka.listener.mode", havingValue = "parallel")
+public class ParallelEmailRequestConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelEmailRequestConsumer.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final List<String> TOPICS = List.of(EmailRequestListener.ORIGINAL_TOPIC, EmailRequestListener.BULK_TOPIC);
+
+    /** 역직렬화에 실패한 레코드를 DLT로 보낼 때 원본 값 바이트를 담는 헤더 */
+    public static final String ORIGINAL_VALUE_HEADER = "dlt-original-value";
+
+    private final ConsumerFactory<String, Object> consumerFactory;
+    private final MailSenderService mailSenderService;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+    private final MailMetrics mailMetrics;
+    private final RetryBudget retryBudget;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${kafka.listener.parallel.lanes:16}")
+    private int laneCount;
+
+    @Value("${kafka.listener.parallel.max-in-flight:1000}")
+    private int maxInFlight;
+
+    @Value("${kafka.listener.parallel.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${kafka.listener.parallel.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMillis;
+
+    @Value("${kafka.listener.parallel.error-backoff-ms:1000}")
+    private long errorBackoffMillis;
+
+    @Value("${kafka.listener.parallel.error-backoff-max-ms:30000}")
+    private long errorBackoffMaxMillis;
+
+    @Value("${kafka.listener.retry.attempts:3}")
+    private int retryAttempts;
+
+    @Value("${kafka.listener.retry.interval:1000}")
+    private long retryIntervalMillis;
+
+    @Value("${kafka.listener.circuit-open-retry-interval:1000}")
+    private long circuitOpenRetryIntervalMillis;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    private final Map<TopicPartition, OffsetTracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // 종료 시 재시도 대기 중인 워커를 바로 깨우기 위한 신호 (인터럽트는 SMTP 소켓을 닫을 수 있어 쓰지 않음)
+    private final CountDownLatch stopSignal = new CountDownLatch(1);
+
+    private volatile boolean running;
+    private Lane[] lanes;
+    private Thread pollThread;
+
+    public ParallelEmailRequestConsumer(ConsumerFactory<String, Object> consumerFactory,
+                                        MailSenderService mailSenderService,
+                                        DeadLetterPublishingRecoverer deadLetterPublishingRecoverer,
+                                        MailMetrics mailMetrics,
+                                        RetryBudget retryBudget,
+                                        MeterRegistry registry) {
+        this.consumerFactory = consumerFactory;
+        this.mailSenderService = mailSenderService;
+        this.deadLetterPublishingRecoverer = deadLetterPublishingRecoverer;
+        this.mailMetrics = mailMetrics;
+        this.retryBudget = retryBudget;
+        Gauge.builder("mail.listener.parallel.inflight", inFlight, AtomicInteger::get)
+                .description("병렬 모드에서 처리 중이거나 레인에서 대기 중인 레코드 수")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane();
+            lanes[i].thread = newThread("kafka-parallel-lane-" + i, lanes[i]::run);
+        }
+        pollThread = newThread("kafka-parallel-consumer", this::pollLoop);
+        log.info("병렬 Kafka 컨슈머 시작: topics={}, lanes={}, max-in-flight={}", TOPICS, laneCount, maxInFlight);
+    }
+
+    /**
+     * 새 레코드를 더 읽지 않고, 처리 중인 레코드가 끝나기를 (shutdown-timeout-ms까지) 기다린 뒤 마지막으로 커밋합니다.
+     * 레인에서 대기 중이던 레코드는 커밋되지 않으므로 재기동 후 다시 읽습니다.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        stopSignal.countDown();
+        pollThread.join(shutdownTimeoutMillis * 2);
+    }
+
+    private Thread newThread(String name, Runnable task) {
+        return virtualThreadsEnabled
+                ? Thread.ofVirtual().name(name).start(task)
+                : Thread.ofPlatform().name(name).start(task);
+    }
+
+    private void pollLoop() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+
+        try (Consumer<String, Object> consumer = consumerFactory.createConsumer(groupId, null, null, overrides)) {
+            Backpressure backpressure = new Backpressure(consumer);
+            consumer.subscribe(TOPICS, new RevokeHandler(consumer, backpressure));
+            int consecutiveErrors = 0;
+            while (running) {
+                try {
+                    backpressure.apply();
+                    ConsumerRecords<String, Object> records = consumer.poll(POLL_TIMEOUT);
+                    for (ConsumerRecord<String, Object> record : records) {
+                        dispatch(record, null);
+                    }
+                    commit(consumer, trackers.keySet(), false);
+                    consecutiveErrors = 0;
+                } catch (RecordDeserializationException e) {
+                    // 앞선 레코드는 이미 받았으므로 이 레코드만 DLT로 보내고 그 다음부터 읽음
+                    log.error("역직렬화할 수 없는 레코드를 DLT로 보냄: {}@{}", e.topicPartition(), e.offset(), e);
+                    dispatch(undeserializable(e), e);
+                    consumer.seek(e.topicPartition(), e.offset() + 1);
+                } catch (RuntimeException e) {
+                    long backoff = Math.min(errorBackoffMaxMillis, errorBackoffMillis << Math.min(consecutiveErrors++, 20));
+                    log.error("병렬 Kafka 컨슈머 오류, {}ms 후 다시 읽음", backoff, e);
+                    if (!pause(backoff)) {
+                        break;
+                    }
+                }
+            }
+
+            // 레인 워커는 지금 처리 중인 레코드까지만 끝내고 멈춤
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+            for (Lane lane : lanes) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0 || !lane.thread.join(Duration.ofMillis(remaining))) {
+                    log.warn("병렬 컨슈머 종료 대기 시간 초과. 처리 중인 레코드는 재기동 후 다시 처리됩니다.");
+                    break;
+                }
+            }
+            commit(consumer, trackers.keySet(), true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("병렬 Kafka 컨슈머 오류로 종료", e);
+        } finally {
+            running = false;
+            stopSignal.countDown();
+        }
+    }
+
+    /**
+     * 레코드를 레인에 넘깁니다.
+     * @param failure 이미 실패한 레코드면 그 원인 (전송하지 않고 DLT로 보냄)
+     */
+    private void dispatch(ConsumerRecord<String, Object> record, RuntimeException failure) {
+        OffsetTracker tracker = trackers.computeIfAbsent(new TopicPartition(record.topic(), record.partition()),
+                partition -> new OffsetTracker());
+        tracker.dispatched(record.offset());
+        inFlight.incrementAndGet();
+        lanes[laneOf(record)].queue.add(new Task(record, tracker, failure));
+    }
+
+    // 역직렬화에 실패한 레코드를 값 없이 다시 만들고 원본 값 바이트는 헤더로 옮김
+    private static ConsumerRecord<String, Object> undeserializable(RecordDeserializationException e) {
+        RecordHeaders headers = e.headers() != null ? new RecordHeaders(e.headers().toArray()) : new RecordHeaders();
+        if (e.valueBuffer() != null) {
+            headers.add(ORIGINAL_VALUE_HEADER, bytes(e.valueBuffer()));
+        }
+        String key = e.keyBuffer() != null ? new String(bytes(e.keyBuffer()), StandardCharsets.UTF_8) : null;
+        return new ConsumerRecord<>(e.topicPartition().topic(), e.topicPartition().partition(), e.offset(),
+                e.timestamp(), e.timestampType(), ConsumerRecord.NULL_SIZE, ConsumerRecord.NULL_SIZE,
+                key, null, headers, Optional.empty());
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    // 같은 키(없으면 같은 수신 주소)는 항상 같은 레인으로 보내 순서를 유지
+    private int laneOf(ConsumerRecord<String, Object> record) {
+        Object key = record.key();
+        if (key == null && record.value() instanceof EmailRequest emailRequest) {
+            key = emailRequest.getEmail();
+        }
+        if (key == null) {
+            return (int) Math.floorMod(record.offset(), (long) lanes.length);
+        }
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    /**
+     * 연속으로 끝난 위치까지 커밋합니다.
+     * @param force true면 위치가 나아가지 않았어도 동기로 커밋 (리밸런싱, 종료 시)
+     */
+    private void commit(Consumer<String, Object> consumer, Collection<TopicPartition> partitions, boolean force) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            OffsetTracker tracker = trackers.get(partition);
+            if (tracker == null) {
+                continue;
+            }
+            long next = force ? tracker.committable() : tracker.advanceCommitted();
+            if (next >= 0) {
+                offsets.put(partition, new OffsetAndMetadata(next));
+            }
+        }
+        if (offsets.isEmpty()) {
+            return;
+        }
+        if (force) {
+            consumer.commitSync(offsets);
+        } else {
+            consumer.commitAsync(offsets, (committed, error) -> {
+                if (error != null) {
+                    // 다음 커밋이 더 앞선 위치를 덮어쓰므로 기록만 남김
+                    log.warn("오프셋 커밋 실패: {}", error.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * 레코드 하나를 전송합니다. 재시도 가능한 실패는 retry.interval 간격으로 retry.attempts번까지 시도하고,
+     * 재시도하지 않는 실패나 재시도를 모두 소진한 레코드는 DLT로 보냅니다.
+     * 서킷이 열려 실패한 레코드는 횟수를 세지 않고 circuit-open-retry-interval마다 다시 시도합니다.
+     * 그 밖의 재시도는 재시도 예산을 쓰며, 예산이 없으면 남은 횟수와 관계없이 DLT로 보냅니다.
+     * 기다리는 동안 파티션이 반납되면 새 소유자가 다시 처리하므로 더 시도하지 않고 멈춥니다.
+     * @return 처리가 끝났으면 true (커밋 대상), 종료 중이거나 파티션을 반납해 끝내지 못했으면 false
+     */
+    private boolean process(ConsumerRecord<String, Object> record, OffsetTracker tracker, RuntimeException failure) {
+        if (failure != null) {
+            return deadLetter(record, tracker, failure);
+        }
+        if (!(record.value() instanceof EmailRequest emailRequest)) {
+            log.error("EmailRequest가 아닌 레코드를 DLT로 보냄: {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return deadLetter(record, tracker, new MessageConversionException("EmailRequest가 아닌 레코드: "
+                    + (record.value() == null ? "null" : record.value().getClass().getName())));
+        }
+        emailRequest.applyIdempotencyKeyHeader(text(record.headers().lastHeader(EmailRequest.IDEMPOTENCY_KEY_HEADER)));
+        emailRequest.applyLanePriority(EmailRequestListener.BULK_TOPIC.equals(record.topic()) ? MailPriority.BULK : MailPriority.TRANSACTIONAL);
+
+        int failures = 0;
+        while (true) {
+            long start = mailMetrics.start();
+            try {
+                mailSenderService.sendEmail(emailRequest);
+                mailMetrics.recordParallelListener(start, null);
+                if (failures == 0) {
+                    retryBudget.recordFirstAttemptSuccess();
+                }
+                return true;
+            } catch (CircuitOpenException e) {
+                mailMetrics.recordParallelListener(start, e);
+                mailMetrics.countRetryAttempt(e);
+                if (!pause(circuitOpenRetryIntervalMillis, tracker)) {
+                    return false;
+                }
+            } catch (InvalidEmailException | InvalidTemplateException e) {
+                // 실패는 MailSenderService가, DLT 발행은 DeadLetterPublishingRecoverer가 전송 이벤트 저널에 기록
+                mailMetrics.recordParallelListener(start, e);
+                return deadLetter(record, tracker, e);
+            } catch (RuntimeException e) {
+                mailMetrics.recordParallelListener(start, e);
+                if (++failures >= retryAttempts) {
+                    return deadLetter(record, tracker, e);
+                }
+                if (!retryBudget.tryAcquire()) {
+                    return deadLetter(record, tracker, retryBudget.exhausted(e));
+                }
+                mailMetrics.countRetryAttempt(e);
+                if (!pause(retryIntervalMillis, tracker)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    // DLT 발행이 실패하면 그 레코드를 커밋할 수 없으므로 발행될 때까지 다시 시도
+    private boolean deadLetter(ConsumerRecord<String, Object> record, OffsetTracker tracker, RuntimeException error) {
+        while (true) {
+            try {
+                deadLetterPublishingRecoverer.accept(record, error);
+                return true;
+            } catch (RuntimeException e) {
+                log.error("DLT 발행 실패 ({}-{}@{}): {}", record.topic(), record.partition(), record.offset(), e.getMessage());
+                if (!pause(retryIntervalMillis, tracker)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /** @return 종료 신호 없이 millis만큼 기다렸으면 true */
+    private boolean pause(long millis) {
+        try {
+            return !stopSignal.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** @return 종료 신호 없이 millis만큼 기다렸고 그동안 파티션이 반납되지 않았으면 true */
+    private boolean pause(long millis, OffsetTracker tracker) {
+        return pause(millis) && !tracker.isRevoked();
+    }
+
+    private static String text(Header header) {
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private record Task(ConsumerRecord<String, Object> record, OffsetTracker tracker, RuntimeException failure) {
+    }
+
+    /** 받은 순서대로 레코드를 처리하는 워커 하나와 그 대기열 */
+    private final class Lane {
+
+        private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        private Thread thread;
+
+        private void run() {
+            while (running) {
+                Task task;
+                try {
+                    task = queue.poll(POLL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (task == null) {
+                    continue;
+                }
+                long offset = task.record().offset();
+                try {
+                    // 반납한 파티션의 레코드는 새 소유자가 다시 읽으므로 여기서 보내면 중복 전송됨
+                    if (!task.tracker().isRevoked() && process(task.record(), task.tracker(), task.failure())) {
+                        task.tracker().completed(offset);
+                    } else {
+                        task.tracker().abandoned(offset);
+                    }
+                } catch (RuntimeException e) {
+                    // 처리하지 못한 레코드는 완료 표시를 하지 않아 그 위치부터 커밋이 멈춤 (재기동 후 다시 처리)
+                    log.error("병렬 컨슈머 레코드 처리 중 예상치 못한 오류: {}-{}@{}",
+                            task.record().topic(), task.record().partition(), offset, e);
+                    task.tracker().abandoned(offset);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /** 처리 중인 레코드 수에 따라 모든 파티션의 fetch를 멈추거나 다시 시작 (컨슈머 스레드 전용) */
+    private final class Backpressure {
+
+        private final Consumer<String, Object> consumer;
+        private boolean paused;
+
+        private Backpressure(Consumer<String, Object> consumer) {
+            this.consumer = consumer;
+        }
+
+        private void apply() {
+            int current = inFlight.get();
+            if (!paused && current >= maxInFlight) {
+                consumer.pause(consumer.assignment());
+                paused = true;
+                log.debug("처리 중인 레코드 {}건으로 fetch 일시 정지", current);
+            } else if (paused && current <= maxInFlight / 2) {
+                consumer.resume(consumer.paused());
+                paused = false;
+                log.debug("처리 중인 레코드 {}건으로 fetch 재개", current);
+            }
+        }
+
+        private void onAssigned(Collection<TopicPartition> partitions) {
+            if (paused) {
+                consumer.pause(partitions);
+            }
+        }
+    }
+
+    /**
+     * 파티션을 넘겨주기 전에 그 파티션을 반납 표시하고, 지금 SMTP로 보내고 있는 레코드만 (shutdown-timeout-ms까지) 기다렸다가 커밋합니다.
+     * 레인에서 대기 중이던 레코드는 보내지 않고 버리며, 서킷이 열려 있거나 재시도를 기다리던 레코드도 바로 멈춥니다.
+     * 버린 레코드부터는 커밋하지 않으므로 새 소유자가 다시 처리합니다.
+     * 시간 안에 끝나지 않은 전송은 새 소유자도 보내므로 중복 전송될 수 있습니다. (멱등성 키가 있는 요청만 걸러짐)
+     */
+    private final class RevokeHandler implements ConsumerRebalanceListener {
+
+        private final Consumer<String, Object> consumer;
+        private final Backpressure backpressure;
+
+        private RevokeHandler(Consumer<String, Object> consumer, Backpressure backpressure) {
+            this.consumer = consumer;
+            this.backpressure = backpressure;
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            List<TopicPartition> owned = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                OffsetTracker tracker = trackers.get(partition);
+                if (tracker != null) {
+                    tracker.revoke();
+                    owned.add(partition);
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+            while (System.nanoTime() < deadline && !owned.stream().allMatch(partition -> trackers.get(partition).isIdle())) {
+                if (!pause(10)) {
+                    break;
+                }
+            }
+            try {
+                commit(consumer, owned, true);
+            } catch (RuntimeException e) {
+                log.warn("파티션 반납 전 커밋 실패: {}", e.getMessage());
+            }
+            owned.forEach(trackers::remove);
+            log.info("파티션 반납: {}", partitions);
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            // 이미 다른 컨슈머에게 넘어간 파티션은 커밋할 수 없음. 남은 레코드도 새 소유자가 처리
+            for (TopicPartition partition : partitions) {
+                OffsetTracker tracker = trackers.remove(partition);
+                if (tracker != null) {
+                    tracker.revoke();
+                }
+            }
+            log.warn("파티션 유실: {}", partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            backpressure.onAssigned(partitions);
+            log.info("파티션 할당: {}", partitions);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package resilience.emailservice.mail.kafka.replay;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * DLT 재전송 관리 API.
+ */
+@RestController
+@RequestMapping("/admin/dlt/replay")
+public class DltReplayController {
+
+    private final DltReplayService dltReplayService;
+
+    public DltReplayController(DltReplayService dltReplayService) {
+        this.dltReplayService = dltReplayService;
+    }
+
+    // http://localhost:8081/admin/dlt/replay 로 POST 요청
+    // 예) {"exceptionClass": "SmtpConnectionException", "ratePerSecond": 20, "parallelism": 4}
+    // 이미 실행 중이면 409와 현재 진행 상황을, ratePerSecond나 parallelism이 0 이하이면 400을 반환합니다.
+    @PostMapping
+    public ResponseEntity<DltReplayStatus> startReplay(@RequestBody DltReplayRequest request) {
+        request.validate();
+        return dltReplayService.start(request)
+                .map(status -> ResponseEntity.accepted().body(status))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).body(dltReplayService.status()));
+    }
+
+    // 실행 중이거나 마지막으로 끝난 재전송의 진행 상황
+    @GetMapping
+    public DltReplayStatus getReplayStatus() {
+        return dltReplayService.status();
+    }
+
+    // 현재 묶음까지 처리하고 멈춤. 다음 POST 때 이어서 처리합니다.
+    @DeleteMapping
+    public ResponseEntity<DltReplayStatus> stopReplay() {
+        if (!dltReplayService.stop()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.accepted().body(dltReplayService.status());
+    }
+}
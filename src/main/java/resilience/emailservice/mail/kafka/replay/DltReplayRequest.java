@@ -0,0 +1,60 @@
+package resilience.emailservice.mail.kafka.replay;
+
+import resilience.emailservice.exception.InvalidRequestException;
+
+/**
+ * DLT 재전송 조건. null인 항목은 조건 없음(또는 기본값)으로 봅니다.
+ * @param exceptionClass 실패 원인 예외. 전체 클래스 이름 또는 단순 이름 (예: SmtpConnectionException)
+ * @param originalTopic 실패가 발생했던 원본 토픽
+ * @param originalPartition 원본 파티션
+ * @param fromOffset 원본 오프셋 하한 (포함)
+ * @param toOffset 원본 오프셋 상한 (포함)
+ * @param ratePerSecond 초당 재전송 수 (기본 kafka.dlt-replay.rate-per-second)
+ * @param parallelism 동시에 재전송할 수 (기본 kafka.dlt-replay.parallelism)
+ * @param resetProgress true면 저장된 진행 위치를 무시하고 DLT 처음부터 다시 읽음
+ */
+public record DltReplayRequest(
+        String exceptionClass,
+        String originalTopic,
+        Integer originalPartition,
+        Long fromOffset,
+        Long toOffset,
+        Double ratePerSecond,
+        Integer parallelism,
+        boolean resetProgress) {
+
+    /**
+     * 지정한 값이 허용 범위인지 확인합니다.
+     * @throws InvalidRequestException ratePerSecond, parallelism이 0 이하이거나 오프셋 범위가 뒤집힌 경우
+     */
+    void validate() {
+        if (ratePerSecond != null && !(ratePerSecond > 0)) {
+            throw new InvalidRequestException("ratePerSecond는 0보다 커야 합니다: " + ratePerSecond);
+        }
+        if (parallelism != null && parallelism <= 0) {
+            throw new InvalidRequestException("parallelism은 0보다 커야 합니다: " + parallelism);
+        }
+        if (fromOffset != null && toOffset != null && fromOffset > toOffset) {
+            throw new InvalidRequestException("fromOffset이 toOffset보다 큽니다: " + fromOffset + " > " + toOffset);
+        }
+    }
+
+    /** DLT 레코드 헤더 값이 조건에 맞는지 */
+    boolean matches(String exceptionFqcn, String topic, Integer partition, Long offset) {
+        if (exceptionClass != null && !exceptionClass.isBlank()) {
+            if (exceptionFqcn == null || !(exceptionFqcn.equals(exceptionClass) || exceptionFqcn.endsWith("." + exceptionClass))) {
+                return false;
+            }
+        }
+        if (originalTopic != null && !originalTopic.equals(topic)) {
+            return false;
+        }
+        if (originalPartition != null && !originalPartition.equals(partition)) {
+            return false;
+        }
+        if (fromOffset != null && (offset == null || offset < fromOffset)) {
+            return false;
+        }
+        return toOffset == null || (offset != null && offset <= toOffset);
+    }
+}
@@ -0,0 +1,315 @@
+package resilience.emailservice.mail.kafka.replay;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+import resilience.emailservice.exception.CircuitOpenException;
+import resilience.emailservice.exception.InvalidRequestException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailPriority;
+import resilience.emailservice.mail.MailSenderService;
+import resilience.emailservice.mail.journal.PiiMasker;
+import resilience.emailservice.mail.kafka.EmailRequestListener;
+import resilience.emailservice.mail.limit.TokenBucket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * DLT 재전송 엔진.
+ *
+ * email-send-requests.DLT와 email-send-requests.bulk.DLT를 전용 컨슈머 그룹(원본 그룹 ID + kafka.dlt-replay.group-suffix)으로 한 번에 여러 건씩 읽고,
+ * DeadLetterPublishingRecoverer가 남긴 DLT_* 헤더(예외 클래스, 원본 토픽/파티션/오프셋)로 대상을 고른 뒤
+ * MailSenderService로 다시 보냅니다. 전송 속도는 토큰 버킷으로, 동시 전송 수는 parallelism으로 제한합니다.
+ *
+ * 진행 위치는 poll한 묶음을 모두 처리한 뒤 재전송 그룹의 오프셋으로 커밋하므로, 중간에 멈춰도 다음 실행은
+ * 마지막으로 끝낸 묶음 다음부터 이어서 읽습니다. 실행은 시작 시점의 DLT 끝 오프셋까지만 진행합니다.
+ * 재전송에 실패한 레코드는 DLT에 그대로 남고 다시 발행하지 않습니다.
+ */
+@Service
+public class DltReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DltReplayService.class);
+
+    private final ConsumerFactory<String, Object> consumerFactory;
+    private final MailSenderService mailSenderService;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${kafka.topic.dlt.suffix:.DLT}")
+    private String dltSuffix;
+
+    @Value("${kafka.dlt-replay.group-suffix:.replay}")
+    private String groupSuffix;
+
+    @Value("${kafka.dlt-replay.rate-per-second:50}")
+    private double defaultRatePerSecond;
+
+    @Value("${kafka.dlt-replay.parallelism:4}")
+    private int defaultParallelism;
+
+    @Value("${kafka.dlt-replay.max-poll-records:500}")
+    private int maxPollRecords;
+
+    private final AtomicReference<DltReplayStatus> lastStatus = new AtomicReference<>(DltReplayStatus.idle());
+    private final AtomicReference<Run> current = new AtomicReference<>();
+
+    public DltReplayService(ConsumerFactory<String, Object> consumerFactory, MailSenderService mailSenderService) {
+        this.consumerFactory = consumerFactory;
+        this.mailSenderService = mailSenderService;
+    }
+
+    /**
+     * 재전송을 백그라운드에서 시작합니다.
+     * @return 시작 직후 상태. 이미 실행 중이면 empty
+     * @throws InvalidRequestException 요청 값이나 기본 설정의 전송 속도, 동시 전송 수가 0 이하인 경우
+     */
+    public Optional<DltReplayStatus> start(DltReplayRequest request) {
+        request.validate();
+        Run run = new Run(request);
+        if (!(run.rate > 0) || run.parallelism <= 0) {
+            throw new InvalidRequestException("재전송 속도와 동시 전송 수는 0보다 커야 합니다: rate=" + run.rate
+                    + ", parallelism=" + run.parallelism);
+        }
+        if (!current.compareAndSet(null, run)) {
+            return Optional.empty();
+        }
+        Thread.ofPlatform().name("dlt-replay").daemon(true).start(run::execute);
+        return Optional.of(run.status(DltReplayState.RUNNING, null));
+    }
+
+    /** 실행 중인 재전송을 현재 묶음까지 처리하고(진행 위치 커밋 포함) 멈춥니다. */
+    public boolean stop() {
+        Run run = current.get();
+        if (run == null) {
+            return false;
+        }
+        run.stopRequested.set(true);
+        return true;
+    }
+
+    public DltReplayStatus status() {
+        Run run = current.get();
+        return run != null ? run.status(DltReplayState.RUNNING, null) : lastStatus.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stop();
+    }
+
+    List<String> dltTopics() {
+        return List.of(EmailRequestListener.ORIGINAL_TOPIC + dltSuffix, EmailRequestListener.BULK_TOPIC + dltSuffix);
+    }
+
+    /** 재전송 한 번의 실행 상태 */
+    private final class Run {
+
+        private final DltReplayRequest request;
+        private final double rate;
+        private final int parallelism;
+        private final Instant startedAt = Instant.now();
+        private final AtomicBoolean stopRequested = new AtomicBoolean();
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong matched = new AtomicLong();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicReference<String> lastError = new AtomicReference<>();
+
+        private Run(DltReplayRequest request) {
+            this.request = request;
+            this.rate = request.ratePerSecond() != null ? request.ratePerSecond() : defaultRatePerSecond;
+            this.parallelism = request.parallelism() != null ? request.parallelism() : defaultParallelism;
+        }
+
+        private DltReplayStatus status(DltReplayState state, Instant finishedAt) {
+            return new DltReplayStatus(state, request, scanned.get(), matched.get(), sent.get(), failed.get(),
+                    lastError.get(), startedAt, finishedAt);
+        }
+
+        private void execute() {
+            DltReplayState finalState = DltReplayState.COMPLETED;
+            ExecutorService workers = null;
+
+            Properties overrides = new Properties();
+            overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+            overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+            logger.info("DLT 재전송 시작: topics={}, 조건={}, rate={}/s, parallelism={}", dltTopics(), request, rate, parallelism);
+
+            // 준비 단계에서 실패해도 finally에서 current를 비워야 다음 실행을 시작할 수 있음
+            try (Consumer<String, Object> c = consumerFactory.createConsumer(groupId + groupSuffix, null, null, overrides)) {
+                TokenBucket bucket = new TokenBucket(rate, Math.max(1, (int) rate));
+                workers = Executors.newFixedThreadPool(parallelism,
+                        Thread.ofPlatform().name("dlt-replay-", 0).daemon(true).factory());
+                ExecutorService pool = workers;
+                Semaphore inFlight = new Semaphore(parallelism);
+                List<TopicPartition> partitions = new ArrayList<>();
+                for (String topic : dltTopics()) {
+                    for (PartitionInfo info : c.partitionsFor(topic)) {
+                        partitions.add(new TopicPartition(info.topic(), info.partition()));
+                    }
+                }
+                c.assign(partitions);
+                if (request.resetProgress()) {
+                    c.seekToBeginning(partitions);
+                }
+                // 시작 시점의 끝까지만 처리 (그 뒤에 새로 들어오는 DLT 레코드는 다음 실행 대상)
+                Map<TopicPartition, Long> endOffsets = new HashMap<>(c.endOffsets(partitions));
+
+                while (!stopRequested.get() && !reachedEnd(c, endOffsets)) {
+                    ConsumerRecords<String, Object> records = c.poll(Duration.ofMillis(500));
+                    if (records.isEmpty()) {
+                        continue;
+                    }
+                    List<CompletableFuture<Throwable>> results = new ArrayList<>(records.count());
+                    for (ConsumerRecord<String, Object> record : records) {
+                        scanned.incrementAndGet();
+                        if (record.offset() >= endOffsets.getOrDefault(new TopicPartition(record.topic(), record.partition()), Long.MAX_VALUE)
+                                || !matches(record)) {
+                            continue;
+                        }
+                        matched.incrementAndGet();
+                        awaitToken(bucket);
+                        inFlight.acquireUninterruptibly();
+                        results.add(CompletableFuture.supplyAsync(() -> resend(record), pool)
+                                .whenComplete((error, ignored) -> inFlight.release()));
+                    }
+                    // 묶음 전체의 재전송이 끝난 뒤에만 진행 위치를 커밋
+                    boolean circuitOpen = false;
+                    for (CompletableFuture<Throwable> result : results) {
+                        if (result.join() instanceof CircuitOpenException) {
+                            circuitOpen = true;
+                        }
+                    }
+                    if (circuitOpen) {
+                        // 이 묶음은 커밋하지 않고 멈춤. 다음 실행 때 묶음 처음부터 다시 처리 (이미 성공한 건은 멱등성 키로 걸러짐)
+                        finalState = DltReplayState.PAUSED;
+                        lastError.set("SMTP 서킷이 열려 재전송을 멈췄습니다. 릴레이가 복구된 뒤 다시 실행하세요.");
+                        break;
+                    }
+                    c.commitSync(nextOffsets(records, endOffsets));
+                }
+                if (stopRequested.get() && finalState == DltReplayState.COMPLETED) {
+                    finalState = DltReplayState.STOPPED;
+                }
+            } catch (RuntimeException e) {
+                logger.error("DLT 재전송 중 오류", e);
+                lastError.set(e.getMessage());
+                finalState = DltReplayState.FAILED;
+            } finally {
+                if (workers != null) {
+                    workers.shutdown();
+                }
+                DltReplayStatus finished = status(finalState, Instant.now());
+                lastStatus.set(finished);
+                current.set(null);
+                logger.info("DLT 재전송 종료: {}", finished);
+            }
+        }
+
+        private boolean matches(ConsumerRecord<String, Object> record) {
+            Headers headers = record.headers();
+            return request.matches(
+                    text(headers.lastHeader(KafkaHeaders.DLT_EXCEPTION_FQCN)),
+                    text(headers.lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC)),
+                    intValue(headers.lastHeader(KafkaHeaders.DLT_ORIGINAL_PARTITION)),
+                    longValue(headers.lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET)));
+        }
+
+        /** @return 실패 원인 (성공이면 null) */
+        private Throwable resend(ConsumerRecord<String, Object> record) {
+            if (!(record.value() instanceof EmailRequest emailRequest)) {
+                failed.incrementAndGet();
+                lastError.set("EmailRequest가 아닌 레코드: " + record.topic() + "-" + record.partition() + "@" + record.offset());
+                return null;
+            }
+            emailRequest.applyIdempotencyKeyHeader(text(record.headers().lastHeader(EmailRequest.IDEMPOTENCY_KEY_HEADER)));
+            // 대량 메일 DLT에서 꺼낸 레코드는 재전송할 때도 대량 메일 우선순위로 보냄
+            if (record.topic().startsWith(EmailRequestListener.BULK_TOPIC)) {
+                emailRequest.applyLanePriority(MailPriority.BULK);
+            }
+            try {
+                mailSenderService.sendEmail(emailRequest);
+                sent.incrementAndGet();
+                return null;
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                lastError.set(e.getMessage());
+                logger.warn("DLT 재전송 실패 ({}-{}@{}, 대상: {}): {}", record.topic(), record.partition(), record.offset(),
+                        PiiMasker.maskEmail(emailRequest.getEmail()), PiiMasker.maskText(e.getMessage()));
+                return e;
+            }
+        }
+    }
+
+    private static void awaitToken(TokenBucket bucket) {
+        long wait;
+        while ((wait = bucket.tryAcquire(System.nanoTime())) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private static boolean reachedEnd(Consumer<String, Object> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 시작 시점의 끝 오프셋을 넘어 읽은 레코드는 처리하지 않았으므로 끝 오프셋까지만 커밋 (다음 실행이 읽도록)
+    private static Map<TopicPartition, OffsetAndMetadata> nextOffsets(ConsumerRecords<String, Object> records,
+                                                                      Map<TopicPartition, Long> endOffsets) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<String, Object>> partitionRecords = records.records(partition);
+            long next = partitionRecords.get(partitionRecords.size() - 1).offset() + 1;
+            offsets.put(partition, new OffsetAndMetadata(Math.min(next, endOffsets.getOrDefault(partition, next))));
+        }
+        return offsets;
+    }
+
+    // DeadLetterPublishingRecoverer는 문자열 헤더를 UTF-8로, 파티션은 4바이트 int, 오프셋은 8바이트 long으로 기록
+    private static String text(Header header) {
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private static Integer intValue(Header header) {
+        return header == null || header.value().length != Integer.BYTES ? null : ByteBuffer.wrap(header.value()).getInt();
+    }
+
+    private static Long longValue(Header header) {
+        return header == null || header.value().length != Long.BYTES ? null : ByteBuffer.wrap(header.value()).getLong();
+    }
+}
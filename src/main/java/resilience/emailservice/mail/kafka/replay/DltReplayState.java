@@ -0,0 +1,10 @@
+package resilience.emailservice.mail.kafka.replay;
+
+public enum DltReplayState {
+    IDLE,       // 한 번도 실행하지 않음
+    RUNNING,
+    COMPLETED,  // 시작 시점의 DLT 끝까지 처리
+    STOPPED,    // 관리자가 중단 (다음 실행 때 이어서 처리)
+    PAUSED,     // SMTP 서킷이 열려 자동 중단 (다음 실행 때 실패한 묶음부터 다시 처리)
+    FAILED      // Kafka 오류 등으로 중단
+}
@@ -0,0 +1,26 @@
+package resilience.emailservice.mail.kafka.replay;
+
+import java.time.Instant;
+
+/**
+ * GET /admin/dlt/replay 로 조회되는 재전송 진행 상황.
+ * @param scanned 읽은 DLT 레코드 수
+ * @param matched 조건에 맞아 재전송을 시도한 수
+ * @param sent 재전송에 성공한 수
+ * @param failed 재전송에 실패한 수 (DLT에는 그대로 남아 있음)
+ */
+public record DltReplayStatus(
+        DltReplayState state,
+        DltReplayRequest request,
+        long scanned,
+        long matched,
+        long sent,
+        long failed,
+        String lastError,
+        Instant startedAt,
+        Instant finishedAt) {
+
+    static DltReplayStatus idle() {
+        return new DltReplayStatus(DltReplayState.IDLE, null, 0, 0, 0, 0, null, null, null);
+    }
+}
@@ -0,0 +1,268 @@
+package resilience.emailservice.mail.limit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.exception.SendLimitExceededException;
+import resilience.emailservice.mail.MailPriority;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SMTP 전송의 동시 실행 수(in-flight)를 관측된 지연 시간에 따라 자동으로 조절하는 리미터. (AIMD)
+ *
+ * - 증가(Additive Increase): 지연이 기준 지연(최근 최소 지연) × tolerance 이하로 성공하고
+ *   한도의 절반 이상을 사용 중이면 한도를 1/limit씩 올립니다. (한도만큼 성공하면 약 +1)
+ * - 감소(Multiplicative Decrease): 지연이 기준을 넘거나 릴레이 오류로 실패하면 한도에 backoff-ratio를 곱합니다.
+ *   한 번의 혼잡에 여러 요청이 동시에 반응해 한도가 급락하지 않도록 decrease-cooldown-ms에 한 번만 줄입니다.
+ *
+ * 한도를 넘는 요청은 우선순위별로 max-queue까지 acquire-timeout-ms 동안 대기하고, 그 이상은 SendLimitExceededException으로 버립니다.
+ * 대량 메일이 대기열을 채워도 트랜잭션 메일은 자기 대기열이 있어 거절되지 않습니다.
+ *
+ * 두 우선순위가 모두 대기 중일 때 빈 슬롯은 가중치 비율(transactional-weight : bulk-weight)로 나눠 줍니다. (stride 스케줄링)
+ * 슬롯을 받을 때마다 그 우선순위의 pass 값이 1/가중치만큼 늘고, 둘 다 대기 중이면 pass가 작은 쪽이 다음 슬롯을 받습니다.
+ * 한쪽만 대기 중이면 그쪽이 모든 슬롯을 쓰고 pass를 상대와 같게 맞춰, 한가할 때 쌓인 몫으로 상대를 오래 굶기지 않습니다.
+ * 그래서 트랜잭션 메일은 대량 메일이 몰려도 슬롯이 빌 때마다 가중치만큼의 몫을 받아 대기 시간이 전송 몇 번 정도로 묶이고,
+ * 트랜잭션 메일이 없을 때는 대량 메일이 한도 전체를 씁니다.
+ * 현재 한도, 진행 중, 대기 중인 수는 smtp.concurrency.* 게이지로 노출됩니다. (대기 중은 priority 태그별)
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    /** 전송 결과. 한도 조절에 어떻게 반영할지 결정합니다. */
+    public enum Outcome {
+        SUCCESS,    // 지연 시간을 반영
+        DROPPED,    // 릴레이 오류/타임아웃: 혼잡 신호로 보고 한도 감소
+        IGNORED     // 수신자 거절 등 릴레이 상태와 무관한 결과: 반영하지 않음
+    }
+
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final long decreaseCooldownNanos;
+    private final long acquireTimeoutNanos;
+    private final int maxQueue;
+    private final long baselineResetNanos;
+    // MailPriority.ordinal() 순서
+    private final int[] weights;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    // 아래 상태는 모두 lock 안에서만 변경
+    private double limit;
+    private int inFlight;
+    private final int[] waiting = new int[2];
+    private final double[] pass = new double[2];
+    private long baselineRttNanos = Long.MAX_VALUE;
+    private long baselineSetAtNanos;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(
+            @Value("${smtp.concurrency.adaptive:true}") boolean adaptive,
+            @Value("${smtp.concurrency.initial-limit:8}") int initialLimit,
+            @Value("${smtp.concurrency.min-limit:1}") int minLimit,
+            @Value("${smtp.max-concurrent-sends:64}") int maxLimit,
+            @Value("${smtp.concurrency.tolerance:2.0}") double tolerance,
+            @Value("${smtp.concurrency.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${smtp.concurrency.decrease-cooldown-ms:100}") long decreaseCooldownMillis,
+            @Value("${smtp.acquire-timeout-ms:5000}") long acquireTimeoutMillis,
+            @Value("${smtp.concurrency.max-queue:1000}") int maxQueue,
+            @Value("${smtp.concurrency.baseline-reset-ms:60000}") long baselineResetMillis,
+            @Value("${smtp.priority.transactional-weight:4}") int transactionalWeight,
+            @Value("${smtp.priority.bulk-weight:1}") int bulkWeight,
+            MeterRegistry meterRegistry) {
+        this.adaptive = adaptive;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.decreaseCooldownNanos = TimeUnit.MILLISECONDS.toNanos(decreaseCooldownMillis);
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        this.maxQueue = maxQueue;
+        this.baselineResetNanos = TimeUnit.MILLISECONDS.toNanos(baselineResetMillis);
+        this.weights = new int[]{Math.max(1, transactionalWeight), Math.max(1, bulkWeight)};
+        // 적응형이 아니면 최대 한도로 고정 (기존 smtp.max-concurrent-sends 동작)
+        this.limit = adaptive ? Math.clamp(initialLimit, minLimit, maxLimit) : maxLimit;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // 생성이 끝난 뒤에 등록해, 게이지가 초기화되지 않은 리미터를 읽지 않도록 함
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("smtp.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("SMTP 동시 전송 한도")
+                .register(meterRegistry);
+        Gauge.builder("smtp.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("진행 중인 SMTP 전송 수")
+                .register(meterRegistry);
+        for (MailPriority priority : MailPriority.values()) {
+            Gauge.builder("smtp.concurrency.queued", this, limiter -> limiter.getWaiting(priority))
+                    .description("동시 전송 한도 때문에 대기 중인 요청 수")
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+    }
+
+    /** 트랜잭션 메일로 전송 슬롯을 얻습니다. */
+    public long acquire() {
+        return acquire(MailPriority.TRANSACTIONAL);
+    }
+
+    /**
+     * 전송 슬롯을 얻습니다. 얻은 뒤에는 반드시 release를 호출해야 합니다.
+     * @return release에 넘길 시작 시각 (nanoTime)
+     * @throws SendLimitExceededException 대기열이 가득 찼거나 대기 시간이 초과된 경우
+     */
+    public long acquire(MailPriority priority) {
+        int lane = priority.ordinal();
+        lock.lock();
+        try {
+            if (mayProceed(lane)) {
+                grant(lane);
+                return System.nanoTime();
+            }
+            if (waiting[lane] >= maxQueue) {
+                throw new SendLimitExceededException("SMTP 동시 전송 한도(" + (int) limit + ")와 " + priority + " 대기열(" + maxQueue + ")이 가득 찼습니다.");
+            }
+            waiting[lane]++;
+            try {
+                long remaining = acquireTimeoutNanos;
+                while (!mayProceed(lane)) {
+                    if (remaining <= 0) {
+                        throw new SendLimitExceededException("SMTP 동시 전송 한도(" + (int) limit + ") 대기 시간 초과");
+                    }
+                    remaining = available.awaitNanos(remaining);
+                }
+                grant(lane);
+                return System.nanoTime();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SendLimitExceededException("SMTP 동시 전송 한도 대기 중 인터럽트됨");
+            } finally {
+                waiting[lane]--;
+                // 이 요청 때문에 차례를 양보했던 다른 우선순위의 대기자가 남은 슬롯을 쓸 수 있게 깨움
+                if (inFlight < (int) limit) {
+                    available.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 슬롯이 비어 있고, 다른 우선순위가 대기 중이면 pass가 더 작을 때만 (같으면 트랜잭션 메일이 먼저)
+    private boolean mayProceed(int lane) {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        int other = 1 - lane;
+        if (waiting[other] == 0) {
+            return true;
+        }
+        return lane == MailPriority.TRANSACTIONAL.ordinal() ? pass[lane] <= pass[other] : pass[lane] < pass[other];
+    }
+
+    private void grant(int lane) {
+        inFlight++;
+        int other = 1 - lane;
+        if (waiting[other] == 0) {
+            // 경쟁이 없을 때 쓴 슬롯은 몫에 셈하지 않음
+            pass[lane] = pass[other];
+        } else {
+            pass[lane] += 1.0 / weights[lane];
+        }
+    }
+
+    /**
+     * 전송 슬롯을 반납하고 결과를 한도 조절에 반영합니다.
+     * @param startNanos acquire가 반환한 값
+     */
+    public void release(long startNanos, Outcome outcome) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            inFlight--;
+            if (adaptive && outcome != Outcome.IGNORED) {
+                adjust(now - startNanos, outcome, now);
+            }
+            // 한도가 늘었을 수 있으므로 대기자 모두에게 알림 (대기자는 조건을 다시 확인)
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(long rttNanos, Outcome outcome, long now) {
+        if (outcome == Outcome.SUCCESS) {
+            // 부하가 없을 때의 지연을 알기 위해 최근 최소 지연을 기준으로 삼고, 주기적으로 다시 측정
+            if (rttNanos < baselineRttNanos || now - baselineSetAtNanos > baselineResetNanos) {
+                baselineRttNanos = rttNanos;
+                baselineSetAtNanos = now;
+            }
+            if (rttNanos <= baselineRttNanos * tolerance) {
+                if (inFlight + 1 >= limit / 2) {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+                return;
+            }
+        }
+        // 지연 증가 또는 릴레이 오류 → 감소
+        if (now - lastDecreaseNanos >= decreaseCooldownNanos) {
+            double previous = limit;
+            limit = Math.max(minLimit, limit * backoffRatio);
+            lastDecreaseNanos = now;
+            if ((int) previous != (int) limit) {
+                logger.debug("SMTP 동시 전송 한도 감소: {} → {} ({})", (int) previous, (int) limit, outcome);
+            }
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting[0] + waiting[1];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting(MailPriority priority) {
+        lock.lock();
+        try {
+            return waiting[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package resilience.emailservice.mail.limit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.exception.DomainRateLimitedException;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 수신 도메인별 전송 속도 제한과 도메인 간 공정 스케줄링.
+ *
+ * 도메인마다 토큰 버킷(TokenBucket)을 두어 gmail.com 같은 대형 수신자가 한꺼번에 몰린 메일로 우리를 차단하지 않게 하고,
+ * 전송을 기다리는 요청은 도메인별 대기열에 넣어 디스패처 스레드가 "토큰이 있는 도메인"을 라운드 로빈으로 돌며 하나씩 내보냅니다.
+ * 그래서 한 도메인에 수천 건이 쌓여도 다른 도메인의 메일은 그 뒤에 줄 서지 않고, mail.domain-rate.global-rate로
+ * 전체 전송 속도를 제한하면 남은 전송 기회도 도메인끼리 고르게 나눠 갖습니다.
+ *
+ * 대기 중인 요청이 없고 토큰이 있으면 디스패처를 거치지 않고 바로 통과합니다.
+ * mail.domain-rate.max-wait-ms 안에 차례가 오지 않으면 DomainRateLimitedException(재시도 가능)을 던져
+ * 호출 스레드를 붙잡지 않고 기존 재시도/DLT 흐름에 맡깁니다.
+ */
+@Component
+public class DomainFairScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DomainFairScheduler.class);
+
+    @Value("${mail.domain-rate.enabled:false}")
+    private boolean enabled;
+
+    // 도메인별 초당 전송 수와 버킷 크기 (overrides에 없는 도메인에 적용)
+    @Value("${mail.domain-rate.default-rate:50}")
+    private double defaultRate;
+
+    @Value("${mail.domain-rate.default-burst:100}")
+    private int defaultBurst;
+
+    // "gmail.com=20/40,outlook.com=10/20" 형식 (도메인=초당 전송 수/버킷 크기). 하위 도메인에도 적용
+    @Value("${mail.domain-rate.overrides:}")
+    private String overrides;
+
+    // 전체 초당 전송 수 (0이면 제한 없음)
+    @Value("${mail.domain-rate.global-rate:0}")
+    private double globalRate;
+
+    @Value("${mail.domain-rate.max-wait-ms:2000}")
+    private long maxWaitMillis;
+
+    // 추적할 최대 도메인 수. 넘으면 버킷이 가득 찬(최근에 보내지 않은) 도메인부터 정리
+    @Value("${mail.domain-rate.max-domains:100000}")
+    private int maxDomains;
+
+    private final Map<String, RateLimit> limitOverrides = new HashMap<>();
+    private RateLimit defaultLimit;
+    private TokenBucket globalBucket;
+
+    private final ConcurrentHashMap<String, DomainState> domains = new ConcurrentHashMap<>();
+    // 대기자가 있는 도메인의 라운드 로빈 순서. 디스패처만 꺼내고, 생산자는 뒤에 넣음
+    private final ConcurrentLinkedDeque<DomainState> ready = new ConcurrentLinkedDeque<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        defaultLimit = new RateLimit(defaultRate, defaultBurst);
+        for (String entry : overrides.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            limitOverrides.put(normalize(entry.substring(0, entry.indexOf('='))), RateLimit.parse(entry.substring(entry.indexOf('=') + 1)));
+        }
+        if (globalRate > 0) {
+            globalBucket = new TokenBucket(globalRate, Math.max(1, (int) globalRate));
+        }
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        dispatcher = Thread.ofPlatform().name("mail-domain-dispatcher").daemon(true).start(this::dispatchLoop);
+        logger.info("도메인별 전송 속도 제한 사용: 기본 {}/s (burst {}), 개별 설정 {}개, 전체 {}/s",
+                defaultRate, defaultBurst, limitOverrides.size(), globalRate > 0 ? globalRate : "무제한");
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * 수신 주소의 도메인으로 보낼 차례가 될 때까지 기다립니다. 설정이 꺼져 있으면 바로 반환합니다.
+     * @param email 검증을 통과한 수신 주소
+     * @throws DomainRateLimitedException mail.domain-rate.max-wait-ms 안에 차례가 오지 않은 경우
+     */
+    public void acquire(String email) {
+        if (!enabled) {
+            return;
+        }
+        String domain = normalize(email.substring(email.lastIndexOf('@') + 1));
+        DomainState state = stateOf(domain);
+
+        // 빠른 경로: 이 도메인에 먼저 기다리는 요청이 없고 토큰이 있으면 바로 통과
+        long now = System.nanoTime();
+        // (전체 한도가 있으면 다른 도메인의 대기자가 먼저 차례를 받도록 라운드 로빈이 빌 때만)
+        if (state.waiters.isEmpty() && (globalBucket == null || ready.isEmpty()) && tryAcquireBoth(state, now) == 0) {
+            return;
+        }
+
+        CompletableFuture<Void> turn = new CompletableFuture<>();
+        state.waiters.add(turn);
+        if (state.scheduled.compareAndSet(false, true)) {
+            ready.addLast(state);
+        }
+        LockSupport.unpark(dispatcher);
+        try {
+            turn.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            if (turn.cancel(false)) {
+                throw limited(domain, state);
+            }
+            // 취소 직전에 차례를 받음
+        } catch (InterruptedException e) {
+            turn.cancel(false);
+            Thread.currentThread().interrupt();
+            throw limited(domain, state);
+        } catch (ExecutionException e) {
+            throw limited(domain, state);
+        }
+    }
+
+    /** 도메인에 적용되는 한도. 정확히 일치하는 설정이 없으면 상위 도메인 설정, 그것도 없으면 기본값 */
+    RateLimit limitFor(String domain) {
+        String candidate = domain;
+        while (true) {
+            RateLimit limit = limitOverrides.get(candidate);
+            if (limit != null) {
+                return limit;
+            }
+            int dot = candidate.indexOf('.');
+            if (dot < 0) {
+                return defaultLimit;
+            }
+            candidate = candidate.substring(dot + 1);
+        }
+    }
+
+    private DomainRateLimitedException limited(String domain, DomainState state) {
+        long retryAfterMillis = TimeUnit.NANOSECONDS.toMillis(state.bucket.waitNanos(System.nanoTime())) + 1;
+        return new DomainRateLimitedException(
+                domain + " 도메인 전송 한도로 " + maxWaitMillis + "ms 안에 전송하지 못했습니다. (대기 " + state.waiters.size() + "건)",
+                retryAfterMillis);
+    }
+
+    private DomainState stateOf(String domain) {
+        DomainState state = domains.get(domain);
+        if (state != null) {
+            return state;
+        }
+        if (domains.size() >= maxDomains) {
+            sweepIdleDomains();
+        }
+        return domains.computeIfAbsent(domain, d -> {
+            RateLimit limit = limitFor(d);
+            return new DomainState(new TokenBucket(limit.ratePerSecond(), limit.burst()));
+        });
+    }
+
+    /**
+     * 대기자가 없고 버킷이 가득 찬 도메인을 정리합니다. 이런 도메인은 새로 만든 상태와 구별되지 않으므로 지워도 한도가 느슨해지지 않습니다.
+     * (정리와 동시에 같은 도메인으로 요청이 들어오면 잠깐 두 상태가 생길 수 있지만, 버킷이 가득 찬 상태였으므로 영향은 burst 한 번 이내)
+     */
+    private void sweepIdleDomains() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            int before = domains.size();
+            domains.values().removeIf(s -> !s.scheduled.get() && s.waiters.isEmpty() && s.bucket.isFull(now));
+            logger.debug("유휴 도메인 정리: {} → {}", before, domains.size());
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private long tryAcquireBoth(DomainState state, long now) {
+        long wait = state.bucket.waitNanos(now);
+        if (wait > 0) {
+            return wait;
+        }
+        if (globalBucket != null) {
+            long globalWait = globalBucket.tryAcquire(now);
+            if (globalWait > 0) {
+                return globalWait;
+            }
+        }
+        // 동시에 다른 스레드가 같은 도메인 토큰을 가져갔을 수 있음. 이때 전체 토큰 하나는 버려지지만 한도를 넘지는 않음
+        return state.bucket.tryAcquire(now);
+    }
+
+    /**
+     * 디스패처: 대기자가 있는 도메인을 라운드 로빈으로 돌며 한 건씩 차례를 줍니다.
+     * 토큰이 없는 도메인은 다음 토큰 시각까지 throttled에 넣어 두고, 그 사이 다른 도메인을 먼저 처리합니다.
+     */
+    private void dispatchLoop() {
+        PriorityQueue<DomainState> throttled = new PriorityQueue<>(Comparator.comparingLong(s -> s.readyAtNanos));
+        while (running) {
+            long now = System.nanoTime();
+            while (!throttled.isEmpty() && throttled.peek().readyAtNanos <= now) {
+                ready.addLast(throttled.poll());
+            }
+
+            DomainState state = ready.pollFirst();
+            if (state == null) {
+                park(throttled, now, Long.MAX_VALUE);
+                continue;
+            }
+            CompletableFuture<Void> waiter = nextWaiter(state);
+            if (waiter == null) {
+                unschedule(state);
+                continue;
+            }
+
+            long domainWait = state.bucket.waitNanos(now);
+            if (domainWait > 0) {
+                state.readyAtNanos = now + domainWait;
+                throttled.add(state);
+                continue;
+            }
+            if (globalBucket != null) {
+                long globalWait = globalBucket.tryAcquire(now);
+                if (globalWait > 0) {
+                    // 전체 한도에 걸리면 순서를 유지한 채 다음 토큰까지 대기
+                    ready.addFirst(state);
+                    park(throttled, now, globalWait);
+                    continue;
+                }
+            }
+            if (state.bucket.tryAcquire(now) > 0) {
+                // 빠른 경로의 호출자가 먼저 가져감. 다시 줄 세움
+                ready.addLast(state);
+                continue;
+            }
+            state.waiters.poll();
+            // 그 사이 시간 초과로 취소됐으면 토큰 하나는 버려지지만 한도를 넘지는 않음.
+            // 이때도 아래처럼 도메인을 다시 줄 세우거나 내려야 scheduled만 남아 이후 요청이 모두 시간 초과되지 않음
+            waiter.complete(null);
+            if (state.waiters.isEmpty()) {
+                unschedule(state);
+            } else {
+                ready.addLast(state);
+            }
+        }
+    }
+
+    /** 시간 초과로 취소된 대기자를 버리고 다음 대기자를 확인합니다. (꺼내지는 않음) */
+    private static CompletableFuture<Void> nextWaiter(DomainState state) {
+        CompletableFuture<Void> waiter;
+        while ((waiter = state.waiters.peek()) != null && waiter.isDone()) {
+            state.waiters.poll();
+        }
+        return waiter;
+    }
+
+    private void unschedule(DomainState state) {
+        state.scheduled.set(false);
+        // scheduled를 내린 사이 생산자가 대기자를 넣었다면 다시 줄 세움
+        if (!state.waiters.isEmpty() && state.scheduled.compareAndSet(false, true)) {
+            ready.addLast(state);
+        }
+    }
+
+    private void park(PriorityQueue<DomainState> throttled, long now, long maxNanos) {
+        long nanos = maxNanos;
+        if (!throttled.isEmpty()) {
+            nanos = Math.min(nanos, throttled.peek().readyAtNanos - now);
+        }
+        if (nanos == Long.MAX_VALUE) {
+            LockSupport.park(this);
+        } else if (nanos > 0) {
+            LockSupport.parkNanos(this, nanos);
+        }
+    }
+
+    private static String normalize(String domain) {
+        return domain.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** 도메인 전송 한도: 초당 전송 수와 버킷 크기 */
+    record RateLimit(double ratePerSecond, int burst) {
+
+        /** "20/40" 또는 "20" (burst를 생략하면 rate와 같은 값) 형식을 읽습니다. */
+        static RateLimit parse(String value) {
+            String[] parts = value.trim().split("/");
+            double rate = Double.parseDouble(parts[0].trim());
+            int burst = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : Math.max(1, (int) rate);
+            return new RateLimit(rate, burst);
+        }
+    }
+
+    /** 도메인 하나의 버킷과 대기열 */
+    private static final class DomainState {
+
+        private final TokenBucket bucket;
+        private final ConcurrentLinkedQueue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+        // ready 또는 throttled에 들어가 있는지. 같은 도메인이 라운드 로빈에 두 번 들어가지 않게 함
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private long readyAtNanos;   // 디스패처 스레드만 사용
+
+        private DomainState(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package resilience.emailservice.mail.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 락 없이 동작하는 토큰 버킷. (GCRA, Generic Cell Rate Algorithm)
+ * 남은 토큰 수 대신 "다음 토큰이 생기는 이론적 시각(TAT)" 하나만 AtomicLong에 보관하고 CAS로 갱신하므로
+ * 도메인이 수만 개여도 버킷 하나가 long 하나 크기이고, 같은 도메인에 동시에 접근해도 락 경합이 없습니다.
+ */
+public final class TokenBucket {
+
+    private final long emissionIntervalNanos;   // 토큰 하나가 채워지는 간격 (1 / rate)
+    private final long burstToleranceNanos;     // burst개를 한꺼번에 쓸 수 있도록 허용하는 선행 시간
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param ratePerSecond 초당 채워지는 토큰 수
+     * @param burst 버킷 크기 (한꺼번에 쓸 수 있는 최대 토큰 수)
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate는 0보다 크고 burst는 1 이상이어야 합니다: " + ratePerSecond + "/" + burst);
+        }
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+    }
+
+    /**
+     * 토큰 하나를 꺼냅니다.
+     * @return 꺼냈으면 0, 토큰이 없으면 다음 토큰이 생길 때까지 남은 시간 (ns). 이때 버킷 상태는 바뀌지 않습니다.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = Math.max(tat, nowNanos);
+            long waitNanos = base - burstToleranceNanos - nowNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, base + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 토큰을 꺼내지 않고 다음 토큰까지 남은 시간만 확인합니다.
+     * @return 지금 꺼낼 수 있으면 0
+     */
+    public long waitNanos(long nowNanos) {
+        return Math.max(0, Math.max(theoreticalArrival.get(), nowNanos) - burstToleranceNanos - nowNanos);
+    }
+
+    /** 버킷이 가득 차 새로 만든 버킷과 구별되지 않는 상태인지 (유휴 도메인 정리에 사용) */
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
@@ -0,0 +1,187 @@
+package resilience.emailservice.mail.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.mail.smtp.SmtpRelayNode;
+import resilience.emailservice.mail.smtp.SmtpRelayRouter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 전송 파이프라인 단계별 지표. (/actuator/prometheus, /actuator/metrics)
+ *
+ * - mail.accept: HTTP 접수 처리 시간 (mode=sync|async, outcome)
+ * - mail.validation: 주소 검증 시간 (outcome)
+ * - mail.smtp.send: SMTP 전송 시간 (mode=simulated|relay, outcome)
+ * - mail.listener.process: Kafka 리스너 처리 시간 (listener=single|batch, outcome)
+ * - mail.retry.attempts: 재시도를 일으킨 실패 횟수 (exception)
+ * - mail.dlt.published: DLT로 보낸 레코드 수 (topic, exception)
+ * - mail.duplicates: 멱등성 키로 걸러낸 중복 요청 수
+ * - mail.bulk.lines: POST /mail/send/bulk로 받은 줄 수 (result=accepted|rejected)
+ * - mail.coalesce.recipients: 여러 수신자를 한 SMTP 트랜잭션으로 묶어 보낸 묶음의 수신자 수
+ *
+ * outcome은 성공이면 success, 실패면 예외 클래스의 단순 이름입니다.
+ * exception 태그는 Kafka 리스너 예외처럼 ListenerExecutionFailedException 등으로 감싸져 온 경우 가장 안쪽 원인 예외의 이름입니다.
+ * 호출마다 Timer.builder로 미터를 찾지 않도록 태그 조합별 미터를 미리 만들거나 예외 타입별로 캐시합니다.
+ */
+@Component
+public class MailMetrics {
+
+    private static final String SUCCESS = "success";
+
+    private final MeterRegistry registry;
+
+    private final OutcomeTimers syncAccept;
+    private final OutcomeTimers asyncAccept;
+    private final OutcomeTimers validation;
+    private final OutcomeTimers simulatedSmtpSend;
+    private final OutcomeTimers relaySmtpSend;
+    private final OutcomeTimers singleListener;
+    private final OutcomeTimers batchListener;
+    private final OutcomeTimers parallelListener;
+    private final Counter duplicates;
+    private final Counter bulkAccepted;
+    private final Counter bulkRejected;
+    private final DistributionSummary coalescedRecipients;
+    private final ConcurrentHashMap<Class<?>, Counter> retryAttempts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Class<?>, Counter>> dltPublished = new ConcurrentHashMap<>();
+
+    public MailMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.syncAccept = new OutcomeTimers("mail.accept", "HTTP 메일 접수 처리 시간", Tags.of("mode", "sync"));
+        this.asyncAccept = new OutcomeTimers("mail.accept", "HTTP 메일 접수 처리 시간", Tags.of("mode", "async"));
+        this.validation = new OutcomeTimers("mail.validation", "이메일 주소 검증 시간", Tags.empty());
+        this.simulatedSmtpSend = new OutcomeTimers("mail.smtp.send", "SMTP 전송 시간", Tags.of("mode", "simulated"));
+        this.relaySmtpSend = new OutcomeTimers("mail.smtp.send", "SMTP 전송 시간", Tags.of("mode", "relay"));
+        this.singleListener = new OutcomeTimers("mail.listener.process", "Kafka 리스너 처리 시간", Tags.of("listener", "single"));
+        this.batchListener = new OutcomeTimers("mail.listener.process", "Kafka 리스너 처리 시간", Tags.of("listener", "batch"));
+        this.parallelListener = new OutcomeTimers("mail.listener.process", "Kafka 리스너 처리 시간", Tags.of("listener", "parallel"));
+        this.duplicates = Counter.builder("mail.duplicates").description("멱등성 키로 걸러낸 중복 요청 수").register(registry);
+        this.bulkAccepted = bulkLines("accepted");
+        this.bulkRejected = bulkLines("rejected");
+        this.coalescedRecipients = DistributionSummary.builder("mail.coalesce.recipients")
+                .description("한 SMTP 트랜잭션으로 묶어 보낸 수신자 수")
+                .register(registry);
+    }
+
+    /** 단계 시작 시각. record* 메서드에 그대로 넘깁니다. */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void recordAccept(boolean async, long startNanos, Throwable error) {
+        (async ? asyncAccept : syncAccept).record(startNanos, error);
+    }
+
+    public void recordValidation(long startNanos, Throwable error) {
+        validation.record(startNanos, error);
+    }
+
+    public void recordSmtpSend(boolean relay, long startNanos, Throwable error) {
+        (relay ? relaySmtpSend : simulatedSmtpSend).record(startNanos, error);
+    }
+
+    public void recordListener(boolean batch, long startNanos, Throwable error) {
+        (batch ? batchListener : singleListener).record(startNanos, error);
+    }
+
+    /** kafka.listener.mode=parallel에서 레코드 하나를 한 번 시도한 시간 */
+    public void recordParallelListener(long startNanos, Throwable error) {
+        parallelListener.record(startNanos, error);
+    }
+
+    public void countDuplicate() {
+        duplicates.increment();
+    }
+
+    public void countBulkLine(boolean accepted) {
+        (accepted ? bulkAccepted : bulkRejected).increment();
+    }
+
+    public void recordCoalescedGroup(int recipients) {
+        coalescedRecipients.record(recipients);
+    }
+
+    /** 릴레이별 라우팅 상태(지연/오류율 EWMA, 처리 중 전송 수, 제외 여부)와 헤징 횟수를 지표로 노출합니다. */
+    public void registerSmtpRelays(SmtpRelayRouter router) {
+        for (SmtpRelayNode node : router.nodes()) {
+            Tags tags = Tags.of("relay", node.relay().toString());
+            Gauge.builder("smtp.relay.latency.ewma", node, SmtpRelayNode::latencyMillis)
+                    .description("릴레이별 전송 지연 EWMA (ms)").tags(tags).register(registry);
+            Gauge.builder("smtp.relay.errors.ewma", node, SmtpRelayNode::errorRate)
+                    .description("릴레이별 실패율 EWMA").tags(tags).register(registry);
+            Gauge.builder("smtp.relay.inflight", node, SmtpRelayNode::inFlight)
+                    .description("릴레이별 처리 중인 전송 수").tags(tags).register(registry);
+            Gauge.builder("smtp.relay.ejected", node, n -> n.isEjected() ? 1 : 0)
+                    .description("라우팅에서 제외된 릴레이면 1").tags(tags).register(registry);
+            FunctionCounter.builder("smtp.relay.ejections", node, SmtpRelayNode::ejectionCount)
+                    .description("릴레이가 라우팅에서 제외된 횟수").tags(tags).register(registry);
+        }
+        FunctionCounter.builder("smtp.relay.hedges", router, SmtpRelayRouter::hedgedSends)
+                .description("헤징 전송 횟수 (sent: 두 번째 릴레이로도 보냄, won: 두 번째 릴레이가 먼저 성공)").tag("result", "sent").register(registry);
+        FunctionCounter.builder("smtp.relay.hedges", router, SmtpRelayRouter::hedgeWins)
+                .description("헤징 전송 횟수 (sent: 두 번째 릴레이로도 보냄, won: 두 번째 릴레이가 먼저 성공)").tag("result", "won").register(registry);
+    }
+
+    private Counter bulkLines(String result) {
+        return Counter.builder("mail.bulk.lines")
+                .description("대량 접수로 받은 줄 수")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public void countRetryAttempt(Throwable error) {
+        retryAttempts.computeIfAbsent(NestedExceptionUtils.getMostSpecificCause(error).getClass(), type -> Counter.builder("mail.retry.attempts")
+                .description("재시도를 일으킨 실패 횟수")
+                .tag("exception", type.getSimpleName())
+                .register(registry)).increment();
+    }
+
+    public void countDltPublished(String topic, Throwable error) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(error);
+        dltPublished.computeIfAbsent(topic, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(cause.getClass(), type -> Counter.builder("mail.dlt.published")
+                        .description("DLT로 보낸 레코드 수")
+                        .tag("topic", topic)
+                        .tag("exception", type.getSimpleName())
+                        .register(registry)).increment();
+    }
+
+    /** 같은 이름/기본 태그에 outcome 태그만 다른 타이머 묶음 */
+    private final class OutcomeTimers {
+
+        private final String name;
+        private final String description;
+        private final Tags tags;
+        private final Timer success;
+        private final ConcurrentHashMap<Class<?>, Timer> failures = new ConcurrentHashMap<>();
+
+        private OutcomeTimers(String name, String description, Tags tags) {
+            this.name = name;
+            this.description = description;
+            this.tags = tags;
+            this.success = timer(SUCCESS);
+        }
+
+        private void record(long startNanos, Throwable error) {
+            Timer timer = error == null ? success : failures.computeIfAbsent(error.getClass(), type -> timer(type.getSimpleName()));
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private Timer timer(String outcome) {
+            return Timer.builder(name)
+                    .description(description)
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package resilience.emailservice.mail.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.exception.InvalidRequestException;
+import resilience.emailservice.exception.OutboxFlushTimeoutException;
+import resilience.emailservice.mail.EmailRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 비동기로 접수한 메일 요청의 로컬 아웃박스. (추가 전용 저널)
+ *
+ * POST /mail/send?async=true가 202를 돌려주기 전에 요청을 메모리 매핑된 세그먼트 파일에 기록하고,
+ * 전송이 끝나면(성공이든 최종 실패든) 완료 레코드를 남깁니다. 재기동하면 세그먼트를 처음부터 읽어
+ * 완료 레코드가 없는 요청을 다시 전송 대상으로 돌려줍니다. (최소 한 번 전송, 중복은 멱등성 키로 거름)
+ *
+ * - 기록: 락 안에서는 매핑된 버퍼에 바이트를 복사만 하므로 수 마이크로초 안에 끝납니다.
+ * - 그룹 커밋: mail.outbox.fsync가 켜져 있으면 접수 스레드는 자기 기록이 디스크에 반영될 때까지 기다립니다.
+ *   플러셔 스레드가 force 한 번으로 그 사이 쌓인 기록을 모두 반영하므로, 동시에 접수된 요청들이 fsync 비용을 나눠 냅니다.
+ *   대량 접수처럼 한 스레드가 여러 건을 기록할 때는 appendWithoutFlush로 기록하고 flush로 한 번만 기다립니다.
+ * - 정리: 세그먼트의 요청이 모두 완료되면 지웁니다. 완료 레코드는 항상 접수 레코드보다 뒤에 있으므로
+ *   앞에서부터 연속으로 완료된 세그먼트만 지웁니다. (중간 세그먼트를 지우면 앞 세그먼트의 완료 기록이 사라짐)
+ */
+@Component
+public class MailOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutbox.class);
+
+    @Value("${mail.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mail.outbox.dir:./data/outbox}")
+    private String dir;
+
+    @Value("${mail.outbox.segment-size-bytes:67108864}")
+    private int segmentSize;
+
+    // 접수 응답 전에 디스크 반영(fsync)을 기다릴지. false면 OS 페이지 캐시까지만 보장 (프로세스 장애는 견디고 OS 장애는 못 견딤)
+    @Value("${mail.outbox.fsync:true}")
+    private boolean fsync;
+
+    // fsync를 기다릴 최대 시간. 넘으면 접수를 취소하고 OutboxFlushTimeoutException(503)
+    @Value("${mail.outbox.flush-timeout-ms:5000}")
+    private long flushTimeoutMillis;
+
+    private final MeterRegistry meterRegistry;
+
+    private Path directory;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32C crc = new CRC32C();   // appendLock 안에서만 사용
+    private final ConcurrentSkipListMap<Long, OutboxSegment> segments = new ConcurrentSkipListMap<>();
+    private volatile OutboxSegment active;
+    // 완료되지 않은 요청 id → 접수 레코드가 있는 세그먼트
+    private final ConcurrentHashMap<String, OutboxSegment> pendingById = new ConcurrentHashMap<>();
+    private List<OutboxEntry> recovered = List.of();
+
+    // 그룹 커밋 상태. LSN = 세그먼트 번호 × segmentSize + 세그먼트 내 위치
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushRequested = flushLock.newCondition();
+    private final Condition flushed = flushLock.newCondition();
+    private long requestedLsn;
+    private long flushedLsn;
+    private volatile long appendedLsn;   // 마지막 접수 기록의 LSN. appendLock 안에서만 갱신
+    private Counter fsyncs;
+    private Thread flusher;
+    private volatile boolean running;
+
+    public MailOutbox(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void open() {
+        if (!enabled) {
+            return;
+        }
+        directory = Path.of(dir);
+        Map<String, OutboxEntry> unfinished = new LinkedHashMap<>();
+        long nextIndex = 0;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> list = Files.list(directory)) {
+                files = list.filter(p -> p.getFileName().toString().matches("segment-\\d{20}\\.log")).sorted().toList();
+            }
+            for (Path file : files) {
+                replaySegment(file, unfinished);
+                nextIndex = OutboxSegment.indexOf(file) + 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("아웃박스 디렉터리를 읽을 수 없습니다: " + directory, e);
+        }
+        recovered = new ArrayList<>(unfinished.values());
+
+        active = OutboxSegment.create(directory, nextIndex, segmentSize);
+        segments.put(nextIndex, active);
+        compact();
+
+        running = true;
+        flusher = Thread.ofPlatform().name("mail-outbox-flusher").daemon(true).start(this::flushLoop);
+        Gauge.builder("mail.outbox.pending", pendingById, Map::size)
+                .description("아웃박스에 기록되었지만 아직 완료되지 않은 요청 수")
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.segments", segments, Map::size)
+                .description("아웃박스 세그먼트 파일 수")
+                .register(meterRegistry);
+        fsyncs = Counter.builder("mail.outbox.fsyncs")
+                .description("아웃박스 세그먼트 디스크 반영(force) 횟수")
+                .register(meterRegistry);
+        logger.info("메일 아웃박스 사용: dir={}, 세그먼트 {}개, 재전송 대상 {}건, fsync={}",
+                directory.toAbsolutePath(), segments.size(), recovered.size(), fsync);
+    }
+
+    private void replaySegment(Path file, Map<String, OutboxEntry> unfinished) {
+        List<ByteBuffer> records = new ArrayList<>();
+        OutboxSegment segment = OutboxSegment.replay(file, records::add);
+        segments.put(segment.index(), segment);
+        for (ByteBuffer payload : records) {
+            if (OutboxRecords.type(payload) == OutboxRecords.ACCEPTED) {
+                OutboxEntry entry = OutboxRecords.entry(payload);
+                unfinished.put(entry.id(), entry);
+                pendingById.put(entry.id(), segment);
+                segment.pending.incrementAndGet();
+            } else {
+                String id = OutboxRecords.id(payload);
+                unfinished.remove(id);
+                OutboxSegment owner = pendingById.remove(id);
+                if (owner != null) {
+                    owner.pending.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flushLock.lock();
+        try {
+            flushRequested.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+        force(active);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 재기동 시 완료 기록이 없던 요청을 접수 순서대로 한 번만 돌려줍니다.
+     */
+    public List<OutboxEntry> drainRecovered() {
+        List<OutboxEntry> entries = recovered;
+        recovered = List.of();
+        return entries;
+    }
+
+    /**
+     * 접수한 요청을 기록합니다. fsync가 켜져 있으면 디스크에 반영될 때까지 (flush-timeout-ms까지) 기다립니다.
+     * 아웃박스가 꺼져 있으면 아무것도 하지 않습니다.
+     * @throws InvalidRequestException 요청이 너무 커서 세그먼트에 기록할 수 없음 (400)
+     * @throws OutboxFlushTimeoutException 제한 시간 안에 디스크에 반영되지 않음. 기록은 완료 처리해 재기동 후 다시 보내지 않음 (503)
+     */
+    public void append(String id, EmailRequest emailRequest) {
+        if (!enabled) {
+            return;
+        }
+        long lsn = write(id, emailRequest);
+        if (fsync && !awaitFlush(lsn)) {
+            // 호출자는 실패 응답을 받고 다시 보내므로 재기동 후 중복 전송되지 않도록 완료 처리
+            markDone(id);
+            throw flushTimeout();
+        }
+    }
+
+    /**
+     * 접수한 요청을 기록하되 디스크 반영은 기다리지 않습니다.
+     * 여러 건을 기록한 뒤 flush()로 한 번에 기다릴 때 사용합니다. (대량 접수)
+     * @throws InvalidRequestException 요청이 너무 커서 세그먼트에 기록할 수 없음 (400)
+     */
+    public void appendWithoutFlush(String id, EmailRequest emailRequest) {
+        if (enabled) {
+            write(id, emailRequest);
+        }
+    }
+
+    /**
+     * 지금까지 기록한 요청이 디스크에 반영될 때까지 (flush-timeout-ms까지) 기다립니다.
+     * fsync가 꺼져 있거나 아웃박스가 꺼져 있으면 바로 반환합니다.
+     * @throws OutboxFlushTimeoutException 제한 시간 안에 디스크에 반영되지 않음. 기록은 그대로 남아 이후 force에 함께 반영됨
+     */
+    public void flush() {
+        if (enabled && fsync && !awaitFlush(appendedLsn)) {
+            throw flushTimeout();
+        }
+    }
+
+    private OutboxFlushTimeoutException flushTimeout() {
+        return new OutboxFlushTimeoutException("아웃박스 기록이 " + flushTimeoutMillis + "ms 안에 디스크에 반영되지 않았습니다.");
+    }
+
+    /** @return 기록의 LSN */
+    private long write(String id, EmailRequest emailRequest) {
+        // 직렬화는 락 밖에서
+        byte[] payload = OutboxRecords.accepted(id, emailRequest);
+        if (OutboxRecords.HEADER_BYTES + payload.length > segmentSize / 2) {
+            throw new InvalidRequestException("메일 요청이 너무 커서 아웃박스에 기록할 수 없습니다. (" + payload.length + " bytes)");
+        }
+        long lsn;
+        appendLock.lock();
+        try {
+            OutboxSegment segment = writableSegment(payload.length);
+            lsn = lsnOf(segment, segment.append(payload, crc));
+            segment.pending.incrementAndGet();
+            pendingById.put(id, segment);
+            appendedLsn = lsn;
+        } finally {
+            appendLock.unlock();
+        }
+        return lsn;
+    }
+
+    /**
+     * 전송이 끝난 요청(성공 또는 최종 실패)에 완료 표시를 남깁니다.
+     * 완료 기록은 디스크 반영을 기다리지 않습니다. (반영 전에 장애가 나면 재기동 후 한 번 더 전송될 수 있음)
+     */
+    public void markDone(String id) {
+        if (!enabled) {
+            return;
+        }
+        OutboxSegment owner = pendingById.remove(id);
+        if (owner == null) {
+            return;
+        }
+        byte[] payload = OutboxRecords.done(id);
+        appendLock.lock();
+        try {
+            writableSegment(payload.length).append(payload, crc);
+            if (owner.pending.decrementAndGet() == 0) {
+                compact();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /** 완료되지 않은 요청 수 */
+    public int pendingCount() {
+        return pendingById.size();
+    }
+
+    // appendLock 안에서 호출
+    private OutboxSegment writableSegment(int payloadLength) {
+        OutboxSegment segment = active;
+        if (segment.fits(payloadLength)) {
+            return segment;
+        }
+        // 다 쓴 세그먼트는 여기서 끝까지 반영해 두므로 플러셔는 항상 활성 세그먼트만 반영하면 됨
+        force(segment);
+        OutboxSegment next = OutboxSegment.create(directory, segment.index() + 1, segmentSize);
+        segments.put(next.index(), next);
+        active = next;
+        compact();
+        return next;
+    }
+
+    // appendLock 안에서 호출: 앞에서부터 연속으로 모두 완료된 세그먼트를 지움 (활성 세그먼트 제외)
+    private void compact() {
+        while (true) {
+            Map.Entry<Long, OutboxSegment> first = segments.firstEntry();
+            if (first == null || first.getValue() == active || first.getValue().pending.get() > 0) {
+                return;
+            }
+            segments.remove(first.getKey());
+            first.getValue().delete();
+            logger.debug("완료된 아웃박스 세그먼트 삭제: {}", first.getKey());
+        }
+    }
+
+    private void force(OutboxSegment segment) {
+        if (segment.force()) {
+            fsyncs.increment();
+        }
+    }
+
+    private long lsnOf(OutboxSegment segment, int position) {
+        return segment.index() * segmentSize + position;
+    }
+
+    /** @return 반영됐거나 종료 중이면 true, flush-timeout-ms가 지나도록 반영되지 않았으면 false */
+    private boolean awaitFlush(long lsn) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(flushTimeoutMillis);
+        boolean interrupted = false;
+        flushLock.lock();
+        try {
+            if (requestedLsn < lsn) {
+                requestedLsn = lsn;
+                flushRequested.signal();
+            }
+            while (flushedLsn < lsn && running) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    remaining = flushed.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    // 기다리는 동안 인터럽트돼도 기록 결과는 알려야 하므로 남은 시간만큼 계속 기다림
+                    interrupted = true;
+                }
+            }
+            return true;
+        } finally {
+            flushLock.unlock();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            long target;
+            flushLock.lock();
+            try {
+                while (requestedLsn <= flushedLsn && running) {
+                    flushRequested.awaitUninterruptibly();
+                }
+                target = requestedLsn;
+            } finally {
+                flushLock.unlock();
+            }
+            try {
+                // 이전 세그먼트는 교체될 때 이미 반영됨. 반영하는 동안 들어온 기록은 다음 force에 함께 반영됨
+                force(active);
+            } catch (RuntimeException e) {
+                // 반영되지 않은 기록을 반영됐다고 알리지 않도록 잠시 뒤 다시 시도
+                logger.error("아웃박스 디스크 반영 실패. 100ms 후 다시 시도합니다.", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            flushLock.lock();
+            try {
+                flushedLsn = Math.max(flushedLsn, target);
+                flushed.signalAll();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        // 종료: 기다리는 접수 스레드를 모두 깨움
+        flushLock.lock();
+        try {
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package resilience.emailservice.mail.outbox;
+
+import resilience.emailservice.mail.EmailRequest;
+
+/**
+ * 아웃박스에 기록되었지만 아직 완료 표시가 없는 요청. 재기동 시 다시 전송할 대상입니다.
+ * @param id 접수 시 발급한 추적 ID
+ */
+public record OutboxEntry(String id, EmailRequest emailRequest) {
+}
@@ -0,0 +1,143 @@
+package resilience.emailservice.mail.outbox;
+
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailPriority;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 아웃박스 레코드 본문(payload)의 직렬화.
+ * 레코드 형식: [int 본문 길이][int CRC32C][본문]
+ * 본문 형식: [byte 종류][문자열 id] + ACCEPTED면 [문자열 email][문자열 본문][문자열 멱등성 키]
+ *           + 템플릿 요청이거나 우선순위가 있으면 [문자열 템플릿 ID][int 변수 수][문자열 이름][문자열 값]...
+ *           + 우선순위가 있으면 [byte 우선순위]
+ *           (템플릿/우선순위 부분이 없는 이전 형식의 레코드도 그대로 읽음)
+ * 문자열은 [int UTF-8 바이트 수(null이면 -1)][바이트]입니다.
+ */
+final class OutboxRecords {
+
+    static final int HEADER_BYTES = 8;
+    static final byte ACCEPTED = 1;
+    static final byte DONE = 2;
+
+    private OutboxRecords() {
+    }
+
+    static byte[] accepted(String id, EmailRequest request) {
+        byte[] idBytes = utf8(id);
+        byte[] email = utf8(request.getEmail());
+        byte[] body = utf8(request.getEmailBody());
+        byte[] key = utf8(request.getIdempotencyKey());
+        byte[] templateId = utf8(request.getTemplateId());
+        Map<String, String> variables = request.getVariables() == null ? Map.of() : request.getVariables();
+        byte[][] variableBytes = new byte[variables.size() * 2][];
+        MailPriority priority = request.getPriority();
+        // 우선순위는 템플릿 부분 뒤에 오므로 템플릿이 없어도 템플릿 부분(null, 변수 0개)을 씀
+        boolean templatePart = templateId != null || priority != null;
+        if (templateId == null) {
+            variables = Map.of();
+            variableBytes = new byte[0][];
+        }
+        int size = 1 + size(idBytes) + size(email) + size(body) + size(key);
+        if (templatePart) {
+            int i = 0;
+            for (Map.Entry<String, String> variable : variables.entrySet()) {
+                variableBytes[i] = utf8(variable.getKey());
+                variableBytes[i + 1] = utf8(variable.getValue());
+                size += size(variableBytes[i]) + size(variableBytes[i + 1]);
+                i += 2;
+            }
+            size += size(templateId) + 4;
+        }
+        if (priority != null) {
+            size += 1;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(ACCEPTED);
+        putString(buffer, idBytes);
+        putString(buffer, email);
+        putString(buffer, body);
+        putString(buffer, key);
+        if (templatePart) {
+            putString(buffer, templateId);
+            buffer.putInt(variables.size());
+            for (byte[] bytes : variableBytes) {
+                putString(buffer, bytes);
+            }
+        }
+        if (priority != null) {
+            buffer.put((byte) priority.ordinal());
+        }
+        return buffer.array();
+    }
+
+    static byte[] done(String id) {
+        byte[] idBytes = utf8(id);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + size(idBytes));
+        buffer.put(DONE);
+        putString(buffer, idBytes);
+        return buffer.array();
+    }
+
+    static byte type(ByteBuffer payload) {
+        return payload.get(0);
+    }
+
+    static String id(ByteBuffer payload) {
+        return getString(payload.position(1));
+    }
+
+    /** ACCEPTED 레코드를 읽습니다. */
+    static OutboxEntry entry(ByteBuffer payload) {
+        payload.position(1);
+        String id = getString(payload);
+        EmailRequest request = new EmailRequest(getString(payload), getString(payload));
+        request.setIdempotencyKey(getString(payload));
+        if (payload.hasRemaining()) {
+            String templateId = getString(payload);
+            int count = payload.getInt();
+            Map<String, String> variables = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                variables.put(getString(payload), getString(payload));
+            }
+            if (templateId != null) {
+                request.setTemplateId(templateId);
+                request.setVariables(variables);
+            }
+        }
+        if (payload.hasRemaining()) {
+            request.setPriority(MailPriority.values()[payload.get()]);
+        }
+        return new OutboxEntry(id, request);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int size(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,146 @@
+package resilience.emailservice.mail.outbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * 아웃박스 세그먼트 파일 하나. 파일 전체를 메모리 매핑해 쓰기는 메모리 복사만으로 끝나고,
+ * 디스크 반영은 force로 필요한 범위만 합니다.
+ * 파일은 0으로 채워진 상태로 만들어지므로 길이가 0인 위치가 기록의 끝입니다.
+ */
+final class OutboxSegment {
+
+    private final long index;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    // 이 세그먼트에 접수 기록이 있고 아직 완료되지 않은 요청 수. 0이 되면 정리 대상
+    final AtomicInteger pending = new AtomicInteger();
+    private volatile int writePosition;   // 쓰기는 MailOutbox의 appendLock 안에서만
+    // 플러셔, 세그먼트 교체(appendLock 안), 종료가 함께 부를 수 있음.
+    // synchronized는 디스크 반영 동안 가상 스레드를 캐리어에 고정하므로 ReentrantLock 사용
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private int forcedPosition;           // forceLock 안에서만 사용
+
+    private OutboxSegment(long index, Path path, MappedByteBuffer buffer) {
+        this.index = index;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    static Path pathOf(Path dir, long index) {
+        return dir.resolve(String.format("segment-%020d.log", index));
+    }
+
+    static long indexOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+    }
+
+    /** 새 세그먼트를 size 바이트로 만들어 매핑합니다. */
+    static OutboxSegment create(Path dir, long index, int size) {
+        Path path = pathOf(dir, index);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new OutboxSegment(index, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            throw new UncheckedIOException("아웃박스 세그먼트 생성 실패: " + path, e);
+        }
+    }
+
+    /** 기존 세그먼트를 열어 기록을 순서대로 읽습니다. 찢어진 꼬리(CRC 불일치)를 만나면 거기서 멈춥니다. */
+    static OutboxSegment replay(Path path, Consumer<ByteBuffer> records) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            OutboxSegment segment = new OutboxSegment(indexOf(path), path,
+                    channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            MappedByteBuffer buffer = segment.buffer;
+            CRC32C crc = new CRC32C();
+            int position = 0;
+            while (position + OutboxRecords.HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + OutboxRecords.HEADER_BYTES + length > buffer.capacity()) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(position + OutboxRecords.HEADER_BYTES, length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                    break;
+                }
+                records.accept(payload);
+                position += OutboxRecords.HEADER_BYTES + length;
+            }
+            segment.writePosition = position;
+            segment.forcedPosition = position;
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("아웃박스 세그먼트 읽기 실패: " + path, e);
+        }
+    }
+
+    /** 남은 공간에 레코드가 들어가는지 */
+    boolean fits(int payloadLength) {
+        return writePosition + OutboxRecords.HEADER_BYTES + payloadLength <= buffer.capacity();
+    }
+
+    /**
+     * 레코드를 기록합니다. (MailOutbox의 appendLock 안에서 호출)
+     * 본문과 CRC를 먼저 쓰고 길이를 마지막에 써서, 길이가 보이면 본문도 쓰여 있도록 합니다.
+     * @return 기록 후 세그먼트 내 위치
+     */
+    int append(byte[] payload, CRC32C crc) {
+        int position = writePosition;
+        crc.reset();
+        crc.update(payload);
+        buffer.put(position + OutboxRecords.HEADER_BYTES, payload);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, payload.length);
+        writePosition = position + OutboxRecords.HEADER_BYTES + payload.length;
+        return writePosition;
+    }
+
+    /**
+     * 아직 디스크에 반영하지 않은 범위를 반영합니다.
+     * @return 반영할 범위가 있어 force를 호출했으면 true
+     */
+    boolean force() {
+        forceLock.lock();
+        try {
+            int end = writePosition;
+            if (end <= forcedPosition) {
+                return false;
+            }
+            buffer.force(forcedPosition, end - forcedPosition);
+            forcedPosition = end;
+            return true;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    void delete() {
+        try {
+            // 매핑은 GC될 때 해제되지만 리눅스에서는 매핑 중에도 파일을 지울 수 있음
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("아웃박스 세그먼트 삭제 실패: " + path, e);
+        }
+    }
+
+    long index() {
+        return index;
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+}
@@ -7,12 +7,19 @@ import org.springframework.retry.RetryListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import resilience.emailservice.mail.metrics.MailMetrics;
 
 @Component("loggingRetryListener")
 public class LoggingRetryListener implements RetryListener {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingRetryListener.class);
 
+    private final MailMetrics mailMetrics;
+
+    public LoggingRetryListener(MailMetrics mailMetrics) {
+        this.mailMetrics = mailMetrics;
+    }
+
     @Override
     public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
         // 첫 시도 전에 호출됩니다. 특별한 처리가 필요 없으면 true를 반환합니다.
@@ -26,7 +33,12 @@ public class LoggingRetryListener implements RetryListener {
 
     @Override
     public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
-        // 재시도할 때마다 호출됩니다.
+        // 실패할 때마다 호출됩니다. (마지막 시도나 재시도하지 않는 예외 포함)
         logger.info("재시도 {}회: {}", context.getRetryCount(), throwable.getMessage());
+        // Kafka 에러 핸들러와 같이 다음 시도가 이어지는 실패만 mail.retry.attempts로 셈
+        // (RetryScheduler는 더 시도하지 않을 실패면 onError 전에 exhaustedOnly로 표시함)
+        if (!context.isExhaustedOnly()) {
+            mailMetrics.countRetryAttempt(throwable);
+        }
     }
 }
\ No newline at end of file
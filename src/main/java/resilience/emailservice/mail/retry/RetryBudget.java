@@ -0,0 +1,158 @@
+package resilience.emailservice.mail.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.exception.RetryBudgetExhaustedException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 모든 재시도 경로(RetryScheduler, Kafka 블로킹 재시도/재시도 토픽, 병렬 컨슈머)가 함께 쓰는 재시도 예산.
+ *
+ * 릴레이 장애로 실패율이 치솟으면 계층마다 재시도가 겹쳐 릴레이 부하가 실제 요청의 몇 배가 됩니다.
+ * 예산은 첫 시도에 성공한 요청마다 ratio개의 토큰이 쌓이는 토큰 버킷이고, 재시도 한 번에 토큰 하나를 씁니다.
+ * 최근 window-ms 동안의 적립/사용만 세므로(1초 단위 버킷의 슬라이딩 윈도우) 오래전 성공으로 쌓인 토큰이 장애 때 한꺼번에 쓰이지 않으며,
+ * 트래픽이 적을 때도 재시도할 수 있도록 초당 min-per-second개는 항상 허용합니다.
+ *
+ * 예산이 바닥나면 재시도하지 않고 바로 최종 실패로 처리합니다. (Kafka는 DLT, 비동기 접수는 failed 상태, HTTP는 503)
+ * 적립은 LongAdder로, 사용 여부 판단은 버킷 합계를 읽고 한 번 증가시키는 것으로 끝나 경합이 심해도 락이 없습니다.
+ * 동시에 판단한 스레드들이 마지막 토큰을 함께 쓸 수 있어 스레드 수만큼 초과될 수 있습니다.
+ *
+ * 서킷이 열려 실패한 요청의 재시도는 릴레이에 닿지 않으므로 예산을 쓰지 않습니다. (각 호출부에서 제외)
+ */
+@Component
+public class RetryBudget {
+
+    private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final double ratio;
+    private final double reserve;
+    private final long windowMillis;
+    private final Bucket[] buckets;
+
+    private final Counter granted;
+    private final Counter denied;
+    private final MeterRegistry registry;
+
+    public RetryBudget(@Value("${mail.retry.budget.enabled:true}") boolean enabled,
+                       @Value("${mail.retry.budget.ratio:0.1}") double ratio,
+                       @Value("${mail.retry.budget.min-per-second:10}") int minPerSecond,
+                       @Value("${mail.retry.budget.window-ms:10000}") long windowMillis,
+                       MeterRegistry registry) {
+        this.enabled = enabled;
+        this.ratio = ratio;
+        int bucketCount = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(windowMillis));
+        this.reserve = (double) minPerSecond * bucketCount;
+        this.windowMillis = windowMillis;
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.granted = withdrawals(registry, "granted");
+        this.denied = withdrawals(registry, "denied");
+        this.registry = registry;
+    }
+
+    // 버킷이 모두 만들어진 뒤에 등록해, 게이지가 초기화되지 않은 예산을 읽지 않도록 함
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("mail.retry.budget.available", this, RetryBudget::available)
+                .description("지금 쓸 수 있는 재시도 토큰 수")
+                .register(registry);
+    }
+
+    private static Counter withdrawals(MeterRegistry registry, String result) {
+        return Counter.builder("mail.retry.budget.withdrawals")
+                .description("재시도 예산 사용 요청 결과 (granted: 재시도함, denied: 예산 소진으로 재시도하지 않음)")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /** 첫 시도에 성공한 요청 수만큼 예산을 쌓습니다. */
+    public void recordFirstAttemptSuccess() {
+        recordFirstAttemptSuccess(1);
+    }
+
+    public void recordFirstAttemptSuccess(int count) {
+        if (enabled && count > 0) {
+            current().deposits.add(count);
+        }
+    }
+
+    /**
+     * 재시도 한 번에 쓸 토큰을 가져갑니다.
+     * @return 재시도해도 되면 true, 예산이 바닥났으면 false
+     */
+    public boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        if (available() < 1) {
+            denied.increment();
+            return false;
+        }
+        current().withdrawals.incrementAndGet();
+        granted.increment();
+        return true;
+    }
+
+    /**
+     * 토큰을 가져가고, 예산이 바닥났으면 재시도하지 않을 예외를 던집니다.
+     * @param cause 재시도하려던 실패
+     * @throws RetryBudgetExhaustedException 예산 소진
+     */
+    public void acquireOrThrow(Throwable cause) {
+        if (!tryAcquire()) {
+            throw exhausted(cause);
+        }
+    }
+
+    public RetryBudgetExhaustedException exhausted(Throwable cause) {
+        String message = "재시도 예산이 소진되어 재시도하지 않습니다";
+        return new RetryBudgetExhaustedException(cause == null ? message : message + ": " + cause.getMessage(), windowMillis, cause);
+    }
+
+    /** 지금 쓸 수 있는 토큰 수 (적립분 × ratio + 예비분 - 사용분) */
+    public double available() {
+        long now = System.nanoTime() / BUCKET_NANOS;
+        long deposits = 0;
+        long withdrawals = 0;
+        for (Bucket bucket : buckets) {
+            if (now - bucket.epoch < buckets.length) {
+                deposits += bucket.deposits.sum();
+                withdrawals += bucket.withdrawals.get();
+            }
+        }
+        return reserve + deposits * ratio - withdrawals;
+    }
+
+    // 현재 1초 구간의 버킷. 한 바퀴 전 구간의 버킷이면 비우고 재사용
+    private Bucket current() {
+        long epoch = System.nanoTime() / BUCKET_NANOS;
+        Bucket bucket = buckets[(int) Math.floorMod(epoch, (long) buckets.length)];
+        long seen = bucket.epoch;
+        if (seen != epoch && bucket.rotating.compareAndSet(seen, epoch)) {
+            // 비우는 동안 들어온 증가분은 일부 잃을 수 있음 (근사치로 충분)
+            bucket.deposits.reset();
+            bucket.withdrawals.set(0);
+            bucket.epoch = epoch;
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+
+        private volatile long epoch = Long.MIN_VALUE;
+        // 버킷을 비울 스레드를 하나로 정함 (마지막으로 비운 구간 번호)
+        private final AtomicLong rotating = new AtomicLong(Long.MIN_VALUE);
+        private final LongAdder deposits = new LongAdder();
+        private final AtomicLong withdrawals = new AtomicLong();
+    }
+}
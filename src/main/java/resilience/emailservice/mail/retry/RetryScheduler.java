@@ -0,0 +1,256 @@
+package resilience.emailservice.mail.retry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.context.RetryContextSupport;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.exception.CircuitOpenException;
+import resilience.emailservice.exception.RetryableException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread.sleep 없이 재시도를 예약하는 스케줄러.
+ * 첫 시도는 호출한 스레드에서 바로 실행하고, RetryableException으로 실패하면
+ * 지수 백오프 + 지터만큼 뒤로 미뤄 DelayQueue에 넣은 뒤 호출 스레드를 즉시 돌려보냅니다.
+ * 재시도 시각이 된 작업은 디스패처 스레드가 꺼내 워커 풀에서 실행합니다.
+ * 등록된 RetryListener(LoggingRetryListener 등)에 시도마다 콜백을 보냅니다.
+ * 재시도를 예약하기 전에 RetryBudget의 토큰을 쓰며, 예산이 없으면 RetryBudgetExhaustedException으로 끝냅니다.
+ */
+@Component
+public class RetryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryScheduler.class);
+
+    private final List<RetryListener> listeners;
+    private final RetryBudget retryBudget;
+
+    @Value("${mail.retry.max-attempts:3}")
+    private int defaultMaxAttempts;
+
+    @Value("${mail.retry.initial-delay-ms:1000}")
+    private long initialDelayMillis;
+
+    @Value("${mail.retry.multiplier:2.0}")
+    private double multiplier;
+
+    @Value("${mail.retry.max-delay-ms:30000}")
+    private long maxDelayMillis;
+
+    // 0.5면 계산된 지연의 ±50% 범위에서 무작위로 흩어 재시도가 한꺼번에 몰리지 않게 함
+    @Value("${mail.retry.jitter:0.5}")
+    private double jitter;
+
+    @Value("${mail.retry.workers:4}")
+    private int workers;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    private final DelayQueue<ScheduledAttempt> delayQueue = new DelayQueue<>();
+    private ExecutorService workerPool;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    public RetryScheduler(List<RetryListener> listeners, RetryBudget retryBudget) {
+        this.listeners = listeners;
+        this.retryBudget = retryBudget;
+    }
+
+    @PostConstruct
+    void start() {
+        workerPool = virtualThreadsEnabled
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("mail-retry-", 0).daemon(true).factory());
+        running = true;
+        dispatcher = Thread.ofPlatform().name("mail-retry-dispatcher").daemon(true).start(this::dispatchLoop);
+        logger.info("RetryScheduler 시작: maxAttempts={}, initialDelay={}ms, multiplier={}, maxDelay={}ms, jitter={}",
+                defaultMaxAttempts, initialDelayMillis, multiplier, maxDelayMillis, jitter);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        workerPool.shutdown();
+        // DelayQueue.poll은 재시도 시각이 지난 작업만 꺼내므로 남은 작업을 하나씩 직접 제거
+        for (ScheduledAttempt pending : delayQueue) {
+            if (delayQueue.remove(pending)) {
+                pending.task.finish(new IllegalStateException("애플리케이션 종료로 재시도가 취소되었습니다: " + pending.task.name));
+            }
+        }
+    }
+
+    /**
+     * 기본 최대 시도 횟수(mail.retry.max-attempts)로 작업을 실행합니다.
+     */
+    public CompletableFuture<Void> submit(String name, Runnable action) {
+        return submit(name, action, defaultMaxAttempts);
+    }
+
+    /**
+     * 작업을 호출한 스레드에서 한 번 실행하고, RetryableException으로 실패하면 재시도를 예약합니다.
+     * RetryableException이 아닌 예외는 재시도하지 않습니다.
+     * @param name 로그와 RetryContext에 남길 작업 이름
+     * @param action 실행할 작업
+     * @param maxAttempts 최초 시도를 포함한 최대 시도 횟수
+     * @return 최종 성공 시 완료, 재시도 소진 또는 재시도 불가 예외 시 해당 예외로 완료되는 Future
+     */
+    public CompletableFuture<Void> submit(String name, Runnable action, int maxAttempts) {
+        RetryTask task = new RetryTask(name, action, maxAttempts);
+        task.open();
+        task.attempt();
+        return task.future;
+    }
+
+    /** 종료 중이 아닌지. 종료로 취소된 작업을 실패와 구분할 때 사용 */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** 재시도를 기다리고 있는 작업 수 */
+    public int pendingCount() {
+        return delayQueue.size();
+    }
+
+    long backoffMillis(int failedAttempts) {
+        double delay = initialDelayMillis * Math.pow(multiplier, failedAttempts - 1);
+        delay = Math.min(delay, maxDelayMillis);
+        double spread = 1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        return Math.max(0, (long) (delay * spread));
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                ScheduledAttempt due = delayQueue.take();
+                try {
+                    workerPool.execute(due.task::attempt);
+                } catch (RejectedExecutionException e) {
+                    // 종료 중 워커 풀이 먼저 닫힌 경우: Future를 완료하지 않으면 호출자가 끝없이 기다림
+                    due.task.finish(e);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // 디스패처는 계속 동작해야 함
+                logger.error("재시도 작업 실행 실패", e);
+            }
+        }
+    }
+
+    /**
+     * 하나의 작업에 대한 재시도 상태. spring-retry의 RetryContext를 만들어 리스너에 넘깁니다.
+     */
+    private final class RetryTask {
+
+        private final String name;
+        private final Runnable action;
+        private final int maxAttempts;
+        private final RetryContextSupport context = new RetryContextSupport(null);
+        private final RetryCallback<Void, RuntimeException> callback;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private RetryTask(String name, Runnable action, int maxAttempts) {
+            this.name = name;
+            this.action = action;
+            this.maxAttempts = maxAttempts;
+            this.callback = retryContext -> {
+                action.run();
+                return null;
+            };
+            context.setAttribute(RetryContext.NAME, name);
+        }
+
+        private void open() {
+            for (RetryListener listener : listeners) {
+                listener.open(context, callback);
+            }
+        }
+
+        private void attempt() {
+            try {
+                action.run();
+                for (RetryListener listener : listeners) {
+                    listener.onSuccess(context, callback, null);
+                }
+                if (context.getRetryCount() == 0) {
+                    retryBudget.recordFirstAttemptSuccess();
+                }
+                finish(null);
+            } catch (RetryableException e) {
+                context.registerThrowable(e);
+                int failedAttempts = context.getRetryCount();
+                Throwable finalError = null;
+                if (failedAttempts >= maxAttempts || !running) {
+                    finalError = e;
+                } else if (!(e instanceof CircuitOpenException) && !retryBudget.tryAcquire()) {
+                    // 서킷이 열려 실패한 시도는 릴레이에 닿지 않았으므로 예산을 쓰지 않음
+                    finalError = retryBudget.exhausted(e);
+                }
+                // 리스너가 다음 시도가 이어지는 실패인지 알 수 있도록 onError 전에 표시
+                if (finalError != null) {
+                    context.setExhaustedOnly();
+                }
+                for (RetryListener listener : listeners) {
+                    listener.onError(context, callback, e);
+                }
+                if (finalError != null) {
+                    finish(finalError);
+                    return;
+                }
+                long delay = backoffMillis(failedAttempts);
+                logger.debug("{} 재시도 예약: {}ms 후 ({}/{})", name, delay, failedAttempts + 1, maxAttempts);
+                delayQueue.put(new ScheduledAttempt(this, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay)));
+            } catch (RuntimeException e) {
+                // 재시도 대상이 아닌 예외는 바로 실패 처리
+                context.registerThrowable(e);
+                context.setExhaustedOnly();
+                for (RetryListener listener : listeners) {
+                    listener.onError(context, callback, e);
+                }
+                finish(e);
+            }
+        }
+
+        private void finish(Throwable error) {
+            for (RetryListener listener : listeners) {
+                listener.close(context, callback, error);
+            }
+            if (error == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
+    private record ScheduledAttempt(RetryTask task, long dueAtNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtNanos, ((ScheduledAttempt) other).dueAtNanos);
+        }
+    }
+}
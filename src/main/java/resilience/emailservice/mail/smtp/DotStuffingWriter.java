@@ -0,0 +1,69 @@
+package resilience.emailservice.mail.smtp;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * DATA 본문용 Writer. 줄바꿈을 CRLF로 맞추고, '.'으로 시작하는 줄은 '..'으로 바꿔 DATA 종료 표시와 구분합니다.
+ * 줄의 시작 여부를 상태로 들고 있어 본문이 여러 번의 write로 나뉘어 들어와도 같은 결과를 냅니다.
+ */
+class DotStuffingWriter extends Writer {
+
+    private final Writer out;
+    private boolean lineStart = true;
+
+    DotStuffingWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (c == '\r') {
+            return;
+        }
+        if (c == '\n') {
+            out.write("\r\n");
+            lineStart = true;
+            return;
+        }
+        if (lineStart && c == '.') {
+            out.write('.');
+        }
+        out.write(c);
+        lineStart = false;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            write(buffer[i]);
+        }
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            write(text.charAt(i));
+        }
+    }
+
+    /**
+     * 본문이 줄바꿈 없이 끝났으면 CRLF를 붙여 종료 표시(".")가 새 줄에서 시작하도록 합니다.
+     */
+    void finish() throws IOException {
+        if (!lineStart) {
+            out.write("\r\n");
+            lineStart = true;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    // 소켓 Writer는 SmtpConnection이 관리하므로 닫지 않음
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,21 @@
+package resilience.emailservice.mail.smtp;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * DATA 단계에서 메시지 본문을 쓰는 방법.
+ * 템플릿처럼 본문을 문자열로 만들지 않고 SMTP 스트림에 바로 쓸 수 있도록 문자열 대신 이 인터페이스를 받습니다.
+ * 전달받는 Writer가 줄바꿈(CRLF)과 '.' 이스케이프를 처리하므로 구현은 본문 텍스트만 쓰면 됩니다.
+ */
+@FunctionalInterface
+public interface MailBody {
+
+    MailBody EMPTY = out -> { };
+
+    void writeTo(Writer out) throws IOException;
+
+    static MailBody of(String text) {
+        return text == null || text.isEmpty() ? EMPTY : out -> out.write(text);
+    }
+}
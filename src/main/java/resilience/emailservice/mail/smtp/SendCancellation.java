@@ -0,0 +1,59 @@
+package resilience.emailservice.mail.smtp;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 풀에서 빌린 연결로 진행 중인 전송을 다른 스레드에서 끊기 위한 핸들. (헤징 전송에서 늦은 쪽을 취소할 때 사용)
+ * 연결을 붙이고 떼는 것과 취소가 같은 락으로 직렬화되므로, 이미 반납되어 다른 요청이 쓰고 있는 연결을 끊는 일은 없습니다.
+ */
+final class SendCancellation {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private SmtpConnection connection;
+    private boolean cancelled;
+
+    /** @return 이미 취소되었으면 false (전송을 시작하지 않아야 함) */
+    boolean attach(SmtpConnection connection) {
+        lock.lock();
+        try {
+            if (cancelled) {
+                return false;
+            }
+            this.connection = connection;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void detach() {
+        lock.lock();
+        try {
+            connection = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 전송 중이면 연결을 끊어 전송 스레드를 IOException으로 깨우고, 아직 시작 전이면 시작하지 못하게 합니다. */
+    void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+            if (connection != null) {
+                connection.abort();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isCancelled() {
+        lock.lock();
+        try {
+            return cancelled;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
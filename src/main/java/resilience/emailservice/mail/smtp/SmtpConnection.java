@@ -0,0 +1,301 @@
+package resilience.emailservice.mail.smtp;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SMTP 릴레이와 맺은 하나의 영속 세션.
+ * TCP 연결, (선택) STARTTLS, EHLO까지 끝난 상태로 생성되며,
+ * 이후 여러 메시지를 같은 세션으로 보낼 수 있습니다. (메시지 사이에는 RSET)
+ * 한 번에 한 스레드만 사용해야 하며, 동시성 제어는 SmtpConnectionPool이 담당합니다.
+ */
+public class SmtpConnection implements AutoCloseable {
+
+    private final String host;
+    private final int port;
+    private final long createdAtMillis;
+
+    private Socket socket;
+    private BufferedReader reader;
+    private Writer writer;
+
+    private volatile long lastUsedAtMillis;
+    private volatile boolean broken;
+
+    private SmtpConnection(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.createdAtMillis = System.currentTimeMillis();
+        this.lastUsedAtMillis = createdAtMillis;
+    }
+
+    /**
+     * 릴레이에 접속해 인사(220)를 받고 EHLO까지 마친 연결을 생성합니다.
+     */
+    public static SmtpConnection open(String host, int port, String heloName, boolean startTls,
+                                      int connectTimeoutMillis, int readTimeoutMillis) throws IOException {
+        SmtpConnection connection = new SmtpConnection(host, port);
+        try {
+            Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+            socket.setSoTimeout(readTimeoutMillis);
+            socket.setTcpNoDelay(true);
+            connection.bind(socket);
+
+            connection.expect(connection.readReply(), 220, "greeting");
+            connection.command("EHLO " + heloName, 250);
+
+            if (startTls) {
+                connection.command("STARTTLS", 220);
+                SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                        .createSocket(socket, host, port, true);
+                sslSocket.startHandshake();
+                connection.bind(sslSocket);
+                // TLS 협상 후에는 세션 상태가 초기화되므로 EHLO를 다시 보냄
+                connection.command("EHLO " + heloName, 250);
+            }
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            connection.closeQuietly();
+            throw e;
+        }
+    }
+
+    private void bind(Socket socket) throws IOException {
+        this.socket = socket;
+        this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 하나의 메시지를 전송합니다. (MAIL FROM → RCPT TO → DATA)
+     * 4xx/5xx 응답은 SmtpReplyException으로, 소켓 오류는 IOException으로 전달됩니다.
+     * IOException이 발생한 연결은 broken 상태가 되어 풀로 돌아가지 않습니다.
+     */
+    public void send(String from, List<String> recipients, String subject, String body) throws IOException {
+        send(from, recipients, subject, MailBody.of(body));
+    }
+
+    /**
+     * 본문을 문자열로 만들지 않고 DATA 스트림에 바로 씁니다.
+     * 본문 작성 중 예외가 나면 DATA가 끝나지 않은 상태이므로 연결은 broken 처리됩니다.
+     */
+    public void send(String from, List<String> recipients, String subject, MailBody body) throws IOException {
+        lastUsedAtMillis = System.currentTimeMillis();
+        try {
+            command("MAIL FROM:<" + from + ">", 250);
+            for (String recipient : recipients) {
+                command("RCPT TO:<" + recipient + ">", 250, 251);
+            }
+            command("DATA", 354);
+            writeMessage(from, recipients, subject, body);
+            expect(readReply(), 250, "end of data");
+        } catch (SmtpReplyException e) {
+            // 서버가 거절 응답을 준 경우 세션은 정상이므로 RSET 후 재사용 가능
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            broken = true;
+            throw e;
+        } finally {
+            lastUsedAtMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 같은 메시지를 여러 수신자에게 한 트랜잭션으로 보냅니다. (MAIL FROM → RCPT TO 여러 번 → DATA)
+     * send와 달리 RCPT TO 거절로 멈추지 않고, 거절된 수신자를 모아 돌려준 뒤 나머지 수신자에게 전송합니다.
+     * 모든 수신자가 거절되면 DATA를 보내지 않습니다.
+     * @return 거절된 수신자별 응답 (모두 수락되면 빈 맵)
+     * @throws SmtpReplyException MAIL FROM 또는 DATA 단계 거절 (수락된 수신자 모두에게 해당)
+     */
+    public Map<String, SmtpReplyException> sendEach(String from, List<String> recipients, String subject, MailBody body) throws IOException {
+        lastUsedAtMillis = System.currentTimeMillis();
+        try {
+            command("MAIL FROM:<" + from + ">", 250);
+            Map<String, SmtpReplyException> rejected = new LinkedHashMap<>();
+            for (String recipient : recipients) {
+                try {
+                    command("RCPT TO:<" + recipient + ">", 250, 251);
+                } catch (SmtpReplyException e) {
+                    rejected.put(recipient, e);
+                }
+            }
+            if (rejected.size() < recipients.size()) {
+                command("DATA", 354);
+                writeMessage(from, recipients, subject, body);
+                expect(readReply(), 250, "end of data");
+            }
+            return rejected;
+        } catch (SmtpReplyException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            broken = true;
+            throw e;
+        } finally {
+            lastUsedAtMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 진행 중이던 트랜잭션 상태를 초기화합니다. 메시지 사이마다 호출됩니다.
+     */
+    public void reset() throws IOException {
+        try {
+            command("RSET", 250);
+        } catch (SmtpReplyException e) {
+            // RSET조차 거절하는 세션은 상태를 신뢰할 수 없으므로 폐기
+            broken = true;
+            throw e;
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * NOOP으로 서버가 아직 응답하는지 확인합니다. (유휴 연결 재사용 전 검사용)
+     */
+    public boolean isAlive() {
+        if (broken || socket.isClosed()) {
+            return false;
+        }
+        try {
+            command("NOOP", 250);
+            return true;
+        } catch (IOException e) {
+            broken = true;
+            return false;
+        }
+    }
+
+    public boolean isBroken() {
+        return broken;
+    }
+
+    public boolean isExpired(long maxLifetimeMillis, long nowMillis) {
+        return nowMillis - createdAtMillis >= maxLifetimeMillis;
+    }
+
+    public long idleMillis(long nowMillis) {
+        return nowMillis - lastUsedAtMillis;
+    }
+
+    public String relay() {
+        return host + ":" + port;
+    }
+
+    private void writeMessage(String from, List<String> recipients, String subject, MailBody body) throws IOException {
+        writer.write("From: <" + from + ">\r\n");
+        // 여러 수신자에게 한 번에 보낼 때는 서로의 주소가 보이지 않도록 숨김
+        writer.write("To: " + (recipients.size() == 1 ? recipients.get(0) : "undisclosed-recipients:;") + "\r\n");
+        writer.write("Subject: " + (subject == null ? "" : subject) + "\r\n");
+        writer.write("Date: " + DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now()) + "\r\n");
+        writer.write("MIME-Version: 1.0\r\n");
+        writer.write("Content-Type: text/plain; charset=UTF-8\r\n");
+        writer.write("Content-Transfer-Encoding: 8bit\r\n");
+        writer.write("\r\n");
+        DotStuffingWriter data = new DotStuffingWriter(writer);
+        body.writeTo(data);
+        data.finish();
+        writer.write(".\r\n");
+        writer.flush();
+    }
+
+    private void command(String line, int... expectedCodes) throws IOException {
+        writer.write(line);
+        writer.write("\r\n");
+        writer.flush();
+        expect(readReply(), line, expectedCodes);
+    }
+
+    private void expect(SmtpReply reply, int expectedCode, String stage) throws SmtpReplyException {
+        expect(reply, stage, expectedCode);
+    }
+
+    private void expect(SmtpReply reply, String stage, int... expectedCodes) throws SmtpReplyException {
+        for (int expectedCode : expectedCodes) {
+            if (reply.code() == expectedCode) {
+                return;
+            }
+        }
+        throw new SmtpReplyException(stage, reply.code(), reply.text());
+    }
+
+    // 여러 줄 응답("250-...")은 마지막 줄("250 ...")까지 읽어 하나의 응답으로 합칩니다.
+    private SmtpReply readReply() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            String line = reader.readLine();
+            if (line == null) {
+                broken = true;
+                throw new IOException("SMTP 서버가 연결을 종료했습니다: " + relay());
+            }
+            if (line.length() < 3) {
+                broken = true;
+                throw new IOException("잘못된 SMTP 응답: " + line);
+            }
+            text.append(line.length() > 4 ? line.substring(4) : "");
+            if (line.length() == 3 || line.charAt(3) != '-') {
+                try {
+                    return new SmtpReply(Integer.parseInt(line.substring(0, 3)), text.toString());
+                } catch (NumberFormatException e) {
+                    broken = true;
+                    throw new IOException("잘못된 SMTP 응답 코드: " + line, e);
+                }
+            }
+            text.append('\n');
+        }
+    }
+
+    /**
+     * 다른 스레드에서 진행 중인 전송을 끊습니다. 읽기/쓰기 중이던 스레드는 IOException으로 깨어나고 연결은 폐기됩니다.
+     * (DATA 종료 후 응답을 기다리던 중이었다면 서버는 이미 메시지를 받았을 수 있음)
+     */
+    void abort() {
+        closeQuietly();
+    }
+
+    /**
+     * QUIT을 보내고 소켓을 닫습니다. 이미 끊긴 연결이면 조용히 닫기만 합니다.
+     */
+    @Override
+    public void close() {
+        if (!broken && socket != null && !socket.isClosed()) {
+            try {
+                writer.write("QUIT\r\n");
+                writer.flush();
+            } catch (IOException ignored) {
+                // 종료 중 오류는 무시
+            }
+        }
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        broken = true;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 종료 중 오류는 무시
+            }
+        }
+    }
+
+    private record SmtpReply(int code, String text) {
+    }
+}
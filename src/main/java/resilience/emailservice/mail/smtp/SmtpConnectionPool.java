@@ -0,0 +1,190 @@
+package resilience.emailservice.mail.smtp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 하나의 릴레이에 대한 영속 SMTP 연결 풀.
+ * - 동시에 열 수 있는 연결 수는 maxConnections로 제한됩니다. (Semaphore)
+ * - 유휴 시간이 validateAfterIdleMillis를 넘은 연결은 재사용 전에 NOOP으로 검사합니다.
+ * - 끊긴 연결과 maxLifetimeMillis를 넘긴 연결은 닫고 새 연결로 교체합니다.
+ * - 메시지를 보낸 연결은 RSET으로 세션 상태를 초기화한 뒤 풀로 돌려놓습니다.
+ * 가상 스레드에서 호출되어도 캐리어 스레드를 고정(pinning)하지 않도록 synchronized를 쓰지 않습니다.
+ */
+public class SmtpConnectionPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpConnectionPool.class);
+
+    private final SmtpRelay relay;
+    private final SmtpPoolSettings settings;
+
+    private final Semaphore permits;
+    // 가장 최근에 반납된 연결부터 재사용(LIFO)해 오래 쉰 연결은 자연스럽게 만료되도록 함
+    private final ConcurrentLinkedDeque<SmtpConnection> idle = new ConcurrentLinkedDeque<>();
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private volatile boolean closed;
+
+    public SmtpConnectionPool(SmtpRelay relay, SmtpPoolSettings settings) {
+        this.relay = relay;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxConnections());
+    }
+
+    /**
+     * 연결을 하나 빌려 메시지를 보내고 반납합니다.
+     * @throws IOException 연결 획득/전송 실패 (SmtpReplyException 포함)
+     */
+    public void send(String from, List<String> recipients, String subject, String body) throws IOException {
+        send(from, recipients, subject, MailBody.of(body));
+    }
+
+    /**
+     * 본문을 DATA 스트림에 바로 쓰는 전송. (템플릿 렌더링용)
+     * @throws IOException 연결 획득/전송 실패 (SmtpReplyException 포함)
+     */
+    public void send(String from, List<String> recipients, String subject, MailBody body) throws IOException {
+        SmtpConnection connection = borrow();
+        try {
+            connection.send(from, recipients, subject, body);
+        } finally {
+            release(connection);
+        }
+    }
+
+    /**
+     * 다른 스레드에서 취소할 수 있는 전송. 취소되면 연결을 끊고 IOException으로 실패합니다.
+     * @throws IOException 연결 획득/전송 실패 또는 취소
+     */
+    void send(String from, List<String> recipients, String subject, MailBody body, SendCancellation cancellation) throws IOException {
+        SmtpConnection connection = borrow();
+        try {
+            if (!cancellation.attach(connection)) {
+                throw new IOException("SMTP 전송이 취소되었습니다: " + relay);
+            }
+            try {
+                connection.send(from, recipients, subject, body);
+            } finally {
+                cancellation.detach();
+            }
+        } finally {
+            release(connection);
+        }
+    }
+
+    /**
+     * 연결을 하나 빌려 같은 메시지를 여러 수신자에게 한 트랜잭션으로 보냅니다. (SmtpConnection.sendEach)
+     * @return 거절된 수신자별 응답
+     * @throws IOException 연결 획득/전송 실패 (MAIL FROM, DATA 단계의 SmtpReplyException 포함)
+     */
+    public Map<String, SmtpReplyException> sendEach(String from, List<String> recipients, String subject, MailBody body) throws IOException {
+        SmtpConnection connection = borrow();
+        try {
+            return connection.sendEach(from, recipients, subject, body);
+        } finally {
+            release(connection);
+        }
+    }
+
+    SmtpConnection borrow() throws IOException {
+        if (closed) {
+            throw new IOException("SMTP 연결 풀이 종료되었습니다: " + relay);
+        }
+        try {
+            if (!permits.tryAcquire(settings.borrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("SMTP 연결 풀 대기 시간 초과 (" + settings.borrowTimeoutMillis() + "ms): " + relay);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("SMTP 연결 대기 중 인터럽트됨: " + relay, e);
+        }
+
+        try {
+            SmtpConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isReusable(connection)) {
+                    return connection;
+                }
+                discard(connection);
+            }
+            connection = SmtpConnection.open(relay.host(), relay.port(), settings.heloName(), settings.startTls(),
+                    settings.connectTimeoutMillis(), settings.readTimeoutMillis());
+            opened.incrementAndGet();
+            logger.debug("새 SMTP 연결 생성: {} (누적 {}개)", relay, opened.get());
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(SmtpConnection connection) {
+        try {
+            if (closed || connection.isBroken() || connection.isExpired(settings.maxLifetimeMillis(), System.currentTimeMillis())) {
+                discard(connection);
+                return;
+            }
+            try {
+                connection.reset();
+            } catch (IOException e) {
+                discard(connection);
+                return;
+            }
+            idle.offerFirst(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isReusable(SmtpConnection connection) {
+        long now = System.currentTimeMillis();
+        if (connection.isBroken() || connection.isExpired(settings.maxLifetimeMillis(), now)) {
+            return false;
+        }
+        if (connection.idleMillis(now) >= settings.validateAfterIdleMillis()) {
+            return connection.isAlive();
+        }
+        return true;
+    }
+
+    private void discard(SmtpConnection connection) {
+        discarded.incrementAndGet();
+        connection.close();
+    }
+
+    public SmtpRelay relay() {
+        return relay;
+    }
+
+    /** 지금까지 새로 연 연결 수 (재사용 효과 확인용) */
+    public long openedConnections() {
+        return opened.get();
+    }
+
+    /** 끊김/만료로 폐기한 연결 수 */
+    public long discardedConnections() {
+        return discarded.get();
+    }
+
+    public int idleConnections() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        SmtpConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package resilience.emailservice.mail.smtp;
+
+/**
+ * SMTP 연결 풀 설정값.
+ * @param maxConnections 릴레이당 최대 연결 수
+ * @param maxLifetimeMillis 연결 최대 수명 (초과 시 반납할 때 닫음)
+ * @param validateAfterIdleMillis 이 시간 이상 쉬었던 연결은 재사용 전에 NOOP으로 검사
+ * @param borrowTimeoutMillis 모든 연결이 사용 중일 때 기다릴 최대 시간
+ */
+public record SmtpPoolSettings(
+        String heloName,
+        boolean startTls,
+        int maxConnections,
+        long maxLifetimeMillis,
+        long validateAfterIdleMillis,
+        long borrowTimeoutMillis,
+        int connectTimeoutMillis,
+        int readTimeoutMillis) {
+}
@@ -0,0 +1,24 @@
+package resilience.emailservice.mail.smtp;
+
+/**
+ * SMTP 릴레이 주소.
+ */
+public record SmtpRelay(String host, int port) {
+
+    /**
+     * "host:port" 형식의 문자열을 파싱합니다. 포트가 없으면 25번을 사용합니다.
+     */
+    public static SmtpRelay parse(String value) {
+        String trimmed = value.trim();
+        int colon = trimmed.lastIndexOf(':');
+        if (colon < 0) {
+            return new SmtpRelay(trimmed, 25);
+        }
+        return new SmtpRelay(trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1)));
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,211 @@
+package resilience.emailservice.mail.smtp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 라우터가 보는 릴레이 하나의 상태: 연결 풀, 지연/오류율 EWMA, 처리 중인 전송 수, 제외(ejection) 상태.
+ *
+ * 지연은 peak EWMA로 추적합니다. 새 표본이 평균보다 크면 바로 그 값으로 올리고, 작으면 ewmaAlpha만큼만 내려
+ * 갑자기 느려진 릴레이를 빠르게 피하고 회복은 천천히 믿습니다. 비용을 계산할 때는 마지막 표본 이후 지난 시간만큼
+ * 지연을 decayMillis 시간 상수로 줄여, 한 번 느려서 선택받지 못하게 된 릴레이도 얼마 뒤 다시 시도되게 합니다.
+ * 연속 실패가 ejectAfterFailures에 이르면 제외 시간 동안 선택되지 않으며, 시간이 지나면 오류율을 초기화하고 다시 투입합니다.
+ * 다시 투입된 직후(관찰 기간)에는 한 번만 실패해도 두 배의 시간 동안 다시 제외되고,
+ * ejectAfterFailures번 연속 성공하면 관찰 기간이 끝나 제외 시간도 처음 값으로 돌아갑니다.
+ */
+public final class SmtpRelayNode {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpRelayNode.class);
+
+    // 제외 시간을 두 배씩 늘리는 최대 횟수 (2^6배)
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    private final SmtpConnectionPool pool;
+    private final SmtpRoutingSettings settings;
+    private final double decayNanos;
+
+    // double 값을 비트로 담아 CAS로 갱신
+    private final AtomicLong latencyNanos = new AtomicLong(Double.doubleToLongBits(0));
+    private final AtomicLong errorRate = new AtomicLong(Double.doubleToLongBits(0));
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong ejections = new AtomicLong();
+    private volatile long lastSampleNanos = System.nanoTime();
+
+    // 아래 필드는 lock으로 보호 (ejected, ejectedUntilNanos는 선택 경로에서 락 없이 읽음)
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean ejected;
+    private volatile long ejectedUntilNanos;
+    private int consecutiveFailures;
+    private int ejectionStreak;
+    private boolean probation;
+    private int probationSuccesses;
+
+    SmtpRelayNode(SmtpConnectionPool pool, SmtpRoutingSettings settings) {
+        this.pool = pool;
+        this.settings = settings;
+        this.decayNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(settings.decayMillis()));
+    }
+
+    SmtpConnectionPool pool() {
+        return pool;
+    }
+
+    /**
+     * 선택 비용: 지연 EWMA × (처리 중 + 1)을 오류율만큼 키운 값. 작을수록 먼저 선택됩니다.
+     * 아직 측정값이 없는 릴레이는 지연이 0이라 처리 중인 전송 수만으로 비교됩니다.
+     */
+    double cost(long nowNanos) {
+        double error = Math.min(errorRate(), 0.99);
+        double decayed = latency() * Math.exp(-(nowNanos - lastSampleNanos) / decayNanos);
+        return (decayed + 1) * (inFlight.get() + 1) / (1 - error);
+    }
+
+    /** 제외 중이 아니면 true. 제외 시간이 지났으면 여기서 다시 투입합니다. */
+    boolean isAvailable(long nowNanos) {
+        if (!ejected) {
+            return true;
+        }
+        if (nowNanos - ejectedUntilNanos < 0) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (ejected && nowNanos - ejectedUntilNanos >= 0) {
+                ejected = false;
+                probation = true;
+                probationSuccesses = 0;
+                consecutiveFailures = 0;
+                // 제외 전에 쌓인 오류율 때문에 다시 선택되지 못하는 일이 없도록 초기화
+                errorRate.set(Double.doubleToLongBits(0));
+                logger.info("SMTP 릴레이 {} 다시 투입 (관찰 기간 시작)", pool.relay());
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long begin() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    void onSuccess(long startNanos) {
+        inFlight.decrementAndGet();
+        recordLatency(System.nanoTime() - startNanos);
+        recordError(0);
+        lock.lock();
+        try {
+            consecutiveFailures = 0;
+            if (probation && ++probationSuccesses >= settings.ejectAfterFailures()) {
+                probation = false;
+                ejectionStreak = 0;
+                logger.info("SMTP 릴레이 {} 관찰 기간 종료", pool.relay());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 릴레이 장애로 볼 실패를 기록합니다.
+     * @return 제외 대상이 되었으면 true (실제 제외 여부는 다른 릴레이 상태를 보고 라우터가 결정)
+     */
+    boolean onFailure(long startNanos) {
+        inFlight.decrementAndGet();
+        recordLatency(System.nanoTime() - startNanos);
+        recordError(1);
+        lock.lock();
+        try {
+            consecutiveFailures++;
+            return !ejected && (probation || consecutiveFailures >= settings.ejectAfterFailures());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 헤징에서 져서 취소된 전송. 걸린 시간만큼 느렸다는 것만 반영하고 성공/실패로 세지 않음 */
+    void onCancelled(long startNanos) {
+        inFlight.decrementAndGet();
+        recordLatency(System.nanoTime() - startNanos);
+    }
+
+    void eject(long nowNanos) {
+        lock.lock();
+        try {
+            if (ejected) {
+                return;
+            }
+            int shift = Math.min(ejectionStreak, MAX_BACKOFF_SHIFT);
+            long millis = Math.min(settings.ejectionMillis() << shift, settings.maxEjectionMillis());
+            ejectionStreak++;
+            ejectedUntilNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(millis);
+            ejected = true;
+            probation = false;
+            ejections.incrementAndGet();
+            logger.warn("SMTP 릴레이 {} 제외: 연속 실패 {}회, {}ms 후 다시 투입", pool.relay(), consecutiveFailures, millis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordLatency(long sampleNanos) {
+        double alpha = settings.ewmaAlpha();
+        while (true) {
+            long bits = latencyNanos.get();
+            double current = Double.longBitsToDouble(bits);
+            double next = sampleNanos > current ? sampleNanos : current + alpha * (sampleNanos - current);
+            if (latencyNanos.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                lastSampleNanos = System.nanoTime();
+                return;
+            }
+        }
+    }
+
+    private void recordError(int sample) {
+        double alpha = settings.ewmaAlpha();
+        while (true) {
+            long bits = errorRate.get();
+            double current = Double.longBitsToDouble(bits);
+            if (errorRate.compareAndSet(bits, Double.doubleToLongBits(current + alpha * (sample - current)))) {
+                return;
+            }
+        }
+    }
+
+    private double latency() {
+        return Double.longBitsToDouble(latencyNanos.get());
+    }
+
+    public SmtpRelay relay() {
+        return pool.relay();
+    }
+
+    /** 지연 EWMA (ms) */
+    public double latencyMillis() {
+        return latency() / 1_000_000.0;
+    }
+
+    /** 오류율 EWMA (0~1) */
+    public double errorRate() {
+        return Double.longBitsToDouble(errorRate.get());
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    /** 지금까지 제외된 횟수 */
+    public long ejectionCount() {
+        return ejections.get();
+    }
+}
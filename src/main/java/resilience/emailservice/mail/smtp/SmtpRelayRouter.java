@@ -0,0 +1,327 @@
+package resilience.emailservice.mail.smtp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 여러 SMTP 릴레이에 메시지를 나눠 보내는 라우터. 릴레이마다 연결 풀을 하나씩 둡니다.
+ *
+ * 메시지마다 제외되지 않은 릴레이 두 개를 무작위로 골라 비용(지연 EWMA × 처리 중 전송 수, 오류율 가중)이 낮은 쪽으로 보냅니다.
+ * (power of two choices) 모든 릴레이를 비교하지 않아도 느린 릴레이를 피하면서, 가장 빠른 릴레이 하나로 몰리지 않습니다.
+ * 연결 실패와 4xx 응답은 릴레이 장애로, 수신자 거절 같은 5xx 응답은 릴레이가 정상 응답한 것으로 봅니다.
+ * 릴레이를 제외(SmtpRelayNode)하더라도 동시에 maxEjectionPercent를 넘게 제외하지는 않습니다.
+ *
+ * 헤징 전송은 첫 릴레이가 최근 전송 지연의 p95 안에 응답하지 않으면 다른 릴레이로 한 번 더 보내고,
+ * 먼저 성공한 쪽을 채택한 뒤 다른 쪽 연결은 끊습니다. 늦은 쪽이 이미 DATA를 끝냈다면 메시지가 두 번 전달될 수 있으므로
+ * 중복보다 지연이 더 문제인 메일에만 사용합니다. (p95 기준이므로 헤징되는 전송은 대략 5%)
+ */
+public class SmtpRelayRouter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpRelayRouter.class);
+
+    private final List<SmtpRelayNode> nodes;
+    private final int maxEjected;
+    private final long hedgeMinDelayNanos;
+    private final LatencyWindow latencies = new LatencyWindow(512, 64);
+    private final ExecutorService hedgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    public SmtpRelayRouter(List<SmtpRelay> relays, SmtpPoolSettings poolSettings, SmtpRoutingSettings routingSettings) {
+        if (relays.isEmpty()) {
+            throw new IllegalArgumentException("SMTP 릴레이가 하나 이상 있어야 합니다");
+        }
+        List<SmtpRelayNode> created = new ArrayList<>(relays.size());
+        for (SmtpRelay relay : relays) {
+            created.add(new SmtpRelayNode(new SmtpConnectionPool(relay, poolSettings), routingSettings));
+        }
+        this.nodes = List.copyOf(created);
+        this.maxEjected = relays.size() * routingSettings.maxEjectionPercent() / 100;
+        this.hedgeMinDelayNanos = TimeUnit.MILLISECONDS.toNanos(routingSettings.hedgeMinDelayMillis());
+    }
+
+    /**
+     * 비용이 낮은 릴레이로 메시지를 보냅니다.
+     * @throws IOException 연결 획득/전송 실패 (SmtpReplyException 포함)
+     */
+    public void send(String from, List<String> recipients, String subject, MailBody body) throws IOException {
+        send(from, recipients, subject, body, false);
+    }
+
+    /**
+     * @param hedge true면 첫 릴레이가 p95 안에 응답하지 않을 때 다른 릴레이로도 보냄 (릴레이가 하나거나 표본이 모이기 전에는 헤징하지 않음)
+     * @throws IOException 모든 시도가 실패 (헤징했다면 먼저 실패한 쪽의 예외)
+     */
+    public void send(String from, List<String> recipients, String subject, MailBody body, boolean hedge) throws IOException {
+        SmtpRelayNode primary = choose(null);
+        long p95 = latencies.p95Nanos();
+        if (!hedge || nodes.size() < 2 || p95 < 0) {
+            attempt(primary, null, (pool, cancellation) -> pool.send(from, recipients, subject, body));
+            return;
+        }
+        sendHedged(primary, Math.max(p95, hedgeMinDelayNanos), from, recipients, subject, body);
+    }
+
+    /**
+     * 비용이 낮은 릴레이로 같은 메시지를 여러 수신자에게 한 트랜잭션으로 보냅니다. (SmtpConnectionPool.sendEach)
+     * @return 거절된 수신자별 응답
+     */
+    public Map<String, SmtpReplyException> sendEach(String from, List<String> recipients, String subject, MailBody body) throws IOException {
+        AtomicReference<Map<String, SmtpReplyException>> rejected = new AtomicReference<>();
+        attempt(choose(null), null, (pool, cancellation) -> rejected.set(pool.sendEach(from, recipients, subject, body)));
+        return rejected.get();
+    }
+
+    private void sendHedged(SmtpRelayNode primary, long delayNanos,
+                            String from, List<String> recipients, String subject, MailBody body) throws IOException {
+        PoolSend send = (pool, cancellation) -> pool.send(from, recipients, subject, body, cancellation);
+        SendCancellation primaryCancellation = new SendCancellation();
+        CompletableFuture<SmtpRelayNode> primaryResult = submit(primary, primaryCancellation, send);
+        try {
+            primaryResult.get(delayNanos, TimeUnit.NANOSECONDS);
+            return;
+        } catch (TimeoutException e) {
+            // p95 안에 응답이 없으면 다른 릴레이로도 보냄
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primaryCancellation.cancel();
+            throw new IOException("SMTP 전송 대기 중 인터럽트됨", e);
+        }
+
+        SmtpRelayNode backup = choose(primary);
+        if (backup == null) {
+            await(primaryResult, primaryCancellation, null);
+            return;
+        }
+        hedges.incrementAndGet();
+        SendCancellation backupCancellation = new SendCancellation();
+        CompletableFuture<SmtpRelayNode> backupResult = submit(backup, backupCancellation, send);
+
+        // 먼저 성공한 쪽을 채택하고, 한쪽이 실패하면 다른 쪽 결과를 기다림. 둘 다 실패하면 먼저 실패한 쪽의 예외
+        CompletableFuture<SmtpRelayNode> winner = new CompletableFuture<>();
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        for (CompletableFuture<SmtpRelayNode> result : List.of(primaryResult, backupResult)) {
+            result.whenComplete((node, error) -> {
+                if (error == null) {
+                    winner.complete(node);
+                } else if (!firstError.compareAndSet(null, error)) {
+                    winner.completeExceptionally(firstError.get());
+                }
+            });
+        }
+        SmtpRelayNode won = await(winner, primaryCancellation, backupCancellation);
+        if (won == backup) {
+            hedgeWins.incrementAndGet();
+            primaryCancellation.cancel();
+        } else {
+            backupCancellation.cancel();
+        }
+    }
+
+    private CompletableFuture<SmtpRelayNode> submit(SmtpRelayNode node, SendCancellation cancellation, PoolSend send) {
+        CompletableFuture<SmtpRelayNode> result = new CompletableFuture<>();
+        hedgeExecutor.execute(() -> {
+            try {
+                attempt(node, cancellation, send);
+                result.complete(node);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private static SmtpRelayNode await(CompletableFuture<SmtpRelayNode> result,
+                                       SendCancellation cancellation, SendCancellation other) throws IOException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancellation.cancel();
+            if (other != null) {
+                other.cancel();
+            }
+            throw new IOException("SMTP 전송 대기 중 인터럽트됨", e);
+        }
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IOException(cause);
+    }
+
+    // 릴레이 하나에 보내고 결과를 그 릴레이의 상태에 반영
+    private void attempt(SmtpRelayNode node, SendCancellation cancellation, PoolSend send) throws IOException {
+        long start = node.begin();
+        try {
+            send.send(node.pool(), cancellation);
+        } catch (SmtpReplyException e) {
+            if (e.isPermanent()) {
+                // 5xx는 릴레이가 정상적으로 판단한 결과 (수신자 없음 등)
+                node.onSuccess(start);
+            } else {
+                failed(node, start);
+            }
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            if (cancellation != null && cancellation.isCancelled()) {
+                node.onCancelled(start);
+            } else {
+                failed(node, start);
+            }
+            throw e;
+        }
+        latencies.record(System.nanoTime() - start);
+        node.onSuccess(start);
+    }
+
+    private void failed(SmtpRelayNode node, long start) {
+        if (node.onFailure(start) && ejectedCount() < maxEjected) {
+            node.eject(System.nanoTime());
+        }
+    }
+
+    /**
+     * 제외되지 않은 릴레이 중 두 개를 무작위로 골라 비용이 낮은 쪽을 돌려줍니다.
+     * @param exclude 고르지 않을 릴레이 (헤징의 첫 릴레이). null이면 모든 릴레이가 제외된 경우 제외를 무시하고 고름
+     * @return exclude 말고 고를 릴레이가 없으면 null
+     */
+    SmtpRelayNode choose(SmtpRelayNode exclude) {
+        if (nodes.size() == 1) {
+            return exclude == null ? nodes.get(0) : null;
+        }
+        long now = System.nanoTime();
+        List<SmtpRelayNode> candidates = new ArrayList<>(nodes.size());
+        for (SmtpRelayNode node : nodes) {
+            if (node != exclude && node.isAvailable(now)) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty() && exclude == null) {
+            candidates.addAll(nodes);
+        }
+        if (candidates.size() <= 1) {
+            return candidates.isEmpty() ? null : candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        SmtpRelayNode a = candidates.get(first);
+        SmtpRelayNode b = candidates.get(second);
+        return a.cost(now) <= b.cost(now) ? a : b;
+    }
+
+    private int ejectedCount() {
+        int ejected = 0;
+        for (SmtpRelayNode node : nodes) {
+            if (node.isEjected()) {
+                ejected++;
+            }
+        }
+        return ejected;
+    }
+
+    public List<SmtpRelayNode> nodes() {
+        return nodes;
+    }
+
+    /** 헤징으로 두 번째 릴레이에 보낸 횟수 */
+    public long hedgedSends() {
+        return hedges.get();
+    }
+
+    /** 헤징에서 두 번째 릴레이가 먼저 성공한 횟수 */
+    public long hedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /** 헤징 대기 시간 기준으로 쓰는 최근 전송 지연 p95 (ms, 표본이 모이기 전이면 -1) */
+    public double latencyP95Millis() {
+        long p95 = latencies.p95Nanos();
+        return p95 < 0 ? -1 : p95 / 1_000_000.0;
+    }
+
+    @Override
+    public void close() {
+        hedgeExecutor.shutdownNow();
+        for (SmtpRelayNode node : nodes) {
+            node.pool().close();
+        }
+        logger.debug("SMTP 릴레이 라우터 종료: {}개 릴레이", nodes.size());
+    }
+
+    @FunctionalInterface
+    private interface PoolSend {
+        void send(SmtpConnectionPool pool, SendCancellation cancellation) throws IOException;
+    }
+
+    /**
+     * 최근 전송 지연 표본. 기록은 락 없이 고정 크기 배열을 덮어쓰고, p95는 refreshEvery개마다 기록한 스레드가 한 번 다시 계산합니다.
+     */
+    private static final class LatencyWindow {
+
+        private final AtomicLongArray samples;
+        private final int refreshEvery;
+        private final AtomicLong count = new AtomicLong();
+        private volatile long p95Nanos = -1;
+
+        private LatencyWindow(int size, int refreshEvery) {
+            this.samples = new AtomicLongArray(size);
+            this.refreshEvery = refreshEvery;
+        }
+
+        private void record(long nanos) {
+            long n = count.getAndIncrement();
+            samples.set((int) (n % samples.length()), nanos);
+            if ((n + 1) % refreshEvery == 0) {
+                refresh((int) Math.min(n + 1, samples.length()));
+            }
+        }
+
+        private void refresh(int size) {
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            p95Nanos = sorted[Math.min(size - 1, (int) Math.ceil(size * 0.95) - 1)];
+        }
+
+        private long p95Nanos() {
+            return p95Nanos;
+        }
+    }
+}
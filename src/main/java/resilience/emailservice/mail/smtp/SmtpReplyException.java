@@ -0,0 +1,34 @@
+package resilience.emailservice.mail.smtp;
+
+import java.io.IOException;
+
+/**
+ * SMTP 서버가 기대하지 않은 응답 코드(4xx/5xx 등)를 돌려줬을 때 발생합니다.
+ * 연결 자체는 살아 있으므로 RSET 후 재사용할 수 있습니다.
+ */
+public class SmtpReplyException extends IOException {
+
+    private final String stage;
+    private final int code;
+
+    public SmtpReplyException(String stage, int code, String text) {
+        super("SMTP 응답 오류 [" + stage + "] " + code + " " + text);
+        this.stage = stage;
+        this.code = code;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * 5xx 응답은 같은 요청을 다시 보내도 실패하는 영구 오류입니다.
+     */
+    public boolean isPermanent() {
+        return code >= 500;
+    }
+}
@@ -0,0 +1,21 @@
+package resilience.emailservice.mail.smtp;
+
+/**
+ * 여러 릴레이로 나눠 보낼 때의 라우팅 설정값.
+ * @param ewmaAlpha 릴레이별 지연/오류율 EWMA에 새 표본을 반영하는 비율
+ * @param decayMillis 표본이 없는 동안 지연 EWMA가 줄어드는 시간 상수 (선택받지 못한 릴레이도 다시 시도되도록)
+ * @param ejectAfterFailures 연속으로 이만큼 실패한 릴레이는 한동안 라우팅에서 제외
+ * @param ejectionMillis 처음 제외할 때의 제외 시간 (다시 제외될 때마다 두 배씩 늘어남)
+ * @param maxEjectionMillis 제외 시간 상한
+ * @param maxEjectionPercent 동시에 제외할 수 있는 릴레이 비율 (나머지 릴레이가 전체 트래픽을 받게 되므로 너무 크게 잡지 않음)
+ * @param hedgeMinDelayMillis 헤징 전송의 대기 시간 하한 (최근 p95가 이보다 짧아도 이만큼은 첫 릴레이를 기다림)
+ */
+public record SmtpRoutingSettings(
+        double ewmaAlpha,
+        long decayMillis,
+        int ejectAfterFailures,
+        long ejectionMillis,
+        long maxEjectionMillis,
+        int maxEjectionPercent,
+        long hedgeMinDelayMillis) {
+}
@@ -0,0 +1,113 @@
+package resilience.emailservice.mail.template;
+
+import resilience.emailservice.exception.InvalidTemplateException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 한 번 컴파일해 두고 여러 메시지에 재사용하는 본문 템플릿.
+ * 원문의 {{name}} 자리표시자를 기준으로 고정 문자열 조각과 변수 이름을 번갈아 담은 배열로 나눠 두므로,
+ * 렌더링은 조각과 변숫값을 Writer에 차례로 쓰기만 하고 중간 문자열을 만들지 않습니다.
+ * 불변 객체이므로 여러 스레드가 공유해도 됩니다.
+ */
+public final class MailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String id;
+    private final long version;
+    // literals.length == names.length + 1: literals[0] names[0] literals[1] ... names[n-1] literals[n]
+    private final String[] literals;
+    private final String[] names;
+    private final Set<String> variables;
+
+    private MailTemplate(String id, long version, String[] literals, String[] names) {
+        this.id = id;
+        this.version = version;
+        this.literals = literals;
+        this.names = names;
+        this.variables = Collections.unmodifiableSet(new LinkedHashSet<>(List.of(names)));
+    }
+
+    /**
+     * 원문을 고정 조각과 변수 자리로 나눕니다.
+     * 변수 이름 앞뒤 공백은 무시하며, 닫히지 않은 {{ 나 빈 이름은 InvalidTemplateException입니다.
+     * @param version 원본의 버전 (캐시가 원본 변경을 감지하는 데 사용)
+     */
+    public static MailTemplate compile(String id, long version, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new InvalidTemplateException("템플릿 문법 오류: 닫히지 않은 '{{' (템플릿: " + id + ", 위치: " + open + ")");
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            if (name.isEmpty()) {
+                throw new InvalidTemplateException("템플릿 문법 오류: 변수 이름이 비어 있음 (템플릿: " + id + ", 위치: " + open + ")");
+            }
+            literals.add(source.substring(position, open));
+            names.add(name);
+            position = close + CLOSE.length();
+        }
+        return new MailTemplate(id, version, literals.toArray(String[]::new), names.toArray(String[]::new));
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /** 템플릿이 사용하는 변수 이름 목록 */
+    public Set<String> variables() {
+        return variables;
+    }
+
+    /**
+     * 렌더링 전에 빠진 변수가 없는지 확인합니다.
+     * 렌더링은 SMTP DATA 도중에 일어나므로, 그 전에 실패시켜야 연결을 버리지 않습니다.
+     * @throws InvalidTemplateException 값이 없는 변수가 있음
+     */
+    public void checkVariables(Map<String, String> values) {
+        List<String> missing = null;
+        for (String name : variables) {
+            if (values == null || values.get(name) == null) {
+                if (missing == null) {
+                    missing = new ArrayList<>();
+                }
+                missing.add(name);
+            }
+        }
+        if (missing != null) {
+            throw new InvalidTemplateException("템플릿 변수가 없습니다: " + missing + " (템플릿: " + id + ")");
+        }
+    }
+
+    /**
+     * 변숫값을 채워 out에 바로 씁니다. checkVariables를 통과한 값이어야 합니다.
+     */
+    public void render(Writer out, Map<String, String> values) throws IOException {
+        for (int i = 0; i < names.length; i++) {
+            out.write(literals[i]);
+            out.write(values.get(names[i]));
+        }
+        out.write(literals[names.length]);
+    }
+}
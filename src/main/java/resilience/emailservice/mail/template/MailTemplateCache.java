@@ -0,0 +1,163 @@
+package resilience.emailservice.mail.template;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import resilience.emailservice.exception.InvalidTemplateException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 템플릿 ID로 컴파일된 MailTemplate을 찾아 주는 캐시.
+ * 원문은 mail.template.location 아래의 {id}.txt이며, 처음 요청될 때 한 번 컴파일해 최대 max-templates개까지 보관합니다.
+ * 가득 차면 가장 오래 사용하지 않은 템플릿부터 버립니다. (LRU)
+ * 보관 중인 템플릿은 check-interval-ms마다 원본의 수정 시각(버전)을 확인해, 바뀌었으면 다시 컴파일합니다.
+ */
+@Component
+public class MailTemplateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailTemplateCache.class);
+
+    private static final String SUFFIX = ".txt";
+
+    private final ResourceLoader resourceLoader;
+    private final String location;
+    private final long checkIntervalMillis;
+
+    // 접근 순서(LRU)로 정렬된 맵. 조회도 순서를 바꾸므로 항상 lock 안에서 다룸
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> templates;
+
+    public MailTemplateCache(ResourceLoader resourceLoader,
+                             @Value("${mail.template.location:classpath:/mail-templates/}") String location,
+                             @Value("${mail.template.max-templates:256}") int maxTemplates,
+                             @Value("${mail.template.check-interval-ms:10000}") long checkIntervalMillis) {
+        this.resourceLoader = resourceLoader;
+        this.location = location.endsWith("/") ? location : location + "/";
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxTemplates;
+            }
+        };
+    }
+
+    /**
+     * 컴파일된 템플릿을 반환합니다. 처음 요청되었거나 원본이 바뀌었으면 읽어서 컴파일합니다.
+     * @throws InvalidTemplateException 잘못된 ID, 원본 없음, 문법 오류
+     */
+    public MailTemplate get(String templateId) {
+        if (!isValidId(templateId)) {
+            throw new InvalidTemplateException("유효하지 않은 템플릿 ID입니다: " + templateId);
+        }
+        long now = System.currentTimeMillis();
+        Entry cached = lookup(templateId);
+        if (cached != null && now - cached.checkedAtMillis < checkIntervalMillis) {
+            return cached.template;
+        }
+
+        // 원본 읽기와 컴파일은 lock 밖에서 수행 (같은 ID를 동시에 컴파일해도 결과가 같으므로 나중 것이 덮어씀)
+        Resource resource = resourceLoader.getResource(location + templateId + SUFFIX);
+        if (!resource.exists()) {
+            remove(templateId);
+            throw new InvalidTemplateException("템플릿을 찾을 수 없습니다: " + templateId);
+        }
+        long version = versionOf(resource);
+        if (cached != null && cached.template.version() == version) {
+            cached.checkedAtMillis = now;
+            return cached.template;
+        }
+
+        MailTemplate template = MailTemplate.compile(templateId, version, read(resource, templateId));
+        store(templateId, new Entry(template, now));
+        logger.info("메일 템플릿 컴파일: {}, 버전: {}, 변수: {}", templateId, version, template.variables());
+        return template;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return templates.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry lookup(String templateId) {
+        lock.lock();
+        try {
+            return templates.get(templateId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void store(String templateId, Entry entry) {
+        lock.lock();
+        try {
+            templates.put(templateId, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(String templateId) {
+        lock.lock();
+        try {
+            templates.remove(templateId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ID가 경로로 쓰이므로 상위 디렉터리 접근 등을 막기 위해 영문/숫자/-/_만 허용
+    private static boolean isValidId(String templateId) {
+        if (templateId == null || templateId.isEmpty() || templateId.length() > 128) {
+            return false;
+        }
+        for (int i = 0; i < templateId.length(); i++) {
+            char c = templateId.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long versionOf(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            // 수정 시각을 알 수 없는 원본은 버전 0으로 취급 (처음 한 번만 컴파일)
+            return 0L;
+        }
+    }
+
+    private static String read(Resource resource, String templateId) {
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new InvalidTemplateException("템플릿을 읽을 수 없습니다: " + templateId + " (" + e.getMessage() + ")");
+        }
+    }
+
+    private static final class Entry {
+        private final MailTemplate template;
+        private volatile long checkedAtMillis;
+
+        private Entry(MailTemplate template, long checkedAtMillis) {
+            this.template = template;
+            this.checkedAtMillis = checkedAtMillis;
+        }
+    }
+}
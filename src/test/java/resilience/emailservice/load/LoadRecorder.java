@@ -0,0 +1,125 @@
+package resilience.emailservice.load;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 부하 테스트 한 시나리오의 요청별 시각을 기록하고 요약합니다.
+ * 지연은 실제로 보낸 시각이 아니라 보내기로 예정된 시각부터 잽니다. (open-loop)
+ * 그래야 서비스가 느려져 송신이 밀린 시간도 지연에 포함됩니다. (coordinated omission 방지)
+ */
+final class LoadRecorder {
+
+    private final String name;
+    private final AtomicLongArray scheduledAt;
+    private final AtomicLongArray respondedAt;
+    private final AtomicLongArray deliveredAt;
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger delivered = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicLong lastDeliveredAt = new AtomicLong();
+
+    LoadRecorder(String name, int total) {
+        this.name = name;
+        this.scheduledAt = new AtomicLongArray(total);
+        this.respondedAt = new AtomicLongArray(total);
+        this.deliveredAt = new AtomicLongArray(total);
+    }
+
+    String name() {
+        return name;
+    }
+
+    int total() {
+        return scheduledAt.length();
+    }
+
+    void scheduled(int sequence, long nanos) {
+        scheduledAt.set(sequence, nanos);
+    }
+
+    /** HTTP 응답 또는 Kafka 전송 확인 */
+    void responded(int sequence, boolean success) {
+        respondedAt.set(sequence, System.nanoTime());
+        (success ? accepted : rejected).incrementAndGet();
+    }
+
+    /** 가짜 SMTP 서버에 메시지가 도착함. 같은 요청이 두 번 도착하면 중복으로만 셉니다. */
+    void delivered(int sequence) {
+        long now = System.nanoTime();
+        if (deliveredAt.compareAndSet(sequence, 0, now)) {
+            delivered.incrementAndGet();
+            lastDeliveredAt.accumulateAndGet(now, Math::max);
+        } else {
+            duplicates.incrementAndGet();
+        }
+    }
+
+    int accepted() {
+        return accepted.get();
+    }
+
+    int rejected() {
+        return rejected.get();
+    }
+
+    int responses() {
+        return accepted.get() + rejected.get();
+    }
+
+    int delivered() {
+        return delivered.get();
+    }
+
+    int duplicates() {
+        return duplicates.get();
+    }
+
+    /** 첫 예정 시각부터 마지막 도착까지 초당 전달 수 */
+    double throughputPerSecond() {
+        long elapsed = lastDeliveredAt.get() - scheduledAt.get(0);
+        return elapsed <= 0 ? 0 : delivered.get() * 1e9 / elapsed;
+    }
+
+    Percentiles responseLatency() {
+        return Percentiles.of(scheduledAt, respondedAt);
+    }
+
+    Percentiles deliveryLatency() {
+        return Percentiles.of(scheduledAt, deliveredAt);
+    }
+
+    record Percentiles(int count, double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+
+        static Percentiles of(AtomicLongArray start, AtomicLongArray end) {
+            long[] latencies = new long[start.length()];
+            int count = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                long endNanos = end.get(i);
+                if (endNanos != 0) {
+                    latencies[count++] = endNanos - start.get(i);
+                }
+            }
+            if (count == 0) {
+                return new Percentiles(0, 0, 0, 0, 0);
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Percentiles(count, at(sorted, 0.50), at(sorted, 0.99), at(sorted, 0.999), sorted[count - 1] / 1e6);
+        }
+
+        private static double at(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms (n=%d)",
+                    p50Millis, p99Millis, p999Millis, maxMillis, count);
+        }
+    }
+}
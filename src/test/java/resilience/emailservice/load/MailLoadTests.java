@@ -0,0 +1,233 @@
+package resilience.emailservice.load;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.kafka.EmailRequestListener;
+import resilience.emailservice.mail.smtp.FakeSmtpServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 앱 전체를 내장 Kafka 브로커와 가짜 SMTP 릴레이(FakeSmtpServer)에 붙여 처리량과 지연을 재는 부하 테스트.
+ * 기본 빌드에서는 제외되며 mvn -Pload test로 실행합니다. 조건은 시스템 프로퍼티로 바꿀 수 있습니다.
+ *
+ *   -Dload.rate=100                 시나리오별 초당 요청 수 (일정 간격으로 보내는 open-loop)
+ *   -Dload.duration-seconds=10      요청을 보내는 시간
+ *   -Dload.drain-timeout-seconds=60 송신이 끝난 뒤 남은 요청의 처리를 기다릴 최대 시간
+ *   -Dload.smtp.latency-ms=5        가짜 SMTP 서버의 DATA 응답 지연
+ *   -Dload.smtp.failure-rate=0.05   가짜 SMTP 서버의 451 응답 비율 (0.9면 simulated 모드와 같은 실패율)
+ *   -Dload.kafka.retry-interval-ms=100  Kafka 블로킹 재시도 간격 (운영 기본값은 1000)
+ *
+ * 앱 설정도 그대로 덮어쓸 수 있습니다. 예) -Dspring.threads.virtual.enabled=true -Dkafka.listener.mode=batch
+ * 결과(처리량, 응답/전달 지연 p50/p99/p999, 재시도 횟수, DLT 건수)는 표준 출력으로 보고하며,
+ * 성능 수치로 테스트를 실패시키지는 않습니다.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "smtp.mode=relay",
+        "kafka.listener.retry.interval=${load.kafka.retry-interval-ms:100}"
+})
+@EmbeddedKafka(partitions = 3,
+        topics = {EmailRequestListener.ORIGINAL_TOPIC, EmailRequestListener.ORIGINAL_TOPIC + ".DLT"},
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class MailLoadTests {
+
+    private static final int RATE = Integer.getInteger("load.rate", 100);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 10);
+    private static final int DRAIN_TIMEOUT_SECONDS = Integer.getInteger("load.drain-timeout-seconds", 60);
+    private static final long SMTP_LATENCY_MILLIS = Long.getLong("load.smtp.latency-ms", 5);
+    private static final double SMTP_FAILURE_RATE = Double.parseDouble(System.getProperty("load.smtp.failure-rate", "0.05"));
+
+    private static final String DOMAIN = "@load.test";
+    private static final String BODY = "부하 테스트 메일입니다.";
+
+    private static FakeSmtpServer smtpServer;
+    // 가짜 SMTP 서버에 도착한 메시지를 현재 시나리오의 기록기로 넘김
+    private static volatile LoadRecorder current;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void smtpRelay(DynamicPropertyRegistry registry) throws IOException {
+        smtpServer = new FakeSmtpServer()
+                .withLatency(SMTP_LATENCY_MILLIS)
+                .withFailureRate(SMTP_FAILURE_RATE)
+                .onMessage(message -> {
+                    LoadRecorder recorder = current;
+                    if (recorder == null) {
+                        return;
+                    }
+                    for (String recipient : message.recipients()) {
+                        int sequence = sequenceOf(recorder, recipient);
+                        if (sequence >= 0) {
+                            recorder.delivered(sequence);
+                        }
+                    }
+                });
+        registry.add("smtp.relay.address", smtpServer::address);
+    }
+
+    @AfterAll
+    static void stopSmtpServer() throws IOException {
+        smtpServer.close();
+    }
+
+    @Test
+    void httpSend() throws Exception {
+        LoadRecorder recorder = new LoadRecorder("http", RATE * DURATION_SECONDS);
+        URI uri = URI.create("http://localhost:" + port + "/mail/send");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(5))
+                     .executor(executor)
+                     .build()) {
+            Snapshot before = snapshot();
+            run(recorder, sequence -> {
+                String json = "{\"email\":\"" + recipient(recorder, sequence) + "\",\"emailBody\":\"" + BODY + "\"}";
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .timeout(Duration.ofSeconds(30))
+                        .POST(HttpRequest.BodyPublishers.ofString(json))
+                        .build();
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) ->
+                                recorder.responded(sequence, error == null && response.statusCode() / 100 == 2));
+            });
+            // 동기 전송은 응답을 받으면 끝 (재시도 없이 실패를 응답하므로 DLT 없음)
+            await(() -> recorder.responses() >= recorder.total());
+            report(recorder, before, snapshot());
+        }
+
+        assertThat(recorder.delivered()).isPositive();
+    }
+
+    @Test
+    void kafkaTopic() {
+        LoadRecorder recorder = new LoadRecorder("kafka", RATE * DURATION_SECONDS);
+        // 파티션 할당 전에 보낸 요청의 지연이 결과를 왜곡하지 않도록 리스너가 준비될 때까지 대기
+        await(() -> listenerRegistry.getListenerContainers().stream()
+                .allMatch(container -> !container.isRunning()
+                        || (container.getAssignedPartitions() != null && !container.getAssignedPartitions().isEmpty())));
+
+        Snapshot before = snapshot();
+        run(recorder, sequence -> {
+            String email = recipient(recorder, sequence);
+            kafkaTemplate.send(EmailRequestListener.ORIGINAL_TOPIC, email, new EmailRequest(email, BODY))
+                    .whenComplete((result, error) -> recorder.responded(sequence, error == null));
+        });
+        // 모든 요청이 SMTP에 도착하거나 DLT로 넘어갈 때까지 대기
+        await(() -> recorder.delivered() + (snapshot().dltPublished() - before.dltPublished()) >= recorder.total());
+        report(recorder, before, snapshot());
+
+        assertThat(recorder.delivered()).isPositive();
+    }
+
+    // 예정 시각마다 요청을 하나씩 보냄. 송신 쪽이 밀려도 다음 예정 시각은 바뀌지 않음 (open-loop)
+    private void run(LoadRecorder recorder, IntConsumer send) {
+        current = recorder;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long start = System.nanoTime();
+        for (int sequence = 0; sequence < recorder.total(); sequence++) {
+            long due = start + sequence * intervalNanos;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            recorder.scheduled(sequence, due);
+            send.accept(sequence);
+        }
+    }
+
+    private static void await(BooleanSupplier done) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+        while (!done.getAsBoolean() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    private static String recipient(LoadRecorder recorder, int sequence) {
+        return recorder.name() + "-" + sequence + DOMAIN;
+    }
+
+    // "{시나리오}-{번호}@load.test" → 번호 (다른 시나리오의 메시지면 -1)
+    private static int sequenceOf(LoadRecorder recorder, String recipient) {
+        String prefix = recorder.name() + "-";
+        if (!recipient.startsWith(prefix) || !recipient.endsWith(DOMAIN)) {
+            return -1;
+        }
+        try {
+            int sequence = Integer.parseInt(recipient, prefix.length(), recipient.length() - DOMAIN.length(), 10);
+            return sequence < recorder.total() ? sequence : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Snapshot snapshot() {
+        DistributionSummary coalesced = meterRegistry.find("mail.coalesce.recipients").summary();
+        return new Snapshot(sum("mail.retry.attempts"), sum("mail.dlt.published"),
+                coalesced == null ? 0 : coalesced.count(), coalesced == null ? 0 : (long) coalesced.totalAmount());
+    }
+
+    private long sum(String counterName) {
+        return (long) meterRegistry.find(counterName).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private static void report(LoadRecorder recorder, Snapshot before, Snapshot after) {
+        System.out.printf("[load] %s: 목표 %d/s × %ds, SMTP 지연 %dms / 실패율 %.0f%%%n",
+                recorder.name(), RATE, DURATION_SECONDS, SMTP_LATENCY_MILLIS, SMTP_FAILURE_RATE * 100);
+        System.out.printf("[load]   요청 %d건: 접수 %d, 거절 %d, 응답 없음 %d%n",
+                recorder.total(), recorder.accepted(), recorder.rejected(), recorder.total() - recorder.responses());
+        System.out.printf("[load]   SMTP 도착 %d건 (중복 %d), 처리량 %.1f/s%n",
+                recorder.delivered(), recorder.duplicates(), recorder.throughputPerSecond());
+        System.out.printf("[load]   응답 지연 %s%n", recorder.responseLatency());
+        System.out.printf("[load]   전달 지연 %s%n", recorder.deliveryLatency());
+        System.out.printf("[load]   재시도 %d회, DLT %d건%n",
+                after.retryAttempts() - before.retryAttempts(), after.dltPublished() - before.dltPublished());
+        if (after.coalescedGroups() > before.coalescedGroups()) {
+            System.out.printf("[load]   묶음 전송 %d건 (수신자 %d명)%n", after.coalescedGroups() - before.coalescedGroups(),
+                    after.coalescedRecipients() - before.coalescedRecipients());
+        }
+    }
+
+    private record Snapshot(long retryAttempts, long dltPublished, long coalescedGroups, long coalescedRecipients) {
+    }
+}
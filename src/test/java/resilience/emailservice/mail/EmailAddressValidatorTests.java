@@ -0,0 +1,75 @@
+package resilience.emailservice.mail;
+
+import org.junit.jupiter.api.Test;
+import resilience.emailservice.exception.InvalidEmailException;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailAddressValidatorTests {
+
+    // 기존 MailSenderService에서 사용하던 정규식
+    private static final String LEGACY_REGEX = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
+
+    @Test
+    void matchesLegacyRegexOnKnownCases() {
+        List<String> samples = List.of(
+                "user@example.com", "a@b", "first.last+tag@sub.example.co.kr", "under_score@x-y.z",
+                "", "@", "@example.com", "user@", "user@@example.com", "us@er@example.com",
+                "user example@example.com", "user@exam_ple.com", "user@example.com\n", "사용자@example.com",
+                "user@example.com ", ".@.", "-@-", "+@+");
+        for (String sample : samples) {
+            assertThat(EmailAddressValidator.isWellFormed(sample))
+                    .as(sample)
+                    .isEqualTo(sample.matches(LEGACY_REGEX));
+        }
+        assertThat(EmailAddressValidator.isWellFormed(null)).isFalse();
+    }
+
+    @Test
+    void matchesLegacyRegexOnRandomInput() {
+        String alphabet = "aZ09+_.-@ !#\n가";
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder sample = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                sample.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String value = sample.toString();
+            assertThat(EmailAddressValidator.isWellFormed(value))
+                    .as(value)
+                    .isEqualTo(value.matches(LEGACY_REGEX));
+        }
+    }
+
+    @Test
+    void rejectsBlockedDomainsAndSubdomains() {
+        EmailAddressValidator validator = new EmailAddressValidator("Blocked.com, spam.example", 2);
+
+        assertThat(validator.isValid("user@example.com")).isTrue();
+        assertThat(validator.isValid("user@blocked.com")).isFalse();
+        assertThat(validator.isValid("user@mail.BLOCKED.com")).isFalse();
+        assertThat(validator.isValid("user@notblocked.com")).isTrue();
+        assertThatThrownBy(() -> validator.validate("user@spam.example"))
+                .isInstanceOf(InvalidEmailException.class);
+        // 캐시 크기를 넘어가도 결과는 같아야 함
+        assertThat(validator.isValid("user@blocked.com")).isFalse();
+    }
+
+    @Test
+    void keepsRawAddressOutOfExceptionMessage() {
+        EmailAddressValidator validator = new EmailAddressValidator("blocked.com", 2);
+
+        assertThatThrownBy(() -> validator.validate("hong.gildong@blocked.com"))
+                .isInstanceOf(InvalidEmailException.class)
+                .hasMessageContaining("h***@blocked.com")
+                .hasMessageNotContaining("hong.gildong");
+        assertThatThrownBy(() -> validator.validate("hong gildong@example.com"))
+                .isInstanceOf(InvalidEmailException.class)
+                .hasMessageNotContaining("hong gildong");
+    }
+}
@@ -0,0 +1,126 @@
+package resilience.emailservice.mail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import resilience.emailservice.exception.MailQueueFullException;
+import resilience.emailservice.mail.async.AsyncMailDispatcher;
+import resilience.emailservice.mail.async.MailSendState;
+import resilience.emailservice.mail.async.MailSendStatus;
+import resilience.emailservice.mail.async.MailSendStatusRegistry;
+import resilience.emailservice.mail.metrics.MailMetrics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MailControllerTests {
+
+    private final MailSendStatusRegistry statusRegistry = new MailSendStatusRegistry();
+    private final List<EmailRequest> submitted = new ArrayList<>();
+    private final List<String> sentSync = new ArrayList<>();
+    private volatile boolean queueFull;
+
+    // 대기열 대신 접수 내용을 기록하고 바로 ACCEPTED 상태를 등록 (전송 흐름은 AsyncMailDispatcherTests에서 확인)
+    private final AsyncMailDispatcher dispatcher = new AsyncMailDispatcher(null, statusRegistry, null, null) {
+        @Override
+        public String submit(EmailRequest emailRequest) {
+            if (queueFull) {
+                throw new MailQueueFullException("메일 전송 대기열이 가득 찼습니다. (capacity: 1)");
+            }
+            submitted.add(emailRequest);
+            String id = "mail-" + submitted.size();
+            Instant now = Instant.now();
+            statusRegistry.register(new MailSendStatus(id, emailRequest.getEmail(), MailSendState.ACCEPTED, 0, null, now, now));
+            return id;
+        }
+    };
+
+    private final MailSenderService mailSenderService = new MailSenderService() {
+        @Override
+        public void sendEmail(EmailRequest emailRequest) {
+            sentSync.add(emailRequest.getEmail());
+        }
+    };
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(statusRegistry, "maxEntries", 100);
+        MailController controller = new MailController();
+        ReflectionTestUtils.setField(controller, "mailSenderService", mailSenderService);
+        ReflectionTestUtils.setField(controller, "asyncMailDispatcher", dispatcher);
+        ReflectionTestUtils.setField(controller, "mailSendStatusRegistry", statusRegistry);
+        ReflectionTestUtils.setField(controller, "mailMetrics", new MailMetrics(new SimpleMeterRegistry()));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void asyncSendReturnsAcceptedWithStatusUrlThatCanBeLookedUp() throws Exception {
+        mockMvc.perform(post("/mail/send").param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(EmailRequest.IDEMPOTENCY_KEY_HEADER, "order-42")
+                        .content("{\"email\":\"a@example.com\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("mail-1"))
+                .andExpect(jsonPath("$.statusUrl").value("/mail/status/mail-1"));
+
+        // 동기 경로를 거치지 않고 디스패처에 넘김
+        assertThat(sentSync).isEmpty();
+        assertThat(submitted).singleElement().satisfies(request -> {
+            assertThat(request.getEmail()).isEqualTo("a@example.com");
+            assertThat(request.getIdempotencyKey()).isEqualTo("order-42");
+        });
+
+        mockMvc.perform(get("/mail/status/mail-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("mail-1"))
+                .andExpect(jsonPath("$.state").value("ACCEPTED"))
+                .andExpect(jsonPath("$.attempts").value(0));
+    }
+
+    @Test
+    void asyncSendReturnsTooManyRequestsWhenQueueIsFull() throws Exception {
+        queueFull = true;
+
+        mockMvc.perform(post("/mail/send").param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"a@example.com\"}"))
+                .andExpect(status().isTooManyRequests());
+
+        assertThat(submitted).isEmpty();
+        assertThat(sentSync).isEmpty();
+    }
+
+    @Test
+    void sendWithoutAsyncStaysSynchronous() throws Exception {
+        mockMvc.perform(post("/mail/send")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"a@example.com\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(sentSync).containsExactly("a@example.com");
+        assertThat(submitted).isEmpty();
+    }
+
+    @Test
+    void statusLookupReturnsNotFoundForUnknownId() throws Exception {
+        mockMvc.perform(get("/mail/status/unknown"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(""));
+    }
+}
@@ -0,0 +1,97 @@
+package resilience.emailservice.mail;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SentMailLogTests {
+
+    private static SentMailLog log(int capacity) {
+        SentMailLog log = new SentMailLog();
+        ReflectionTestUtils.setField(log, "capacity", capacity);
+        ReflectionTestUtils.setField(log, "maxAgeMillis", 0L);
+        log.init();
+        return log;
+    }
+
+    @Test
+    void keepsExactlyConfiguredCapacityEvenWhenSlotsAreRoundedUp() {
+        SentMailLog log = log(10);   // 슬롯은 16개
+        for (int i = 0; i < 25; i++) {
+            log.append("user" + i + "@example.com");
+        }
+
+        assertThat(log.size()).isEqualTo(10);
+        assertThat(log.snapshot()).containsExactlyElementsOf(
+                IntStream.range(15, 25).mapToObj(i -> "user" + i + "@example.com").toList());
+    }
+
+    @Test
+    void pagesByCursorAcrossWrapAround() {
+        SentMailLog log = log(4);
+        for (int i = 0; i < 6; i++) {
+            log.append("user" + i + "@example.com");
+        }
+
+        // 덮어써진 0, 1은 건너뛰고 가장 오래된 2부터
+        SentMailPage first = log.page(0, 3);
+        assertThat(first.emails()).containsExactly("user2@example.com", "user3@example.com", "user4@example.com");
+        assertThat(first.nextCursor()).isEqualTo(5);
+        assertThat(first.hasMore()).isTrue();
+
+        log.append("user6@example.com");
+        SentMailPage second = log.page(first.nextCursor(), 3);
+        assertThat(second.emails()).containsExactly("user5@example.com", "user6@example.com");
+        assertThat(second.nextCursor()).isEqualTo(7);
+        assertThat(second.hasMore()).isFalse();
+    }
+
+    @Test
+    void concurrentWritersGetUniqueSequencesAndLatestEntriesSurvive() throws Exception {
+        int writers = 8;
+        int perWriter = 20_000;
+        SentMailLog log = log(1000);
+        Map<Long, String> written = new ConcurrentHashMap<>();
+        CountDownLatch ready = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(pool.submit(() -> {
+                    ready.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        String email = "w" + writer + "-" + i + "@example.com";
+                        written.put(log.append(email), email);
+                    }
+                    return null;
+                }));
+            }
+            ready.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // 시퀀스는 빠짐없이 한 번씩 부여되고, 남은 기록은 가장 최근 시퀀스 1000건을 순서대로 담음
+        long total = (long) writers * perWriter;
+        assertThat(written).hasSize((int) total);
+        assertThat(LongStream.range(0, total).allMatch(written::containsKey)).isTrue();
+        assertThat(log.snapshot()).containsExactlyElementsOf(
+                LongStream.range(total - 1000, total).mapToObj(written::get).toList());
+    }
+}
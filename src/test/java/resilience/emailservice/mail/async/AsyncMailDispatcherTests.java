@@ -0,0 +1,228 @@
+package resilience.emailservice.mail.async;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.InvalidTemplateException;
+import resilience.emailservice.exception.MailQueueFullException;
+import resilience.emailservice.exception.SomeRetryableException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailSenderService;
+import resilience.emailservice.mail.outbox.MailOutbox;
+import resilience.emailservice.mail.retry.RetryBudget;
+import resilience.emailservice.mail.retry.RetryScheduler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncMailDispatcherTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MailSendStatusRegistry statusRegistry = new MailSendStatusRegistry();
+    private final Queue<String> sent = new ConcurrentLinkedQueue<>();
+    // 주소별로 전송을 붙잡아 두는 관문
+    private final Map<String, CountDownLatch> gates = new ConcurrentHashMap<>();
+    // 주소별로 남은 재시도 가능한 실패 횟수
+    private final Map<String, AtomicInteger> transientFailures = new ConcurrentHashMap<>();
+    // 대기열 워커가 RetryScheduler에 넘기는 것을 붙잡아 두는 관문 (워커를 바쁘게 만들어 대기열을 채울 때)
+    private final CountDownLatch handoff = new CountDownLatch(1);
+    private volatile boolean holdHandoff;
+
+    // invalid로 시작하는 주소는 접수 검증 실패, rejected로 시작하는 주소는 전송 시 재시도 없이 실패
+    private final MailSenderService sender = new MailSenderService() {
+        @Override
+        public void validate(EmailRequest emailRequest) {
+            if (emailRequest.getEmail().startsWith("invalid")) {
+                throw new InvalidEmailException("유효하지 않은 이메일 주소입니다.");
+            }
+        }
+
+        @Override
+        public void sendEmail(EmailRequest emailRequest) {
+            String email = emailRequest.getEmail();
+            CountDownLatch gate = gates.get(email);
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            AtomicInteger failures = transientFailures.get(email);
+            if (failures != null && failures.getAndDecrement() > 0) {
+                throw new SomeRetryableException("일시적인 SMTP 오류");
+            }
+            if (email.startsWith("rejected")) {
+                throw new InvalidTemplateException("템플릿을 찾을 수 없습니다: welcome");
+            }
+            sent.add(email);
+        }
+    };
+
+    private RetryScheduler retryScheduler;
+    private AsyncMailDispatcher dispatcher;
+
+    private AsyncMailDispatcher newDispatcher(int workers, int queueCapacity) {
+        ReflectionTestUtils.setField(statusRegistry, "maxEntries", 100);
+        retryScheduler = new RetryScheduler(List.of(), new RetryBudget(false, 0.1, 10, 10000, registry)) {
+            @Override
+            public CompletableFuture<Void> submit(String name, Runnable action) {
+                if (holdHandoff) {
+                    try {
+                        handoff.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.submit(name, action);
+            }
+        };
+        ReflectionTestUtils.setField(retryScheduler, "defaultMaxAttempts", 3);
+        ReflectionTestUtils.setField(retryScheduler, "initialDelayMillis", 200L);
+        ReflectionTestUtils.setField(retryScheduler, "multiplier", 2.0);
+        ReflectionTestUtils.setField(retryScheduler, "maxDelayMillis", 1000L);
+        ReflectionTestUtils.setField(retryScheduler, "jitter", 0.0);
+        ReflectionTestUtils.setField(retryScheduler, "workers", 2);
+        ReflectionTestUtils.invokeMethod(retryScheduler, "start");
+
+        // 아웃박스는 꺼 둠 (아웃박스 동작은 MailOutboxTests에서 확인)
+        AsyncMailDispatcher asyncMailDispatcher = new AsyncMailDispatcher(sender, statusRegistry, retryScheduler,
+                new MailOutbox(registry));
+        ReflectionTestUtils.setField(asyncMailDispatcher, "workers", workers);
+        ReflectionTestUtils.setField(asyncMailDispatcher, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(asyncMailDispatcher, "bulkWorkers", 1);
+        ReflectionTestUtils.setField(asyncMailDispatcher, "bulkQueueCapacity", queueCapacity);
+        asyncMailDispatcher.start();
+        return asyncMailDispatcher;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gates.values().forEach(CountDownLatch::countDown);
+        handoff.countDown();
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        if (retryScheduler != null) {
+            ReflectionTestUtils.invokeMethod(retryScheduler, "stop");
+        }
+    }
+
+    private CountDownLatch hold(String email) {
+        CountDownLatch gate = new CountDownLatch(1);
+        gates.put(email, gate);
+        return gate;
+    }
+
+    private MailSendState state(String id) {
+        return statusRegistry.find(id).map(MailSendStatus::state).orElse(null);
+    }
+
+    private static void await(BooleanSupplier done) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!done.getAsBoolean() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+    }
+
+    @Test
+    void acceptsWithoutWaitingForSmtpAndTracksStatusUntilSent() {
+        dispatcher = newDispatcher(2, 10);
+        CountDownLatch gate = hold("a@example.com");
+
+        String id = dispatcher.submit(new EmailRequest("a@example.com"));
+
+        // 전송이 끝나지 않아도 바로 추적 ID를 돌려줌
+        assertThat(statusRegistry.find(id)).isPresent();
+        await(() -> state(id) == MailSendState.SENDING);
+        assertThat(state(id)).isEqualTo(MailSendState.SENDING);
+        assertThat(sent).isEmpty();
+
+        gate.countDown();
+        await(() -> state(id) == MailSendState.SENT);
+        MailSendStatus status = statusRegistry.find(id).orElseThrow();
+        assertThat(status.state()).isEqualTo(MailSendState.SENT);
+        assertThat(status.attempts()).isEqualTo(1);
+        assertThat(sent).containsExactly("a@example.com");
+    }
+
+    @Test
+    void showsRetryingBetweenAttemptsAndSentAfterRetry() {
+        dispatcher = newDispatcher(2, 10);
+        transientFailures.put("a@example.com", new AtomicInteger(1));
+
+        String id = dispatcher.submit(new EmailRequest("a@example.com"));
+
+        // 첫 시도 실패 후 재시도(200ms 뒤)를 기다리는 동안
+        await(() -> state(id) == MailSendState.RETRYING);
+        MailSendStatus retrying = statusRegistry.find(id).orElseThrow();
+        assertThat(retrying.state()).isEqualTo(MailSendState.RETRYING);
+        assertThat(retrying.error()).isEqualTo("일시적인 SMTP 오류");
+
+        await(() -> state(id) == MailSendState.SENT);
+        MailSendStatus status = statusRegistry.find(id).orElseThrow();
+        assertThat(status.state()).isEqualTo(MailSendState.SENT);
+        assertThat(status.attempts()).isEqualTo(2);
+        assertThat(status.error()).isNull();
+    }
+
+    @Test
+    void marksNonRetryableSendFailureAsFailed() {
+        dispatcher = newDispatcher(2, 10);
+
+        String id = dispatcher.submit(new EmailRequest("rejected@example.com"));
+
+        await(() -> state(id) == MailSendState.FAILED);
+        MailSendStatus status = statusRegistry.find(id).orElseThrow();
+        assertThat(status.state()).isEqualTo(MailSendState.FAILED);
+        assertThat(status.attempts()).isEqualTo(1);
+        assertThat(status.error()).isEqualTo("템플릿을 찾을 수 없습니다: welcome");
+    }
+
+    @Test
+    void rejectsInvalidRequestBeforeAcceptingIt() {
+        dispatcher = newDispatcher(2, 10);
+
+        assertThatThrownBy(() -> dispatcher.submit(new EmailRequest("invalid@example.com")))
+                .isInstanceOf(InvalidEmailException.class);
+        assertThat(storedCount()).isZero();
+    }
+
+    @Test
+    void rejectsWhenQueueIsFullAndDoesNotTrackRejectedRequest() {
+        // 워커 1개가 첫 요청을 붙잡고 있는 동안 대기열(1칸)도 가득 참
+        dispatcher = newDispatcher(1, 1);
+        holdHandoff = true;
+        String first = dispatcher.submit(new EmailRequest("a@example.com"));
+        await(() -> dispatcher.queuedCount() == 0);
+        String queued = dispatcher.submit(new EmailRequest("b@example.com"));
+
+        assertThatThrownBy(() -> dispatcher.submit(new EmailRequest("c@example.com")))
+                .isInstanceOf(MailQueueFullException.class);
+        assertThat(storedCount()).isEqualTo(2);
+        assertThat(statusRegistry.find(first)).isPresent();
+        assertThat(statusRegistry.find(queued)).isPresent();
+
+        handoff.countDown();
+        await(() -> state(first) == MailSendState.SENT && state(queued) == MailSendState.SENT);
+        assertThat(sent).containsExactly("a@example.com", "b@example.com");
+    }
+
+    private int storedCount() {
+        return ((Map<?, ?>) ReflectionTestUtils.getField(statusRegistry, "statuses")).size();
+    }
+}
@@ -0,0 +1,67 @@
+package resilience.emailservice.mail.async;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailSendStatusRegistryTests {
+
+    private static MailSendStatusRegistry registry(int maxEntries) {
+        MailSendStatusRegistry registry = new MailSendStatusRegistry();
+        ReflectionTestUtils.setField(registry, "maxEntries", maxEntries);
+        return registry;
+    }
+
+    private static int storedCount(MailSendStatusRegistry registry) {
+        return ((Map<?, ?>) ReflectionTestUtils.getField(registry, "statuses")).size();
+    }
+
+    @Test
+    void evictsOldestEntriesBeyondRetention() {
+        MailSendStatusRegistry registry = registry(3);
+
+        for (int i = 0; i < 5; i++) {
+            registry.register(MailSendStatus.accepted("id-" + i, "user" + i + "@example.com"));
+        }
+
+        assertThat(registry.find("id-0")).isEmpty();
+        assertThat(registry.find("id-1")).isEmpty();
+        assertThat(registry.find("id-2")).isPresent();
+        assertThat(registry.find("id-4")).isPresent();
+        assertThat(storedCount(registry)).isEqualTo(3);
+    }
+
+    @Test
+    void removingRejectedRequestsDoesNotLeaveEntriesBehind() {
+        MailSendStatusRegistry registry = registry(3);
+        registry.register(MailSendStatus.accepted("kept", "kept@example.com"));
+
+        // 대기열 포화(429)로 접수를 취소하는 경로
+        for (int i = 0; i < 1000; i++) {
+            registry.register(MailSendStatus.accepted("rejected-" + i, "user@example.com"));
+            registry.remove("rejected-" + i);
+        }
+
+        assertThat(storedCount(registry)).isEqualTo(1);
+        assertThat(registry.find("kept")).isPresent();
+        assertThat(registry.find("rejected-0")).isEmpty();
+    }
+
+    @Test
+    void keepsInsertionOrderWhenStatusChanges() {
+        MailSendStatusRegistry registry = registry(2);
+        registry.register(MailSendStatus.accepted("id-0", "a@example.com"));
+        registry.register(MailSendStatus.accepted("id-1", "b@example.com"));
+
+        // 상태가 바뀌어도 접수 순서로 지움
+        registry.update("id-0", MailSendStatus::sending);
+        registry.register(MailSendStatus.accepted("id-2", "c@example.com"));
+
+        assertThat(registry.find("id-0")).isEmpty();
+        assertThat(registry.find("id-1")).isPresent();
+        assertThat(registry.find("id-2")).isPresent();
+    }
+}
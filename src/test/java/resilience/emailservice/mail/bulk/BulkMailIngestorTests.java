@@ -0,0 +1,206 @@
+package resilience.emailservice.mail.bulk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.MailQueueFullException;
+import resilience.emailservice.exception.OutboxFlushTimeoutException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailPriority;
+import resilience.emailservice.mail.async.AsyncMailDispatcher;
+import resilience.emailservice.mail.metrics.MailMetrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkMailIngestorTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<EmailRequest> submitted = new ArrayList<>();
+    // flushOutbox 호출 시점까지 접수된 요청 수
+    private final List<Integer> outboxFlushes = new ArrayList<>();
+    private boolean outboxStalled;
+
+    // invalid로 시작하는 주소는 검증 실패, full로 시작하는 주소는 대기열 포화로 거절
+    private final AsyncMailDispatcher dispatcher = new AsyncMailDispatcher(null, null, null, null) {
+        @Override
+        public String submitWithoutFlush(EmailRequest emailRequest, long maxWaitMillis) {
+            if (emailRequest.getEmail().startsWith("invalid")) {
+                throw new InvalidEmailException("유효하지 않은 이메일 주소입니다.");
+            }
+            if (emailRequest.getEmail().startsWith("full")) {
+                throw new MailQueueFullException("대량 메일 전송 대기열이 가득 찼습니다.");
+            }
+            submitted.add(emailRequest);
+            return "id-" + submitted.size();
+        }
+
+        @Override
+        public void flushOutbox() {
+            outboxFlushes.add(submitted.size());
+            if (outboxStalled) {
+                throw new OutboxFlushTimeoutException("아웃박스 기록이 5000ms 안에 디스크에 반영되지 않았습니다.");
+            }
+        }
+    };
+
+    private BulkMailIngestor ingestor(int maxLineBytes) {
+        BulkMailIngestor ingestor = new BulkMailIngestor(dispatcher, new MailMetrics(registry), objectMapper);
+        ReflectionTestUtils.setField(ingestor, "maxLineBytes", maxLineBytes);
+        ReflectionTestUtils.setField(ingestor, "maxWaitMillis", 0L);
+        return ingestor;
+    }
+
+    private static String line(String email) {
+        return "{\"email\":\"" + email + "\"}";
+    }
+
+    private List<JsonNode> ingest(BulkMailIngestor ingestor, String body, BulkReport report) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ingestor.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out, report);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private double bulkLines(String result) {
+        return registry.get("mail.bulk.lines").tag("result", result).counter().count();
+    }
+
+    @Test
+    void acceptsValidLinesAndReportsEachRejection() throws IOException {
+        String body = String.join("\n",
+                line("a@example.com"),
+                "",
+                "{not json",
+                "null",
+                line("invalid@example.com"),
+                "{\"email\":\"b@example.com\",\"priority\":\"TRANSACTIONAL\"}\r") + "\n";
+
+        List<JsonNode> results = ingest(ingestor(1024), body, BulkReport.ALL);
+
+        assertThat(results).hasSize(6);
+        assertThat(results.get(0).get("status").asText()).isEqualTo("accepted");
+        assertThat(results.get(0).get("id").asText()).isEqualTo("id-1");
+        assertThat(results.get(1).get("line").asLong()).isEqualTo(3);
+        assertThat(results.get(1).get("error").asText()).isEqualTo("MalformedJson");
+        assertThat(results.get(2).get("error").asText()).isEqualTo("MalformedJson");
+        assertThat(results.get(3).get("error").asText()).isEqualTo("InvalidEmailException");
+        assertThat(results.get(4).get("line").asLong()).isEqualTo(6);
+        assertThat(results.get(4).get("status").asText()).isEqualTo("accepted");
+
+        JsonNode summary = results.get(5);
+        assertThat(summary.get("status").asText()).isEqualTo("completed");
+        assertThat(summary.get("lines").asLong()).isEqualTo(5);
+        assertThat(summary.get("accepted").asLong()).isEqualTo(2);
+        assertThat(summary.get("rejected").asLong()).isEqualTo(3);
+        assertThat(summary.get("lastLine").asLong()).isEqualTo(6);
+        assertThat(bulkLines("accepted")).isEqualTo(2);
+        assertThat(bulkLines("rejected")).isEqualTo(3);
+
+        // priority를 지정하지 않은 줄만 대량 메일로 접수
+        assertThat(submitted).extracting(EmailRequest::getPriority).containsExactly(MailPriority.BULK, MailPriority.TRANSACTIONAL);
+    }
+
+    @Test
+    void reportsOnlyWhatWasAskedFor() throws IOException {
+        String body = line("a@example.com") + "\n" + line("invalid@example.com") + "\n" + line("b@example.com");
+
+        List<JsonNode> rejectedOnly = ingest(ingestor(1024), body, BulkReport.REJECTED);
+        assertThat(rejectedOnly).hasSize(2);
+        assertThat(rejectedOnly.get(0).get("line").asLong()).isEqualTo(2);
+        assertThat(rejectedOnly.get(1).get("accepted").asLong()).isEqualTo(2);
+
+        List<JsonNode> summaryOnly = ingest(ingestor(1024), body, BulkReport.NONE);
+        assertThat(summaryOnly).singleElement().satisfies(summary -> {
+            assertThat(summary.get("status").asText()).isEqualTo("completed");
+            assertThat(summary.get("rejected").asLong()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void rejectsOverLongLineWithoutBufferingItAndContinues() throws IOException {
+        // 읽기 버퍼(8KB)보다 훨씬 긴 줄도 maxLineBytes까지만 담고 나머지는 버림
+        String huge = "{\"email\":\"a@example.com\",\"emailBody\":\"" + "x".repeat(50_000) + "\"}";
+        String body = huge + "\n" + line("b@example.com") + "\n";
+
+        List<JsonNode> results = ingest(ingestor(256), body, BulkReport.ALL);
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).get("error").asText()).isEqualTo("LineTooLong");
+        assertThat(results.get(1).get("status").asText()).isEqualTo("accepted");
+        assertThat(submitted).extracting(EmailRequest::getEmail).containsExactly("b@example.com");
+    }
+
+    @Test
+    void abortsOnFullQueueWithoutReadingTheRest() throws IOException {
+        String body = line("a@example.com") + "\n" + line("full@example.com") + "\n" + line("b@example.com") + "\n";
+
+        List<JsonNode> results = ingest(ingestor(1024), body, BulkReport.ALL);
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(1).get("error").asText()).isEqualTo("MailQueueFullException");
+        JsonNode summary = results.get(2);
+        assertThat(summary.get("status").asText()).isEqualTo("aborted");
+        assertThat(summary.get("accepted").asLong()).isEqualTo(1);
+        assertThat(summary.get("rejected").asLong()).isEqualTo(1);
+        // 클라이언트는 lastLine 다음 줄부터 다시 보내면 됨
+        assertThat(summary.get("lastLine").asLong()).isEqualTo(2);
+        assertThat(submitted).extracting(EmailRequest::getEmail).containsExactly("a@example.com");
+    }
+
+    @Test
+    void waitsForOutboxOncePerChunkInsteadOfPerLine() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            body.append(line("user" + i + "@example.com")).append('\n');
+        }
+        body.append(line("invalid@example.com")).append('\n');
+
+        List<JsonNode> results = ingest(ingestor(1024), body.toString(), BulkReport.ALL);
+
+        // 256줄 구간과 나머지 45줄 구간마다 한 번씩만 기다림
+        assertThat(outboxFlushes).containsExactly(256, 300);
+        assertThat(results).hasSize(302);
+        assertThat(results.get(301).get("accepted").asLong()).isEqualTo(300);
+    }
+
+    @Test
+    void doesNotWaitForOutboxWhenChunkHasNoAcceptedLines() throws IOException {
+        String body = line("invalid@example.com") + "\n" + "{not json" + "\n";
+
+        ingest(ingestor(1024), body, BulkReport.ALL);
+
+        assertThat(outboxFlushes).isEmpty();
+    }
+
+    @Test
+    void abortsAfterChunkWhenOutboxFlushTimesOut() throws IOException {
+        outboxStalled = true;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            body.append(line("user" + i + "@example.com")).append('\n');
+        }
+
+        List<JsonNode> results = ingest(ingestor(1024), body.toString(), BulkReport.NONE);
+
+        // 이미 대기열에 넣은 첫 구간까지만 접수하고 나머지 본문은 읽지 않음
+        JsonNode summary = results.get(0);
+        assertThat(summary.get("status").asText()).isEqualTo("aborted");
+        assertThat(summary.get("accepted").asLong()).isEqualTo(256);
+        assertThat(summary.get("lastLine").asLong()).isEqualTo(256);
+        assertThat(submitted).hasSize(256);
+    }
+}
@@ -0,0 +1,60 @@
+package resilience.emailservice.mail.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NdjsonLineReaderTests {
+
+    private static List<String> readAll(InputStream in, int maxLineBytes) throws IOException {
+        NdjsonLineReader reader = new NdjsonLineReader(in, maxLineBytes);
+        List<String> lines = new ArrayList<>();
+        while (reader.next()) {
+            String text = reader.isTooLong() ? "<too long>"
+                    : new String(reader.buffer(), 0, reader.length(), StandardCharsets.UTF_8);
+            lines.add(reader.lineNumber() + ":" + text);
+        }
+        return lines;
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void splitsOnNewlinesAndStripsCarriageReturns() throws IOException {
+        assertThat(readAll(stream("{\"a\":1}\r\n\n{\"b\":\"한글\"}"), 64))
+                .containsExactly("1:{\"a\":1}", "2:", "3:{\"b\":\"한글\"}");
+        assertThat(readAll(stream("x\n"), 64)).containsExactly("1:x");
+        assertThat(readAll(stream(""), 64)).isEmpty();
+    }
+
+    @Test
+    void skipsRestOfLineOverLimitAndContinues() throws IOException {
+        String longLine = "y".repeat(20_000);
+
+        assertThat(readAll(stream("short\n" + longLine + "\nnext"), 1024))
+                .containsExactly("1:short", "2:<too long>", "3:next");
+    }
+
+    @Test
+    void readsLinesSpanningReadBuffers() throws IOException {
+        String line = "z".repeat(10_000);
+        // 한 번에 몇 바이트씩만 돌려주는 스트림
+        InputStream trickle = new ByteArrayInputStream((line + "\n" + line).getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+
+        assertThat(readAll(trickle, 16_384)).containsExactly("1:" + line, "2:" + line);
+    }
+}
@@ -0,0 +1,85 @@
+package resilience.emailservice.mail.circuit;
+
+import org.junit.jupiter.api.Test;
+import resilience.emailservice.exception.CircuitOpenException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SmtpCircuitBreakerTests {
+
+    // 실패율 50%, 최소 4회, 윈도우 10초, OPEN 유지 100ms, 프로브 2개
+    private SmtpCircuitBreaker newBreaker() {
+        return new SmtpCircuitBreaker(true, 50, 4, 10, 1000, 100, 2);
+    }
+
+    private static void call(SmtpCircuitBreaker breaker, boolean success) {
+        breaker.acquirePermission();
+        if (success) {
+            breaker.onSuccess();
+        } else {
+            breaker.onFailure();
+        }
+    }
+
+    @Test
+    void opensWhenFailureRateExceedsThreshold() {
+        SmtpCircuitBreaker breaker = newBreaker();
+        List<CircuitState> transitions = new ArrayList<>();
+        breaker.addListener((from, to, openUntil) -> transitions.add(to));
+
+        call(breaker, false);
+        call(breaker, false);
+        call(breaker, true);
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED); // 최소 호출 수 미달
+
+        call(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+        assertThat(transitions).containsExactly(CircuitState.OPEN);
+        assertThatThrownBy(breaker::acquirePermission).isInstanceOf(CircuitOpenException.class);
+    }
+
+    @Test
+    void closesAfterSuccessfulProbes() throws InterruptedException {
+        SmtpCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, false);
+        }
+        Thread.sleep(150);
+
+        breaker.acquirePermission();
+        breaker.acquirePermission();
+        assertThat(breaker.getState()).isEqualTo(CircuitState.HALF_OPEN);
+        // 허용된 프로브 수를 넘는 호출은 거절
+        assertThatThrownBy(breaker::acquirePermission).isInstanceOf(CircuitOpenException.class);
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+    }
+
+    @Test
+    void reopensWhenProbeFails() throws InterruptedException {
+        SmtpCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, false);
+        }
+        Thread.sleep(150);
+
+        call(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+    }
+
+    @Test
+    void ignoresCallsWhenDisabled() {
+        SmtpCircuitBreaker breaker = new SmtpCircuitBreaker(false, 50, 1, 10, 1000, 100, 1);
+        for (int i = 0; i < 10; i++) {
+            call(breaker, false);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+    }
+}
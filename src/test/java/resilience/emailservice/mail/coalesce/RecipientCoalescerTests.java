@@ -0,0 +1,137 @@
+package resilience.emailservice.mail.coalesce;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.SmtpConnectionException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailPriority;
+import resilience.emailservice.mail.SMTPClient;
+import resilience.emailservice.mail.metrics.MailMetrics;
+import resilience.emailservice.mail.smtp.MailBody;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecipientCoalescerTests {
+
+    /** 트랜잭션별 수신자 목록을 기록하고, 지정한 주소만 거절하는 SMTPClient */
+    private static class RecordingSmtpClient extends SMTPClient {
+
+        private final List<List<String>> transactions = new CopyOnWriteArrayList<>();
+        private final String rejected;
+        private volatile RuntimeException transactionFailure;
+
+        private RecordingSmtpClient(String rejected) {
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void sendMail(String email, MailBody body, MailPriority priority, boolean hedge) {
+            transactions.add(List.of(email));
+            if (transactionFailure != null) {
+                throw transactionFailure;
+            }
+            if (email.equals(rejected)) {
+                throw new InvalidEmailException("rejected: " + email);
+            }
+        }
+
+        @Override
+        public List<RuntimeException> sendMailToEach(List<String> emails, MailBody body, MailPriority priority) {
+            transactions.add(List.copyOf(emails));
+            if (transactionFailure != null) {
+                throw transactionFailure;
+            }
+            List<RuntimeException> results = new ArrayList<>();
+            for (String email : emails) {
+                results.add(email.equals(rejected) ? new InvalidEmailException("rejected: " + email) : null);
+            }
+            return results;
+        }
+    }
+
+    private static RecipientCoalescer coalescer(SMTPClient client, int maxRecipients) {
+        return new RecipientCoalescer(client, new MailMetrics(new SimpleMeterRegistry()), true, 1_000, maxRecipients);
+    }
+
+    // 모든 요청을 동시에 보내고 주소별 결과(성공이면 "ok", 실패면 예외 클래스 이름)를 돌려줌
+    private static Map<String, String> sendConcurrently(RecipientCoalescer coalescer, List<EmailRequest> requests) throws Exception {
+        Map<String, String> outcomes = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (EmailRequest request : requests) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        coalescer.send(request, MailBody.of(request.getEmailBody()));
+                        outcomes.put(request.getEmail(), "ok");
+                    } catch (RuntimeException e) {
+                        outcomes.put(request.getEmail(), e.getClass().getSimpleName());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return outcomes;
+    }
+
+    private static List<EmailRequest> requests(String domain, String body, int count) {
+        List<EmailRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(new EmailRequest("user" + i + "@" + domain, body));
+        }
+        return requests;
+    }
+
+    @Test
+    void groupsSameBodyAndDomainUpToCapAndMapsRejectionsBack() throws Exception {
+        RecordingSmtpClient client = new RecordingSmtpClient("user3@a.com");
+
+        Map<String, String> outcomes = sendConcurrently(coalescer(client, 5), requests("a.com", "campaign", 10));
+
+        // 5명씩 찬 즉시 전송되므로 window(1초)를 기다리지 않음
+        assertThat(client.transactions).hasSize(2).allSatisfy(recipients -> assertThat(recipients).hasSize(5));
+        assertThat(outcomes).hasSize(10).containsEntry("user3@a.com", "InvalidEmailException");
+        assertThat(outcomes.values()).filteredOn("ok"::equals).hasSize(9);
+    }
+
+    @Test
+    void keepsDifferentBodiesAndDomainsApart() throws Exception {
+        RecordingSmtpClient client = new RecordingSmtpClient(null);
+        List<EmailRequest> requests = new ArrayList<>(requests("a.com", "one", 2));
+        requests.addAll(requests("b.com", "one", 2));
+        requests.add(new EmailRequest("other@a.com", "two"));
+
+        sendConcurrently(coalescer(client, 2), requests);
+
+        assertThat(client.transactions).hasSize(3)
+                .anySatisfy(recipients -> assertThat(recipients).containsExactlyInAnyOrder("user0@a.com", "user1@a.com"))
+                .anySatisfy(recipients -> assertThat(recipients).containsExactlyInAnyOrder("user0@b.com", "user1@b.com"))
+                .contains(List.of("other@a.com"));
+    }
+
+    @Test
+    void failsEveryMemberWhenTransactionFails() throws Exception {
+        RecordingSmtpClient client = new RecordingSmtpClient(null);
+        client.transactionFailure = new SmtpConnectionException("relay down");
+
+        Map<String, String> outcomes = sendConcurrently(coalescer(client, 3), requests("a.com", "campaign", 3));
+
+        assertThat(outcomes.values()).containsOnly("SmtpConnectionException").hasSize(3);
+    }
+}
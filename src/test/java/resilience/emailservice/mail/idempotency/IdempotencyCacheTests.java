@@ -0,0 +1,66 @@
+package resilience.emailservice.mail.idempotency;
+
+import org.junit.jupiter.api.Test;
+import resilience.emailservice.mail.idempotency.IdempotencyCache.Admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyCacheTests {
+
+    @Test
+    void dropsCompletedKeyAndReportsInFlight() {
+        IdempotencyCache cache = new IdempotencyCache(1000, 60000, 60000);
+
+        assertThat(cache.tryBegin("order-1")).isEqualTo(Admission.ACQUIRED);
+        assertThat(cache.tryBegin("order-1")).isEqualTo(Admission.IN_FLIGHT);
+        cache.complete("order-1");
+        assertThat(cache.tryBegin("order-1")).isEqualTo(Admission.DUPLICATE);
+        assertThat(cache.tryBegin("order-2")).isEqualTo(Admission.ACQUIRED);
+    }
+
+    @Test
+    void abortedKeyCanBeSentAgain() {
+        IdempotencyCache cache = new IdempotencyCache(1000, 60000, 60000);
+
+        assertThat(cache.tryBegin("order-1")).isEqualTo(Admission.ACQUIRED);
+        cache.abort("order-1");
+        assertThat(cache.tryBegin("order-1")).isEqualTo(Admission.ACQUIRED);
+    }
+
+    @Test
+    void forgetsKeysAfterTtl() throws InterruptedException {
+        IdempotencyCache cache = new IdempotencyCache(1000, 20, 20);
+        cache.tryBegin("order-1");
+        cache.complete("order-1");
+        Thread.sleep(40);
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.tryBegin("order-1")).isEqualTo(Admission.ACQUIRED);
+    }
+
+    @Test
+    void staysBoundedWhenExpiredSlotsAreReused() throws InterruptedException {
+        IdempotencyCache cache = new IdempotencyCache(16 * 64, 10, 10);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 16 * 48; i++) {
+                String key = "round-" + round + "-" + i;
+                assertThat(cache.tryBegin(key)).isEqualTo(Admission.ACQUIRED);
+                cache.complete(key);
+            }
+            Thread.sleep(20);
+        }
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void remembersKeysAcrossStripes() {
+        IdempotencyCache cache = new IdempotencyCache(16 * 64, 60000, 60000);
+        for (int i = 0; i < 200; i++) {
+            cache.tryBegin("key-" + i);
+            cache.complete("key-" + i);
+        }
+        for (int i = 0; i < 200; i++) {
+            assertThat(cache.tryBegin("key-" + i)).isEqualTo(Admission.DUPLICATE);
+        }
+    }
+}
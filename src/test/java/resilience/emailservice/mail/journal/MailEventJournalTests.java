@@ -0,0 +1,121 @@
+package resilience.emailservice.mail.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import resilience.emailservice.exception.InvalidEmailException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailEventJournalTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // writer 스레드를 시작하지 않고 drain을 직접 호출
+    private MailEventJournal journal(int capacity, double sampleRate) {
+        return new MailEventJournal(true, capacity, sampleRate, registry);
+    }
+
+    private static List<String> drainAll(MailEventJournal journal) {
+        List<String> lines = new ArrayList<>();
+        journal.drain(Integer.MAX_VALUE, lines::add);
+        return lines;
+    }
+
+    private double count(String result) {
+        return registry.get("mail.journal.events").tag("result", result).counter().count();
+    }
+
+    @Test
+    void masksAddressesAndNeverWritesStackTraces() {
+        MailEventJournal journal = journal(16, 1.0);
+
+        journal.record(MailEventType.SENT, "hong.gildong@gmail.com", "seq=7");
+        journal.record(MailEventType.FAILED, "kim@example.com",
+                new InvalidEmailException("SMTP 서버가 수신자를 거절했습니다: kim@example.com (550 \"no such user\")"));
+
+        List<String> lines = drainAll(journal);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"event\":\"SENT\"", "\"to\":\"h***@gmail.com\"", "\"detail\":\"seq=7\"")
+                .doesNotContain("hong.gildong");
+        assertThat(lines.get(1)).contains("\"to\":\"k***@example.com\"", "\"error\":\"InvalidEmailException\"",
+                        "거절했습니다: k***@example.com (550 \\\"no such user\\\")")
+                .doesNotContain("kim@", "\tat ");
+    }
+
+    @Test
+    void masksAddressesInExceptionMessageTakenFromDltHeaders() {
+        MailEventJournal journal = journal(16, 1.0);
+
+        journal.record(MailEventType.DLT_CONSUMED, "lee@example.com",
+                "dlt=email-send-requests.DLT-0@12, original=email-send-requests-0@34",
+                "InvalidEmailException", "유효하지 않은 이메일 주소: lee@example.com");
+
+        assertThat(drainAll(journal)).singleElement().asString()
+                .contains("\"detail\":\"dlt=email-send-requests.DLT-0@12, original=email-send-requests-0@34\"",
+                        "\"error\":\"InvalidEmailException\"", "주소: l***@example.com")
+                .doesNotContain("lee@");
+    }
+
+    @Test
+    void dropsEventsWhenRingIsFullAndReusesSlotsAfterDrain() {
+        MailEventJournal journal = journal(4, 1.0);
+
+        for (int i = 0; i < 6; i++) {
+            journal.record(MailEventType.FAILED, "user" + i + "@example.com");
+        }
+        assertThat(count("dropped")).isEqualTo(2);
+        assertThat(drainAll(journal)).hasSize(4).first().asString().contains("u***@example.com");
+
+        journal.record(MailEventType.FAILED, "again@example.com");
+        assertThat(drainAll(journal)).singleElement().asString().contains("a***@example.com");
+    }
+
+    @Test
+    void samplesOnlyRoutineEvents() {
+        MailEventJournal journal = journal(16, 0.0);
+
+        journal.record(MailEventType.RECEIVED, "a@example.com");
+        journal.record(MailEventType.SENT, "a@example.com");
+        journal.record(MailEventType.DEAD_LETTERED, "a@example.com");
+
+        assertThat(drainAll(journal)).singleElement().asString().contains("DEAD_LETTERED");
+        assertThat(count("sampled_out")).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentProducersLoseNothingWhileCapacityAllows() throws Exception {
+        MailEventJournal journal = journal(4096, 1.0);
+        int producers = 8;
+        int perProducer = 500;
+        CountDownLatch ready = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                executor.submit(() -> {
+                    ready.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        journal.record(MailEventType.FAILED, "user@example.com");
+                    }
+                    return null;
+                });
+            }
+            ready.countDown();
+        }
+
+        assertThat(drainAll(journal)).hasSize(producers * perProducer);
+        assertThat(count("dropped")).isZero();
+    }
+
+    @Test
+    void masksEmailWithoutLocalPart() {
+        assertThat(PiiMasker.maskEmail("@example.com")).isEqualTo("***");
+        assertThat(PiiMasker.maskEmail("not-an-address")).isEqualTo("***");
+        assertThat(PiiMasker.maskText("a@b.com, c@d.com")).isEqualTo("a***@b.com, c***@d.com");
+        assertThat(PiiMasker.maskText("no address")).isEqualTo("no address");
+    }
+}
@@ -0,0 +1,120 @@
+package resilience.emailservice.mail.kafka;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import resilience.emailservice.mail.circuit.SmtpCircuitBreaker;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerKafkaPauserTests {
+
+    private final FakeContainer original = new FakeContainer(EmailRequestListener.ORIGINAL_TOPIC);
+    private final FakeContainer bulk = new FakeContainer(EmailRequestListener.BULK_TOPIC);
+    private final FakeContainer retry = new FakeContainer(EmailRequestListener.ORIGINAL_TOPIC + ".retry-1000");
+    private final FakeContainer bulkRetry = new FakeContainer(EmailRequestListener.BULK_TOPIC + ".retry-30000");
+    private final FakeContainer dlt = new FakeContainer(EmailRequestListener.ORIGINAL_TOPIC + ".DLT",
+            EmailRequestListener.BULK_TOPIC + ".DLT");
+    private CircuitBreakerKafkaPauser pauser;
+
+    @AfterEach
+    void tearDown() {
+        pauser.shutdown();
+    }
+
+    @Test
+    void pausesOriginalAndRetryTopicContainersWhileCircuitIsOpen() {
+        // 실패율 50%, 최소 4회, OPEN 유지 200ms
+        SmtpCircuitBreaker breaker = new SmtpCircuitBreaker(true, 50, 4, 10, 1000, 200, 1);
+        KafkaListenerEndpointRegistry registry = new KafkaListenerEndpointRegistry() {
+            @Override
+            public Collection<MessageListenerContainer> getListenerContainers() {
+                return List.of(original, bulk, retry, bulkRetry, dlt);
+            }
+        };
+        pauser = new CircuitBreakerKafkaPauser(breaker, registry);
+        pauser.register();
+
+        for (int i = 0; i < 4; i++) {
+            breaker.acquirePermission();
+            breaker.onFailure();
+        }
+
+        assertThat(List.of(original, bulk, retry, bulkRetry)).allMatch(FakeContainer::isPauseRequested);
+        assertThat(dlt.isPauseRequested()).isFalse();
+
+        // half-open으로 바뀔 시각에 다시 재개
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (retry.isPauseRequested() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertThat(List.of(original, bulk, retry, bulkRetry)).noneMatch(FakeContainer::isPauseRequested);
+    }
+
+    private static final class FakeContainer implements MessageListenerContainer {
+
+        private final ContainerProperties properties;
+        private volatile boolean pauseRequested;
+
+        private FakeContainer(String... topics) {
+            this.properties = new ContainerProperties(topics);
+        }
+
+        @Override
+        public ContainerProperties getContainerProperties() {
+            return properties;
+        }
+
+        @Override
+        public String getListenerId() {
+            return String.join(",", properties.getTopics());
+        }
+
+        @Override
+        public void pause() {
+            pauseRequested = true;
+        }
+
+        @Override
+        public void resume() {
+            pauseRequested = false;
+        }
+
+        @Override
+        public boolean isPauseRequested() {
+            return pauseRequested;
+        }
+
+        @Override
+        public void setupMessageListener(Object messageListener) {
+        }
+
+        @Override
+        public Map<String, Map<MetricName, ? extends Metric>> metrics() {
+            return Map.of();
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public boolean isRunning() {
+            return true;
+        }
+    }
+}
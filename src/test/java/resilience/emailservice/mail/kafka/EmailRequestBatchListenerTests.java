@@ -0,0 +1,225 @@
+package resilience.emailservice.mail.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.LazyInitializationBeanFactoryPostProcessor;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import resilience.emailservice.exception.SmtpConnectionException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailSenderService;
+import resilience.emailservice.mail.metrics.MailMetrics;
+import resilience.emailservice.mail.retry.RetryBudget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class EmailRequestBatchListenerTests {
+
+    private static final TopicPartition PARTITION = new TopicPartition(EmailRequestListener.ORIGINAL_TOPIC, 0);
+    private static final List<String> EMAILS = List.of("a@example.com", "b@example.com", "c@example.com", "d@example.com");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MailMetrics mailMetrics = new MailMetrics(registry);
+    private final RetryBudget retryBudget = new RetryBudget(true, 0.1, 10, 10000, registry);
+    private final List<String> sent = new ArrayList<>();
+    private final List<ConsumerRecord<?, ?>> deadLetters = new ArrayList<>();
+
+    // failing 주소는 항상 SMTP 연결 실패
+    private EmailRequestBatchListener newListener(String failing) {
+        MailSenderService sender = new MailSenderService() {
+            @Override
+            public void sendEmail(EmailRequest emailRequest) {
+                if (emailRequest.getEmail().equals(failing)) {
+                    throw new SmtpConnectionException("SMTP 연결 실패");
+                }
+                sent.add(emailRequest.getEmail());
+            }
+        };
+        return new EmailRequestBatchListener(sender, mailMetrics, retryBudget);
+    }
+
+    private DefaultErrorHandler newErrorHandler(int retryAttempts) {
+        KafkaListenerConfig config = new KafkaListenerConfig();
+        ReflectionTestUtils.setField(config, "retryAttempts", retryAttempts);
+        ReflectionTestUtils.setField(config, "retryInterval", 0L);
+        ReflectionTestUtils.setField(config, "circuitOpenRetryInterval", 0L);
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
+                new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of()))) {
+            @Override
+            public void accept(ConsumerRecord<?, ?> record, Consumer<?, ?> consumer, Exception exception) {
+                deadLetters.add(record);
+            }
+        };
+        return config.kafkaErrorHandler(recoverer, mailMetrics, retryBudget);
+    }
+
+    private static ConsumerRecords<String, Object> batch() {
+        List<ConsumerRecord<String, Object>> records = new ArrayList<>();
+        for (int i = 0; i < EMAILS.size(); i++) {
+            records.add(new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), i, EMAILS.get(i),
+                    new EmailRequest(EMAILS.get(i))));
+        }
+        return new ConsumerRecords<>(Map.of(PARTITION, records));
+    }
+
+    private static BatchListenerFailedException consume(EmailRequestBatchListener listener) {
+        List<EmailRequest> requests = EMAILS.stream().map(EmailRequest::new).toList();
+        return catchThrowableOfType(() -> listener.consumeEmailRequestBatch(requests,
+                List.of(0, 0, 0, 0), List.of(0L, 1L, 2L, 3L), List.of(Map.of(), Map.of(), Map.of(), Map.of())),
+                BatchListenerFailedException.class);
+    }
+
+    private static MockConsumer<String, Object> assignedConsumer() {
+        MockConsumer<String, Object> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(PARTITION));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        return consumer;
+    }
+
+    // 컨테이너처럼 리스너 예외를 감싸 넘김. 에러 핸들러는 seek 후 예외를 다시 던져 컨테이너가 로그만 남기게 함
+    private static void handle(DefaultErrorHandler errorHandler, BatchListenerFailedException failure,
+                               MockConsumer<String, Object> consumer) {
+        assertThat(catchThrowable(() -> errorHandler.handleBatch(new ListenerExecutionFailedException("batch failed", failure),
+                batch(), consumer, new FakeContainer(), () -> {
+                }))).isNotNull();
+    }
+
+    @Test
+    void reportsFailingIndexAndStopsSendingAfterIt() {
+        BatchListenerFailedException failure = consume(newListener("c@example.com"));
+
+        assertThat(failure).isNotNull();
+        assertThat(failure.getIndex()).isEqualTo(2);
+        assertThat(failure.getCause()).isInstanceOf(SmtpConnectionException.class);
+        assertThat(sent).containsExactly("a@example.com", "b@example.com");
+    }
+
+    @Test
+    void errorHandlerCommitsRecordsBeforeFailureAndRedeliversFromIt() {
+        BatchListenerFailedException failure = consume(newListener("c@example.com"));
+        MockConsumer<String, Object> consumer = assignedConsumer();
+
+        handle(newErrorHandler(3), failure, consumer);
+
+        // 0, 1번은 커밋되고, 실패한 2번부터 다시 읽음 (재시도 횟수가 남아 DLT로는 보내지 않음)
+        assertThat(consumer.committed(Set.of(PARTITION))).containsEntry(PARTITION, new OffsetAndMetadata(2));
+        assertThat(consumer.position(PARTITION)).isEqualTo(2);
+        assertThat(deadLetters).isEmpty();
+    }
+
+    @Test
+    void errorHandlerSendsOnlyFailedRecordToDltWhenRetriesAreExhausted() {
+        BatchListenerFailedException failure = consume(newListener("c@example.com"));
+        MockConsumer<String, Object> consumer = assignedConsumer();
+
+        handle(newErrorHandler(1), failure, consumer);
+
+        // 재시도 없이 실패한 2번만 DLT로 보내고, 3번은 다시 읽음
+        assertThat(deadLetters).extracting(ConsumerRecord::offset).containsExactly(2L);
+        assertThat(consumer.position(PARTITION)).isEqualTo(3);
+    }
+
+    @Test
+    void creditsOnlyFirstDeliveriesToRetryBudget() {
+        // 예비분 없이 첫 시도 성공 1건당 1개씩 쌓이는 예산
+        RetryBudget budget = new RetryBudget(true, 1.0, 0, 10000, registry);
+        AtomicBoolean relayDown = new AtomicBoolean(true);
+        MailSenderService sender = new MailSenderService() {
+            @Override
+            public void sendEmail(EmailRequest emailRequest) {
+                if (relayDown.get() && emailRequest.getEmail().equals("c@example.com")) {
+                    throw new SmtpConnectionException("SMTP 연결 실패");
+                }
+            }
+        };
+        EmailRequestBatchListener listener = new EmailRequestBatchListener(sender, mailMetrics, budget);
+
+        // 2번에서 실패: 앞의 0, 1번만 첫 시도 성공
+        assertThat(consume(listener)).isNotNull();
+        assertThat(budget.available()).isEqualTo(2.0);
+
+        // 2번부터 다시 전달: 2번은 재시도이므로 빼고, 처음 시도하는 3번만 쌓음
+        relayDown.set(false);
+        listener.consumeEmailRequestBatch(List.of(new EmailRequest("c@example.com"), new EmailRequest("d@example.com")),
+                List.of(0, 0), List.of(2L, 3L), List.of(Map.of(), Map.of()));
+        assertThat(budget.available()).isEqualTo(3.0);
+    }
+
+    @Test
+    void registersExactlyOneRecordListenerPerMode() {
+        // 조건 평가만 확인하므로 리스너를 만들지 않도록 지연 초기화 (의존 빈 없이 빈 정의만 검사)
+        ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+                .withInitializer(context -> context.addBeanFactoryPostProcessor(new LazyInitializationBeanFactoryPostProcessor()))
+                .withUserConfiguration(EmailRequestListener.class, EmailRequestBatchListener.class);
+
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(EmailRequestListener.class);
+            assertThat(context).doesNotHaveBean(EmailRequestBatchListener.class);
+        });
+        contextRunner.withPropertyValues("kafka.listener.mode=batch").run(context -> {
+            assertThat(context).doesNotHaveBean(EmailRequestListener.class);
+            assertThat(context).hasSingleBean(EmailRequestBatchListener.class);
+        });
+        contextRunner.withPropertyValues("kafka.listener.mode=parallel").run(context -> {
+            assertThat(context).doesNotHaveBean(EmailRequestListener.class);
+            assertThat(context).doesNotHaveBean(EmailRequestBatchListener.class);
+        });
+    }
+
+    private static final class FakeContainer implements MessageListenerContainer {
+
+        private final ContainerProperties properties = new ContainerProperties(PARTITION.topic());
+
+        @Override
+        public ContainerProperties getContainerProperties() {
+            return properties;
+        }
+
+        @Override
+        public void setupMessageListener(Object messageListener) {
+        }
+
+        @Override
+        public Map<String, Map<MetricName, ? extends Metric>> metrics() {
+            return Map.of();
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public boolean isRunning() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package resilience.emailservice.mail.kafka;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.DestinationTopic;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicSchedulerWrapper;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KafkaRetryTopicConfigTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(KafkaRetryTopicConfig.class)
+            .withBean(KafkaOperations.class, () -> new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of())));
+
+    @Test
+    void configuresRetryTopicsForBothLanesOnlyInTopicsMode() {
+        contextRunner.withPropertyValues("kafka.listener.retry.mode=topics").run(context -> {
+            RetryTopicConfiguration configuration = context.getBean(RetryTopicConfiguration.class);
+
+            assertThat(configuration.hasConfigurationForTopics(new String[]{EmailRequestListener.ORIGINAL_TOPIC})).isTrue();
+            assertThat(configuration.hasConfigurationForTopics(new String[]{EmailRequestListener.BULK_TOPIC})).isTrue();
+            assertThat(configuration.getDestinationTopicProperties()).extracting(DestinationTopic.Properties::suffix)
+                    .containsExactly("", ".retry-1000", ".retry-30000", ".DLT");
+        });
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(RetryTopicConfiguration.class));
+        contextRunner.withPropertyValues("kafka.listener.retry.mode=topics", "kafka.listener.mode=batch")
+                .run(context -> assertThat(context).doesNotHaveBean(RetryTopicConfiguration.class));
+    }
+
+    @Test
+    void shutsDownRetryTopicSchedulerWithTheContext() {
+        AtomicReference<ScheduledExecutorService> executor = new AtomicReference<>();
+        contextRunner.withPropertyValues("kafka.listener.retry.mode=topics").run(context -> {
+            ThreadPoolTaskScheduler scheduler =
+                    (ThreadPoolTaskScheduler) context.getBean(RetryTopicSchedulerWrapper.class).getScheduler();
+            executor.set(scheduler.getScheduledExecutor());
+            assertThat(executor.get().isShutdown()).isFalse();
+        });
+
+        assertThat(executor.get().isShutdown()).isTrue();
+    }
+}
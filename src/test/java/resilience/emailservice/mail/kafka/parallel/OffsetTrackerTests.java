@@ -0,0 +1,76 @@
+package resilience.emailservice.mail.kafka.parallel;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetTrackerTests {
+
+    @Test
+    void commitsOnlyUpToLowestPendingOffset() {
+        OffsetTracker tracker = new OffsetTracker();
+        assertThat(tracker.committable()).isEqualTo(-1);
+
+        for (long offset = 10; offset < 15; offset++) {
+            tracker.dispatched(offset);
+        }
+        // 뒤 레코드가 먼저 끝나도 10이 끝나기 전에는 10에서 멈춤
+        tracker.completed(12);
+        tracker.completed(11);
+        assertThat(tracker.committable()).isEqualTo(10);
+
+        tracker.completed(10);
+        assertThat(tracker.committable()).isEqualTo(13);
+
+        tracker.completed(14);
+        tracker.completed(13);
+        assertThat(tracker.committable()).isEqualTo(15);
+        assertThat(tracker.isIdle()).isTrue();
+    }
+
+    @Test
+    void skipsOffsetGaps() {
+        OffsetTracker tracker = new OffsetTracker();
+        // 압축/트랜잭션 마커로 비어 있는 오프셋
+        tracker.dispatched(3);
+        tracker.dispatched(7);
+        tracker.completed(7);
+        assertThat(tracker.committable()).isEqualTo(3);
+
+        tracker.completed(3);
+        assertThat(tracker.committable()).isEqualTo(8);
+    }
+
+    @Test
+    void advancesCommittedOnlyWhenPositionMoves() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.dispatched(0);
+        tracker.dispatched(1);
+
+        assertThat(tracker.advanceCommitted()).isEqualTo(0);
+        assertThat(tracker.advanceCommitted()).isEqualTo(-1);
+
+        tracker.completed(0);
+        assertThat(tracker.advanceCommitted()).isEqualTo(1);
+        tracker.completed(1);
+        assertThat(tracker.advanceCommitted()).isEqualTo(2);
+        assertThat(tracker.advanceCommitted()).isEqualTo(-1);
+    }
+
+    @Test
+    void stopsCommitAtAbandonedOffset() {
+        OffsetTracker tracker = new OffsetTracker();
+        for (long offset = 0; offset < 3; offset++) {
+            tracker.dispatched(offset);
+        }
+        tracker.revoke();
+        tracker.completed(0);
+        tracker.abandoned(1);
+        tracker.completed(2);
+
+        // 버린 1번은 새 소유자가 다시 읽도록 거기서 멈춤
+        assertThat(tracker.isRevoked()).isTrue();
+        assertThat(tracker.isIdle()).isTrue();
+        assertThat(tracker.committable()).isEqualTo(1);
+    }
+}
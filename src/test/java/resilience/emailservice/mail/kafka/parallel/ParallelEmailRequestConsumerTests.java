@@ -0,0 +1,309 @@
+package resilience.emailservice.mail.kafka.parallel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.test.util.ReflectionTestUtils;
+import resilience.emailservice.exception.CircuitOpenException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailSenderService;
+import resilience.emailservice.mail.kafka.EmailRequestListener;
+import resilience.emailservice.mail.metrics.MailMetrics;
+import resilience.emailservice.mail.retry.RetryBudget;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelEmailRequestConsumerTests {
+
+    private static final TopicPartition PARTITION = new TopicPartition(EmailRequestListener.ORIGINAL_TOPIC, 0);
+
+    private final Queue<String> sent = new ConcurrentLinkedQueue<>();
+    // 주소별로 전송을 붙잡아 두는 관문 (열릴 때까지 그 레인이 멈춤)
+    private final Map<String, CountDownLatch> gates = new ConcurrentHashMap<>();
+    // 서킷이 열려 있어 항상 CircuitOpenException으로 실패하는 주소
+    private final Set<String> circuitOpen = ConcurrentHashMap.newKeySet();
+    // 리밸런싱·종료 때의 동기 커밋 횟수
+    private final AtomicInteger syncCommits = new AtomicInteger();
+    private final Queue<DeadLetter> deadLetters = new ConcurrentLinkedQueue<>();
+    private final Map<TopicPartition, Long> committed = new ConcurrentHashMap<>();
+    private final MockConsumer<String, Object> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+        @Override
+        public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+            super.commitAsync(offsets, callback);
+            offsets.forEach((partition, offset) -> committed.put(partition, offset.offset()));
+        }
+
+        @Override
+        public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            super.commitSync(offsets);
+            offsets.forEach((partition, offset) -> committed.put(partition, offset.offset()));
+            syncCommits.incrementAndGet();
+        }
+    };
+    private ParallelEmailRequestConsumer parallelConsumer;
+
+    private record DeadLetter(ConsumerRecord<?, ?> record, Exception cause) {
+    }
+
+    private ParallelEmailRequestConsumer newConsumer() {
+        MailSenderService sender = new MailSenderService() {
+            @Override
+            public void sendEmail(EmailRequest emailRequest) {
+                if (circuitOpen.contains(emailRequest.getEmail())) {
+                    throw new CircuitOpenException("SMTP 서킷이 열려 있습니다.", 10);
+                }
+                CountDownLatch gate = gates.get(emailRequest.getEmail());
+                if (gate != null) {
+                    try {
+                        gate.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                sent.add(emailRequest.getEmail());
+            }
+        };
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
+                new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of()))) {
+            @Override
+            public void accept(ConsumerRecord<?, ?> record, Consumer<?, ?> consumer, Exception exception) {
+                deadLetters.add(new DeadLetter(record, exception));
+            }
+        };
+        ConsumerFactory<String, Object> factory = new ConsumerFactory<>() {
+            @Override
+            public Consumer<String, Object> createConsumer(String groupId, String clientIdPrefix, String clientIdSuffix,
+                                                           Properties properties) {
+                return consumer;
+            }
+
+            @Override
+            public boolean isAutoCommit() {
+                return false;
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ParallelEmailRequestConsumer parallel = new ParallelEmailRequestConsumer(factory, sender, recoverer,
+                new MailMetrics(registry), new RetryBudget(true, 0.1, 10, 10000, registry), registry);
+        ReflectionTestUtils.setField(parallel, "groupId", "email-sender-group");
+        ReflectionTestUtils.setField(parallel, "laneCount", 4);
+        ReflectionTestUtils.setField(parallel, "maxInFlight", 100);
+        ReflectionTestUtils.setField(parallel, "maxPollRecords", 500);
+        ReflectionTestUtils.setField(parallel, "shutdownTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(parallel, "errorBackoffMillis", 10L);
+        ReflectionTestUtils.setField(parallel, "errorBackoffMaxMillis", 50L);
+        ReflectionTestUtils.setField(parallel, "retryAttempts", 3);
+        ReflectionTestUtils.setField(parallel, "retryIntervalMillis", 10L);
+        ReflectionTestUtils.setField(parallel, "circuitOpenRetryIntervalMillis", 10L);
+        return parallel;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (parallelConsumer != null) {
+            parallelConsumer.stop();
+        }
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, Object value) {
+        return record(offset, "key-" + offset, value);
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, String key, Object value) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, key, value);
+    }
+
+    private CountDownLatch hold(String email) {
+        CountDownLatch gate = new CountDownLatch(1);
+        gates.put(email, gate);
+        return gate;
+    }
+
+    private List<String> sentWithPrefix(String prefix) {
+        return sent.stream().filter(email -> email.startsWith(prefix)).toList();
+    }
+
+    private static void await(BooleanSupplier done) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!done.getAsBoolean() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    @Test
+    void sendsPoisonRecordsToDltAndKeepsConsumingAfterPollErrors() {
+        byte[] poison = "{not json".getBytes(StandardCharsets.UTF_8);
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            consumer.addRecord(record(0, new EmailRequest("a@example.com")));
+        });
+        // 오프셋 1은 역직렬화 실패
+        consumer.schedulePollTask(() -> consumer.setPollException(new RecordDeserializationException(
+                RecordDeserializationException.DeserializationExceptionOrigin.VALUE, PARTITION, 1, 0L,
+                TimestampType.CREATE_TIME, ByteBuffer.wrap("key-1".getBytes(StandardCharsets.UTF_8)),
+                ByteBuffer.wrap(poison), new RecordHeaders(), "역직렬화 실패", new IllegalStateException("bad json"))));
+        // 브로커 오류가 나도 컨슈머가 멈추지 않아야 함
+        consumer.schedulePollTask(() -> consumer.setPollException(new KafkaException("broker unavailable")));
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(record(2, "EmailRequest가 아닌 값"));
+            consumer.addRecord(record(3, new EmailRequest("c@example.com")));
+        });
+
+        parallelConsumer = newConsumer();
+        parallelConsumer.start();
+        await(() -> committed.getOrDefault(PARTITION, -1L) == 4);
+
+        assertThat(sent).containsExactlyInAnyOrder("a@example.com", "c@example.com");
+        assertThat(deadLetters).hasSize(2);
+        DeadLetter undeserializable = deadLetters.stream().filter(d -> d.record().offset() == 1).findFirst().orElseThrow();
+        assertThat(undeserializable.cause()).isInstanceOf(RecordDeserializationException.class);
+        assertThat(undeserializable.record().key()).isEqualTo("key-1");
+        assertThat(undeserializable.record().headers().lastHeader(ParallelEmailRequestConsumer.ORIGINAL_VALUE_HEADER).value())
+                .isEqualTo(poison);
+        DeadLetter wrongType = deadLetters.stream().filter(d -> d.record().offset() == 2).findFirst().orElseThrow();
+        assertThat(wrongType.cause()).isInstanceOf(MessageConversionException.class);
+        assertThat(committed).containsEntry(PARTITION, 4L);
+    }
+
+    @Test
+    void processesRecordsWithTheSameKeyInOffsetOrder() {
+        // order-a와 order-b는 레인 4개 중 서로 다른 레인으로 감
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            for (int i = 0; i < 6; i++) {
+                String key = i % 2 == 0 ? "order-a" : "order-b";
+                consumer.addRecord(record(i, key, new EmailRequest(key + "-" + i + "@example.com")));
+            }
+        });
+        CountDownLatch gate = hold("order-a-0@example.com");
+
+        parallelConsumer = newConsumer();
+        parallelConsumer.start();
+        await(() -> sentWithPrefix("order-b").size() == 3);
+
+        // 다른 키는 먼저 끝나도 같은 키의 뒤 레코드는 앞 레코드를 앞지르지 않음
+        assertThat(sentWithPrefix("order-a")).isEmpty();
+        gate.countDown();
+        await(() -> committed.getOrDefault(PARTITION, -1L) == 6);
+
+        assertThat(sentWithPrefix("order-a"))
+                .containsExactly("order-a-0@example.com", "order-a-2@example.com", "order-a-4@example.com");
+        assertThat(sentWithPrefix("order-b"))
+                .containsExactly("order-b-1@example.com", "order-b-3@example.com", "order-b-5@example.com");
+    }
+
+    @Test
+    void commitsOnlyContiguousPrefixWhenLaterRecordsFinishFirst() {
+        // order-a(느린 레코드)와 나머지 키는 모두 다른 레인으로 감
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            consumer.addRecord(record(0, "order-b", new EmailRequest("b0@example.com")));
+            consumer.addRecord(record(1, "order-a", new EmailRequest("slow@example.com")));
+            consumer.addRecord(record(2, "order-c", new EmailRequest("c2@example.com")));
+            consumer.addRecord(record(3, "order-d", new EmailRequest("d3@example.com")));
+            consumer.addRecord(record(4, "order-b", new EmailRequest("b4@example.com")));
+        });
+        CountDownLatch gate = hold("slow@example.com");
+
+        parallelConsumer = newConsumer();
+        parallelConsumer.start();
+        await(() -> sent.size() == 4 && committed.getOrDefault(PARTITION, -1L) == 1);
+        // 커밋이 더 나아가지 않는지 몇 번의 poll 동안 지켜봄
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(300));
+
+        // 2~4번이 끝났어도 1번이 끝나기 전에는 1까지만 커밋
+        assertThat(sent).containsExactlyInAnyOrder("b0@example.com", "c2@example.com", "d3@example.com", "b4@example.com");
+        assertThat(committed).containsEntry(PARTITION, 1L);
+
+        gate.countDown();
+        await(() -> committed.getOrDefault(PARTITION, -1L) == 5);
+        assertThat(committed).containsEntry(PARTITION, 5L);
+    }
+
+    @Test
+    void dropsQueuedRecordsOfRevokedPartitionInsteadOfSendingThem() {
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            consumer.addRecord(record(0, "order-a", new EmailRequest("a0@example.com")));
+            consumer.addRecord(record(1, "order-a", new EmailRequest("a1@example.com")));
+            consumer.addRecord(record(2, "order-b", new EmailRequest("b2@example.com")));
+        });
+        CountDownLatch gate = hold("a0@example.com");
+
+        parallelConsumer = newConsumer();
+        parallelConsumer.start();
+        await(() -> sent.contains("b2@example.com"));
+        // 0번을 보내는 도중에 파티션을 반납하고, 반납 대기 중에 0번 전송이 끝나게 함
+        consumer.schedulePollTask(() -> {
+            Thread.ofPlatform().start(() -> {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                gate.countDown();
+            });
+            consumer.rebalance(List.of());
+        });
+        await(() -> syncCommits.get() > 0);
+
+        // 1번은 레인에서 대기 중이었으므로 보내지 않고, 새 소유자가 1번부터 다시 읽음
+        assertThat(sent).containsExactlyInAnyOrder("a0@example.com", "b2@example.com");
+        assertThat(committed).containsEntry(PARTITION, 1L);
+    }
+
+    @Test
+    void stopsWaitingForOpenCircuitWhenPartitionIsRevoked() {
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            consumer.addRecord(record(0, "order-a", new EmailRequest("blocked@example.com")));
+        });
+        circuitOpen.add("blocked@example.com");
+
+        parallelConsumer = newConsumer();
+        ReflectionTestUtils.setField(parallelConsumer, "shutdownTimeoutMillis", 5000L);
+        parallelConsumer.start();
+        await(() -> committed.containsKey(PARTITION));
+        long start = System.nanoTime();
+        consumer.schedulePollTask(() -> consumer.rebalance(List.of()));
+        await(() -> syncCommits.get() > 0);
+
+        // shutdown-timeout-ms를 다 기다리지 않고 바로 반납하며, 0번은 커밋하지 않음
+        assertThat(syncCommits).hasValue(1);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+        assertThat(committed).containsEntry(PARTITION, 0L);
+        assertThat(sent).isEmpty();
+    }
+}
@@ -0,0 +1,39 @@
+package resilience.emailservice.mail.kafka.replay;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DltReplayRequestTests {
+
+    private static final String SMTP_FAILURE = "resilience.emailservice.exception.SmtpConnectionException";
+
+    private static DltReplayRequest filter(String exception, String topic, Integer partition, Long from, Long to) {
+        return new DltReplayRequest(exception, topic, partition, from, to, null, null, false);
+    }
+
+    @Test
+    void matchesExceptionByFullOrSimpleName() {
+        assertThat(filter(SMTP_FAILURE, null, null, null, null).matches(SMTP_FAILURE, "t", 0, 1L)).isTrue();
+        assertThat(filter("SmtpConnectionException", null, null, null, null).matches(SMTP_FAILURE, "t", 0, 1L)).isTrue();
+        assertThat(filter("ConnectionException", null, null, null, null).matches(SMTP_FAILURE, "t", 0, 1L)).isFalse();
+        assertThat(filter("SmtpConnectionException", null, null, null, null).matches(null, "t", 0, 1L)).isFalse();
+    }
+
+    @Test
+    void matchesOriginalTopicPartitionAndOffsetRange() {
+        DltReplayRequest request = filter(null, "email-send-requests", 1, 100L, 200L);
+
+        assertThat(request.matches(SMTP_FAILURE, "email-send-requests", 1, 100L)).isTrue();
+        assertThat(request.matches(SMTP_FAILURE, "email-send-requests", 1, 200L)).isTrue();
+        assertThat(request.matches(SMTP_FAILURE, "email-send-requests", 1, 99L)).isFalse();
+        assertThat(request.matches(SMTP_FAILURE, "email-send-requests", 1, 201L)).isFalse();
+        assertThat(request.matches(SMTP_FAILURE, "email-send-requests", 0, 150L)).isFalse();
+        assertThat(request.matches(SMTP_FAILURE, "other", 1, 150L)).isFalse();
+    }
+
+    @Test
+    void emptyFilterMatchesEverything() {
+        assertThat(filter(null, null, null, null, null).matches(null, null, null, null)).isTrue();
+    }
+}
@@ -0,0 +1,159 @@
+package resilience.emailservice.mail.kafka.replay;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import resilience.emailservice.exception.InvalidRequestException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailSenderService;
+import resilience.emailservice.mail.kafka.EmailRequestListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DltReplayServiceTests {
+
+    private static final String DLT = EmailRequestListener.ORIGINAL_TOPIC + ".DLT";
+    private static final String BULK_DLT = EmailRequestListener.BULK_TOPIC + ".DLT";
+    private static final TopicPartition PARTITION = new TopicPartition(DLT, 0);
+    private static final String SMTP_FAILURE = "resilience.emailservice.exception.SmtpConnectionException";
+
+    private final Queue<String> resent = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger failingCreates = new AtomicInteger();
+    private final Map<TopicPartition, Long> committed = new ConcurrentHashMap<>();
+    private DltReplayService service;
+
+    @BeforeEach
+    void setUp() {
+        MailSenderService sender = new MailSenderService() {
+            @Override
+            public void sendEmail(EmailRequest emailRequest) {
+                resent.add(emailRequest.getEmail());
+            }
+        };
+        service = new DltReplayService(new ConsumerFactory<>() {
+            @Override
+            public Consumer<String, Object> createConsumer(String groupId, String clientIdPrefix, String clientIdSuffix,
+                                                           Properties properties) {
+                if (failingCreates.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    throw new IllegalStateException("브로커에 연결할 수 없음");
+                }
+                return newConsumer();
+            }
+
+            @Override
+            public boolean isAutoCommit() {
+                return false;
+            }
+        }, sender);
+        ReflectionTestUtils.setField(service, "groupId", "email-service");
+        ReflectionTestUtils.setField(service, "dltSuffix", ".DLT");
+        ReflectionTestUtils.setField(service, "groupSuffix", ".replay");
+        ReflectionTestUtils.setField(service, "defaultRatePerSecond", 1000.0);
+        ReflectionTestUtils.setField(service, "defaultParallelism", 2);
+        ReflectionTestUtils.setField(service, "maxPollRecords", 500);
+    }
+
+    // DLT 파티션 0에 오프셋 0~2 레코드 세 건. 0, 2는 SMTP 연결 실패, 1은 템플릿 오류로 들어온 레코드
+    private MockConsumer<String, Object> newConsumer() {
+        MockConsumer<String, Object> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+                super.commitSync(offsets);
+                offsets.forEach((partition, offset) -> committed.put(partition, offset.offset()));
+            }
+        };
+        Node node = new Node(0, "localhost", 9092);
+        mock.updatePartitions(DLT, List.of(new PartitionInfo(DLT, 0, node, null, null)));
+        mock.updatePartitions(BULK_DLT, List.of());
+        mock.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        mock.updateEndOffsets(Map.of(PARTITION, 3L));
+        mock.schedulePollTask(() -> {
+            mock.addRecord(dltRecord(0, "a@example.com", SMTP_FAILURE));
+            mock.addRecord(dltRecord(1, "b@example.com", "resilience.emailservice.exception.InvalidTemplateException"));
+            mock.addRecord(dltRecord(2, "c@example.com", SMTP_FAILURE));
+        });
+        return mock;
+    }
+
+    private static ConsumerRecord<String, Object> dltRecord(long offset, String email, String exception) {
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>(DLT, 0, offset, email, new EmailRequest(email));
+        record.headers().add(KafkaHeaders.DLT_EXCEPTION_FQCN, exception.getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private static DltReplayRequest request(String exceptionClass, Double rate, Integer parallelism) {
+        return new DltReplayRequest(exceptionClass, null, null, null, null, rate, parallelism, false);
+    }
+
+    private DltReplayStatus awaitFinished() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.status().state() == DltReplayState.RUNNING && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return service.status();
+    }
+
+    @Test
+    void replaysMatchingRecordsAndCommitsProgress() {
+        assertThat(service.start(request("SmtpConnectionException", null, null))).isPresent();
+
+        DltReplayStatus status = awaitFinished();
+
+        assertThat(status.state()).isEqualTo(DltReplayState.COMPLETED);
+        assertThat(status.scanned()).isEqualTo(3);
+        assertThat(status.matched()).isEqualTo(2);
+        assertThat(status.sent()).isEqualTo(2);
+        assertThat(resent).containsExactlyInAnyOrder("a@example.com", "c@example.com");
+        assertThat(committed).containsEntry(PARTITION, 3L);
+    }
+
+    @Test
+    void rejectsNonPositiveRateOrParallelismWithoutStarting() {
+        assertThatThrownBy(() -> service.start(request(null, 0.0, null))).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> service.start(request(null, null, 0))).isInstanceOf(InvalidRequestException.class);
+
+        // 기본 설정이 잘못된 경우도 실행 상태를 남기지 않고 거절
+        ReflectionTestUtils.setField(service, "defaultParallelism", 0);
+        assertThatThrownBy(() -> service.start(request(null, null, null))).isInstanceOf(InvalidRequestException.class);
+        assertThat(service.status().state()).isEqualTo(DltReplayState.IDLE);
+
+        ReflectionTestUtils.setField(service, "defaultParallelism", 2);
+        assertThat(service.start(request(null, null, null))).isPresent();
+        assertThat(awaitFinished().state()).isEqualTo(DltReplayState.COMPLETED);
+    }
+
+    @Test
+    void failureWhilePreparingEndsRunSoNextReplayCanStart() {
+        failingCreates.set(1);
+
+        assertThat(service.start(request(null, null, null))).isPresent();
+        DltReplayStatus failed = awaitFinished();
+
+        assertThat(failed.state()).isEqualTo(DltReplayState.FAILED);
+        assertThat(failed.lastError()).contains("브로커에 연결할 수 없음");
+        assertThat(service.start(request(null, null, null))).isPresent();
+        assertThat(awaitFinished().sent()).isEqualTo(3);
+    }
+}
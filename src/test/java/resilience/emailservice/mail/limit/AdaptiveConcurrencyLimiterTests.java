@@ -0,0 +1,145 @@
+package resilience.emailservice.mail.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import resilience.emailservice.exception.SendLimitExceededException;
+import resilience.emailservice.mail.MailPriority;
+import resilience.emailservice.mail.limit.AdaptiveConcurrencyLimiter.Outcome;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    // 초기 한도 4, 범위 1~16, tolerance 2.0, 감소 비율 0.5, 쿨다운 없음, 대기 50ms, 대기열 1
+    private AdaptiveConcurrencyLimiter newLimiter(SimpleMeterRegistry registry) {
+        return new AdaptiveConcurrencyLimiter(true, 4, 1, 16, 2.0, 0.5, 0, 50, 1, 60000, 4, 1, registry);
+    }
+
+    @Test
+    void increasesLimitWhileLatencyStaysLow() {
+        // 나노초 단위 지연의 흔들림이 혼잡으로 판정되지 않도록 tolerance를 크게 둠
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 4, 1, 16, 1e9, 0.5, 0, 50, 1, 60000, 4, 1, new SimpleMeterRegistry());
+        for (int round = 0; round < 50; round++) {
+            long[] starts = new long[limiter.getLimit()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = limiter.acquire();
+            }
+            for (long start : starts) {
+                limiter.release(start, Outcome.SUCCESS);
+            }
+        }
+        assertThat(limiter.getLimit()).isEqualTo(16);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void decreasesLimitOnDroppedSends() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(new SimpleMeterRegistry());
+        limiter.release(limiter.acquire(), Outcome.DROPPED);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        limiter.release(limiter.acquire(), Outcome.DROPPED);
+        limiter.release(limiter.acquire(), Outcome.DROPPED);
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void decreasesLimitWhenLatencyRises() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(new SimpleMeterRegistry());
+        limiter.release(limiter.acquire(), Outcome.SUCCESS); // 기준 지연 측정
+
+        long start = limiter.acquire();
+        Thread.sleep(20);
+        limiter.release(start, Outcome.SUCCESS);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void shedsWhenLimitAndQueueAreFull() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 1, 1, 1, 2.0, 0.5, 0, 1000, 0, 60000, 4, 1, new SimpleMeterRegistry());
+        long start = limiter.acquire();
+        assertThatThrownBy(limiter::acquire).isInstanceOf(SendLimitExceededException.class);
+        limiter.release(start, Outcome.IGNORED);
+        limiter.release(limiter.acquire(), Outcome.IGNORED);
+    }
+
+    @Test
+    void waitingRequestTimesOut() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(false, 1, 1, 1, 2.0, 0.5, 0, 50, 1, 60000, 4, 1, new SimpleMeterRegistry());
+        limiter.acquire();
+        long begin = System.nanoTime();
+        assertThatThrownBy(limiter::acquire).isInstanceOf(SendLimitExceededException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin)).isGreaterThanOrEqualTo(40);
+        assertThat(limiter.getWaiting()).isZero();
+    }
+
+    @Test
+    void splitsSlotsByWeightWhileBothPrioritiesWait() throws InterruptedException {
+        // 고정 한도 1, 가중치 3:1
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(false, 1, 1, 1, 2.0, 0.5, 0, 10_000, 100, 60000, 3, 1, new SimpleMeterRegistry());
+        List<MailPriority> order = new CopyOnWriteArrayList<>();
+        long held = limiter.acquire(MailPriority.BULK);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                for (MailPriority priority : MailPriority.values()) {
+                    executor.submit(() -> {
+                        long start = limiter.acquire(priority);
+                        order.add(priority);
+                        limiter.release(start, Outcome.IGNORED);
+                    });
+                }
+            }
+            while (limiter.getWaiting() < 16) {
+                Thread.sleep(1);
+            }
+            limiter.release(held, Outcome.IGNORED);
+        }
+
+        // T B T T T B T T: 트랜잭션 메일이 3/4, 대량 메일도 굶지 않음
+        assertThat(order.subList(0, 8)).filteredOn(p -> p == MailPriority.TRANSACTIONAL).hasSize(6);
+        assertThat(order).hasSize(16);
+    }
+
+    @Test
+    void bulkQueueFullDoesNotRejectTransactional() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(false, 1, 1, 1, 2.0, 0.5, 0, 10_000, 1, 60000, 4, 1, new SimpleMeterRegistry());
+        long held = limiter.acquire(MailPriority.BULK);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> limiter.release(limiter.acquire(MailPriority.BULK), Outcome.IGNORED));
+            while (limiter.getWaiting(MailPriority.BULK) < 1) {
+                Thread.sleep(1);
+            }
+            assertThatThrownBy(() -> limiter.acquire(MailPriority.BULK)).isInstanceOf(SendLimitExceededException.class);
+
+            Future<Long> transactional = executor.submit(() -> limiter.acquire(MailPriority.TRANSACTIONAL));
+            while (limiter.getWaiting(MailPriority.TRANSACTIONAL) < 1) {
+                Thread.sleep(1);
+            }
+            limiter.release(held, Outcome.IGNORED);
+            // 둘 다 기다리고 있었으므로 트랜잭션 메일이 먼저 슬롯을 받음
+            long start = transactional.get();
+            assertThat(limiter.getWaiting(MailPriority.BULK)).isEqualTo(1);
+            limiter.release(start, Outcome.IGNORED);
+        }
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getWaiting()).isZero();
+    }
+
+    @Test
+    void exposesLimitAsGauge() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyLimiter limiter = newLimiter(registry);
+        // 생성자에서는 등록하지 않고 초기화 콜백(@PostConstruct)에서 등록
+        assertThat(registry.find("smtp.concurrency.limit").gauge()).isNull();
+
+        limiter.registerMetrics();
+        assertThat(registry.get("smtp.concurrency.limit").gauge().value()).isEqualTo(4.0);
+    }
+}
@@ -0,0 +1,109 @@
+package resilience.emailservice.mail.limit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import resilience.emailservice.exception.DomainRateLimitedException;
+
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DomainFairSchedulerTests {
+
+    private DomainFairScheduler scheduler;
+
+    // 기본 1/s (burst 1), slow.com은 1/s (burst 2), fast.com은 1000/s
+    private DomainFairScheduler newScheduler(long maxWaitMillis) {
+        DomainFairScheduler s = new DomainFairScheduler();
+        ReflectionTestUtils.setField(s, "enabled", true);
+        ReflectionTestUtils.setField(s, "defaultRate", 1.0);
+        ReflectionTestUtils.setField(s, "defaultBurst", 1);
+        ReflectionTestUtils.setField(s, "overrides", "slow.com=1/2, fast.com=1000");
+        ReflectionTestUtils.setField(s, "globalRate", 0.0);
+        ReflectionTestUtils.setField(s, "maxWaitMillis", maxWaitMillis);
+        ReflectionTestUtils.setField(s, "maxDomains", 100);
+        s.start();
+        return s;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void resolvesOverridesIncludingSubdomains() {
+        scheduler = newScheduler(50);
+        assertThat(scheduler.limitFor("slow.com")).isEqualTo(new DomainFairScheduler.RateLimit(1, 2));
+        assertThat(scheduler.limitFor("mx.slow.com")).isEqualTo(new DomainFairScheduler.RateLimit(1, 2));
+        assertThat(scheduler.limitFor("fast.com").burst()).isEqualTo(1000);
+        assertThat(scheduler.limitFor("other.org")).isEqualTo(new DomainFairScheduler.RateLimit(1, 1));
+    }
+
+    @Test
+    void rejectsWhenDomainBudgetIsSpent() {
+        scheduler = newScheduler(50);
+        scheduler.acquire("a@slow.com");
+        scheduler.acquire("b@SLOW.com");
+        assertThatThrownBy(() -> scheduler.acquire("c@slow.com"))
+                .isInstanceOf(DomainRateLimitedException.class)
+                .satisfies(e -> assertThat(((DomainRateLimitedException) e).getRetryAfterMillis()).isPositive());
+    }
+
+    @Test
+    void throttledDomainDoesNotBlockOtherDomains() throws Exception {
+        scheduler = newScheduler(3000);
+        scheduler.acquire("a@slow.com");
+        scheduler.acquire("b@slow.com");
+        // slow.com의 다음 토큰은 약 1초 뒤. 그동안 기다리는 요청이 있어도 다른 도메인은 바로 통과해야 함
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> scheduler.acquire("c@slow.com"));
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            scheduler.acquire("user" + i + "@fast.com");
+        }
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin)).isLessThan(500);
+        assertThat(waiting).isNotDone();
+
+        waiting.get(3, TimeUnit.SECONDS);   // 토큰이 채워지면 디스패처가 차례를 줌
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void waiterTimingOutBeforeItsTurnDoesNotStallTheDomain() throws Exception {
+        scheduler = newScheduler(3000);
+        // 디스패처가 대기자를 확인한 직후 시간 초과로 취소된 상황: isDone()은 아직 false로 보이지만 complete는 실패
+        CompletableFuture<Void> timedOut = new CompletableFuture<>() {
+            @Override
+            public boolean isDone() {
+                return false;
+            }
+        };
+        timedOut.cancel(false);
+
+        Object state = ReflectionTestUtils.invokeMethod(scheduler, "stateOf", "other.org");
+        Queue<CompletableFuture<Void>> waiters = (Queue<CompletableFuture<Void>>) ReflectionTestUtils.getField(state, "waiters");
+        waiters.add(timedOut);
+        ((AtomicBoolean) ReflectionTestUtils.getField(state, "scheduled")).set(true);
+        ((Deque<Object>) ReflectionTestUtils.getField(scheduler, "ready")).addLast(state);
+        LockSupport.unpark((Thread) ReflectionTestUtils.getField(scheduler, "dispatcher"));
+        // 취소된 대기자가 유일한 토큰을 받아 버림
+        while (!waiters.isEmpty()) {
+            Thread.sleep(1);
+        }
+
+        // 다음 토큰(약 1초 뒤)에 새 요청이 차례를 받아야 함
+        long begin = System.nanoTime();
+        scheduler.acquire("next@other.org");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin)).isLessThan(2_500);
+    }
+}
@@ -0,0 +1,36 @@
+package resilience.emailservice.mail.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenRefillsAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 3);   // 100ms마다 1개, 최대 3개
+        long now = 1_000 * SECOND;
+
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isEqualTo(SECOND / 10);
+
+        assertThat(bucket.tryAcquire(now + SECOND / 10)).isZero();
+        assertThat(bucket.tryAcquire(now + SECOND / 10)).isPositive();
+    }
+
+    @Test
+    void becomesFullAfterIdle() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = 1_000 * SECOND;
+        bucket.tryAcquire(now);
+        assertThat(bucket.isFull(now)).isFalse();
+        assertThat(bucket.isFull(now + SECOND)).isTrue();
+        assertThat(bucket.waitNanos(now + SECOND)).isZero();
+    }
+}
@@ -0,0 +1,71 @@
+package resilience.emailservice.mail.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.SmtpConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailMetricsTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MailMetrics mailMetrics = new MailMetrics(registry);
+
+    private long timerCount(String name, String... tags) {
+        return registry.get(name).tags(tags).timer().count();
+    }
+
+    @Test
+    void tagsTimersByStageAndOutcome() {
+        long start = mailMetrics.start();
+        mailMetrics.recordAccept(false, start, null);
+        mailMetrics.recordAccept(true, start, new InvalidEmailException("잘못된 주소"));
+        mailMetrics.recordValidation(start, null);
+        mailMetrics.recordSmtpSend(true, start, new SmtpConnectionException("연결 실패"));
+        mailMetrics.recordListener(true, start, null);
+        mailMetrics.recordListener(false, start, null);
+        mailMetrics.recordParallelListener(start, null);
+
+        assertThat(timerCount("mail.accept", "mode", "sync", "outcome", "success")).isEqualTo(1);
+        assertThat(timerCount("mail.accept", "mode", "async", "outcome", "InvalidEmailException")).isEqualTo(1);
+        assertThat(timerCount("mail.validation", "outcome", "success")).isEqualTo(1);
+        assertThat(timerCount("mail.smtp.send", "mode", "relay", "outcome", "SmtpConnectionException")).isEqualTo(1);
+        assertThat(timerCount("mail.smtp.send", "mode", "simulated", "outcome", "success")).isZero();
+        assertThat(timerCount("mail.listener.process", "listener", "batch", "outcome", "success")).isEqualTo(1);
+        assertThat(timerCount("mail.listener.process", "listener", "single", "outcome", "success")).isEqualTo(1);
+        assertThat(timerCount("mail.listener.process", "listener", "parallel", "outcome", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void tagsRetryAndDltCountersWithRootCause() {
+        // Kafka 리스너 예외처럼 감싸져 와도 원인 예외 이름으로 태그
+        mailMetrics.countRetryAttempt(new ListenerExecutionFailedException("listener failed",
+                new SmtpConnectionException("연결 실패")));
+        mailMetrics.countRetryAttempt(new SmtpConnectionException("연결 실패"));
+        mailMetrics.countDltPublished("email-send-requests.DLT", new ListenerExecutionFailedException("listener failed",
+                new InvalidEmailException("잘못된 주소")));
+
+        assertThat(registry.get("mail.retry.attempts").tag("exception", "SmtpConnectionException").counter().count())
+                .isEqualTo(2);
+        assertThat(registry.get("mail.dlt.published")
+                .tag("topic", "email-send-requests.DLT")
+                .tag("exception", "InvalidEmailException")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countsDuplicatesBulkLinesAndCoalescedRecipients() {
+        mailMetrics.countDuplicate();
+        mailMetrics.countBulkLine(true);
+        mailMetrics.countBulkLine(true);
+        mailMetrics.countBulkLine(false);
+        mailMetrics.recordCoalescedGroup(5);
+
+        assertThat(registry.get("mail.duplicates").counter().count()).isEqualTo(1);
+        assertThat(registry.get("mail.bulk.lines").tag("result", "accepted").counter().count()).isEqualTo(2);
+        assertThat(registry.get("mail.bulk.lines").tag("result", "rejected").counter().count()).isEqualTo(1);
+        assertThat(registry.get("mail.coalesce.recipients").summary().totalAmount()).isEqualTo(5);
+    }
+}
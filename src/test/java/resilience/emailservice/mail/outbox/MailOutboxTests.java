@@ -0,0 +1,250 @@
+package resilience.emailservice.mail.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import resilience.emailservice.exception.InvalidRequestException;
+import resilience.emailservice.exception.OutboxFlushTimeoutException;
+import resilience.emailservice.mail.EmailRequest;
+import resilience.emailservice.mail.MailPriority;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailOutboxTests {
+
+    @TempDir
+    Path dir;
+
+    private SimpleMeterRegistry registry;
+
+    private MailOutbox open(int segmentSize) {
+        registry = new SimpleMeterRegistry();
+        MailOutbox outbox = new MailOutbox(registry);
+        ReflectionTestUtils.setField(outbox, "enabled", true);
+        ReflectionTestUtils.setField(outbox, "dir", dir.toString());
+        ReflectionTestUtils.setField(outbox, "segmentSize", segmentSize);
+        ReflectionTestUtils.setField(outbox, "fsync", true);
+        ReflectionTestUtils.setField(outbox, "flushTimeoutMillis", 5000L);
+        outbox.open();
+        return outbox;
+    }
+
+    @Test
+    void replaysUnfinishedRequestsAfterRestart() {
+        MailOutbox outbox = open(1 << 20);
+        EmailRequest keyed = new EmailRequest("b@example.com", "본문");
+        keyed.setIdempotencyKey("order-2");
+        keyed.setPriority(MailPriority.BULK);
+        outbox.append("id-1", new EmailRequest("a@example.com", "hello"));
+        outbox.append("id-2", keyed);
+        outbox.append("id-3", new EmailRequest("c@example.com"));
+        outbox.markDone("id-1");
+        outbox.close();
+
+        MailOutbox reopened = open(1 << 20);
+        List<OutboxEntry> recovered = reopened.drainRecovered();
+
+        assertThat(recovered).extracting(OutboxEntry::id).containsExactly("id-2", "id-3");
+        EmailRequest request = recovered.get(0).emailRequest();
+        assertThat(request.getEmail()).isEqualTo("b@example.com");
+        assertThat(request.getEmailBody()).isEqualTo("본문");
+        assertThat(request.getIdempotencyKey()).isEqualTo("order-2");
+        assertThat(request.getPriority()).isEqualTo(MailPriority.BULK);
+        assertThat(request.getTemplateId()).isNull();
+        assertThat(recovered.get(1).emailRequest().getEmailBody()).isNull();
+        assertThat(recovered.get(1).emailRequest().getPriority()).isNull();
+        assertThat(reopened.pendingCount()).isEqualTo(2);
+        assertThat(reopened.drainRecovered()).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void keepsRecoveredRecordsWhenAppendingAfterReopen() {
+        MailOutbox outbox = open(1 << 20);
+        outbox.append("id-1", new EmailRequest("a@example.com"));
+        outbox.close();
+
+        // 재기동 후 새 세그먼트에 이어 써도 이전 세그먼트의 미완료 요청은 남음
+        MailOutbox reopened = open(1 << 20);
+        assertThat(reopened.drainRecovered()).extracting(OutboxEntry::id).containsExactly("id-1");
+        reopened.append("id-2", new EmailRequest("b@example.com"));
+        reopened.close();
+
+        MailOutbox again = open(1 << 20);
+        assertThat(again.drainRecovered()).extracting(OutboxEntry::id).containsExactly("id-1", "id-2");
+        again.close();
+    }
+
+    @Test
+    void groupsConcurrentAppendsIntoOneForce() throws InterruptedException {
+        MailOutbox outbox = open(1 << 20);
+        ReentrantLock flushLock = (ReentrantLock) ReflectionTestUtils.getField(outbox, "flushLock");
+        int appenders = 8;
+        List<Thread> threads = new ArrayList<>();
+
+        Condition flushRequested = (Condition) ReflectionTestUtils.getField(outbox, "flushRequested");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        // 플러셔가 반영 요청을 기다리는 상태에서 락을 잡아, 기록을 모두 마친 접수 스레드들이 반영을 기다리게 함
+        flushLock.lock();
+        while (!flushLock.hasWaiters(flushRequested) && System.nanoTime() < deadline) {
+            flushLock.unlock();
+            Thread.sleep(1);
+            flushLock.lock();
+        }
+        try {
+            for (int i = 0; i < appenders; i++) {
+                String id = "id-" + i;
+                threads.add(Thread.ofPlatform().start(() -> outbox.append(id, new EmailRequest(id + "@example.com"))));
+            }
+            while (flushLock.getQueueLength() < appenders && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(flushLock.getQueueLength()).isEqualTo(appenders);
+        } finally {
+            flushLock.unlock();
+        }
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        assertThat(threads).noneMatch(Thread::isAlive);
+        assertThat(fsyncCount()).isEqualTo(1);
+        outbox.close();
+    }
+
+    @Test
+    void waitsOnceForSeveralAppendsWithoutFlush() {
+        MailOutbox outbox = open(1 << 20);
+        for (int i = 0; i < 5; i++) {
+            outbox.appendWithoutFlush("id-" + i, new EmailRequest("user" + i + "@example.com"));
+        }
+        outbox.flush();
+
+        assertThat(fsyncCount()).isEqualTo(1);
+        assertThat(outbox.pendingCount()).isEqualTo(5);
+        outbox.close();
+
+        MailOutbox reopened = open(1 << 20);
+        assertThat(reopened.drainRecovered()).hasSize(5);
+        reopened.close();
+    }
+
+    @Test
+    void ignoresTornTail() throws IOException {
+        MailOutbox outbox = open(1 << 20);
+        outbox.append("id-1", new EmailRequest("a@example.com"));
+        outbox.append("id-2", new EmailRequest("b@example.com"));
+        outbox.close();
+
+        // 두 번째 레코드 본문의 한 바이트를 망가뜨려 CRC가 맞지 않게 함
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.sorted().findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            int secondRecord = 8 + header.flip().getInt();
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), secondRecord + 12);
+        }
+
+        MailOutbox reopened = open(1 << 20);
+        assertThat(reopened.drainRecovered()).extracting(OutboxEntry::id).containsExactly("id-1");
+        reopened.close();
+    }
+
+    @Test
+    void deletesSegmentsOnceAllRequestsComplete() throws IOException {
+        MailOutbox outbox = open(256);   // 레코드 몇 개마다 새 세그먼트
+        for (int i = 0; i < 20; i++) {
+            outbox.append("id-" + i, new EmailRequest("user" + i + "@example.com"));
+        }
+        assertThat(segmentCount()).isGreaterThan(3);
+
+        for (int i = 0; i < 20; i++) {
+            outbox.markDone("id-" + i);
+        }
+        // 완료 기록이 들어 있는 최근 세그먼트만 남음
+        assertThat(segmentCount()).isLessThanOrEqualTo(2);
+        assertThat(outbox.pendingCount()).isZero();
+        outbox.close();
+
+        MailOutbox reopened = open(256);
+        assertThat(reopened.drainRecovered()).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void rejectsRequestTooLargeForSegment() {
+        MailOutbox outbox = open(256);
+
+        assertThatThrownBy(() -> outbox.append("id-1", new EmailRequest("a@example.com", "x".repeat(200))))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(outbox.pendingCount()).isZero();
+        outbox.close();
+    }
+
+    @Test
+    void failsWhenFlushDoesNotCompleteInTimeAndDoesNotReplayIt() throws InterruptedException {
+        MailOutbox outbox = stalled();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> outbox.append("id-1", new EmailRequest("a@example.com")))
+                .isInstanceOf(OutboxFlushTimeoutException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(50L, 2000L);
+        assertThat(outbox.pendingCount()).isZero();
+        ReflectionTestUtils.setField(outbox, "running", false);
+
+        // 실패 응답을 받은 요청은 재기동 후 다시 보내지 않음
+        MailOutbox reopened = open(1 << 20);
+        assertThat(reopened.drainRecovered()).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void keepsRecordsWrittenWithoutFlushWhenChunkFlushTimesOut() throws InterruptedException {
+        MailOutbox outbox = stalled();
+        outbox.appendWithoutFlush("id-1", new EmailRequest("a@example.com"));
+
+        // 이미 대기열에 넣은 요청이므로 완료 처리하지 않고 남겨 둠
+        assertThatThrownBy(outbox::flush).isInstanceOf(OutboxFlushTimeoutException.class);
+        assertThat(outbox.pendingCount()).isEqualTo(1);
+        ReflectionTestUtils.setField(outbox, "running", false);
+    }
+
+    // 플러셔를 멈춰 디스크 반영이 끝나지 않는 상황을 만듦
+    private MailOutbox stalled() throws InterruptedException {
+        MailOutbox outbox = open(1 << 20);
+        ReflectionTestUtils.setField(outbox, "flushTimeoutMillis", 50L);
+        outbox.close();
+        ((Thread) ReflectionTestUtils.getField(outbox, "flusher")).join();
+        ReflectionTestUtils.setField(outbox, "running", true);
+        return outbox;
+    }
+
+    private double fsyncCount() {
+        return registry.get("mail.outbox.fsyncs").counter().count();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
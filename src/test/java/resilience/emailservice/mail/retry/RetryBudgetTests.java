@@ -0,0 +1,44 @@
+package resilience.emailservice.mail.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private double withdrawals(String result) {
+        return registry.get("mail.retry.budget.withdrawals").tag("result", result).counter().count();
+    }
+
+    @Test
+    void grantsReservePlusRatioOfFirstAttemptSuccesses() {
+        // 예비분 1초 × 2 = 2개, 첫 시도 성공 30건 × 0.1 = 3개
+        RetryBudget budget = new RetryBudget(true, 0.1, 1, 2000, registry);
+        // 게이지는 생성자가 아니라 초기화 콜백(@PostConstruct)에서 등록
+        assertThat(registry.find("mail.retry.budget.available").gauge()).isNull();
+        budget.registerMetrics();
+        budget.recordFirstAttemptSuccess(30);
+
+        int granted = 0;
+        while (budget.tryAcquire()) {
+            granted++;
+        }
+
+        assertThat(granted).isEqualTo(5);
+        assertThat(withdrawals("granted")).isEqualTo(5);
+        assertThat(withdrawals("denied")).isEqualTo(1);
+        assertThat(registry.get("mail.retry.budget.available").gauge().value()).isZero();
+    }
+
+    @Test
+    void disabledBudgetNeverDenies() {
+        RetryBudget budget = new RetryBudget(false, 0.1, 0, 1000, registry);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(budget.tryAcquire()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package resilience.emailservice.mail.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.test.util.ReflectionTestUtils;
+import resilience.emailservice.exception.InvalidEmailException;
+import resilience.emailservice.exception.RetryBudgetExhaustedException;
+import resilience.emailservice.exception.SomeRetryableException;
+import resilience.emailservice.mail.metrics.MailMetrics;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetrySchedulerTests {
+
+    // 리스너 콜백을 "이벤트:재시도 횟수" 형태로 기록
+    private final Queue<String> events = new ConcurrentLinkedQueue<>();
+    private final RetryListener recorder = new RetryListener() {
+        @Override
+        public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
+            events.add("open:" + context.getRetryCount());
+            return true;
+        }
+
+        @Override
+        public <T, E extends Throwable> void onSuccess(RetryContext context, RetryCallback<T, E> callback, T result) {
+            events.add("success:" + context.getRetryCount());
+        }
+
+        @Override
+        public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+            events.add("error:" + context.getRetryCount());
+        }
+
+        @Override
+        public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+            events.add("close:" + (throwable == null ? "ok" : throwable.getClass().getSimpleName()));
+        }
+    };
+    private RetryScheduler scheduler;
+
+    private RetryScheduler newScheduler(RetryBudget budget, long initialDelayMillis, double jitter) {
+        RetryScheduler retryScheduler = new RetryScheduler(List.of(recorder), budget);
+        ReflectionTestUtils.setField(retryScheduler, "defaultMaxAttempts", 3);
+        ReflectionTestUtils.setField(retryScheduler, "initialDelayMillis", initialDelayMillis);
+        ReflectionTestUtils.setField(retryScheduler, "multiplier", 2.0);
+        ReflectionTestUtils.setField(retryScheduler, "maxDelayMillis", 30000L);
+        ReflectionTestUtils.setField(retryScheduler, "jitter", jitter);
+        ReflectionTestUtils.setField(retryScheduler, "workers", 2);
+        retryScheduler.start();
+        return retryScheduler;
+    }
+
+    private static RetryBudget unlimitedBudget() {
+        return new RetryBudget(false, 0.1, 10, 10000, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void backoffDoublesUpToMaxDelay() {
+        scheduler = newScheduler(unlimitedBudget(), 1000, 0);
+
+        assertThat(scheduler.backoffMillis(1)).isEqualTo(1000);
+        assertThat(scheduler.backoffMillis(2)).isEqualTo(2000);
+        assertThat(scheduler.backoffMillis(3)).isEqualTo(4000);
+        assertThat(scheduler.backoffMillis(5)).isEqualTo(16000);
+        assertThat(scheduler.backoffMillis(6)).isEqualTo(30000);
+        assertThat(scheduler.backoffMillis(20)).isEqualTo(30000);
+    }
+
+    @Test
+    void jitterSpreadsBackoffWithinBounds() {
+        scheduler = newScheduler(unlimitedBudget(), 1000, 0.5);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(scheduler.backoffMillis(2)).isBetween(1000L, 3000L);
+        }
+    }
+
+    @Test
+    void redispatchesRetryableFailuresOnWorkersUntilSuccess() throws Exception {
+        scheduler = newScheduler(unlimitedBudget(), 200, 0);
+        AtomicInteger attempts = new AtomicInteger();
+        Queue<String> threads = new ConcurrentLinkedQueue<>();
+
+        CompletableFuture<Void> result = scheduler.submit("flaky", () -> {
+            threads.add(Thread.currentThread().getName());
+            if (attempts.incrementAndGet() < 3) {
+                throw new SomeRetryableException("일시적 실패");
+            }
+        });
+
+        // 첫 시도는 호출 스레드에서 실행하고, 재시도는 예약만 한 채 바로 돌아옴
+        assertThat(result).isNotDone();
+        assertThat(scheduler.pendingCount()).isEqualTo(1);
+        result.get(5, TimeUnit.SECONDS);
+
+        assertThat(attempts).hasValue(3);
+        List<String> names = List.copyOf(threads);
+        assertThat(names.get(0)).isEqualTo(Thread.currentThread().getName());
+        assertThat(names.subList(1, names.size())).allMatch(name -> name.startsWith("mail-retry-"));
+        assertThat(events).containsExactly("open:0", "error:1", "error:2", "success:2", "close:ok");
+    }
+
+    @Test
+    void failsAfterMaxAttemptsAndNotifiesListeners() {
+        scheduler = newScheduler(unlimitedBudget(), 10, 0);
+
+        CompletableFuture<Void> result = scheduler.submit("down", () -> {
+            throw new SomeRetryableException("계속 실패");
+        }, 2);
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(SomeRetryableException.class);
+        assertThat(events).containsExactly("open:0", "error:1", "error:2", "close:SomeRetryableException");
+    }
+
+    @Test
+    void doesNotRetryNonRetryableOrWithoutBudget() {
+        scheduler = newScheduler(new RetryBudget(true, 0.0, 0, 1000, new SimpleMeterRegistry()), 10, 0);
+
+        CompletableFuture<Void> invalid = scheduler.submit("invalid", () -> {
+            throw new InvalidEmailException("잘못된 주소");
+        });
+        assertThat(invalid).isCompletedExceptionally();
+        assertThat(events).containsExactly("open:0", "error:1", "close:InvalidEmailException");
+
+        events.clear();
+        CompletableFuture<Void> noBudget = scheduler.submit("no-budget", () -> {
+            throw new SomeRetryableException("일시적 실패");
+        });
+        assertThatThrownBy(noBudget::join).hasCauseInstanceOf(RetryBudgetExhaustedException.class);
+        assertThat(scheduler.pendingCount()).isZero();
+        assertThat(events).containsExactly("open:0", "error:1", "close:RetryBudgetExhaustedException");
+    }
+
+    @Test
+    void stopCancelsScheduledRetries() {
+        scheduler = newScheduler(unlimitedBudget(), 60000, 0);
+
+        CompletableFuture<Void> result = scheduler.submit("slow", () -> {
+            throw new SomeRetryableException("일시적 실패");
+        });
+        assertThat(scheduler.pendingCount()).isEqualTo(1);
+
+        scheduler.stop();
+
+        assertThat(scheduler.isRunning()).isFalse();
+        assertThatThrownBy(result::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(events).last().isEqualTo("close:IllegalStateException");
+    }
+
+    @Test
+    void failsRetryRejectedByClosedWorkerPool() {
+        scheduler = newScheduler(unlimitedBudget(), 50, 0);
+
+        CompletableFuture<Void> result = scheduler.submit("rejected", () -> {
+            throw new SomeRetryableException("일시적 실패");
+        });
+        // stop()보다 워커 풀이 먼저 닫힌 종료 경합을 재현
+        ((ExecutorService) ReflectionTestUtils.getField(scheduler, "workerPool")).shutdown();
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(events).last().isEqualTo("close:RejectedExecutionException");
+    }
+
+    @Test
+    void countsOnlyFailuresThatAreRetried() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RetryScheduler retryScheduler = new RetryScheduler(List.of(new LoggingRetryListener(new MailMetrics(registry))),
+                unlimitedBudget());
+        ReflectionTestUtils.setField(retryScheduler, "defaultMaxAttempts", 3);
+        ReflectionTestUtils.setField(retryScheduler, "initialDelayMillis", 10L);
+        ReflectionTestUtils.setField(retryScheduler, "multiplier", 1.0);
+        ReflectionTestUtils.setField(retryScheduler, "maxDelayMillis", 10L);
+        ReflectionTestUtils.setField(retryScheduler, "workers", 1);
+        retryScheduler.start();
+        scheduler = retryScheduler;
+
+        // 3번 모두 실패: 재시도로 이어진 앞의 2번만 셈
+        CompletableFuture<Void> down = scheduler.submit("down", () -> {
+            throw new SomeRetryableException("계속 실패");
+        });
+        assertThatThrownBy(() -> down.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        // 재시도하지 않는 예외는 세지 않음
+        scheduler.submit("invalid", () -> {
+            throw new InvalidEmailException("잘못된 주소");
+        });
+
+        assertThat(registry.get("mail.retry.attempts").counters()).hasSize(1);
+        assertThat(registry.get("mail.retry.attempts").tag("exception", "SomeRetryableException").counter().count())
+                .isEqualTo(2);
+    }
+}
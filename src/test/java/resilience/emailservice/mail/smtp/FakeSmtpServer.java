@@ -0,0 +1,227 @@
+package resilience.emailservice.mail.smtp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 테스트용 로컬 SMTP 서버.
+ * 네트워크 없이 SMTP 클라이언트의 동작과 처리량을 측정하기 위해 사용합니다.
+ * DATA 완료 응답 전 지연(latencyMillis)과 실패율(failureRate, 451 응답)을 조절할 수 있습니다.
+ */
+public class FakeSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Queue<Socket> sockets = new ConcurrentLinkedQueue<>();
+
+    private final Queue<ReceivedMessage> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger resets = new AtomicInteger();
+
+    private volatile long latencyMillis;
+    private volatile double failureRate;
+    private volatile Consumer<ReceivedMessage> onMessage = message -> { };
+    private final Set<String> rejectedRecipients = ConcurrentHashMap.newKeySet();
+
+    public FakeSmtpServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        executor.submit(this::acceptLoop);
+    }
+
+    public FakeSmtpServer withLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    public FakeSmtpServer withFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    /** RCPT TO에 550으로 응답할 주소 */
+    public FakeSmtpServer rejectRecipient(String address) {
+        rejectedRecipients.add(address);
+        return this;
+    }
+
+    /** 메시지를 받을 때마다 (250 응답 전에) 호출할 콜백. 부하 테스트에서 전달 지연을 재는 데 사용 */
+    public FakeSmtpServer onMessage(Consumer<ReceivedMessage> onMessage) {
+        this.onMessage = onMessage;
+        return this;
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public String address() {
+        return "localhost:" + port();
+    }
+
+    /** 지금까지 수락한 TCP 연결 수 */
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    public int resetCount() {
+        return resets.get();
+    }
+
+    public List<ReceivedMessage> messages() {
+        return new ArrayList<>(messages);
+    }
+
+    public int messageCount() {
+        return messages.size();
+    }
+
+    /** 열려 있는 모든 클라이언트 연결을 서버 쪽에서 끊습니다. (끊긴 연결 교체 테스트용) */
+    public void dropAllConnections() {
+        Socket socket;
+        while ((socket = sockets.poll()) != null) {
+            closeQuietly(socket);
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                sockets.add(socket);
+                executor.submit(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            reply(writer, "220 fake-smtp ready");
+
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(writer, "250-fake-smtp\r\n250 PIPELINING");
+                    case "MAIL" -> {
+                        from = between(line);
+                        recipients.clear();
+                        reply(writer, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        String recipient = between(line);
+                        if (rejectedRecipients.contains(recipient)) {
+                            reply(writer, "550 no such user");
+                        } else {
+                            recipients.add(recipient);
+                            reply(writer, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        reply(writer, "354 End data with <CR><LF>.<CR><LF>");
+                        String body = readData(reader);
+                        if (body == null) {
+                            // 종료 표시 전에 끊긴 DATA는 실제 서버처럼 버림
+                            return;
+                        }
+                        if (latencyMillis > 0) {
+                            Thread.sleep(latencyMillis);
+                        }
+                        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                            reply(writer, "451 temporary failure");
+                        } else {
+                            ReceivedMessage message = new ReceivedMessage(from, List.copyOf(recipients), body);
+                            messages.add(message);
+                            onMessage.accept(message);
+                            reply(writer, "250 OK queued");
+                        }
+                        recipients.clear();
+                    }
+                    case "RSET" -> {
+                        resets.incrementAndGet();
+                        recipients.clear();
+                        reply(writer, "250 OK");
+                    }
+                    case "NOOP" -> reply(writer, "250 OK");
+                    case "QUIT" -> {
+                        reply(writer, "221 Bye");
+                        return;
+                    }
+                    default -> reply(writer, "502 Command not implemented");
+                }
+            }
+        } catch (SocketException e) {
+            // 서버 종료 또는 dropAllConnections로 끊긴 연결
+        } catch (IOException e) {
+            // 클라이언트가 연결을 끊음
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private static String readData(BufferedReader reader) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null && !line.equals(".")) {
+            data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+        }
+        return line == null ? null : data.toString();
+    }
+
+    private static String between(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>');
+        return start >= 0 && end > start ? line.substring(start + 1, end) : "";
+    }
+
+    private static void reply(Writer writer, String text) throws IOException {
+        writer.write(text);
+        writer.write("\r\n");
+        writer.flush();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // 테스트용 서버이므로 무시
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropAllConnections();
+        executor.shutdownNow();
+    }
+
+    public record ReceivedMessage(String from, List<String> recipients, String data) {
+    }
+}
@@ -0,0 +1,175 @@
+package resilience.emailservice.mail.smtp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SmtpConnectionPoolTests {
+
+    private static final int MESSAGES = 400;
+    private static final int THREADS = 8;
+
+    private FakeSmtpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeSmtpServer();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    private SmtpConnectionPool newPool(int maxConnections, long maxLifetimeMillis, long validateAfterIdleMillis) {
+        SmtpPoolSettings settings = new SmtpPoolSettings("test.local", false, maxConnections, maxLifetimeMillis,
+                validateAfterIdleMillis, 3000, 3000, 3000);
+        return new SmtpConnectionPool(new SmtpRelay("localhost", server.port()), settings);
+    }
+
+    @Test
+    void reusesConnectionsAcrossMessages() throws Exception {
+        try (SmtpConnectionPool pool = newPool(THREADS, 60_000, 5_000)) {
+            sendConcurrently(() -> pool.send("from@test.local", List.of("to@test.local"), "s", "body"));
+
+            assertThat(server.messageCount()).isEqualTo(MESSAGES);
+            // 연결은 동시 전송 스레드 수만큼만 열고 버린 연결 없이 모든 메시지에 재사용
+            assertThat(server.connectionCount()).isLessThanOrEqualTo(THREADS);
+            assertThat(pool.openedConnections()).isEqualTo(server.connectionCount());
+            assertThat(pool.discardedConnections()).isZero();
+            assertThat(pool.idleConnections()).isEqualTo(pool.openedConnections());
+            // 메시지 사이마다 RSET으로 세션을 초기화
+            assertThat(server.resetCount()).isEqualTo(MESSAGES);
+        }
+    }
+
+    @Test
+    void replacesBrokenIdleConnections() throws Exception {
+        // 유휴 연결은 항상 NOOP으로 검사하도록 validateAfterIdle = 0
+        try (SmtpConnectionPool pool = newPool(2, 60_000, 0)) {
+            pool.send("from@test.local", List.of("a@test.local"), "s", "first");
+            server.dropAllConnections();
+
+            pool.send("from@test.local", List.of("b@test.local"), "s", "second");
+
+            assertThat(server.messageCount()).isEqualTo(2);
+            assertThat(pool.openedConnections()).isEqualTo(2);
+            assertThat(pool.discardedConnections()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void closesConnectionsPastMaxLifetime() throws Exception {
+        try (SmtpConnectionPool pool = newPool(1, 0, 60_000)) {
+            pool.send("from@test.local", List.of("a@test.local"), "s", "first");
+            pool.send("from@test.local", List.of("b@test.local"), "s", "second");
+
+            assertThat(pool.openedConnections()).isEqualTo(2);
+            assertThat(pool.idleConnections()).isZero();
+        }
+    }
+
+    @Test
+    void keepsConnectionAfterRejectedReply() throws Exception {
+        server.withFailureRate(1.0);
+        try (SmtpConnectionPool pool = newPool(1, 60_000, 60_000)) {
+            assertThatThrownBy(() -> pool.send("from@test.local", List.of("a@test.local"), "s", "body"))
+                    .isInstanceOf(SmtpReplyException.class);
+
+            server.withFailureRate(0);
+            pool.send("from@test.local", List.of("a@test.local"), "s", "body");
+
+            assertThat(pool.openedConnections()).isEqualTo(1);
+            assertThat(server.messageCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void streamsBodyPiecesWithDotStuffing() throws Exception {
+        try (SmtpConnectionPool pool = newPool(1, 60_000, 60_000)) {
+            // 여러 번의 write로 나뉘어도 줄 시작의 '.' 처리와 CRLF 변환이 한 번에 쓴 것과 같아야 함
+            MailBody body = out -> {
+                out.write("first\n");
+                out.write(".");
+                out.write("dotted\r\nlast");
+            };
+            pool.send("from@test.local", List.of("a@test.local"), "s", body);
+
+            String data = server.messages().get(0).data();
+            assertThat(data).endsWith("\nfirst\n.dotted\nlast\n");
+            assertThat(pool.openedConnections()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void discardsConnectionWhenBodyFails() throws Exception {
+        try (SmtpConnectionPool pool = newPool(1, 60_000, 60_000)) {
+            MailBody failing = out -> {
+                out.write("partial");
+                throw new IllegalStateException("render failed");
+            };
+            assertThatThrownBy(() -> pool.send("from@test.local", List.of("a@test.local"), "s", failing))
+                    .isInstanceOf(IllegalStateException.class);
+
+            // DATA가 끝나지 않은 연결은 버리고 새 연결로 전송
+            pool.send("from@test.local", List.of("b@test.local"), "s", "body");
+
+            assertThat(pool.openedConnections()).isEqualTo(2);
+            assertThat(server.messageCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void sendsOneTransactionToManyRecipientsAndReportsRejectedOnes() throws Exception {
+        server.rejectRecipient("gone@test.local");
+        try (SmtpConnectionPool pool = newPool(1, 60_000, 60_000)) {
+            Map<String, SmtpReplyException> rejected = pool.sendEach("from@test.local",
+                    List.of("a@test.local", "gone@test.local", "b@test.local"), "s", MailBody.of("body"));
+
+            assertThat(rejected).containsOnlyKeys("gone@test.local");
+            assertThat(rejected.get("gone@test.local").isPermanent()).isTrue();
+            assertThat(server.messages()).singleElement().satisfies(message -> {
+                assertThat(message.recipients()).containsExactly("a@test.local", "b@test.local");
+                // 수신자끼리 서로의 주소가 보이지 않아야 함
+                assertThat(message.data()).contains("To: undisclosed-recipients:;").doesNotContain("a@test.local");
+            });
+
+            // 모두 거절되면 DATA 없이 끝나고 연결은 재사용
+            assertThat(pool.sendEach("from@test.local", List.of("gone@test.local"), "s", MailBody.of("body")))
+                    .containsOnlyKeys("gone@test.local");
+            assertThat(server.messageCount()).isEqualTo(1);
+            assertThat(pool.openedConnections()).isEqualTo(1);
+        }
+    }
+
+    private void sendConcurrently(SendTask task) throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < MESSAGES; i++) {
+                futures.add(executor.submit(() -> {
+                    task.send();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SendTask {
+        void send() throws IOException;
+    }
+}
@@ -0,0 +1,123 @@
+package resilience.emailservice.mail.smtp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmtpRelayRouterTests {
+
+    private static final MailBody BODY = MailBody.of("body");
+
+    private FakeSmtpServer fast;
+    private FakeSmtpServer other;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fast = new FakeSmtpServer();
+        other = new FakeSmtpServer();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fast.close();
+        other.close();
+    }
+
+    private SmtpRelayRouter newRouter(long decayMillis, int ejectAfterFailures, long ejectionMillis, long hedgeMinDelayMillis) {
+        SmtpPoolSettings pool = new SmtpPoolSettings("test.local", false, 8, 60_000, 5_000, 3000, 3000, 5000);
+        SmtpRoutingSettings routing = new SmtpRoutingSettings(0.2, decayMillis, ejectAfterFailures, ejectionMillis, 10_000, 50, hedgeMinDelayMillis);
+        return new SmtpRelayRouter(List.of(new SmtpRelay("localhost", fast.port()), new SmtpRelay("localhost", other.port())),
+                pool, routing);
+    }
+
+    private static void send(SmtpRelayRouter router, String to) throws IOException {
+        router.send("from@test.local", List.of(to), "s", BODY);
+    }
+
+    @Test
+    void sendsMostTrafficToTheFasterRelay() throws Exception {
+        other.withLatency(30);
+        try (SmtpRelayRouter router = newRouter(10_000, 5, 30_000, 50);
+             ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> {
+                    send(router, "user" + n + "@test.local");
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(fast.messageCount() + other.messageCount()).isEqualTo(200);
+        assertThat(fast.messageCount()).isGreaterThan(other.messageCount() * 4);
+    }
+
+    @Test
+    void ejectsFailingRelayAndReadmitsItAfterEjectionTime() throws Exception {
+        fast.withLatency(5);
+        other.withFailureRate(1.0);
+        // 실패한 other는 비용이 높아져도 지연이 금방 줄어 다시 선택되므로 연속 실패로 제외됨
+        try (SmtpRelayRouter router = newRouter(50, 3, 1_000, 50)) {
+            SmtpRelayNode failing = router.nodes().get(1);
+            int failures = 0;
+            for (int i = 0; i < 30; i++) {
+                try {
+                    send(router, "user" + i + "@test.local");
+                } catch (SmtpReplyException e) {
+                    failures++;
+                }
+            }
+            // 연속 3번 실패하면 제외되고 그 뒤로는 빠른 릴레이만 사용
+            assertThat(failures).isEqualTo(3);
+            assertThat(failing.isEjected()).isTrue();
+            assertThat(failing.ejectionCount()).isEqualTo(1);
+            assertThat(fast.messageCount()).isEqualTo(27);
+
+            other.withFailureRate(0);
+            Thread.sleep(1_050);
+            for (int i = 0; i < 50; i++) {
+                send(router, "again" + i + "@test.local");
+            }
+            assertThat(failing.isEjected()).isFalse();
+            assertThat(other.messageCount()).isPositive();
+        }
+    }
+
+    @Test
+    void hedgedSendCompletesOnSecondRelayWhenFirstIsSlow() throws Exception {
+        other.withLatency(5);
+        try (SmtpRelayRouter router = newRouter(10_000, 5, 30_000, 20)) {
+            // p95 표본을 모으는 동안 지연 EWMA가 작은 fast가 첫 릴레이로 굳어짐
+            for (int i = 0; i < 128; i++) {
+                send(router, "warmup" + i + "@test.local");
+            }
+            assertThat(router.latencyP95Millis()).isPositive();
+            int otherBefore = other.messageCount();
+
+            fast.withLatency(2_000);
+            long start = System.nanoTime();
+            router.send("from@test.local", List.of("urgent@test.local"), "s", BODY, true);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertThat(elapsedMillis).isLessThan(1_000);
+            assertThat(router.hedgedSends()).isEqualTo(1);
+            assertThat(router.hedgeWins()).isEqualTo(1);
+            assertThat(other.messageCount()).isEqualTo(otherBefore + 1);
+            // 진 쪽 전송은 취소된 것이므로 릴레이 실패로 세지 않음
+            assertThat(router.nodes().get(0).isEjected()).isFalse();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package resilience.emailservice.mail.template;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import resilience.emailservice.exception.InvalidTemplateException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailTemplateCacheTests {
+
+    @TempDir
+    Path dir;
+
+    private MailTemplateCache newCache(int maxTemplates, long checkIntervalMillis) {
+        return new MailTemplateCache(new DefaultResourceLoader(), dir.toUri().toString(), maxTemplates, checkIntervalMillis);
+    }
+
+    private void write(String id, String source, long lastModifiedMillis) throws IOException {
+        Path file = dir.resolve(id + ".txt");
+        Files.writeString(file, source);
+        assertThat(file.toFile().setLastModified(lastModifiedMillis)).isTrue();
+    }
+
+    @Test
+    void compilesOnceWithinCheckInterval() throws IOException {
+        write("welcome", "{{name}}님 환영합니다.", 1_000_000L);
+        MailTemplateCache cache = newCache(16, 60_000);
+
+        MailTemplate first = cache.get("welcome");
+        write("welcome", "바뀐 내용 {{name}}", 2_000_000L);
+
+        assertThat(cache.get("welcome")).isSameAs(first);
+    }
+
+    @Test
+    void recompilesWhenSourceVersionChanges() throws IOException {
+        write("welcome", "{{name}}님 환영합니다.", 1_000_000L);
+        MailTemplateCache cache = newCache(16, 0);
+
+        MailTemplate first = cache.get("welcome");
+        assertThat(cache.get("welcome")).isSameAs(first);
+
+        write("welcome", "{{name}}님, {{code}}", 2_000_000L);
+        MailTemplate second = cache.get("welcome");
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.version()).isEqualTo(2_000_000L);
+        assertThat(second.variables()).containsExactly("name", "code");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedTemplate() throws IOException {
+        write("a", "A", 1_000_000L);
+        write("b", "B", 1_000_000L);
+        write("c", "C", 1_000_000L);
+        MailTemplateCache cache = newCache(2, 60_000);
+
+        MailTemplate a = cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        cache.get("c");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).isSameAs(a);
+    }
+
+    @Test
+    void rejectsUnknownAndUnsafeIds() {
+        MailTemplateCache cache = newCache(16, 60_000);
+
+        assertThatThrownBy(() -> cache.get("missing")).isInstanceOf(InvalidTemplateException.class);
+        assertThatThrownBy(() -> cache.get("../secret")).isInstanceOf(InvalidTemplateException.class);
+        assertThatThrownBy(() -> cache.get(null)).isInstanceOf(InvalidTemplateException.class);
+    }
+}
@@ -0,0 +1,54 @@
+package resilience.emailservice.mail.template;
+
+import org.junit.jupiter.api.Test;
+import resilience.emailservice.exception.InvalidTemplateException;
+
+import java.io.StringWriter;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailTemplateTests {
+
+    private static String render(MailTemplate template, Map<String, String> values) throws Exception {
+        StringWriter out = new StringWriter();
+        template.checkVariables(values);
+        template.render(out, values);
+        return out.toString();
+    }
+
+    @Test
+    void rendersLiteralsAndVariablesInOrder() throws Exception {
+        MailTemplate template = MailTemplate.compile("welcome", 1L, "{{name}}님, {{ code }} 코드를 입력하세요. {{name}}");
+
+        assertThat(template.variables()).containsExactly("name", "code");
+        assertThat(render(template, Map.of("name", "홍길동", "code", "1234")))
+                .isEqualTo("홍길동님, 1234 코드를 입력하세요. 홍길동");
+    }
+
+    @Test
+    void templateWithoutVariablesRendersSource() throws Exception {
+        MailTemplate template = MailTemplate.compile("plain", 1L, "안내 메일입니다. {단일 중괄호}");
+
+        assertThat(template.variables()).isEmpty();
+        assertThat(render(template, Map.of())).isEqualTo("안내 메일입니다. {단일 중괄호}");
+    }
+
+    @Test
+    void rejectsMissingVariablesBeforeRendering() {
+        MailTemplate template = MailTemplate.compile("welcome", 1L, "{{name}} {{code}}");
+
+        assertThatThrownBy(() -> template.checkVariables(Map.of("name", "홍길동")))
+                .isInstanceOf(InvalidTemplateException.class)
+                .hasMessageContaining("[code]");
+    }
+
+    @Test
+    void rejectsMalformedSource() {
+        assertThatThrownBy(() -> MailTemplate.compile("broken", 1L, "{{name}} {{code"))
+                .isInstanceOf(InvalidTemplateException.class);
+        assertThatThrownBy(() -> MailTemplate.compile("empty", 1L, "안녕하세요 {{ }}"))
+                .isInstanceOf(InvalidTemplateException.class);
+    }
+}